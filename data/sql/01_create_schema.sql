@@ -84,14 +84,71 @@ CREATE TABLE IF NOT EXISTS tbl_enrollment (
     FOREIGN KEY (student_id) REFERENCES tbl_student(student_id) ON DELETE CASCADE,
     FOREIGN KEY (course_id) REFERENCES tbl_course(course_id) ON DELETE CASCADE,
     UNIQUE KEY enrollment_unique (student_id, course_id, semester, academic_year),
-    INDEX idx_student_id (student_id),
-    INDEX idx_course_id (course_id),
+    INDEX idx_enrollment_student_year (student_id, academic_year),
+    INDEX idx_enrollment_course_term (course_id, semester, academic_year),
     INDEX idx_enrollment_date (enrollment_date),
     INDEX idx_semester (semester),
     INDEX idx_academic_year (academic_year),
     INDEX idx_enrollment_status (enrollment_status)
 );
 
+-- Cache version table: one change counter per entity type, polled by every application
+-- instance to invalidate its local caches after writes made on other instances
+CREATE TABLE IF NOT EXISTS tbl_cache_version (
+    entity_type VARCHAR(100) NOT NULL,
+    version BIGINT NOT NULL,
+    updated_at TIMESTAMP NULL,
+    PRIMARY KEY (entity_type)
+);
+
+-- Cache change log: each entity changed by the write that moved its type's version in
+-- tbl_cache_version, so other instances replay those entities alone. A BULK_UPDATED row with
+-- entity id 0 stands for an unknown set of rows; rows are pruned by age
+CREATE TABLE IF NOT EXISTS tbl_cache_change (
+    entity_type VARCHAR(100) NOT NULL,
+    version BIGINT NOT NULL,
+    entity_id BIGINT NOT NULL,
+    change_type VARCHAR(20) NOT NULL,
+    changed_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (entity_type, version, entity_id),
+    INDEX idx_cache_change_changed_at (changed_at)
+);
+
+-- Closed academic years: the statistics of each year, frozen as JSON when it was closed
+CREATE TABLE IF NOT EXISTS tbl_closed_academic_year (
+    academic_year INT NOT NULL,
+    closed_at TIMESTAMP NOT NULL,
+    statistics LONGTEXT NOT NULL,
+    PRIMARY KEY (academic_year)
+);
+
+-- Trigrams (three-character substrings, upper-cased without accents) of student names and
+-- emails and course titles, codes and descriptions, for substring search through an index.
+-- Each trigram is packed into a number, 21 bits per code point, so no collation applies
+CREATE TABLE IF NOT EXISTS tbl_search_trigram (
+    source VARCHAR(20) NOT NULL,
+    trigram BIGINT NOT NULL,
+    entity_id BIGINT NOT NULL,
+    PRIMARY KEY (entity_id, trigram, source),
+    INDEX idx_search_trigram_lookup (source, trigram, entity_id)
+);
+
+-- Likely duplicate students found by the detection job, lower student id first, with their
+-- review status. Students are referenced by id only so deleting one is not blocked
+CREATE TABLE IF NOT EXISTS tbl_duplicate_candidate (
+    candidate_id BIGINT NOT NULL AUTO_INCREMENT,
+    student_id BIGINT NOT NULL,
+    other_student_id BIGINT NOT NULL,
+    score DOUBLE NOT NULL,
+    matched_on VARCHAR(100) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    detected_at TIMESTAMP NOT NULL,
+    reviewed_at TIMESTAMP NULL,
+    PRIMARY KEY (candidate_id),
+    CONSTRAINT duplicate_candidate_pair UNIQUE (student_id, other_student_id),
+    INDEX idx_duplicate_candidate_status (status, score)
+);
+
 -- Sequences for ID generation (MySQL uses AUTO_INCREMENT, but keeping for consistency)
 -- These will be created automatically by Hibernate
 
@@ -103,5 +160,10 @@ DESCRIBE tbl_department;
 DESCRIBE tbl_course;
 DESCRIBE tbl_student;
 DESCRIBE tbl_enrollment;
+DESCRIBE tbl_cache_version;
+DESCRIBE tbl_cache_change;
+DESCRIBE tbl_closed_academic_year;
+DESCRIBE tbl_search_trigram;
+DESCRIBE tbl_duplicate_candidate;
 
 SELECT 'Schema created successfully' as status;
\ No newline at end of file
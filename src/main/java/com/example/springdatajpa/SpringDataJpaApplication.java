@@ -2,10 +2,13 @@ package com.example.springdatajpa;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import com.example.springdatajpa.repository.NaturalIdRepositoryImpl;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 
 @SpringBootApplication
 @EnableJpaAuditing
+@EnableJpaRepositories(repositoryBaseClass = NaturalIdRepositoryImpl.class)
 public class SpringDataJpaApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,278 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.dto.CourseEnrollmentCount;
+import com.example.springdatajpa.dto.CourseNameFields;
+import com.example.springdatajpa.dto.SearchHit;
+import com.example.springdatajpa.dto.StudentNameFields;
+import com.example.springdatajpa.dto.Suggestion;
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.entity.Enrollment;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.event.EntityChangedEvent;
+import com.example.springdatajpa.repository.CourseRepository;
+import com.example.springdatajpa.repository.EnrollmentRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Name autocompletion for students (first and last name, in either order) and courses (title
+ * and course code), from one {@link PrefixIndex} per type held in memory.
+ *
+ * <p>Suggestions are ranked by weight: {@code app.cache.autocomplete.active-student-weight} or
+ * {@code inactive-student-weight} for students, and {@code course-weight} plus
+ * {@code course-enrollment-weight} per enrollment (in any status) for courses, so active students
+ * and popular courses come first. Weights of both types are compared when both are requested.
+ *
+ * <p>The indexes are filled by streaming students, courses and enrollment counts once after
+ * startup and kept current from committed changes: a created or updated student or course is
+ * re-indexed from the entity, a deleted one removed, and a created or deleted enrollment moves
+ * its course's weight by one. A bulk change rebuilds both indexes on a background thread, which
+ * replace the current ones when complete; entities changed during the rebuild are read again
+ * afterwards. Until the first build completes, {@link #isLoaded()} is false and nothing is
+ * suggested.
+ *
+ * <p>{@code autocomplete.lookup} times lookups (with a 99th percentile);
+ * {@code autocomplete.suggestions} and {@code autocomplete.nodes} report the index sizes.
+ */
+@Component
+@Slf4j
+public class AutocompleteIndex {
+
+    /**
+     * The indexes and the enrollment counts their course weights were computed from.
+     */
+    private record Indexes(PrefixIndex students, PrefixIndex courses, Map<Long, Long> enrollments) {
+    }
+
+    private record Changed(SearchHit.Type type, long id) {
+    }
+
+    private final StudentRepository studentRepository;
+    private final CourseRepository courseRepository;
+    private final EnrollmentRepository enrollmentRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Timer lookups;
+    private final boolean enabled;
+    private final int maxSuggestions;
+    private final double activeStudentWeight;
+    private final double inactiveStudentWeight;
+    private final double courseWeight;
+    private final double courseEnrollmentWeight;
+    // Records courses also for their enrollments
+    private final BackgroundReloader<Changed> reloader =
+            BackgroundReloader.refreshingKeys("autocomplete-load", "the autocomplete index");
+    private volatile Indexes indexes;
+    private volatile boolean loaded;
+
+    public AutocompleteIndex(StudentRepository studentRepository,
+                             CourseRepository courseRepository,
+                             EnrollmentRepository enrollmentRepository,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.cache.autocomplete.enabled:true}") boolean enabled,
+                             @Value("${app.cache.autocomplete.max-suggestions:10}") int maxSuggestions,
+                             @Value("${app.cache.autocomplete.active-student-weight:1}") double activeStudentWeight,
+                             @Value("${app.cache.autocomplete.inactive-student-weight:0}") double inactiveStudentWeight,
+                             @Value("${app.cache.autocomplete.course-weight:0}") double courseWeight,
+                             @Value("${app.cache.autocomplete.course-enrollment-weight:1}") double courseEnrollmentWeight) {
+        this.studentRepository = studentRepository;
+        this.courseRepository = courseRepository;
+        this.enrollmentRepository = enrollmentRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.maxSuggestions = maxSuggestions;
+        this.activeStudentWeight = activeStudentWeight;
+        this.inactiveStudentWeight = inactiveStudentWeight;
+        this.courseWeight = courseWeight;
+        this.courseEnrollmentWeight = courseEnrollmentWeight;
+        this.indexes = emptyIndexes();
+        this.lookups = Timer.builder("autocomplete.lookup")
+                .publishPercentiles(0.99)
+                .register(meterRegistry);
+        Gauge.builder("autocomplete.suggestions", this,
+                index -> index.indexes.students().size() + index.indexes.courses().size()).register(meterRegistry);
+        Gauge.builder("autocomplete.nodes", this,
+                index -> index.indexes.students().nodes() + index.indexes.courses().nodes()).register(meterRegistry);
+    }
+
+    /**
+     * The best {@code limit} suggestions of the given types whose name has a word starting with
+     * the prefix (so "smi" and "john sm" both find John Smith), best first.
+     */
+    public List<Suggestion> complete(String prefix, Set<SearchHit.Type> types, int limit) {
+        return lookups.record(() -> {
+            Indexes current = indexes;
+            int wanted = Math.min(limit, maxSuggestions);
+            List<Suggestion> suggestions = new ArrayList<>(wanted * 2);
+            if (types.contains(SearchHit.Type.STUDENT)) {
+                suggestions.addAll(current.students().complete(prefix, wanted));
+            }
+            if (types.contains(SearchHit.Type.COURSE)) {
+                suggestions.addAll(current.courses().complete(prefix, wanted));
+            }
+            suggestions.sort(PrefixIndex.RANKING);
+            return List.copyOf(suggestions.subList(0, Math.min(wanted, suggestions.size())));
+        });
+    }
+
+    public int maxSuggestions() {
+        return maxSuggestions;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (enabled && !loaded) {
+            scheduleReload();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reloader.shutdown();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (!enabled || !(event.affects(Student.class) || event.affects(Course.class) || event.affects(Enrollment.class))) {
+            return;
+        }
+        // Without its course a deleted enrollment cannot be uncounted
+        if (event.isBulk() || (event.isIdOnly() && event.affects(Enrollment.class))) {
+            scheduleReload();
+            return;
+        }
+        boolean deleted = event.changeType() == EntityChangedEvent.ChangeType.DELETED;
+        Indexes current = indexes;
+        if (event.entity() instanceof Student student) {
+            reloader.record(new Changed(SearchHit.Type.STUDENT, student.getStudentId()));
+            if (deleted) {
+                current.students().remove(student.getStudentId());
+            } else {
+                putStudent(current, student.getStudentId(), student.getFirstName(), student.getLastName(),
+                        student.getIsActive());
+            }
+        } else if (event.entity() instanceof Course course) {
+            reloader.record(new Changed(SearchHit.Type.COURSE, course.getCourseId()));
+            synchronized (current) {
+                if (deleted) {
+                    current.courses().remove(course.getCourseId());
+                    current.enrollments().remove(course.getCourseId());
+                } else {
+                    putCourse(current, new CourseNameFields(course.getCourseId(), course.getTitle(), course.getCourseCode()));
+                }
+            }
+        } else if (event.entity() instanceof Enrollment enrollment
+                && event.changeType() != EntityChangedEvent.ChangeType.UPDATED) {
+            long courseId = enrollment.getCourse().getCourseId();
+            reloader.record(new Changed(SearchHit.Type.COURSE, courseId));
+            // Counted under the lock so concurrent commits reweight in the order they counted
+            synchronized (current) {
+                if (current.courses().get(courseId).isPresent()) {
+                    long count = current.enrollments().merge(courseId, deleted ? -1L : 1L, Long::sum);
+                    current.courses().reweight(courseId, courseWeight(count));
+                }
+            }
+        }
+    }
+
+    /**
+     * Rebuilds both indexes from the database on the calling thread. Rebuilds run one at a time.
+     */
+    void reload() {
+        Indexes fresh = reloader.reload(this::load, current -> indexes = current, this::refresh);
+        loaded = true;
+        log.info("Indexed {} students and {} courses for autocompletion",
+                fresh.students().size(), fresh.courses().size());
+    }
+
+    private Indexes load() {
+        Indexes fresh = emptyIndexes();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            for (CourseEnrollmentCount count : enrollmentRepository.countEnrollmentsByCourse()) {
+                fresh.enrollments().put(count.courseId(), count.enrollments());
+            }
+            try (Stream<CourseNameFields> courses = courseRepository.streamNameFields()) {
+                courses.forEach(course -> putCourse(fresh, course));
+            }
+            try (Stream<StudentNameFields> students = studentRepository.streamNameFields()) {
+                students.forEach(student -> putStudent(fresh, student.studentId(), student.firstName(),
+                        student.lastName(), student.isActive()));
+            }
+        });
+        return fresh;
+    }
+
+    // Re-reads a batch of entities (and the enrollment counts of the courses), removing those that are gone
+    private void refresh(Indexes target, List<Changed> keys) {
+        List<Long> studentIds = keys.stream().filter(key -> key.type() == SearchHit.Type.STUDENT).map(Changed::id).toList();
+        List<Long> courseIds = keys.stream().filter(key -> key.type() == SearchHit.Type.COURSE).map(Changed::id).toList();
+        if (!studentIds.isEmpty()) {
+            studentIds.forEach(target.students()::remove);
+            for (StudentNameFields student : studentRepository.findNameFields(studentIds)) {
+                putStudent(target, student.studentId(), student.firstName(), student.lastName(), student.isActive());
+            }
+        }
+        if (!courseIds.isEmpty()) {
+            List<CourseEnrollmentCount> counts = enrollmentRepository.countEnrollmentsByCourse(courseIds);
+            List<CourseNameFields> courses = courseRepository.findNameFields(courseIds);
+            synchronized (target) {
+                courseIds.forEach(courseId -> {
+                    target.courses().remove(courseId);
+                    target.enrollments().remove(courseId);
+                });
+                for (CourseEnrollmentCount count : counts) {
+                    target.enrollments().put(count.courseId(), count.enrollments());
+                }
+                courses.forEach(course -> putCourse(target, course));
+            }
+        }
+    }
+
+    private void putStudent(Indexes target, long studentId, String firstName, String lastName, Boolean active) {
+        double weight = Boolean.FALSE.equals(active) ? inactiveStudentWeight : activeStudentWeight;
+        target.students().put(new Suggestion(SearchHit.Type.STUDENT, studentId, firstName + " " + lastName, weight),
+                PrefixIndex.keys(firstName + " " + lastName, lastName + " " + firstName));
+    }
+
+    private void putCourse(Indexes target, CourseNameFields course) {
+        double weight = courseWeight(target.enrollments().getOrDefault(course.courseId(), 0L));
+        target.courses().put(new Suggestion(SearchHit.Type.COURSE, course.courseId(),
+                        course.title() + " (" + course.courseCode() + ")", weight),
+                PrefixIndex.keys(course.title(), course.courseCode()));
+    }
+
+    private double courseWeight(long enrollments) {
+        return courseWeight + courseEnrollmentWeight * enrollments;
+    }
+
+    private Indexes emptyIndexes() {
+        return new Indexes(new PrefixIndex(maxSuggestions), new PrefixIndex(maxSuggestions), new ConcurrentHashMap<>());
+    }
+
+    private void scheduleReload() {
+        reloader.schedule(this::reload);
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.springdatajpa.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * The reload scaffold of an in-memory store that is rebuilt from the database while it keeps
+ * serving: a daemon thread to reload on, one reload at a time, and the changes committed while a
+ * reload reads the tables, which the store applies again once the reloaded state is swapped in.
+ * The store supplies its load, its swap, and what it does with those changes.
+ *
+ * <p>A store that reads changed entities again {@linkplain #refreshingKeys records their keys}
+ * and re-reads them after the swap, {@value #REFRESH_BATCH_SIZE} at a time. A store whose
+ * changes must apply in commit order {@linkplain #replayingEvents records the events} under
+ * its own write lock, which it also holds while it applies a change, so that the swap and the
+ * replay of the recorded events come between two changes.
+ *
+ * @param <K> what a change is recorded as: an entity key or the change event
+ */
+@Slf4j
+final class BackgroundReloader<K> {
+
+    static final int REFRESH_BATCH_SIZE = 1000;
+
+    private final String description;
+    private final Lock changeLock;
+    private final Supplier<Collection<K>> newChanges;
+    private final ExecutorService loader;
+    private final Object reloadLock = new Object();
+    // Changes committed while a reload runs, guarded by the change lock; null when none runs
+    private Collection<K> changedDuringLoad;
+
+    private BackgroundReloader(String threadName, String description, Lock changeLock,
+                               Supplier<Collection<K>> newChanges) {
+        this.description = description;
+        this.changeLock = changeLock;
+        this.newChanges = newChanges;
+        this.loader = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * A reloader recording the distinct keys of the entities changed during a reload.
+     *
+     * @param description what is reloaded, for the log ("the search index")
+     */
+    static <K> BackgroundReloader<K> refreshingKeys(String threadName, String description) {
+        return new BackgroundReloader<>(threadName, description, new ReentrantLock(), HashSet::new);
+    }
+
+    /**
+     * A reloader recording the changes committed during a reload in commit order, under the
+     * store's write lock.
+     */
+    static <K> BackgroundReloader<K> replayingEvents(String threadName, String description, Lock writeLock) {
+        return new BackgroundReloader<>(threadName, description, writeLock, ArrayList::new);
+    }
+
+    /**
+     * Records a committed change if a reload runs.
+     */
+    void record(K change) {
+        changeLock.lock();
+        try {
+            if (changedDuringLoad != null) {
+                changedDuringLoad.add(change);
+            }
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    /**
+     * Reloads on the calling thread: {@code swap} publishes the loaded state, then the keys
+     * changed meanwhile are read again into it by {@code refresh}, in batches. Reloads run one
+     * at a time.
+     *
+     * @return the loaded state
+     */
+    <S> S reload(Supplier<S> load, Consumer<S> swap, BiConsumer<S, List<K>> refresh) {
+        return reload(() -> {
+            S fresh = load.get();
+            List<K> changed = new ArrayList<>(swap(() -> swap.accept(fresh)));
+            for (int from = 0; from < changed.size(); from += REFRESH_BATCH_SIZE) {
+                refresh.accept(fresh, changed.subList(from, Math.min(changed.size(), from + REFRESH_BATCH_SIZE)));
+            }
+            return fresh;
+        });
+    }
+
+    /**
+     * Reloads on the calling thread: {@code swap} publishes the loaded state and applies the
+     * changes committed meanwhile to it, holding the change lock. Reloads run one at a time.
+     *
+     * @return the loaded state
+     */
+    <S> S reload(Supplier<S> load, BiConsumer<S, Collection<K>> swap) {
+        return reload(() -> {
+            S fresh = load.get();
+            changeLock.lock();
+            try {
+                swap.accept(fresh, swap(() -> { }));
+            } finally {
+                changeLock.unlock();
+            }
+            return fresh;
+        });
+    }
+
+    /**
+     * Runs a reload on the calling thread, recording changes until it {@linkplain #swap swaps}
+     * or ends. Reloads run one at a time. For a store that must take other locks before its
+     * change lock to swap; the others use one of the reload methods built on this.
+     */
+    <S> S reload(Supplier<S> reload) {
+        synchronized (reloadLock) {
+            changeLock.lock();
+            try {
+                changedDuringLoad = newChanges.get();
+            } finally {
+                changeLock.unlock();
+            }
+            try {
+                return reload.get();
+            } finally {
+                changeLock.lock();
+                try {
+                    changedDuringLoad = null;
+                } finally {
+                    changeLock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the swap holding the change lock and returns the changes recorded since the reload
+     * started; later ones are no longer recorded.
+     */
+    Collection<K> swap(Runnable swap) {
+        changeLock.lock();
+        try {
+            swap.run();
+            Collection<K> changed = changedDuringLoad;
+            changedDuringLoad = null;
+            return changed;
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    /**
+     * Runs the reload on the loader thread, logging its failure.
+     */
+    void schedule(Runnable reload) {
+        loader.execute(() -> {
+            try {
+                reload.run();
+            } catch (RuntimeException e) {
+                log.warn("Building {} failed: {}", description, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Runs a task other than a reload on the loader thread.
+     */
+    void execute(Runnable task) {
+        loader.execute(task);
+    }
+
+    void shutdown() {
+        loader.shutdownNow();
+    }
+}
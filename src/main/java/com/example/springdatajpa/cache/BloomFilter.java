@@ -0,0 +1,98 @@
+package com.example.springdatajpa.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size Bloom filter over strings, safe for concurrent adds and lookups without locking.
+ *
+ * <p>Sized for {@code capacity} keys at the requested false-positive rate: {@code m = -n ln p / (ln 2)^2}
+ * bits and {@code k = (m / n) ln 2} probes, derived by double hashing from two differently
+ * seeded 64-bit hashes of the key. Beyond {@code capacity} keys the false-positive rate grows; {@link #expectedFalsePositiveRate()}
+ * reports the rate implied by the bits actually set.
+ */
+class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int probes;
+    private final long capacity;
+    private final AtomicLong bitsSet = new AtomicLong();
+    private final AtomicLong additions = new AtomicLong();
+
+    BloomFilter(long capacity, double falsePositiveRate) {
+        if (capacity <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Invalid Bloom filter sizing: capacity " + capacity
+                    + ", false-positive rate " + falsePositiveRate);
+        }
+        long requiredBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (requiredBits + 63) / 64));
+        this.words = new AtomicLongArray(wordCount);
+        this.bits = wordCount * 64L;
+        this.probes = Math.max(1, (int) Math.round((double) bits / capacity * Math.log(2)));
+        this.capacity = capacity;
+    }
+
+    void add(String key) {
+        long hash1 = hash(key, 0x9E3779B97F4A7C15L);
+        long hash2 = hash(key, 0xC2B2AE3D27D4EB4FL) | 1;
+        for (int i = 0; i < probes; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bits);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long previous = words.getAndUpdate(word, value -> value | mask);
+            if ((previous & mask) == 0) {
+                bitsSet.incrementAndGet();
+            }
+        }
+        additions.incrementAndGet();
+    }
+
+    /**
+     * {@code false} means the key was definitely never added; {@code true} that it probably was.
+     */
+    boolean mightContain(String key) {
+        long hash1 = hash(key, 0x9E3779B97F4A7C15L);
+        long hash2 = hash(key, 0xC2B2AE3D27D4EB4FL) | 1;
+        for (int i = 0; i < probes; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Keys added so far, counting a key added twice twice.
+     */
+    long additions() {
+        return additions.get();
+    }
+
+    long sizeInBytes() {
+        return words.length() * 8L;
+    }
+
+    double expectedFalsePositiveRate() {
+        return Math.pow((double) bitsSet.get() / bits, probes);
+    }
+
+    private static long hash(String key, long seed) {
+        long hash = seed ^ key.length();
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x100000001B3L;
+        }
+        // Murmur3 finalizer, so every input bit affects every output bit
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
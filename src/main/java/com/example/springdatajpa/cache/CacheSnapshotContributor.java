@@ -0,0 +1,39 @@
+package com.example.springdatajpa.cache;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * An in-process cache whose contents are saved in the cache snapshot file and restored from it
+ * on startup by {@link CacheSnapshotStore}.
+ */
+public interface CacheSnapshotContributor {
+
+    /**
+     * Unique name of the cache's section in the snapshot file.
+     */
+    String snapshotSection();
+
+    /**
+     * Entity names whose row count and newest {@code lastModifiedDate} must be unchanged since
+     * the snapshot was written for the section to be restored.
+     */
+    List<String> snapshotEntities();
+
+    void writeSnapshot(DataOutputStream out) throws IOException;
+
+    /**
+     * Loads the section written by {@link #writeSnapshot}. The buffer is a read-only view of the
+     * memory-mapped file and is only valid during the call.
+     */
+    void restoreSnapshot(ByteBuffer section);
+
+    /**
+     * Called on a background thread after startup for a restored section, to bring entries the
+     * snapshot validation cannot vouch for back in line with the database.
+     */
+    default void reconcileSnapshot() {
+    }
+}
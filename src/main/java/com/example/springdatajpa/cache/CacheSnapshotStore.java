@@ -0,0 +1,308 @@
+package com.example.springdatajpa.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Saves the contents of the {@link CacheSnapshotContributor in-process caches} to a binary
+ * snapshot file every {@code app.cache.snapshot.interval} and on shutdown, and restores them
+ * from it on startup, so a restarted instance serves cache hits before it has read anything
+ * but a few aggregates from the database.
+ *
+ * <p>The file is written to a temporary file and moved into place, and starts with the row count
+ * and newest {@code lastModifiedDate} of every entity table, read before any cache content. On
+ * startup the file is memory-mapped, its checksum verified, and each section is handed to its
+ * cache only if the tables it depends on still have the same count and timestamp. After the
+ * application is ready, restored caches reconcile their entries with the database on a
+ * background thread.
+ *
+ * <p>Restores are counted in {@code cache.snapshot.restores} per section with
+ * {@code result=restored|stale}.
+ */
+@Component
+@Slf4j
+public class CacheSnapshotStore {
+
+    static final List<String> ENTITIES = List.of("Student", "Course", "Department", "Enrollment");
+
+    private static final int MAGIC = 0x53444A43; // "SDJC"
+    private static final int FORMAT_VERSION = 3;
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 8;
+
+    private final List<CacheSnapshotContributor> contributors;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Path path;
+    private final Duration interval;
+    private final List<CacheSnapshotContributor> restored = new ArrayList<>();
+    private ScheduledExecutorService executor;
+
+    public CacheSnapshotStore(List<CacheSnapshotContributor> contributors,
+                              EntityManager entityManager,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.cache.snapshot.enabled:true}") boolean enabled,
+                              @Value("${app.cache.snapshot.path:cache/snapshot.bin}") Path path,
+                              @Value("${app.cache.snapshot.interval:PT5M}") Duration interval) {
+        this.contributors = contributors;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.path = path;
+        this.interval = interval;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        if (enabled) {
+            restore();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.execute(this::reconcile);
+        executor.scheduleWithFixedDelay(this::writeQuietly, interval.toMillis(), interval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            writeQuietly();
+        }
+    }
+
+    /**
+     * Writes the current contents of every cache, replacing the previous snapshot. Sections are
+     * streamed to the file as the caches produce them, so the snapshot is never held in memory;
+     * the body length and checksum are filled into the header once the body is written.
+     */
+    public void write() throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            int length;
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                CRC32 crc = new CRC32();
+                DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                        new BufferedOutputStream(Channels.newOutputStream(channel.position(HEADER_BYTES))), crc));
+                writeBody(out);
+                out.flush();
+                length = out.size();
+                if (length == Integer.MAX_VALUE) {
+                    throw new IOException("Cache snapshot exceeds 2 GB");
+                }
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                        .putInt(MAGIC)
+                        .putInt(FORMAT_VERSION)
+                        .putInt(length)
+                        .putLong(crc.getValue())
+                        .flip();
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Wrote cache snapshot of {} bytes to {}", (long) length + HEADER_BYTES, path);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Writes the watermarks, then each section as its cache writes it, then an index of the
+     * sections' offsets and lengths in the body, and last the offset of that index.
+     */
+    private void writeBody(DataOutputStream out) throws IOException {
+        // Read before the caches: an entry newer than its watermark only fails validation
+        Map<String, TableWatermark> watermarks = readWatermarks();
+        out.writeInt(watermarks.size());
+        for (TableWatermark watermark : watermarks.values()) {
+            out.writeUTF(watermark.entity());
+            out.writeLong(watermark.rowCount());
+            out.writeUTF(watermark.lastModified() == null ? "" : watermark.lastModified().toString());
+        }
+        int[] offsets = new int[contributors.size() + 1];
+        for (int i = 0; i < contributors.size(); i++) {
+            offsets[i] = out.size();
+            contributors.get(i).writeSnapshot(out);
+        }
+        offsets[contributors.size()] = out.size();
+        out.writeInt(contributors.size());
+        for (int i = 0; i < contributors.size(); i++) {
+            out.writeUTF(contributors.get(i).snapshotSection());
+            out.writeInt(offsets[i]);
+            out.writeInt(offsets[i + 1] - offsets[i]);
+        }
+        out.writeInt(offsets[contributors.size()]);
+    }
+
+    /**
+     * Restores every section whose tables are unchanged and returns the names of the restored ones.
+     * A missing, truncated or corrupt snapshot restores nothing.
+     */
+    synchronized List<String> restore() {
+        restored.clear();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Map<String, ByteBuffer> sections = new HashMap<>();
+            Map<String, TableWatermark> saved = readBody(mapped, sections);
+            Map<String, TableWatermark> current = readWatermarks();
+            for (CacheSnapshotContributor contributor : contributors) {
+                String name = contributor.snapshotSection();
+                ByteBuffer section = sections.get(name);
+                boolean valid = section != null && contributor.snapshotEntities().stream()
+                        .allMatch(entity -> current.get(entity) != null && current.get(entity).equals(saved.get(entity)));
+                if (valid) {
+                    contributor.restoreSnapshot(section.asReadOnlyBuffer());
+                    restored.add(contributor);
+                }
+                counter(name, valid ? "restored" : "stale").increment();
+            }
+            log.info("Restored cache sections {} from snapshot {}",
+                    restored.stream().map(CacheSnapshotContributor::snapshotSection).toList(), path);
+        } catch (NoSuchFileException e) {
+            log.info("No cache snapshot at {}, starting with empty caches", path);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable cache snapshot {}: {}", path, e.toString());
+        }
+        return restored.stream().map(CacheSnapshotContributor::snapshotSection).toList();
+    }
+
+    private synchronized void reconcile() {
+        for (CacheSnapshotContributor contributor : restored) {
+            try {
+                contributor.reconcileSnapshot();
+            } catch (RuntimeException e) {
+                log.warn("Reconciling restored cache section {} failed: {}", contributor.snapshotSection(),
+                        e.getMessage());
+            }
+        }
+        restored.clear();
+    }
+
+    private void writeQuietly() {
+        try {
+            write();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Writing cache snapshot {} failed: {}", path, e.toString());
+        }
+    }
+
+    private static Map<String, TableWatermark> readBody(ByteBuffer file, Map<String, ByteBuffer> sections) {
+        if (file.getInt() != MAGIC || file.getInt() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Not a cache snapshot of format version " + FORMAT_VERSION);
+        }
+        int length = file.getInt();
+        long checksum = file.getLong();
+        ByteBuffer body = file.slice(file.position(), length);
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        if (crc.getValue() != checksum) {
+            throw new IllegalArgumentException("Checksum mismatch");
+        }
+        Map<String, TableWatermark> watermarks = new HashMap<>();
+        for (int i = body.getInt(); i > 0; i--) {
+            String entity = readUtf(body);
+            long rowCount = body.getLong();
+            String lastModified = readUtf(body);
+            watermarks.put(entity, new TableWatermark(entity, rowCount,
+                    lastModified.isEmpty() ? null : LocalDateTime.parse(lastModified)));
+        }
+        body.position(body.getInt(length - 4));
+        for (int i = body.getInt(); i > 0; i--) {
+            String name = readUtf(body);
+            int offset = body.getInt();
+            sections.put(name, body.slice(offset, body.getInt()));
+        }
+        return watermarks;
+    }
+
+    /**
+     * Reads a string written by {@link DataOutputStream#writeUTF} from a section buffer.
+     */
+    static String readUtf(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort(buffer.position()));
+        byte[] bytes = new byte[2 + length];
+        buffer.get(bytes);
+        try {
+            return new DataInputStream(new ByteArrayInputStream(bytes)).readUTF();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed string in cache snapshot", e);
+        }
+    }
+
+    private Map<String, TableWatermark> readWatermarks() {
+        return readOnlyTransaction.execute(status -> {
+            Map<String, TableWatermark> watermarks = new LinkedHashMap<>();
+            for (String entity : new TreeSet<>(ENTITIES)) {
+                Object[] row = entityManager.createQuery(
+                        "SELECT COUNT(e), MAX(e.lastModifiedDate) FROM " + entity + " e", Object[].class)
+                        .getSingleResult();
+                watermarks.put(entity, new TableWatermark(entity, (Long) row[0], (LocalDateTime) row[1]));
+            }
+            return watermarks;
+        });
+    }
+
+    private Counter counter(String section, String result) {
+        return Counter.builder("cache.snapshot.restores").tag("section", section).tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record TableWatermark(String entity, long rowCount, LocalDateTime lastModified) {
+    }
+}
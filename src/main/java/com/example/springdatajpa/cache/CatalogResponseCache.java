@@ -0,0 +1,330 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.dto.VersionStamp;
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.entity.Department;
+import com.example.springdatajpa.event.EntityChangedEvent;
+import com.example.springdatajpa.repository.CourseRepository;
+import com.example.springdatajpa.repository.DepartmentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Holds the fully encoded JSON bodies of the catalog listings ({@code /api/courses},
+ * {@code /api/courses/active}, {@code /api/departments}, {@code /api/departments/active}),
+ * each with a gzip-compressed variant, so a request is answered by copying bytes to the
+ * response without querying, hydrating entities or running Jackson.
+ *
+ * <p>A committed course or department change drops every listing at once, so the committing
+ * client reads its own write, and schedules a rebuild on a background thread (unless
+ * {@code app.cache.catalog-responses.background-rebuild} is off). A request that arrives before
+ * the rebuild finishes encodes the listing itself. A generation counter keeps
+ * an encoding that raced with a commit from being stored afterwards.
+ *
+ * <p>The encoded listings are part of the cache snapshot. After a restore, each listing is
+ * encoded again in the background and replaces the restored bytes if they differ.
+ */
+@Component
+@Slf4j
+public class CatalogResponseCache implements CacheSnapshotContributor {
+
+    public enum View {
+        COURSES,
+        ACTIVE_COURSES,
+        DEPARTMENTS,
+        ACTIVE_DEPARTMENTS
+    }
+
+    private final CourseRepository courseRepository;
+    private final DepartmentRepository departmentRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Map<View, EncodedResponse> responses = new EnumMap<>(View.class);
+    private final Map<View, Counter> hits = new EnumMap<>(View.class);
+    private final Map<View, Counter> misses = new EnumMap<>(View.class);
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-response-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final boolean backgroundRebuild;
+    private long generation;
+
+    public CatalogResponseCache(CourseRepository courseRepository,
+                                DepartmentRepository departmentRepository,
+                                ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.cache.catalog-responses.background-rebuild:true}") boolean backgroundRebuild) {
+        this.courseRepository = courseRepository;
+        this.departmentRepository = departmentRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.backgroundRebuild = backgroundRebuild;
+        for (View view : View.values()) {
+            String tag = view.name().toLowerCase();
+            hits.put(view, Counter.builder("catalog.response.cache.requests")
+                    .tag("view", tag).tag("result", "hit").register(meterRegistry));
+            misses.put(view, Counter.builder("catalog.response.cache.requests")
+                    .tag("view", tag).tag("result", "miss").register(meterRegistry));
+        }
+    }
+
+    /**
+     * Returns the encoded listing, encoding it on the calling thread if it is not cached.
+     */
+    public EncodedResponse get(View view) {
+        long startGeneration;
+        synchronized (this) {
+            EncodedResponse cached = responses.get(view);
+            if (cached != null) {
+                hits.get(view).increment();
+                return cached;
+            }
+            startGeneration = generation;
+        }
+        misses.get(view).increment();
+        EncodedResponse encoded = encode(view);
+        synchronized (this) {
+            if (generation == startGeneration) {
+                responses.putIfAbsent(view, encoded);
+            }
+        }
+        return encoded;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.affects(Course.class) || event.affects(Department.class)) {
+            invalidate();
+            scheduleRebuild();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        scheduleRebuild();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    @Override
+    public String snapshotSection() {
+        return "catalog-responses";
+    }
+
+    @Override
+    public List<String> snapshotEntities() {
+        return List.of("Course", "Department");
+    }
+
+    @Override
+    public void writeSnapshot(DataOutputStream out) throws IOException {
+        List<EncodedResponse> encoded;
+        synchronized (this) {
+            encoded = List.copyOf(responses.values());
+        }
+        out.writeInt(encoded.size());
+        for (EncodedResponse response : encoded) {
+            out.writeUTF(response.view().name());
+            out.writeLong(response.version().rowCount());
+            out.writeLong(response.version().relatedRowCount());
+            out.writeInt(response.version().modifiedDates().size());
+            for (LocalDateTime date : response.version().modifiedDates()) {
+                out.writeUTF(date == null ? "" : date.toString());
+            }
+            out.writeInt(response.json().length);
+            out.write(response.json());
+            out.writeInt(response.gzip().length);
+            out.write(response.gzip());
+        }
+    }
+
+    @Override
+    public void restoreSnapshot(ByteBuffer section) {
+        List<EncodedResponse> restored = new ArrayList<>();
+        for (int i = section.getInt(); i > 0; i--) {
+            View view = View.valueOf(CacheSnapshotStore.readUtf(section));
+            long rowCount = section.getLong();
+            long relatedRowCount = section.getLong();
+            LocalDateTime[] dates = new LocalDateTime[section.getInt()];
+            for (int d = 0; d < dates.length; d++) {
+                String date = CacheSnapshotStore.readUtf(section);
+                dates[d] = date.isEmpty() ? null : LocalDateTime.parse(date);
+            }
+            byte[] json = new byte[section.getInt()];
+            section.get(json);
+            byte[] gzip = new byte[section.getInt()];
+            section.get(gzip);
+            restored.add(new EncodedResponse(view, new VersionStamp(rowCount, relatedRowCount, Arrays.asList(dates)),
+                    json, gzip));
+        }
+        synchronized (this) {
+            restored.forEach(response -> responses.putIfAbsent(response.view(), response));
+        }
+    }
+
+    @Override
+    public void reconcileSnapshot() {
+        for (View view : View.values()) {
+            EncodedResponse restored;
+            long startGeneration;
+            synchronized (this) {
+                restored = responses.get(view);
+                startGeneration = generation;
+            }
+            if (restored == null) {
+                continue;
+            }
+            EncodedResponse current = encode(view);
+            if (!Arrays.equals(restored.json(), current.json()) || !restored.version().equals(current.version())) {
+                synchronized (this) {
+                    if (generation == startGeneration) {
+                        responses.put(view, current);
+                    }
+                }
+                log.info("Replaced restored {} listing that no longer matched the database", view);
+            }
+        }
+    }
+
+    private synchronized void invalidate() {
+        generation++;
+        responses.clear();
+        log.debug("Invalidated encoded catalog responses");
+    }
+
+    synchronized boolean isEncoded(View view) {
+        return responses.containsKey(view);
+    }
+
+    private void scheduleRebuild() {
+        if (backgroundRebuild && rebuildScheduled.compareAndSet(false, true)) {
+            rebuildExecutor.execute(this::rebuild);
+        }
+    }
+
+    private void rebuild() {
+        // Cleared first, so a commit during the rebuild schedules another one
+        rebuildScheduled.set(false);
+        try {
+            for (View view : View.values()) {
+                if (!isEncoded(view)) {
+                    get(view);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Rebuilding encoded catalog responses failed: {}", e.getMessage());
+        }
+    }
+
+    private EncodedResponse encode(View view) {
+        return readOnlyTransaction.execute(status -> {
+            VersionStamp version = switch (view) {
+                case COURSES, ACTIVE_COURSES -> courseRepository.findCatalogVersionStamp();
+                case DEPARTMENTS, ACTIVE_DEPARTMENTS -> departmentRepository.findCatalogVersionStamp();
+            };
+            try {
+                byte[] json = objectMapper.writeValueAsBytes(load(view));
+                return new EncodedResponse(view, version, json, gzip(json));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private List<?> load(View view) {
+        return switch (view) {
+            case COURSES -> courseRepository.findAllWithDepartment();
+            case ACTIVE_COURSES -> courseRepository.findActiveWithDepartment();
+            case DEPARTMENTS -> departmentRepository.findAll();
+            case ACTIVE_DEPARTMENTS -> departmentRepository.findByIsActiveTrue();
+        };
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, bytes.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * A listing encoded as JSON and as gzip-compressed JSON, with the version stamp of the
+     * tables it was read from.
+     */
+    public record EncodedResponse(View view, VersionStamp version, byte[] json, byte[] gzip) {
+
+        /**
+         * Builds the response for a request with the given {@code Accept-Encoding} header;
+         * the body is written to the servlet output stream as-is. The response carries an ETag
+         * (distinct per content coding) and Last-Modified, so Spring answers a matching
+         * conditional request with 304 and no body.
+         */
+        public ResponseEntity<byte[]> toResponse(String acceptEncoding) {
+            boolean compressed = acceptsGzip(acceptEncoding);
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .eTag(version.eTag(view.name() + (compressed ? "+gzip" : "")));
+            if (version.lastModifiedMillis() >= 0) {
+                builder.lastModified(version.lastModifiedMillis());
+            }
+            if (compressed) {
+                builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+            byte[] body = compressed ? gzip : json;
+            return builder.contentLength(body.length).body(body);
+        }
+
+        static boolean acceptsGzip(String acceptEncoding) {
+            if (acceptEncoding == null) {
+                return false;
+            }
+            for (String coding : acceptEncoding.split(",")) {
+                String[] parts = coding.trim().split(";");
+                if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                    return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+                }
+            }
+            return false;
+        }
+    }
+}
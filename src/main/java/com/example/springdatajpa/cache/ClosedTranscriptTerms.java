@@ -0,0 +1,13 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.dto.TranscriptTerm;
+
+import java.util.List;
+
+/**
+ * The closed prefix of a student's transcript: every term of every academic year up to and
+ * including {@code closedThroughYear}. {@code complete} means the student had no open term
+ * when the entry was cached, so the whole transcript can be served from it.
+ */
+public record ClosedTranscriptTerms(List<TranscriptTerm> terms, int closedThroughYear, boolean complete) {
+}
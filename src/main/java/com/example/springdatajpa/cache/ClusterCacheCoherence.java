@@ -0,0 +1,534 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.entity.CacheChange;
+import com.example.springdatajpa.entity.CacheVersion;
+import com.example.springdatajpa.entity.ClosedAcademicYear;
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.entity.Department;
+import com.example.springdatajpa.entity.Enrollment;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.event.EntityChangedEvent;
+import com.example.springdatajpa.repository.CacheChangeRepository;
+import com.example.springdatajpa.repository.CacheVersionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.metamodel.mapping.EntityValuedModelPart;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Keeps the in-process caches of several application instances coherent through the shared
+ * database alone, without a message broker.
+ *
+ * <p>Every transaction that changes a tracked entity type increments the type's row in
+ * {@code tbl_cache_version} just before it commits, and logs the ids it changed under the new
+ * version in {@code tbl_cache_change}, so both become visible exactly when the change does.
+ * Each instance polls the version table every {@code app.cache.coherence.poll-interval}. When a
+ * type's version moved past the last one seen, the changes logged under the versions other
+ * instances wrote are replayed: the changed entities are evicted from the second-level cache,
+ * reloaded, and published locally as {@link EntityChangedEvent#remote() remote} change events,
+ * so every other cache in the application updates just those entities. Versions written by this
+ * instance are remembered and skipped, since its caches were already updated by its own commit.
+ *
+ * <p>A type is dropped as a whole instead, with an {@link EntityChangedEvent#bulk bulk change
+ * event}, when a remote version logged a bulk update, the versions to replay logged more than
+ * {@code app.cache.coherence.max-logged-ids} ids, or a version has no log rows left because they
+ * outlived {@code app.cache.coherence.change-log-retention}. Collection caches are evicted for the
+ * collections the type owns or holds, never for unrelated ones.
+ *
+ * <p>A remote write is therefore visible on this instance within one poll interval (plus the
+ * time a poll takes). If polls keep failing for longer than {@code app.cache.coherence.max-staleness},
+ * every tracked type is dropped after each further failed poll, so no cache serves data older
+ * than that bound without the version table having been checked.
+ *
+ * <p>Invalidations are counted in {@code cache.coherence.invalidations}, tagged with the entity
+ * type and {@code cause=remote|remote-bulk|staleness}. {@code cache.coherence.staleness} reports
+ * the time since the last successful poll.
+ */
+@Component
+@Slf4j
+public class ClusterCacheCoherence {
+
+    // Referenced types first, so replayed changes find the entities they point to
+    static final List<Class<?>> TRACKED_TYPES =
+            List.of(Department.class, Course.class, Student.class, Enrollment.class, ClosedAcademicYear.class);
+
+    private static final String INCREMENT_SQL =
+            "UPDATE tbl_cache_version SET version = version + 1, updated_at = CURRENT_TIMESTAMP WHERE entity_type = ?";
+    private static final String INSERT_SQL =
+            "INSERT INTO tbl_cache_version (entity_type, version, updated_at) VALUES (?, 1, CURRENT_TIMESTAMP)";
+    private static final String SELECT_SQL = "SELECT version FROM tbl_cache_version WHERE entity_type = ?";
+    private static final String LOG_SQL =
+            "INSERT INTO tbl_cache_change (entity_type, version, entity_id, change_type, changed_at) VALUES (?, ?, ?, ?, ?)";
+
+    private final Map<String, Class<?>> trackedTypes = new LinkedHashMap<>();
+    private final Map<String, Long> seenVersions = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<Long>> localVersions = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Set<String>> ownedCollectionRoles = new HashMap<>();
+    private final Map<Class<?>, Set<String>> elementCollectionRoles = new HashMap<>();
+    private final Map<String, Counter> invalidations = new ConcurrentHashMap<>();
+    private final CacheVersionRepository cacheVersionRepository;
+    private final CacheChangeRepository cacheChangeRepository;
+    private final EntityManager entityManager;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate newTransaction;
+    private final TransactionTemplate readOnlyTransaction;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Duration pollInterval;
+    private final Duration maxStaleness;
+    private final int maxLoggedIds;
+    private final Duration changeLogRetention;
+    private final Clock clock = Clock.systemUTC();
+    private volatile long lastSuccessfulPoll;
+    private long lastPrune;
+    private ScheduledExecutorService poller;
+
+    public ClusterCacheCoherence(CacheVersionRepository cacheVersionRepository,
+                                 CacheChangeRepository cacheChangeRepository,
+                                 EntityManager entityManager,
+                                 EntityManagerFactory entityManagerFactory,
+                                 ApplicationEventPublisher eventPublisher,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.cache.coherence.enabled:true}") boolean enabled,
+                                 @Value("${app.cache.coherence.poll-interval:PT1S}") Duration pollInterval,
+                                 @Value("${app.cache.coherence.max-staleness:PT30S}") Duration maxStaleness,
+                                 @Value("${app.cache.coherence.max-logged-ids:1000}") int maxLoggedIds,
+                                 @Value("${app.cache.coherence.change-log-retention:PT5M}") Duration changeLogRetention) {
+        if (maxStaleness.compareTo(pollInterval) < 0) {
+            throw new IllegalArgumentException("Maximum staleness " + maxStaleness
+                    + " is shorter than the poll interval " + pollInterval);
+        }
+        if (changeLogRetention.compareTo(maxStaleness) < 0) {
+            throw new IllegalArgumentException("Change log retention " + changeLogRetention
+                    + " is shorter than the maximum staleness " + maxStaleness);
+        }
+        this.cacheVersionRepository = cacheVersionRepository;
+        this.cacheChangeRepository = cacheChangeRepository;
+        this.entityManager = entityManager;
+        this.entityManagerFactory = entityManagerFactory;
+        this.eventPublisher = eventPublisher;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.pollInterval = pollInterval;
+        this.maxStaleness = maxStaleness;
+        this.maxLoggedIds = maxLoggedIds;
+        this.changeLogRetention = changeLogRetention;
+        TRACKED_TYPES.forEach(type -> trackedTypes.put(type.getSimpleName(), type));
+    }
+
+    @PostConstruct
+    public void initialize() {
+        if (!enabled) {
+            return;
+        }
+        for (String type : trackedTypes.keySet()) {
+            try {
+                newTransaction.executeWithoutResult(status -> {
+                    if (!cacheVersionRepository.existsById(type)) {
+                        cacheVersionRepository.saveAndFlush(new CacheVersion(type, 0, LocalDateTime.now()));
+                    }
+                });
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Cache version row for {} was created by another instance", type);
+            }
+        }
+        cacheVersionRepository.findAll().forEach(row -> seenVersions.put(row.getEntityType(), row.getVersion()));
+        // The cached collections a change of each type can make stale: those it owns and those it is an element of
+        sessionFactory().getMappingMetamodel().forEachCollectionDescriptor(collection -> {
+            if (!collection.hasCache()) {
+                return;
+            }
+            trackedTypes.values().forEach(type -> {
+                if (type.isAssignableFrom(collection.getOwnerEntityPersister().getMappedClass())) {
+                    ownedCollectionRoles.computeIfAbsent(type, key -> new HashSet<>()).add(collection.getRole());
+                }
+                if (collection.getAttributeMapping().getElementDescriptor() instanceof EntityValuedModelPart element
+                        && type.isAssignableFrom(element.getEntityMappingType().getMappedJavaType().getJavaTypeClass())) {
+                    elementCollectionRoles.computeIfAbsent(type, key -> new HashSet<>()).add(collection.getRole());
+                }
+            });
+        });
+        lastSuccessfulPoll = clock.millis();
+        Gauge.builder("cache.coherence.staleness", this, coherence -> coherence.staleness().toMillis() / 1000.0)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startPolling() {
+        if (!enabled || poller != null) {
+            return;
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-coherence-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::poll, pollInterval.toMillis(), pollInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+    }
+
+    /**
+     * Schedules the version bump of the changed type in the current transaction, together with
+     * the log row of the changed entity. The bump runs in Hibernate's before-completion phase,
+     * after the final flush, so changes that are only flushed at commit still bump their type.
+     * Remote changes are skipped, since the instance that made them has logged them already.
+     */
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (!enabled || event.remote()) {
+            return;
+        }
+        Set<String> types = new LinkedHashSet<>();
+        trackedTypes.forEach((name, type) -> {
+            if (event.affects(type)) {
+                types.add(name);
+            }
+        });
+        if (types.isEmpty()) {
+            return;
+        }
+        Object id = event.isBulk() ? null : entityManagerFactory.getPersistenceUnitUtil().getIdentifier(event.entity());
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            for (String type : types) {
+                LoggedChanges changes = new LoggedChanges();
+                changes.add(event, id);
+                bumpInNewTransaction(type, changes);
+            }
+            return;
+        }
+        // Keyed by session rather than by this bean, so a REQUIRES_NEW transaction gets its own bumps
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        PendingBumps pending = (PendingBumps) TransactionSynchronizationManager.getResource(session);
+        if (pending == null) {
+            pending = new PendingBumps(session);
+            TransactionSynchronizationManager.bindResource(session, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+            session.getActionQueue().registerProcess(pending::bump);
+        }
+        for (String type : types) {
+            pending.changes.computeIfAbsent(type, key -> new LoggedChanges()).add(event, id);
+        }
+    }
+
+    /**
+     * Time since the version table was last read successfully.
+     */
+    public Duration staleness() {
+        return Duration.ofMillis(Math.max(0, clock.millis() - lastSuccessfulPoll));
+    }
+
+    void poll() {
+        try {
+            Map<String, Long> versions = new HashMap<>();
+            cacheVersionRepository.findAll().forEach(row -> versions.put(row.getEntityType(), row.getVersion()));
+            lastSuccessfulPoll = clock.millis();
+            trackedTypes.forEach((name, type) -> {
+                Long version = versions.get(name);
+                if (version != null) {
+                    apply(name, type, version);
+                }
+            });
+            pruneChangeLog();
+        } catch (RuntimeException e) {
+            log.warn("Polling cache versions failed: {}", e.getMessage());
+            if (staleness().compareTo(maxStaleness) > 0) {
+                log.warn("Cache versions unread for {}, dropping all cached entities", staleness());
+                trackedTypes.forEach((name, type) -> invalidate(name, type, "staleness"));
+            }
+        }
+    }
+
+    private void apply(String name, Class<?> type, long version) {
+        long seen = seenVersions.getOrDefault(name, 0L);
+        if (version <= seen) {
+            return;
+        }
+        NavigableSet<Long> local = localVersions(name);
+        Map<Long, EntityChangedEvent.ChangeType> changes = null;
+        boolean remote = true;
+        // More remote versions than ids worth replaying are not even read
+        if (version - seen - local.subSet(seen, false, version, true).size() <= maxLoggedIds) {
+            List<Long> remoteVersions = LongStream.rangeClosed(seen + 1, version)
+                    .filter(v -> !local.contains(v))
+                    .boxed()
+                    .toList();
+            remote = !remoteVersions.isEmpty();
+            changes = remote ? loggedChanges(name, remoteVersions) : Map.of();
+        }
+        local.headSet(version, true).clear();
+        seenVersions.put(name, version);
+        if (!remote) {
+            return;
+        }
+        if (changes != null) {
+            try {
+                replay(name, type, changes);
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Replaying remote {} changes failed, dropping the type: {}", name, e.getMessage());
+            }
+        }
+        invalidate(name, type, "remote-bulk");
+    }
+
+    // The first logged change of every id the versions changed; null if one of them logged a bulk
+    // update or has no rows left, or if they logged more ids than are replayed one by one
+    private Map<Long, EntityChangedEvent.ChangeType> loggedChanges(String name, List<Long> versions) {
+        List<CacheChange> rows = cacheChangeRepository.findChanges(name, versions, Limit.of(maxLoggedIds + 1));
+        if (rows.size() > maxLoggedIds) {
+            return null;
+        }
+        Map<Long, EntityChangedEvent.ChangeType> changes = new LinkedHashMap<>();
+        Set<Long> logged = new HashSet<>();
+        for (CacheChange row : rows) {
+            if (row.getChangeType() == EntityChangedEvent.ChangeType.BULK_UPDATED) {
+                return null;
+            }
+            logged.add(row.getVersion());
+            changes.putIfAbsent(row.getEntityId(), row.getChangeType());
+        }
+        return logged.size() == versions.size() ? changes : null;
+    }
+
+    /**
+     * Evicts the changed entities and reloads them, publishing a remote change event for each in
+     * the loading transaction, so transactional listeners run once it has ended. An entity that
+     * no longer exists is published as deleted with only its id set, unless it was also created
+     * since the last poll, in which case this instance never saw it.
+     */
+    private void replay(String name, Class<?> type, Map<Long, EntityChangedEvent.ChangeType> changes) {
+        List<Object> ids = changes.keySet().stream().map(id -> identifier(type, id)).toList();
+        Cache cache = sessionFactory().getCache();
+        ids.forEach(id -> cache.evictEntityData(type, id));
+        // Natural ids map the old values, which the log does not know
+        cache.evictNaturalIdData(type);
+        ownedCollectionRoles.getOrDefault(type, Set.of())
+                .forEach(role -> ids.forEach(id -> cache.evictCollectionData(role, id)));
+        // The collections that held a changed element before the change are not known either
+        elementCollectionRoles.getOrDefault(type, Set.of()).forEach(cache::evictCollectionData);
+        readOnlyTransaction.executeWithoutResult(status -> {
+            SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+            List<?> entities = session.byMultipleIds(type).multiLoad(ids);
+            EntityPersister persister = sessionFactory().getMappingMetamodel().getEntityDescriptor(type);
+            int index = 0;
+            for (EntityChangedEvent.ChangeType first : changes.values()) {
+                Object id = ids.get(index);
+                Object entity = entities.get(index++);
+                if (entity != null) {
+                    eventPublisher.publishEvent(new EntityChangedEvent(type, entity,
+                            first == EntityChangedEvent.ChangeType.CREATED
+                                    ? EntityChangedEvent.ChangeType.CREATED
+                                    : EntityChangedEvent.ChangeType.UPDATED).asRemote());
+                } else if (first != EntityChangedEvent.ChangeType.CREATED) {
+                    eventPublisher.publishEvent(new EntityChangedEvent(type, persister.instantiate(id, session),
+                            EntityChangedEvent.ChangeType.DELETED).asRemote());
+                }
+            }
+        });
+        count(name, "remote");
+        log.debug("Replayed {} remote {} changes", changes.size(), name);
+    }
+
+    private void invalidate(String name, Class<?> type, String cause) {
+        Cache cache = sessionFactory().getCache();
+        cache.evictEntityData(type);
+        cache.evictNaturalIdData(type);
+        ownedCollectionRoles.getOrDefault(type, Set.of()).forEach(cache::evictCollectionData);
+        elementCollectionRoles.getOrDefault(type, Set.of()).forEach(cache::evictCollectionData);
+        eventPublisher.publishEvent(EntityChangedEvent.bulk(type).asRemote());
+        count(name, cause);
+        log.debug("Invalidated cached {} data ({})", name, cause);
+    }
+
+    private void count(String name, String cause) {
+        invalidations.computeIfAbsent(name + "/" + cause, key -> Counter.builder("cache.coherence.invalidations")
+                .tag("entity", name)
+                .tag("cause", cause)
+                .register(meterRegistry)).increment();
+    }
+
+    // Log rows are kept long enough for an instance within the staleness bound to read them
+    private void pruneChangeLog() {
+        long now = clock.millis();
+        if (now - lastPrune < changeLogRetention.toMillis() / 4) {
+            return;
+        }
+        lastPrune = now;
+        LocalDateTime cutoff = LocalDateTime.now(clock).minus(changeLogRetention);
+        newTransaction.executeWithoutResult(status -> cacheChangeRepository.deleteChangesBefore(cutoff));
+    }
+
+    private Object identifier(Class<?> type, long id) {
+        if (entityManagerFactory.getMetamodel().entity(type).getIdType().getJavaType() == Integer.class) {
+            return Math.toIntExact(id);
+        }
+        return id;
+    }
+
+    private SessionFactoryImplementor sessionFactory() {
+        return entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+    }
+
+    private void bumpInNewTransaction(String type, LoggedChanges changes) {
+        newTransaction.executeWithoutResult(status -> entityManager.unwrap(SessionImplementor.class)
+                .doWork(connection -> localVersions(type).add(bump(connection, type, changes))));
+    }
+
+    private NavigableSet<Long> localVersions(String type) {
+        return localVersions.computeIfAbsent(type, name -> new ConcurrentSkipListSet<>());
+    }
+
+    // Increments the type's version and logs the changes under the new one, which it returns
+    private long bump(Connection connection, String type, LoggedChanges changes) throws SQLException {
+        if (update(connection, INCREMENT_SQL, type) == 0) {
+            update(connection, INSERT_SQL, type);
+        }
+        long version;
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_SQL)) {
+            statement.setString(1, type);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                version = resultSet.getLong(1);
+            }
+        }
+        Map<Long, EntityChangedEvent.ChangeType> logged = changes.bulk
+                ? Map.of(CacheChange.BULK_ENTITY_ID, EntityChangedEvent.ChangeType.BULK_UPDATED)
+                : changes.ids;
+        Timestamp changedAt = Timestamp.valueOf(LocalDateTime.now(clock));
+        try (PreparedStatement statement = connection.prepareStatement(LOG_SQL)) {
+            for (Map.Entry<Long, EntityChangedEvent.ChangeType> change : logged.entrySet()) {
+                statement.setString(1, type);
+                statement.setLong(2, version);
+                statement.setLong(3, change.getKey());
+                statement.setString(4, change.getValue().name());
+                statement.setTimestamp(5, changedAt);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+        return version;
+    }
+
+    private static int update(Connection connection, String sql, String type) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, type);
+            return statement.executeUpdate();
+        }
+    }
+
+    /**
+     * The first change of every entity of one type a transaction changed, until there are more
+     * than {@code max-logged-ids} of them or a bulk update; then the type is logged as bulk updated.
+     */
+    private class LoggedChanges {
+
+        private final Map<Long, EntityChangedEvent.ChangeType> ids = new LinkedHashMap<>();
+        private boolean bulk;
+
+        void add(EntityChangedEvent event, Object id) {
+            if (bulk) {
+                return;
+            }
+            if (!(id instanceof Number number)
+                    || (ids.size() >= maxLoggedIds && !ids.containsKey(number.longValue()))) {
+                bulk = true;
+                ids.clear();
+            } else {
+                ids.putIfAbsent(number.longValue(), event.changeType());
+            }
+        }
+    }
+
+    /**
+     * Changes of one transaction and the versions its bumps produced. The versions are
+     * remembered as local as soon as they are written; the commit makes them visible to the
+     * poller, and a rollback takes them back.
+     */
+    private class PendingBumps implements TransactionSynchronization {
+
+        private final SessionImplementor session;
+        private final Map<String, LoggedChanges> changes = new LinkedHashMap<>();
+        private final Map<String, Long> versions = new HashMap<>();
+
+        PendingBumps(SessionImplementor session) {
+            this.session = session;
+        }
+
+        void bump(SessionImplementor completingSession) {
+            completingSession.doWork(connection -> {
+                for (Map.Entry<String, LoggedChanges> change : changes.entrySet()) {
+                    long version = ClusterCacheCoherence.this.bump(connection, change.getKey(), change.getValue());
+                    versions.put(change.getKey(), version);
+                    localVersions(change.getKey()).add(version);
+                }
+            });
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(session);
+            if (status != STATUS_COMMITTED) {
+                versions.forEach((type, version) -> localVersions(type).remove(version));
+            }
+        }
+    }
+}
@@ -0,0 +1,523 @@
+package com.example.springdatajpa.cache;
+
+import java.util.Arrays;
+
+/**
+ * A compressed set of unsigned 32-bit integers in the Roaring layout: values are grouped by
+ * their high 16 bits into containers of at most 65,536 low halves, each held as a sorted array
+ * while it has at most 4,096 values (two bytes per value) and as a 65,536-bit bitset beyond
+ * (8 KiB), whichever is smaller. Intersections, unions and differences work container by
+ * container, word by word between bitsets, so their cost follows the number of containers and
+ * values rather than the range of the ids.
+ *
+ * <p>Not thread-safe. {@link #and}, {@link #or} and {@link #andNot} return new bitmaps that share
+ * no containers with their operands.
+ */
+final class CompressedBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int BITSET_WORDS = 1024;
+
+    private char[] keys = new char[0];
+    private Container[] containers = new Container[0];
+    private int size;
+
+    static CompressedBitmap of(long... values) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (long value : values) {
+            bitmap.add(value);
+        }
+        return bitmap;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value is outside 0 to 2<sup>32</sup> - 1
+     */
+    void add(long value) {
+        check(value);
+        char high = (char) (value >>> 16);
+        int index = indexOf(high);
+        if (index < 0) {
+            index = -index - 1;
+            insertContainer(index, high, new ArrayContainer());
+        }
+        containers[index] = containers[index].add((char) value);
+    }
+
+    void remove(long value) {
+        if (value < 0 || value > 0xFFFFFFFFL) {
+            return;
+        }
+        int index = indexOf((char) (value >>> 16));
+        if (index < 0) {
+            return;
+        }
+        Container container = containers[index].remove((char) value);
+        if (container.cardinality() == 0) {
+            removeContainer(index);
+        } else {
+            containers[index] = container;
+        }
+    }
+
+    boolean contains(long value) {
+        if (value < 0 || value > 0xFFFFFFFFL) {
+            return false;
+        }
+        int index = indexOf((char) (value >>> 16));
+        return index >= 0 && containers[index].contains((char) value);
+    }
+
+    long cardinality() {
+        long cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Approximate heap footprint of the containers.
+     */
+    long sizeInBytes() {
+        long bytes = size * 3L;
+        for (int i = 0; i < size; i++) {
+            bytes += containers[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    CompressedBitmap and(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        for (int i = 0, j = 0; i < size && j < other.size; ) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container container = containers[i].and(other.containers[j]);
+                if (container.cardinality() > 0) {
+                    result.append(keys[i], container);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    CompressedBitmap or(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+                result.append(keys[i], containers[i++].copy());
+            } else if (i == size || keys[i] > other.keys[j]) {
+                result.append(other.keys[j], other.containers[j++].copy());
+            } else {
+                result.append(keys[i], containers[i++].or(other.containers[j++]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The union of any number of bitmaps. Cheaper than folding {@link #or} over them: each
+     * container of the result is accumulated in a bitset and turned back into an array at the
+     * end if small enough, instead of merging arrays once per operand.
+     */
+    static CompressedBitmap union(Iterable<CompressedBitmap> bitmaps) {
+        CompressedBitmap result = new CompressedBitmap();
+        for (CompressedBitmap bitmap : bitmaps) {
+            for (int j = 0; j < bitmap.size; j++) {
+                int index = result.indexOf(bitmap.keys[j]);
+                if (index < 0) {
+                    result.insertContainer(-index - 1, bitmap.keys[j], Container.toBitset(bitmap.containers[j]));
+                } else {
+                    ((BitsetContainer) result.containers[index]).addAll(bitmap.containers[j]);
+                }
+            }
+        }
+        for (int i = 0; i < result.size; i++) {
+            result.containers[i] = ((BitsetContainer) result.containers[i]).shrink();
+        }
+        return result;
+    }
+
+    CompressedBitmap andNot(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        for (int i = 0, j = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            Container container = j < other.size && other.keys[j] == keys[i]
+                    ? containers[i].andNot(other.containers[j]) : containers[i].copy();
+            if (container.cardinality() > 0) {
+                result.append(keys[i], container);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Up to {@code limit} values in ascending order, after skipping the first {@code offset};
+     * whole containers are skipped by their cardinality.
+     */
+    long[] select(long offset, int limit) {
+        long[] values = new long[(int) Math.max(0, Math.min(limit, cardinality() - offset))];
+        int count = 0;
+        long skip = offset;
+        for (int i = 0; i < size && count < values.length; i++) {
+            int cardinality = containers[i].cardinality();
+            if (skip >= cardinality) {
+                skip -= cardinality;
+                continue;
+            }
+            count = containers[i].select((long) keys[i] << 16, (int) skip, values, count);
+            skip = 0;
+        }
+        return values;
+    }
+
+    private static void check(long value) {
+        if (value < 0 || value > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("Value outside the unsigned 32-bit range: " + value);
+        }
+    }
+
+    private int indexOf(char high) {
+        return Arrays.binarySearch(keys, 0, size, high);
+    }
+
+    private void append(char high, Container container) {
+        insertContainer(size, high, container);
+    }
+
+    private void insertContainer(int index, char high, Container container) {
+        if (size == keys.length) {
+            int capacity = Math.max(4, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = high;
+        containers[index] = container;
+        size++;
+    }
+
+    private void removeContainer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        containers[--size] = null;
+    }
+
+    /**
+     * The low halves of the values sharing one high half. Mutators return the container to use
+     * from then on, which differs when the representation changes.
+     */
+    private abstract static sealed class Container permits ArrayContainer, BitsetContainer {
+
+        abstract Container add(char value);
+
+        abstract Container remove(char value);
+
+        abstract boolean contains(char value);
+
+        abstract int cardinality();
+
+        abstract long sizeInBytes();
+
+        abstract Container copy();
+
+        // Writes values from the skip-th on into the array from position count; returns the new count
+        abstract int select(long high, int skip, long[] values, int count);
+
+        Container and(Container other) {
+            if (this instanceof BitsetContainer a && other instanceof BitsetContainer b) {
+                long[] words = new long[BITSET_WORDS];
+                for (int i = 0; i < BITSET_WORDS; i++) {
+                    words[i] = a.words[i] & b.words[i];
+                }
+                return new BitsetContainer(words).shrink();
+            }
+            if (this instanceof ArrayContainer a && other instanceof ArrayContainer b) {
+                char[] values = new char[Math.min(a.cardinality, b.cardinality)];
+                int count = 0;
+                for (int i = 0, j = 0; i < a.cardinality && j < b.cardinality; ) {
+                    if (a.values[i] < b.values[j]) {
+                        i++;
+                    } else if (a.values[i] > b.values[j]) {
+                        j++;
+                    } else {
+                        values[count++] = a.values[i++];
+                        j++;
+                    }
+                }
+                return new ArrayContainer(values, count);
+            }
+            ArrayContainer array = this instanceof ArrayContainer a ? a : (ArrayContainer) other;
+            Container probe = array == this ? other : this;
+            char[] values = new char[array.cardinality];
+            int count = 0;
+            for (int i = 0; i < array.cardinality; i++) {
+                if (probe.contains(array.values[i])) {
+                    values[count++] = array.values[i];
+                }
+            }
+            return new ArrayContainer(values, count);
+        }
+
+        Container or(Container other) {
+            if (this instanceof ArrayContainer a && other instanceof ArrayContainer b
+                    && a.cardinality + b.cardinality <= ARRAY_MAX) {
+                char[] values = new char[a.cardinality + b.cardinality];
+                int count = 0;
+                int i = 0;
+                int j = 0;
+                while (i < a.cardinality || j < b.cardinality) {
+                    if (j == b.cardinality || (i < a.cardinality && a.values[i] < b.values[j])) {
+                        values[count++] = a.values[i++];
+                    } else if (i == a.cardinality || a.values[i] > b.values[j]) {
+                        values[count++] = b.values[j++];
+                    } else {
+                        values[count++] = a.values[i++];
+                        j++;
+                    }
+                }
+                return new ArrayContainer(values, count);
+            }
+            BitsetContainer result = toBitset(this);
+            result.addAll(other);
+            return result.shrink();
+        }
+
+        Container andNot(Container other) {
+            if (this instanceof ArrayContainer a) {
+                char[] values = new char[a.cardinality];
+                int count = 0;
+                for (int i = 0; i < a.cardinality; i++) {
+                    if (!other.contains(a.values[i])) {
+                        values[count++] = a.values[i];
+                    }
+                }
+                return new ArrayContainer(values, count);
+            }
+            BitsetContainer result = (BitsetContainer) copy();
+            if (other instanceof BitsetContainer b) {
+                for (int i = 0; i < BITSET_WORDS; i++) {
+                    result.words[i] &= ~b.words[i];
+                }
+                result.recount();
+            } else {
+                ArrayContainer b = (ArrayContainer) other;
+                for (int i = 0; i < b.cardinality; i++) {
+                    result.remove(b.values[i]);
+                }
+            }
+            return result.shrink();
+        }
+
+        private static BitsetContainer toBitset(Container container) {
+            if (container instanceof BitsetContainer bitset) {
+                return (BitsetContainer) bitset.copy();
+            }
+            ArrayContainer array = (ArrayContainer) container;
+            BitsetContainer bitset = new BitsetContainer(new long[BITSET_WORDS]);
+            for (int i = 0; i < array.cardinality; i++) {
+                bitset.add(array.values[i]);
+            }
+            return bitset;
+        }
+    }
+
+    private static final class ArrayContainer extends Container {
+
+        private char[] values;
+        private int cardinality;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_MAX) {
+                BitsetContainer bitset = Container.toBitset(this);
+                bitset.add(value);
+                return bitset;
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, cardinality * 2));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 16 + values.length * 2L;
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(1, cardinality)), cardinality);
+        }
+
+        @Override
+        int select(long high, int skip, long[] out, int count) {
+            for (int i = skip; i < cardinality && count < out.length; i++) {
+                out[count++] = high | values[i];
+            }
+            return count;
+        }
+    }
+
+    private static final class BitsetContainer extends Container {
+
+        private final long[] words;
+        private int cardinality;
+
+        BitsetContainer(long[] words) {
+            this.words = words;
+            recount();
+        }
+
+        @Override
+        Container add(char value) {
+            long bit = 1L << value;
+            if ((words[value >>> 6] & bit) == 0) {
+                words[value >>> 6] |= bit;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            long bit = 1L << value;
+            if ((words[value >>> 6] & bit) != 0) {
+                words[value >>> 6] &= ~bit;
+                cardinality--;
+            }
+            return cardinality <= ARRAY_MAX ? shrink() : this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 16 + BITSET_WORDS * 8L;
+        }
+
+        @Override
+        Container copy() {
+            return new BitsetContainer(words.clone());
+        }
+
+        @Override
+        int select(long high, int skip, long[] out, int count) {
+            int seen = 0;
+            for (int w = 0; w < BITSET_WORDS && count < out.length; w++) {
+                long word = words[w];
+                int bits = Long.bitCount(word);
+                if (seen + bits <= skip) {
+                    seen += bits;
+                    continue;
+                }
+                while (word != 0 && count < out.length) {
+                    int bit = Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    if (seen++ >= skip) {
+                        out[count++] = high | ((long) w << 6 | bit);
+                    }
+                }
+            }
+            return count;
+        }
+
+        void addAll(Container other) {
+            if (other instanceof BitsetContainer b) {
+                for (int i = 0; i < BITSET_WORDS; i++) {
+                    words[i] |= b.words[i];
+                }
+                recount();
+            } else {
+                ArrayContainer b = (ArrayContainer) other;
+                for (int i = 0; i < b.cardinality; i++) {
+                    add(b.values[i]);
+                }
+            }
+        }
+
+        void recount() {
+            int count = 0;
+            for (long word : words) {
+                count += Long.bitCount(word);
+            }
+            cardinality = count;
+        }
+
+        // Back to an array once small enough
+        Container shrink() {
+            if (cardinality > ARRAY_MAX) {
+                return this;
+            }
+            char[] values = new char[Math.max(1, cardinality)];
+            int count = 0;
+            for (int w = 0; w < BITSET_WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    values[count++] = (char) (w << 6 | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, count);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.config.CacheConfig;
+import com.example.springdatajpa.dto.CourseRosterEntry;
+import com.example.springdatajpa.entity.Enrollment;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.event.EntityChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Keeps the course roster cache consistent with committed writes: an enrollment change
+ * evicts every cached page of its course, a change to a student's identifying fields
+ * (or any bulk change) clears the whole cache. The event of an updated enrollment does not
+ * say which course it was on before, so an update also evicts every course with a cached
+ * page listing the enrollment's student, which its previous course's pages do.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CourseRosterCacheInvalidator {
+
+    private final CacheManager cacheManager;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.affects(Enrollment.class)) {
+            if (event.isBulk() || event.isIdOnly()) {
+                rosterCache().clear();
+            } else {
+                Enrollment enrollment = event.entityAs(Enrollment.class);
+                evictCourses(enrollment.getCourse().getCourseId(),
+                        event.changeType() == EntityChangedEvent.ChangeType.UPDATED
+                                ? enrollment.getStudent().getStudentId() : null);
+            }
+        } else if (event.affects(Student.class) && event.changeType() != EntityChangedEvent.ChangeType.CREATED) {
+            rosterCache().clear();
+        }
+    }
+
+    // Evicts the course's pages and, given a student, those of every course with a cached page listing them
+    private void evictCourses(Long courseId, Long studentId) {
+        Object nativeCache = rosterCache().getNativeCache();
+        if (nativeCache instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeineCache) {
+            Set<Long> courseIds = new HashSet<>();
+            courseIds.add(courseId);
+            if (studentId != null) {
+                caffeineCache.asMap().forEach((key, value) -> {
+                    if (key instanceof CourseRosterKey rosterKey && value instanceof Page<?> page
+                            && page.getContent().stream().anyMatch(entry ->
+                                    entry instanceof CourseRosterEntry rosterEntry && studentId.equals(rosterEntry.studentId()))) {
+                        courseIds.add(rosterKey.courseId());
+                    }
+                });
+            }
+            caffeineCache.asMap().keySet().removeIf(key ->
+                    key instanceof CourseRosterKey rosterKey && courseIds.contains(rosterKey.courseId()));
+            log.debug("Evicted cached roster pages of courses {}", courseIds);
+        } else {
+            rosterCache().clear();
+        }
+    }
+
+    private Cache rosterCache() {
+        return cacheManager.getCache(CacheConfig.COURSE_ROSTER);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.springdatajpa.cache;
+
+/**
+ * Cache key for one page of a course roster. The course id is kept as its own
+ * component so that all pages of a course can be evicted together.
+ */
+public record CourseRosterKey(Long courseId, String semester, Integer academicYear, int page, int size) {
+}
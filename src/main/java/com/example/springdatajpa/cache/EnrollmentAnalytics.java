@@ -0,0 +1,516 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.dto.AcademicYearStatistics;
+import com.example.springdatajpa.dto.CourseNameFields;
+import com.example.springdatajpa.dto.EnrollmentAnalyticsFields;
+import com.example.springdatajpa.dto.StudentSearchFields;
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.entity.Enrollment;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.event.EntityChangedEvent;
+import com.example.springdatajpa.repository.CourseRepository;
+import com.example.springdatajpa.repository.EnrollmentRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * The live enrollment statistics of an academic year (per course, per graded student and by
+ * enrollment count) computed from an in-memory columnar copy of {@code tbl_enrollment}
+ * ({@link EnrollmentColumns}) instead of a GROUP BY over the table. Each statistic is one pass
+ * over the rows, split into chunks aggregated in parallel on a pool of
+ * {@code app.cache.enrollment-analytics.parallelism} threads (0 for one per core) and merged.
+ *
+ * <p>The figures are those of the queries they replace ({@code getCourseEnrollmentStatistics},
+ * {@code getStudentPerformanceSummary} and {@code findMostActiveStudentsByYear}): the same rows
+ * are counted and grade points are summed exactly in hundredths, and averages and pass rates are
+ * divided out as the database does, rounding half up to {@code average-scale} and
+ * {@code pass-rate-scale} decimals (a negative scale meaning the nearest double). These scales
+ * depend on the database: H2 averages a {@code NUMERIC(4,2)} to 12 decimals, MySQL to 2 plus its
+ * {@code div_precision_increment}. Rows the queries leave in no particular order (equal counts or
+ * averages) are ordered by course or student id.
+ *
+ * <p>The copy is filled by streaming the enrollments, with the names and titles of students and
+ * courses, once after startup, and kept current from committed changes: a created or updated
+ * enrollment is appended as a new row, superseding its previous one, and a deleted one is marked
+ * dead; the columns are compacted once dead rows make up a quarter of them. A bulk change reloads
+ * the copy on a background thread, which replaces the current one when complete; changes
+ * committed during the reload are applied again to the new copy afterwards. Other aggregates of
+ * the enrollments ({@link EnrollmentCube}, {@link GradeDistributions}) are kept from these rows
+ * instead of a copy of their own, as {@link RowListener}s. Until the first load
+ * completes, {@link #isLoaded()} is false and callers should query the database; since the copy
+ * is known to be stale from a bulk change until the reload it triggers completes, and these
+ * figures must match the database's, it is false then too, as after a failed reload.
+ *
+ * <p>{@code enrollment.analytics.query} times the statistics (with a 99th percentile);
+ * {@code enrollment.analytics.rows} reports the live rows.
+ */
+@Component
+@Slf4j
+public class EnrollmentAnalytics {
+
+    private static final int CHUNK_ROWS = 1 << 16;
+    private static final short PASSING_GRADE_POINTS = 200;
+
+    private record CourseLabel(String title, String courseCode) {
+    }
+
+    private record StudentLabel(String firstName, String lastName, String emailId) {
+    }
+
+    /**
+     * The columns and the labels of the courses and students they refer to.
+     */
+    private record Snapshot(EnrollmentColumns columns, Map<Long, CourseLabel> courses, Map<Long, StudentLabel> students) {
+
+        static Snapshot empty() {
+            return new Snapshot(new EnrollmentColumns(), new HashMap<>(), new HashMap<>());
+        }
+    }
+
+    /**
+     * State derived from the enrollment rows, told of every change to them under the write lock,
+     * once the columns were first loaded. Row values are only valid during the call.
+     */
+    interface RowListener {
+
+        /**
+         * The columns were loaded anew: whatever was derived from earlier rows is to be derived again.
+         */
+        void rowsReloaded(EnrollmentColumns columns);
+
+        /**
+         * An enrollment's previous row was replaced by its new one; either is -1 for a created or
+         * deleted enrollment. The previous row is dead but still holds its values.
+         */
+        void rowChanged(EnrollmentColumns columns, int previousRow, int row);
+    }
+
+    private final EnrollmentRepository enrollmentRepository;
+    private final StudentRepository studentRepository;
+    private final CourseRepository courseRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Timer queries;
+    private final boolean enabled;
+    private final int averageScale;
+    private final int passRateScale;
+    private final ForkJoinPool pool;
+    // Guards the current snapshot; the write lock also orders changes against a reload's swap
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final BackgroundReloader<EntityChangedEvent> reloader =
+            BackgroundReloader.replayingEvents("enrollment-analytics-load", "the enrollment columns", lock.writeLock());
+    private Snapshot snapshot = Snapshot.empty();
+    // Whether the current columns were loaded, as opposed to the empty ones before the first load
+    private boolean rowsLoaded;
+    private volatile boolean loaded;
+    // Reloads scheduled and not yet finished; the copy is stale while there are any
+    private final AtomicInteger pendingReloads = new AtomicInteger();
+    private final List<RowListener> rowListeners = new CopyOnWriteArrayList<>();
+
+    public EnrollmentAnalytics(EnrollmentRepository enrollmentRepository,
+                               StudentRepository studentRepository,
+                               CourseRepository courseRepository,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.cache.enrollment-analytics.enabled:true}") boolean enabled,
+                               @Value("${app.cache.enrollment-analytics.parallelism:0}") int parallelism,
+                               @Value("${app.cache.enrollment-analytics.average-scale:12}") int averageScale,
+                               @Value("${app.cache.enrollment-analytics.pass-rate-scale:-1}") int passRateScale) {
+        this.enrollmentRepository = enrollmentRepository;
+        this.studentRepository = studentRepository;
+        this.courseRepository = courseRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.averageScale = averageScale;
+        this.passRateScale = passRateScale;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.queries = Timer.builder("enrollment.analytics.query")
+                .publishPercentiles(0.99)
+                .register(meterRegistry);
+        Gauge.builder("enrollment.analytics.rows", this, analytics -> analytics.read(current -> current.columns().size()))
+                .register(meterRegistry);
+    }
+
+    public boolean isLoaded() {
+        return loaded && pendingReloads.get() == 0;
+    }
+
+    void addRowListener(RowListener listener) {
+        rowListeners.add(listener);
+    }
+
+    /**
+     * Runs {@code reader} on the columns under the read lock, so no change is applied meanwhile
+     * and no listener is told of one; the columns are null until first loaded.
+     */
+    void readRows(Consumer<EnrollmentColumns> reader) {
+        lock.readLock().lock();
+        try {
+            reader.accept(rowsLoaded ? snapshot.columns() : null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Per course with enrollments in the year: enrollments, completed ones, average grade points
+     * (of those with grade points) and the percentage with at least 2.0 grade points; most
+     * enrollments first.
+     */
+    public List<AcademicYearStatistics.CourseStatistics> courseStatistics(int academicYear) {
+        return queries.record(() -> read(current -> {
+            EnrollmentColumns columns = current.columns();
+            // Per course: enrollments, completed, grade point sum and count, passing
+            Map<Long, long[]> totals = scan(columns, 5, (courses, row) -> {
+                if (columns.academicYear(row) != academicYear) {
+                    return;
+                }
+                int at = courses.offset(columns.courseId(row));
+                long[] course = courses.values;
+                course[at]++;
+                if (columns.status(row) == Enrollment.EnrollmentStatus.COMPLETED.ordinal()) {
+                    course[at + 1]++;
+                }
+                short points = columns.gradePoints(row);
+                if (points != EnrollmentColumns.NO_GRADE_POINTS) {
+                    course[at + 2] += points;
+                    course[at + 3]++;
+                    if (points >= PASSING_GRADE_POINTS) {
+                        course[at + 4]++;
+                    }
+                }
+            });
+            return totals.entrySet().stream()
+                    .sorted(Comparator.comparingLong((Map.Entry<Long, long[]> entry) -> -entry.getValue()[0])
+                            .thenComparing(Map.Entry::getKey))
+                    .map(entry -> {
+                        long[] course = entry.getValue();
+                        CourseLabel label = current.courses().getOrDefault(entry.getKey(), new CourseLabel(null, null));
+                        return new AcademicYearStatistics.CourseStatistics(label.title(), label.courseCode(),
+                                course[0], course[1], average(course[2], course[3]), divide(course[4] * 100, 0, course[0], passRateScale));
+                    })
+                    .toList();
+        }));
+    }
+
+    /**
+     * Per student with letter-graded enrollments in the year: those enrollments and their
+     * average grade points; best average first, students without grade points last.
+     */
+    public List<AcademicYearStatistics.StudentPerformance> studentPerformance(int academicYear) {
+        return queries.record(() -> read(current -> {
+            EnrollmentColumns columns = current.columns();
+            // Per student: graded enrollments, grade point sum and count
+            Map<Long, long[]> totals = scan(columns, 3, (students, row) -> {
+                if (columns.academicYear(row) != academicYear || !columns.isGraded(row)) {
+                    return;
+                }
+                int at = students.offset(columns.studentId(row));
+                long[] student = students.values;
+                student[at]++;
+                short points = columns.gradePoints(row);
+                if (points != EnrollmentColumns.NO_GRADE_POINTS) {
+                    student[at + 1] += points;
+                    student[at + 2]++;
+                }
+            });
+            return totals.entrySet().stream()
+                    .map(entry -> {
+                        long[] student = entry.getValue();
+                        StudentLabel label = studentLabel(current, entry.getKey());
+                        return Map.entry(entry.getKey(), new AcademicYearStatistics.StudentPerformance(
+                                label.firstName() + " " + label.lastName(), label.emailId(), student[0],
+                                average(student[1], student[2])));
+                    })
+                    .sorted(Comparator.comparing((Map.Entry<Long, AcademicYearStatistics.StudentPerformance> entry) ->
+                                    entry.getValue().averageGrade(), Comparator.nullsLast(Comparator.reverseOrder()))
+                            .thenComparing(Map.Entry::getKey))
+                    .map(Map.Entry::getValue)
+                    .toList();
+        }));
+    }
+
+    /**
+     * The {@code limit} students with the most enrollments in the year, most first.
+     */
+    public List<AcademicYearStatistics.StudentActivity> mostActiveStudents(int academicYear, int limit) {
+        return queries.record(() -> read(current -> {
+            EnrollmentColumns columns = current.columns();
+            Map<Long, long[]> totals = scan(columns, 1, (students, row) -> {
+                if (columns.academicYear(row) == academicYear) {
+                    int at = students.offset(columns.studentId(row));
+                    students.values[at]++;
+                }
+            });
+            return totals.entrySet().stream()
+                    .sorted(Comparator.comparingLong((Map.Entry<Long, long[]> entry) -> -entry.getValue()[0])
+                            .thenComparing(Map.Entry::getKey))
+                    .limit(Math.max(limit, 0))
+                    .map(entry -> {
+                        StudentLabel label = studentLabel(current, entry.getKey());
+                        return new AcademicYearStatistics.StudentActivity(label.firstName(), label.lastName(),
+                                entry.getValue()[0]);
+                    })
+                    .toList();
+        }));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (enabled && !loaded) {
+            scheduleReload();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reloader.shutdown();
+        pool.shutdownNow();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (!enabled || !(event.affects(Enrollment.class) || event.affects(Student.class) || event.affects(Course.class))) {
+            return;
+        }
+        if (event.isBulk()) {
+            scheduleReload();
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            reloader.record(event);
+            apply(snapshot, event, rowsLoaded ? rowListeners : List.of());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reloads the copy from the database on the calling thread. Reloads run one at a time.
+     */
+    void reload() {
+        Snapshot fresh = reloader.reload(this::load, (current, changed) -> {
+            snapshot = current;
+            changed.forEach(event -> apply(current, event, List.of()));
+            rowsLoaded = true;
+            rowListeners.forEach(listener -> listener.rowsReloaded(current.columns()));
+        });
+        loaded = true;
+        log.info("Loaded {} enrollments into columns", fresh.columns().size());
+    }
+
+    private Snapshot load() {
+        Snapshot fresh = Snapshot.empty();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<CourseNameFields> courses = courseRepository.streamNameFields()) {
+                courses.forEach(course -> fresh.courses().put(course.courseId(),
+                        new CourseLabel(course.title(), course.courseCode())));
+            }
+            try (Stream<StudentSearchFields> students = studentRepository.streamSearchFields()) {
+                students.forEach(student -> fresh.students().put(student.studentId(),
+                        new StudentLabel(student.firstName(), student.lastName(), student.emailId())));
+            }
+            try (Stream<EnrollmentAnalyticsFields> enrollments = enrollmentRepository.streamAnalyticsFields()) {
+                enrollments.forEach(enrollment -> fresh.columns().put(enrollment.enrollmentId(),
+                        enrollment.studentId(), enrollment.courseId(), enrollment.academicYear(),
+                        enrollment.semester(), enrollment.enrollmentStatus(), enrollment.gradePoints(),
+                        enrollment.grade() != null, enrollment.attendancePercentage()));
+            }
+        });
+        return fresh;
+    }
+
+    private static void apply(Snapshot target, EntityChangedEvent event, List<RowListener> listeners) {
+        boolean deleted = event.changeType() == EntityChangedEvent.ChangeType.DELETED;
+        if (event.entity() instanceof Enrollment enrollment) {
+            int previousRow = target.columns().remove(enrollment.getEnrollmentId());
+            int row = deleted ? -1 : target.columns().put(enrollment.getEnrollmentId(),
+                    enrollment.getStudent().getStudentId(), enrollment.getCourse().getCourseId(),
+                    enrollment.getAcademicYear(), enrollment.getSemester(), enrollment.getEnrollmentStatus(),
+                    enrollment.getGradePoints(), enrollment.getGrade() != null, enrollment.getAttendancePercentage());
+            for (RowListener listener : listeners) {
+                listener.rowChanged(target.columns(), previousRow, row);
+            }
+            if (target.columns().needsCompaction()) {
+                target.columns().compact();
+            }
+        } else if (event.entity() instanceof Student student) {
+            if (deleted) {
+                target.students().remove(student.getStudentId());
+            } else {
+                target.students().put(student.getStudentId(),
+                        new StudentLabel(student.getFirstName(), student.getLastName(), student.getEmailId()));
+            }
+        } else if (event.entity() instanceof Course course) {
+            if (deleted) {
+                target.courses().remove(course.getCourseId());
+            } else {
+                target.courses().put(course.getCourseId(), new CourseLabel(course.getTitle(), course.getCourseCode()));
+            }
+        }
+    }
+
+    // One pass over the live rows: chunks are aggregated in parallel into per-key totals, which are then merged
+    private Map<Long, long[]> scan(EnrollmentColumns columns, int width, ObjIntConsumer<Totals> accumulator) {
+        int rowCount = columns.rowCount();
+        int chunks = (rowCount + CHUNK_ROWS - 1) / CHUNK_ROWS;
+        Totals merged = pool.submit(() -> IntStream.range(0, chunks).parallel()
+                .mapToObj(chunk -> {
+                    Totals totals = new Totals(width);
+                    for (int row = chunk * CHUNK_ROWS, end = Math.min(rowCount, row + CHUNK_ROWS); row < end; row++) {
+                        if (columns.isLive(row)) {
+                            accumulator.accept(totals, row);
+                        }
+                    }
+                    return totals;
+                })
+                .reduce(Totals::merge)
+                .orElseGet(() -> new Totals(width))).join();
+        return merged.toMap();
+    }
+
+    /**
+     * Running totals per long key, {@code width} of them per key in one array, found by open
+     * addressing, so accumulating a row allocates nothing.
+     */
+    private static final class Totals {
+
+        private final int width;
+        private long[] keys = new long[64];
+        private boolean[] used = new boolean[64];
+        private long[] values;
+        private int size;
+
+        Totals(int width) {
+            this.width = width;
+            this.values = new long[64 * width];
+        }
+
+        // Offset in values of the key's totals, added as zeros if new; values may be replaced meanwhile
+        int offset(long key) {
+            int mask = keys.length - 1;
+            int slot = (int) (key * 0x9E3779B97F4A7C15L >>> 40) & mask;
+            while (used[slot]) {
+                if (keys[slot] == key) {
+                    return slot * width;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (size * 2 >= keys.length) {
+                grow();
+                return offset(key);
+            }
+            used[slot] = true;
+            keys[slot] = key;
+            size++;
+            return slot * width;
+        }
+
+        Totals merge(Totals other) {
+            for (int slot = 0; slot < other.keys.length; slot++) {
+                if (other.used[slot]) {
+                    int at = offset(other.keys[slot]);
+                    for (int i = 0; i < width; i++) {
+                        values[at + i] += other.values[slot * width + i];
+                    }
+                }
+            }
+            return this;
+        }
+
+        Map<Long, long[]> toMap() {
+            Map<Long, long[]> map = new HashMap<>(size * 2);
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (used[slot]) {
+                    map.put(keys[slot], Arrays.copyOfRange(values, slot * width, (slot + 1) * width));
+                }
+            }
+            return map;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            boolean[] oldUsed = used;
+            long[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            values = new long[keys.length * width];
+            size = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldUsed[slot]) {
+                    System.arraycopy(oldValues, slot * width, values, offset(oldKeys[slot]), width);
+                }
+            }
+        }
+    }
+
+    private Double average(long hundredths, long count) {
+        return count == 0 ? null : divide(hundredths, 2, count, averageScale);
+    }
+
+    // unscaledDividend * 10^-dividendScale / divisor, rounded to the scale, or to the nearest double if negative
+    private static double divide(long unscaledDividend, int dividendScale, long divisor, int scale) {
+        if (scale < 0) {
+            return unscaledDividend / (Math.pow(10, dividendScale) * divisor);
+        }
+        return BigDecimal.valueOf(unscaledDividend, dividendScale)
+                .divide(BigDecimal.valueOf(divisor), scale, RoundingMode.HALF_UP)
+                .doubleValue();
+    }
+
+    private static StudentLabel studentLabel(Snapshot current, long studentId) {
+        return current.students().getOrDefault(studentId, new StudentLabel(null, null, null));
+    }
+
+    private <T> T read(Function<Snapshot, T> query) {
+        lock.readLock().lock();
+        try {
+            return query.apply(snapshot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void scheduleReload() {
+        pendingReloads.incrementAndGet();
+        reloader.schedule(() -> {
+            try {
+                reload();
+            } catch (RuntimeException e) {
+                loaded = false;
+                throw e;
+            } finally {
+                pendingReloads.decrementAndGet();
+            }
+        });
+    }
+}
@@ -0,0 +1,402 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.dto.CourseDimensions;
+import com.example.springdatajpa.dto.DepartmentSearchFields;
+import com.example.springdatajpa.dto.EnrollmentBitmapFields;
+import com.example.springdatajpa.dto.StudentDimensions;
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.entity.Department;
+import com.example.springdatajpa.entity.Enrollment;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.event.EntityChangedEvent;
+import com.example.springdatajpa.repository.CourseRepository;
+import com.example.springdatajpa.repository.DepartmentRepository;
+import com.example.springdatajpa.repository.EnrollmentRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Which students are enrolled where, as one {@link CompressedBitmap} of student ids per course,
+ * term and enrollment status, plus one per student status, for evaluating
+ * {@link StudentSetExpression set expressions} such as
+ * {@code course:CS101/COMPLETED AND NOT department:MATH} by bitmap intersections, unions and
+ * differences instead of joins over {@code tbl_enrollment}. A query may be restricted to an
+ * academic year, a semester or both, which picks the terms whose bitmaps are combined.
+ *
+ * <p>The bitmaps are filled by streaming the enrollments, students, courses and departments once
+ * after startup and kept current from committed changes: a created enrollment adds its student
+ * to its course-term bitmap for its status, an updated one moves the student to the bitmap of its
+ * new status and a deleted one removes the student from the course-term. Students, courses and
+ * departments maintain the status bitmaps and the code lookups. Since each student is enrolled
+ * at most once per course and term, these updates are exact; an updated enrollment that is not
+ * found where it says it is (moved to another course or term) and any bulk change rebuild the
+ * bitmaps on a background thread, which replace the current ones when complete. Changes committed
+ * during the rebuild are applied again to the new bitmaps afterwards. Until the first build
+ * completes, {@link #isLoaded()} is false and queries find nothing.
+ *
+ * <p>Student ids must fit in 32 bits (unsigned); a build meeting a larger id fails and leaves the
+ * index unloaded. {@code enrollment.bitmap.query} times queries (with a 99th percentile);
+ * {@code enrollment.bitmap.bitmaps} and {@code enrollment.bitmap.bytes} report the number of
+ * bitmaps and their approximate heap footprint.
+ */
+@Component
+@Slf4j
+public class EnrollmentBitmapIndex {
+
+    private record Term(int academicYear, String semester) {
+    }
+
+    /**
+     * Enrollment bitmaps by course, term and status (a null status being a key of its own),
+     * student status bitmaps, and the code lookups of courses (upper-cased) and departments.
+     */
+    private record Bitmaps(Map<Long, Map<Term, Map<Enrollment.EnrollmentStatus, CompressedBitmap>>> enrollments,
+                           Map<Student.StudentStatus, CompressedBitmap> studentStatuses,
+                           Map<String, Long> courseIds,
+                           Map<Long, String> courseCodes,
+                           Map<Long, Long> courseDepartments,
+                           Map<String, Long> departmentIds,
+                           Map<Long, String> departmentCodes) {
+
+        static Bitmaps empty() {
+            return new Bitmaps(new HashMap<>(), new HashMap<>(), new HashMap<>(), new HashMap<>(), new HashMap<>(),
+                    new HashMap<>(), new HashMap<>());
+        }
+    }
+
+    private final EnrollmentRepository enrollmentRepository;
+    private final StudentRepository studentRepository;
+    private final CourseRepository courseRepository;
+    private final DepartmentRepository departmentRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Timer queries;
+    private final boolean enabled;
+    // Guards the current bitmaps; the write lock also orders changes against a rebuild's swap
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final BackgroundReloader<EntityChangedEvent> reloader =
+            BackgroundReloader.replayingEvents("enrollment-bitmap-load", "the enrollment bitmaps", lock.writeLock());
+    private Bitmaps bitmaps = Bitmaps.empty();
+    private volatile boolean loaded;
+
+    public EnrollmentBitmapIndex(EnrollmentRepository enrollmentRepository,
+                                 StudentRepository studentRepository,
+                                 CourseRepository courseRepository,
+                                 DepartmentRepository departmentRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.cache.enrollment-bitmaps.enabled:true}") boolean enabled) {
+        this.enrollmentRepository = enrollmentRepository;
+        this.studentRepository = studentRepository;
+        this.courseRepository = courseRepository;
+        this.departmentRepository = departmentRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.queries = Timer.builder("enrollment.bitmap.query")
+                .publishPercentiles(0.99)
+                .register(meterRegistry);
+        Gauge.builder("enrollment.bitmap.bitmaps", this, index -> index.statistics()[0]).register(meterRegistry);
+        Gauge.builder("enrollment.bitmap.bytes", this, index -> index.statistics()[1])
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The number of students the expression selects.
+     *
+     * @param academicYear the academic year to restrict enrollments to, or null for all
+     * @param semester     the semester to restrict enrollments to, or null for all
+     * @throws IllegalArgumentException if the expression is malformed or names an unknown course
+     *                                  or department
+     */
+    public long count(String expression, Integer academicYear, String semester) {
+        StudentSetExpression.Node node = StudentSetExpression.parse(expression);
+        return queries.record(() -> read(current -> evaluate(current, node, academicYear, semester).cardinality()));
+    }
+
+    /**
+     * A page of the ids, ascending, of the students the expression selects, with their count as
+     * the total.
+     *
+     * @see #count
+     */
+    public Page<Long> findStudentIds(String expression, Integer academicYear, String semester, Pageable pageable) {
+        StudentSetExpression.Node node = StudentSetExpression.parse(expression);
+        return queries.record(() -> read(current -> {
+            CompressedBitmap students = evaluate(current, node, academicYear, semester);
+            long[] ids = students.select(pageable.getOffset(), pageable.getPageSize());
+            return new PageImpl<>(Arrays.stream(ids).boxed().toList(), pageable, students.cardinality());
+        }));
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (enabled && !loaded) {
+            scheduleReload();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reloader.shutdown();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (!enabled || !(event.affects(Enrollment.class) || event.affects(Student.class)
+                || event.affects(Course.class) || event.affects(Department.class))) {
+            return;
+        }
+        if (event.isBulk()) {
+            scheduleReload();
+            return;
+        }
+        boolean consistent;
+        lock.writeLock().lock();
+        try {
+            reloader.record(event);
+            consistent = apply(bitmaps, event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (!consistent) {
+            scheduleReload();
+        }
+    }
+
+    /**
+     * Rebuilds the bitmaps from the database on the calling thread. Rebuilds run one at a time.
+     */
+    void reload() {
+        reloader.reload(this::load, (fresh, changed) -> {
+            bitmaps = fresh;
+            boolean consistent = true;
+            for (EntityChangedEvent event : changed) {
+                consistent &= apply(fresh, event);
+            }
+            if (!consistent) {
+                scheduleReload();
+            }
+        });
+        loaded = true;
+        long[] statistics = statistics();
+        log.info("Built {} enrollment bitmaps ({} bytes)", statistics[0], statistics[1]);
+    }
+
+    private Bitmaps load() {
+        Bitmaps fresh = Bitmaps.empty();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<DepartmentSearchFields> departments = departmentRepository.streamSearchFields()) {
+                departments.forEach(department -> putDepartment(fresh, department.departmentId(),
+                        department.departmentCode()));
+            }
+            for (CourseDimensions course : courseRepository.findDimensions()) {
+                putCourse(fresh, course.courseId(), course.courseCode(), course.departmentId());
+            }
+            try (Stream<StudentDimensions> students = studentRepository.streamDimensions()) {
+                students.forEach(student -> bitmap(fresh.studentStatuses(), student.studentStatus())
+                        .add(studentId(student.studentId())));
+            }
+            try (Stream<EnrollmentBitmapFields> enrollments = enrollmentRepository.streamBitmapIndexFields()) {
+                enrollments.forEach(enrollment -> bitmap(fresh, enrollment.courseId(),
+                        new Term(enrollment.academicYear(), enrollment.semester()),
+                        enrollment.enrollmentStatus()).add(studentId(enrollment.studentId())));
+            }
+        });
+        return fresh;
+    }
+
+    // Applies a committed change; false if the bitmaps turned out not to match it and need a rebuild
+    private boolean apply(Bitmaps target, EntityChangedEvent event) {
+        boolean deleted = event.changeType() == EntityChangedEvent.ChangeType.DELETED;
+        if (event.entity() instanceof Enrollment enrollment) {
+            if (event.isIdOnly()) {
+                return false;
+            }
+            long studentId = studentId(enrollment.getStudent().getStudentId());
+            Map<Enrollment.EnrollmentStatus, CompressedBitmap> statuses = target.enrollments()
+                    .getOrDefault(enrollment.getCourse().getCourseId(), Map.of())
+                    .getOrDefault(new Term(enrollment.getAcademicYear(), enrollment.getSemester()), Map.of());
+            boolean found = false;
+            for (CompressedBitmap students : statuses.values()) {
+                found |= students.contains(studentId);
+                students.remove(studentId);
+            }
+            if (!deleted) {
+                bitmap(target, enrollment.getCourse().getCourseId(),
+                        new Term(enrollment.getAcademicYear(), enrollment.getSemester()),
+                        enrollment.getEnrollmentStatus()).add(studentId);
+            }
+            return found || event.changeType() != EntityChangedEvent.ChangeType.UPDATED;
+        } else if (event.entity() instanceof Student student) {
+            long studentId = studentId(student.getStudentId());
+            target.studentStatuses().values().forEach(students -> students.remove(studentId));
+            if (!deleted) {
+                bitmap(target.studentStatuses(), student.getStudentStatus()).add(studentId);
+            }
+        } else if (event.entity() instanceof Course course) {
+            String code = target.courseCodes().remove(course.getCourseId());
+            if (code != null) {
+                target.courseIds().remove(code);
+            }
+            target.courseDepartments().remove(course.getCourseId());
+            if (deleted) {
+                target.enrollments().remove(course.getCourseId());
+            } else {
+                putCourse(target, course.getCourseId(), course.getCourseCode(),
+                        course.getDepartment() == null ? null : course.getDepartment().getDepartmentId());
+            }
+        } else if (event.entity() instanceof Department department) {
+            String code = target.departmentCodes().remove(department.getDepartmentId());
+            if (code != null) {
+                target.departmentIds().remove(code);
+            }
+            if (!deleted) {
+                putDepartment(target, department.getDepartmentId(), department.getDepartmentCode());
+            }
+        }
+        return true;
+    }
+
+    private CompressedBitmap evaluate(Bitmaps current, StudentSetExpression.Node node, Integer academicYear,
+                                      String semester) {
+        return switch (node) {
+            case StudentSetExpression.Course course -> {
+                Long courseId = current.courseIds().get(course.courseCode().toUpperCase(Locale.ROOT));
+                if (courseId == null) {
+                    throw new IllegalArgumentException("Unknown course code '" + course.courseCode() + "'");
+                }
+                yield enrolled(current, List.of(courseId), course.status(), academicYear, semester);
+            }
+            case StudentSetExpression.Department department -> {
+                Long departmentId = current.departmentIds().get(department.departmentCode().toUpperCase(Locale.ROOT));
+                if (departmentId == null) {
+                    throw new IllegalArgumentException("Unknown department code '" + department.departmentCode() + "'");
+                }
+                List<Long> courseIds = current.courseDepartments().entrySet().stream()
+                        .filter(entry -> departmentId.equals(entry.getValue()))
+                        .map(Map.Entry::getKey)
+                        .toList();
+                yield enrolled(current, courseIds, department.status(), academicYear, semester);
+            }
+            case StudentSetExpression.EnrollmentStatus status ->
+                    enrolled(current, current.enrollments().keySet(), status.status(), academicYear, semester);
+            case StudentSetExpression.StudentStatus status ->
+                    current.studentStatuses().getOrDefault(status.status(), new CompressedBitmap());
+            case StudentSetExpression.And and -> evaluate(current, and.left(), academicYear, semester)
+                    .and(evaluate(current, and.right(), academicYear, semester));
+            case StudentSetExpression.Or or -> evaluate(current, or.left(), academicYear, semester)
+                    .or(evaluate(current, or.right(), academicYear, semester));
+            case StudentSetExpression.AndNot andNot -> evaluate(current, andNot.left(), academicYear, semester)
+                    .andNot(evaluate(current, andNot.right(), academicYear, semester));
+        };
+    }
+
+    // The students enrolled in any of the courses in the terms in scope, in the status or any status
+    private static CompressedBitmap enrolled(Bitmaps current, Collection<Long> courseIds,
+                                             Enrollment.EnrollmentStatus status, Integer academicYear,
+                                             String semester) {
+        List<CompressedBitmap> students = new ArrayList<>();
+        for (Long courseId : courseIds) {
+            current.enrollments().getOrDefault(courseId, Map.of()).forEach((term, statuses) -> {
+                if ((academicYear == null || academicYear == term.academicYear())
+                        && (semester == null || semester.equals(term.semester()))) {
+                    statuses.forEach((enrollmentStatus, bitmap) -> {
+                        if (status == null || status == enrollmentStatus) {
+                            students.add(bitmap);
+                        }
+                    });
+                }
+            });
+        }
+        return CompressedBitmap.union(students);
+    }
+
+    private <T> T read(Function<Bitmaps, T> query) {
+        lock.readLock().lock();
+        try {
+            return query.apply(bitmaps);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Number of bitmaps and their approximate footprint
+    private long[] statistics() {
+        return read(current -> {
+            long[] statistics = new long[2];
+            Stream.concat(current.studentStatuses().values().stream(), current.enrollments().values().stream()
+                            .flatMap(terms -> terms.values().stream())
+                            .flatMap(statuses -> statuses.values().stream()))
+                    .forEach(bitmap -> {
+                        statistics[0]++;
+                        statistics[1] += bitmap.sizeInBytes();
+                    });
+            return statistics;
+        });
+    }
+
+    private static void putCourse(Bitmaps target, long courseId, String courseCode, Long departmentId) {
+        target.courseIds().put(courseCode.toUpperCase(Locale.ROOT), courseId);
+        target.courseCodes().put(courseId, courseCode.toUpperCase(Locale.ROOT));
+        if (departmentId != null) {
+            target.courseDepartments().put(courseId, departmentId);
+        }
+    }
+
+    private static void putDepartment(Bitmaps target, long departmentId, String departmentCode) {
+        target.departmentIds().put(departmentCode.toUpperCase(Locale.ROOT), departmentId);
+        target.departmentCodes().put(departmentId, departmentCode.toUpperCase(Locale.ROOT));
+    }
+
+    private static CompressedBitmap bitmap(Bitmaps target, long courseId, Term term,
+                                           Enrollment.EnrollmentStatus status) {
+        return bitmap(target.enrollments()
+                .computeIfAbsent(courseId, id -> new HashMap<>())
+                .computeIfAbsent(term, key -> new HashMap<>()), status);
+    }
+
+    private static <K> CompressedBitmap bitmap(Map<K, CompressedBitmap> bitmaps, K key) {
+        return bitmaps.computeIfAbsent(key, k -> new CompressedBitmap());
+    }
+
+    private static long studentId(Long studentId) {
+        if (studentId > 0xFFFFFFFFL) {
+            throw new IllegalStateException("Student id " + studentId + " does not fit a 32-bit bitmap");
+        }
+        return studentId;
+    }
+
+    private void scheduleReload() {
+        reloader.schedule(this::reload);
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.entity.Enrollment;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Enrollments as columns of primitives, one row per enrollment: student id, course id, academic
+ * year, semester (as a code into a dictionary), status ordinal, grade points and attendance
+ * percentage in hundredths and whether a letter grade is set. Scans touch only the columns they
+ * read, without objects per row.
+ *
+ * <p>Rows are only ever appended: a changed enrollment is written as a new row and its previous
+ * row marked dead, as is the row of a deleted one, so a change costs one row write however large
+ * the table. A dead row keeps its values until {@link #compact()}, once dead rows make up a
+ * quarter of the table, copies the live rows into fresh columns. Grade points and attendance are
+ * rounded to hundredths as their {@code NUMERIC} columns store them. Not thread-safe.
+ */
+final class EnrollmentColumns {
+
+    static final short NO_GRADE_POINTS = Short.MIN_VALUE;
+    static final short NO_ATTENDANCE = Short.MIN_VALUE;
+    static final byte NO_STATUS = -1;
+
+    private static final Enrollment.EnrollmentStatus[] STATUSES = Enrollment.EnrollmentStatus.values();
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] studentIds = new long[INITIAL_CAPACITY];
+    private long[] courseIds = new long[INITIAL_CAPACITY];
+    private int[] academicYears = new int[INITIAL_CAPACITY];
+    private int[] semesters = new int[INITIAL_CAPACITY];
+    private byte[] statuses = new byte[INITIAL_CAPACITY];
+    private short[] gradePoints = new short[INITIAL_CAPACITY];
+    private short[] attendance = new short[INITIAL_CAPACITY];
+    private boolean[] graded = new boolean[INITIAL_CAPACITY];
+    private boolean[] live = new boolean[INITIAL_CAPACITY];
+    private final List<String> semesterNames = new ArrayList<>();
+    private final Map<String, Integer> semesterCodes = new HashMap<>();
+    // Row of each enrollment id, for replacing or removing it
+    private final Map<Long, Integer> rows = new HashMap<>();
+    private int rowCount;
+
+    /**
+     * Writes the enrollment's current values as a new row, marking any previous row dead, and
+     * returns the new row.
+     *
+     * @throws IllegalArgumentException if the grade points or attendance do not fit in hundredths of a short
+     */
+    int put(long enrollmentId, long studentId, long courseId, int academicYear, String semester,
+            Enrollment.EnrollmentStatus status, BigDecimal points, boolean hasGrade, BigDecimal attendancePercentage) {
+        short scaled = scale(points);
+        short scaledAttendance = scale(attendancePercentage);
+        remove(enrollmentId);
+        if (rowCount == live.length) {
+            grow(rowCount * 2);
+        }
+        int row = rowCount++;
+        studentIds[row] = studentId;
+        courseIds[row] = courseId;
+        academicYears[row] = academicYear;
+        semesters[row] = semesterCodes.computeIfAbsent(semester, name -> {
+            semesterNames.add(name);
+            return semesterNames.size() - 1;
+        });
+        statuses[row] = status == null ? NO_STATUS : (byte) status.ordinal();
+        gradePoints[row] = scaled;
+        attendance[row] = scaledAttendance;
+        graded[row] = hasGrade;
+        live[row] = true;
+        rows.put(enrollmentId, row);
+        return row;
+    }
+
+    /**
+     * Marks the enrollment's row dead and returns it, or -1 if there is none.
+     */
+    int remove(long enrollmentId) {
+        Integer row = rows.remove(enrollmentId);
+        if (row == null) {
+            return -1;
+        }
+        live[row] = false;
+        return row;
+    }
+
+    int size() {
+        return rows.size();
+    }
+
+    int rowCount() {
+        return rowCount;
+    }
+
+    boolean needsCompaction() {
+        int dead = rowCount - rows.size();
+        return dead >= INITIAL_CAPACITY && dead * 4 >= rowCount;
+    }
+
+    /**
+     * Copies the live rows into fresh columns, in their current order.
+     */
+    void compact() {
+        Map<Integer, Long> enrollmentIds = new HashMap<>(rows.size() * 2);
+        rows.forEach((enrollmentId, row) -> enrollmentIds.put(row, enrollmentId));
+        int target = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (!live[row]) {
+                continue;
+            }
+            studentIds[target] = studentIds[row];
+            courseIds[target] = courseIds[row];
+            academicYears[target] = academicYears[row];
+            semesters[target] = semesters[row];
+            statuses[target] = statuses[row];
+            gradePoints[target] = gradePoints[row];
+            attendance[target] = attendance[row];
+            graded[target] = graded[row];
+            live[target] = true;
+            rows.put(enrollmentIds.get(row), target);
+            target++;
+        }
+        Arrays.fill(live, target, rowCount, false);
+        rowCount = target;
+        grow(Math.max(INITIAL_CAPACITY, rowCount + rowCount / 2));
+    }
+
+    boolean isLive(int row) {
+        return live[row];
+    }
+
+    long studentId(int row) {
+        return studentIds[row];
+    }
+
+    long courseId(int row) {
+        return courseIds[row];
+    }
+
+    int academicYear(int row) {
+        return academicYears[row];
+    }
+
+    String semester(int row) {
+        return semesterNames.get(semesters[row]);
+    }
+
+    /**
+     * The status ordinal, or {@link #NO_STATUS}.
+     */
+    byte status(int row) {
+        return statuses[row];
+    }
+
+    /**
+     * The grade points in hundredths, or {@link #NO_GRADE_POINTS}.
+     */
+    short gradePoints(int row) {
+        return gradePoints[row];
+    }
+
+    /**
+     * The attendance percentage in hundredths, or {@link #NO_ATTENDANCE}.
+     */
+    short attendance(int row) {
+        return attendance[row];
+    }
+
+    boolean isGraded(int row) {
+        return graded[row];
+    }
+
+    static Enrollment.EnrollmentStatus status(byte ordinal) {
+        return ordinal == NO_STATUS ? null : STATUSES[ordinal];
+    }
+
+    // Hundredths, or Short.MIN_VALUE (NO_GRADE_POINTS, NO_ATTENDANCE) for null
+    private static short scale(BigDecimal value) {
+        if (value == null) {
+            return Short.MIN_VALUE;
+        }
+        int hundredths = value.setScale(2, RoundingMode.HALF_UP).movePointRight(2).intValueExact();
+        if (hundredths <= Short.MIN_VALUE || hundredths > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Value out of range: " + value);
+        }
+        return (short) hundredths;
+    }
+
+    private void grow(int capacity) {
+        studentIds = Arrays.copyOf(studentIds, capacity);
+        courseIds = Arrays.copyOf(courseIds, capacity);
+        academicYears = Arrays.copyOf(academicYears, capacity);
+        semesters = Arrays.copyOf(semesters, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        gradePoints = Arrays.copyOf(gradePoints, capacity);
+        attendance = Arrays.copyOf(attendance, capacity);
+        graded = Arrays.copyOf(graded, capacity);
+        live = Arrays.copyOf(live, capacity);
+    }
+}
@@ -0,0 +1,462 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.dto.DepartmentSearchFields;
+import com.example.springdatajpa.dto.EnrollmentCubeCell;
+import com.example.springdatajpa.dto.StudentDimensions;
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.entity.Department;
+import com.example.springdatajpa.entity.Enrollment;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.event.EntityChangedEvent;
+import com.example.springdatajpa.repository.CourseRepository;
+import com.example.springdatajpa.repository.DepartmentRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Enrollment counts, grade points and passes pre-aggregated by department, course level, term
+ * (semester), enrollment status and student admission year, for slicing them without a join and
+ * GROUP BY over {@code tbl_enrollment}, {@code tbl_course}, {@code tbl_department} and
+ * {@code tbl_student}. The cube holds one cell per combination of dimension values that occurs,
+ * with additive measures: enrollments, enrollments with grade points, the sum of their grade
+ * points in hundredths and those with at least 2.0. A query filters the cells by any of the
+ * dimensions (a drill-down) and sums them per combination of the dimensions it groups by, the
+ * others being rolled up; since there are far fewer cells than enrollments, this reads no
+ * enrollment.
+ *
+ * <p>The enrollments are read from the rows of {@link EnrollmentAnalytics}, which keeps the only
+ * copy of them: the cube streams the departments, courses and students once after startup, places
+ * every row in its cell, and is told of each changed row, subtracting the previous row's
+ * contribution and adding the new one's. A course moving to another department or level, or a
+ * student to another admission year, moves the contributions of its rows, found by a scan of the
+ * columns; a new course or student has none to move. An enrollment of a course or student the
+ * cube does not know, and any bulk change to those, rebuild the cube on a background thread from
+ * the dimension tables and the rows, and changes committed meanwhile are applied again to the new
+ * cube; a bulk change to enrollments reaches it as reloaded rows. Until both the dimensions and
+ * the rows are loaded, {@link #isLoaded()} is false and queries find nothing.
+ *
+ * <p>{@code enrollment.cube.query} times queries (with a 99th percentile);
+ * {@code enrollment.cube.cells} reports the number of cells.
+ */
+@Component
+@Slf4j
+public class EnrollmentCube implements EnrollmentAnalytics.RowListener {
+
+    private static final short PASSING_GRADE_POINTS = 200;
+    // Measures of a cell, in order
+    private static final int ENROLLMENTS = 0;
+    private static final int GRADED = 1;
+    private static final int GRADE_POINTS = 2;
+    private static final int PASSED = 3;
+
+    public enum Dimension {
+        DEPARTMENT,
+        COURSE_LEVEL,
+        TERM,
+        STATUS,
+        ADMISSION_YEAR
+    }
+
+    /**
+     * The values to restrict a query to, null for any. The department is given by code, ignoring case.
+     */
+    public record Slice(String departmentCode,
+                        Course.CourseLevel courseLevel,
+                        String term,
+                        Enrollment.EnrollmentStatus status,
+                        Integer admissionYear) {
+
+        public static Slice all() {
+            return new Slice(null, null, null, null, null);
+        }
+    }
+
+    private record Cell(Long departmentId,
+                        Course.CourseLevel courseLevel,
+                        String term,
+                        Enrollment.EnrollmentStatus status,
+                        Integer admissionYear) {
+    }
+
+    private record CourseDimensions(Long departmentId, Course.CourseLevel courseLevel) {
+    }
+
+    /**
+     * The cells, and the dimension values of courses and students (an admission year may be null)
+     * and the codes of departments.
+     */
+    private record Cube(Map<Cell, long[]> cells,
+                        Map<Long, CourseDimensions> courses,
+                        Map<Long, Integer> admissionYears,
+                        Map<Long, String> departmentCodes) {
+
+        static Cube empty() {
+            return new Cube(new HashMap<>(), new HashMap<>(), new HashMap<>(), new HashMap<>());
+        }
+    }
+
+    private final StudentRepository studentRepository;
+    private final CourseRepository courseRepository;
+    private final DepartmentRepository departmentRepository;
+    private final EnrollmentAnalytics enrollmentAnalytics;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Timer queries;
+    private final boolean enabled;
+    // Guards the current cube; the write lock also orders changes against a rebuild's swap
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Records dimension changes only; enrollments arrive as rows
+    private final BackgroundReloader<EntityChangedEvent> reloader =
+            BackgroundReloader.replayingEvents("enrollment-cube-load", "the enrollment cube", lock.writeLock());
+    private Cube cube = Cube.empty();
+    // Whether the cube holds loaded dimension values, which rows can be placed by
+    private boolean dimensionsLoaded;
+    private volatile boolean loaded;
+
+    public EnrollmentCube(StudentRepository studentRepository,
+                          CourseRepository courseRepository,
+                          DepartmentRepository departmentRepository,
+                          EnrollmentAnalytics enrollmentAnalytics,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.cache.enrollment-cube.enabled:true}") boolean enabled) {
+        this.studentRepository = studentRepository;
+        this.courseRepository = courseRepository;
+        this.departmentRepository = departmentRepository;
+        this.enrollmentAnalytics = enrollmentAnalytics;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.queries = Timer.builder("enrollment.cube.query")
+                .publishPercentiles(0.99)
+                .register(meterRegistry);
+        Gauge.builder("enrollment.cube.cells", this, enrollmentCube -> enrollmentCube.read(current -> current.cells().size()))
+                .register(meterRegistry);
+        if (enabled) {
+            enrollmentAnalytics.addRowListener(this);
+        }
+    }
+
+    /**
+     * The measures of the enrollments in the slice, per combination of values of the grouped
+     * dimensions that occurs, ordered by department code, course level, term, status and
+     * admission year (absent values last). Without dimensions to group by, this is one cell
+     * totalling the slice, or none if it is empty.
+     *
+     * @throws IllegalArgumentException if the slice names an unknown department code
+     */
+    public List<EnrollmentCubeCell> query(Collection<Dimension> groupBy, Slice slice) {
+        return queries.record(() -> read(current -> {
+            Long departmentId = null;
+            if (slice.departmentCode() != null) {
+                departmentId = current.departmentCodes().entrySet().stream()
+                        .filter(entry -> entry.getValue().equalsIgnoreCase(slice.departmentCode()))
+                        .map(Map.Entry::getKey)
+                        .findFirst()
+                        .orElseThrow(() -> new IllegalArgumentException(
+                                "Unknown department code '" + slice.departmentCode() + "'"));
+            }
+            Map<Cell, long[]> totals = new HashMap<>();
+            for (Map.Entry<Cell, long[]> entry : current.cells().entrySet()) {
+                Cell cell = entry.getKey();
+                if ((departmentId != null && !departmentId.equals(cell.departmentId()))
+                        || (slice.courseLevel() != null && slice.courseLevel() != cell.courseLevel())
+                        || (slice.term() != null && !slice.term().equals(cell.term()))
+                        || (slice.status() != null && slice.status() != cell.status())
+                        || (slice.admissionYear() != null && !slice.admissionYear().equals(cell.admissionYear()))) {
+                    continue;
+                }
+                Cell rolledUp = new Cell(
+                        groupBy.contains(Dimension.DEPARTMENT) ? cell.departmentId() : null,
+                        groupBy.contains(Dimension.COURSE_LEVEL) ? cell.courseLevel() : null,
+                        groupBy.contains(Dimension.TERM) ? cell.term() : null,
+                        groupBy.contains(Dimension.STATUS) ? cell.status() : null,
+                        groupBy.contains(Dimension.ADMISSION_YEAR) ? cell.admissionYear() : null);
+                long[] total = totals.computeIfAbsent(rolledUp, key -> new long[4]);
+                long[] measures = entry.getValue();
+                for (int i = 0; i < measures.length; i++) {
+                    total[i] += measures[i];
+                }
+            }
+            return totals.entrySet().stream()
+                    .map(entry -> toCubeCell(current, entry.getKey(), entry.getValue()))
+                    .sorted(Comparator.comparing(EnrollmentCubeCell::departmentCode, Comparator.nullsLast(Comparator.naturalOrder()))
+                            .thenComparing(EnrollmentCubeCell::courseLevel, Comparator.nullsLast(Comparator.naturalOrder()))
+                            .thenComparing(EnrollmentCubeCell::term, Comparator.nullsLast(Comparator.naturalOrder()))
+                            .thenComparing(EnrollmentCubeCell::status, Comparator.nullsLast(Comparator.naturalOrder()))
+                            .thenComparing(EnrollmentCubeCell::admissionYear, Comparator.nullsLast(Comparator.naturalOrder())))
+                    .toList();
+        }));
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (enabled && !loaded) {
+            scheduleReload();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reloader.shutdown();
+    }
+
+    // Enrollments arrive as rows of EnrollmentAnalytics instead
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (!enabled || !(event.affects(Student.class) || event.affects(Course.class) || event.affects(Department.class))) {
+            return;
+        }
+        if (event.isBulk()) {
+            scheduleReload();
+            return;
+        }
+        enrollmentAnalytics.readRows(columns -> {
+            lock.writeLock().lock();
+            try {
+                reloader.record(event);
+                apply(cube, columns, event);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    @Override
+    public void rowsReloaded(EnrollmentColumns columns) {
+        boolean consistent = true;
+        lock.writeLock().lock();
+        try {
+            // Before the dimensions are loaded the rows are placed once they are
+            if (dimensionsLoaded) {
+                cube.cells().clear();
+                consistent = place(cube, columns);
+                loaded = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (!consistent) {
+            scheduleReload();
+        }
+    }
+
+    @Override
+    public void rowChanged(EnrollmentColumns columns, int previousRow, int row) {
+        boolean consistent = true;
+        lock.writeLock().lock();
+        try {
+            if (dimensionsLoaded) {
+                if (previousRow >= 0) {
+                    add(cube, columns, previousRow, -1);
+                }
+                consistent = row < 0 || add(cube, columns, row, 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (!consistent) {
+            scheduleReload();
+        }
+    }
+
+    /**
+     * Reloads the dimension values from the database and rebuilds the cube from the enrollment
+     * rows on the calling thread. Rebuilds run one at a time.
+     */
+    void reload() {
+        boolean consistent = reloader.reload(() -> {
+            Cube fresh = load();
+            boolean[] placed = {true};
+            // Swapped under the analytics read lock, taken before the cube's as changed rows take them
+            enrollmentAnalytics.readRows(columns -> {
+                lock.writeLock().lock();
+                try {
+                    // No rows are placed yet, so these only set dimension values
+                    reloader.swap(() -> cube = fresh).forEach(event -> apply(fresh, null, event));
+                    dimensionsLoaded = true;
+                    if (columns != null) {
+                        // An enrollment of a course or student committed after those were read is left out until rebuilt again
+                        placed[0] = place(fresh, columns);
+                        loaded = true;
+                        log.info("Built an enrollment cube of {} cells over {} enrollments", fresh.cells().size(),
+                                columns.size());
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
+            return placed[0];
+        });
+        if (!consistent) {
+            scheduleReload();
+        }
+    }
+
+    private Cube load() {
+        Cube fresh = Cube.empty();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<DepartmentSearchFields> departments = departmentRepository.streamSearchFields()) {
+                departments.forEach(department -> fresh.departmentCodes().put(department.departmentId(),
+                        department.departmentCode()));
+            }
+            for (com.example.springdatajpa.dto.CourseDimensions course : courseRepository.findDimensions()) {
+                fresh.courses().put(course.courseId(), new CourseDimensions(course.departmentId(), course.courseLevel()));
+            }
+            try (Stream<StudentDimensions> students = studentRepository.streamDimensions()) {
+                students.forEach(student -> fresh.admissionYears().put(student.studentId(),
+                        admissionYear(student.admissionDate())));
+            }
+        });
+        return fresh;
+    }
+
+    // Applies a committed change to a course, student or department. A known course or student whose
+    // dimension values change moves the contributions of its enrollments; a new one only adds its values
+    private static void apply(Cube target, EnrollmentColumns columns, EntityChangedEvent event) {
+        boolean deleted = event.changeType() == EntityChangedEvent.ChangeType.DELETED;
+        if (event.entity() instanceof Student student) {
+            long studentId = student.getStudentId();
+            Integer admissionYear = deleted ? null : admissionYear(student.getAdmissionDate());
+            Runnable change = deleted ? () -> target.admissionYears().remove(studentId)
+                    : () -> target.admissionYears().put(studentId, admissionYear);
+            if (target.admissionYears().containsKey(studentId)
+                    && (deleted || !Objects.equals(target.admissionYears().get(studentId), admissionYear))) {
+                move(target, columns, row -> columns.studentId(row) == studentId, change);
+            } else {
+                change.run();
+            }
+        } else if (event.entity() instanceof Course course) {
+            long courseId = course.getCourseId();
+            CourseDimensions dimensions = deleted ? null : new CourseDimensions(
+                    course.getDepartment() == null ? null : course.getDepartment().getDepartmentId(),
+                    course.getCourseLevel());
+            Runnable change = deleted ? () -> target.courses().remove(courseId)
+                    : () -> target.courses().put(courseId, dimensions);
+            CourseDimensions previous = target.courses().get(courseId);
+            if (previous != null && !previous.equals(dimensions)) {
+                move(target, columns, row -> columns.courseId(row) == courseId, change);
+            } else {
+                change.run();
+            }
+        } else if (event.entity() instanceof Department department) {
+            if (deleted) {
+                target.departmentCodes().remove(department.getDepartmentId());
+            } else {
+                target.departmentCodes().put(department.getDepartmentId(), department.getDepartmentCode());
+            }
+        }
+    }
+
+    // Takes the contributions of the affected rows out, changes the dimension values and adds them
+    // back, which leaves out those of a deleted course or student
+    private static void move(Cube target, EnrollmentColumns columns, IntPredicate affected, Runnable change) {
+        if (columns == null) {
+            change.run();
+            return;
+        }
+        int[] rows = IntStream.range(0, columns.rowCount())
+                .filter(row -> columns.isLive(row) && affected.test(row))
+                .toArray();
+        for (int row : rows) {
+            add(target, columns, row, -1);
+        }
+        change.run();
+        for (int row : rows) {
+            add(target, columns, row, 1);
+        }
+    }
+
+    // Adds every live row; false if some were left out for an unknown course or student
+    private static boolean place(Cube target, EnrollmentColumns columns) {
+        boolean complete = true;
+        for (int row = 0; row < columns.rowCount(); row++) {
+            if (columns.isLive(row)) {
+                complete &= add(target, columns, row, 1);
+            }
+        }
+        return complete;
+    }
+
+    // Adds or subtracts an enrollment row's contribution; false, changing nothing, if its course or student is unknown
+    private static boolean add(Cube target, EnrollmentColumns columns, int row, int sign) {
+        CourseDimensions course = target.courses().get(columns.courseId(row));
+        long studentId = columns.studentId(row);
+        if (course == null || !target.admissionYears().containsKey(studentId)) {
+            return false;
+        }
+        Cell cell = new Cell(course.departmentId(), course.courseLevel(), columns.semester(row),
+                EnrollmentColumns.status(columns.status(row)), target.admissionYears().get(studentId));
+        long[] measures = target.cells().computeIfAbsent(cell, key -> new long[4]);
+        measures[ENROLLMENTS] += sign;
+        short gradePoints = columns.gradePoints(row);
+        if (gradePoints != EnrollmentColumns.NO_GRADE_POINTS) {
+            measures[GRADED] += sign;
+            measures[GRADE_POINTS] += sign * gradePoints;
+            if (gradePoints >= PASSING_GRADE_POINTS) {
+                measures[PASSED] += sign;
+            }
+        }
+        if (measures[ENROLLMENTS] == 0) {
+            target.cells().remove(cell);
+        }
+        return true;
+    }
+
+    private static EnrollmentCubeCell toCubeCell(Cube current, Cell cell, long[] measures) {
+        return new EnrollmentCubeCell(
+                cell.departmentId() == null ? null : current.departmentCodes().get(cell.departmentId()),
+                cell.courseLevel(),
+                cell.term(),
+                cell.status(),
+                cell.admissionYear(),
+                measures[ENROLLMENTS],
+                measures[GRADED],
+                measures[GRADED] == 0 ? null : measures[GRADE_POINTS] / (100.0 * measures[GRADED]),
+                measures[PASSED] * 100.0 / measures[ENROLLMENTS]);
+    }
+
+    private static Integer admissionYear(LocalDate admissionDate) {
+        return admissionDate == null ? null : admissionDate.getYear();
+    }
+
+    private <T> T read(Function<Cube, T> query) {
+        lock.readLock().lock();
+        try {
+            return query.apply(cube);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void scheduleReload() {
+        reloader.schedule(this::reload);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.dto.AcademicYearStatistics;
+import com.example.springdatajpa.entity.ClosedAcademicYear;
+import com.example.springdatajpa.event.EntityChangedEvent;
+import com.example.springdatajpa.repository.ClosedAcademicYearRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The statistics snapshots of closed academic years, decoded once from
+ * {@code tbl_closed_academic_year} and then held without expiry or size bound: there is one
+ * entry per closed year and it never changes while the year stays closed.
+ *
+ * <p>Only closed years are cached; a lookup for an open year reads the table every time, so
+ * closing a year takes effect at once. Re-opening a year deletes its row, and the committed
+ * delete evicts the entry here (and, through {@link ClusterCacheCoherence}, on every other
+ * instance).
+ */
+@Component
+@RequiredArgsConstructor
+public class FrozenAcademicYears {
+
+    private final ClosedAcademicYearRepository closedAcademicYearRepository;
+    private final ObjectMapper objectMapper;
+    private final Map<Integer, AcademicYearStatistics> frozen = new ConcurrentHashMap<>();
+    // Advanced by every eviction, so a load racing with one does not leave a re-opened year cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public Optional<AcademicYearStatistics> get(int academicYear) {
+        AcademicYearStatistics statistics = frozen.get(academicYear);
+        if (statistics != null) {
+            return Optional.of(statistics);
+        }
+        long loadedAt = generation.get();
+        Optional<AcademicYearStatistics> loaded = closedAcademicYearRepository.findById(academicYear)
+                .map(closedYear -> decode(closedYear.getStatistics()));
+        loaded.ifPresent(value -> {
+            frozen.putIfAbsent(academicYear, value);
+            if (generation.get() != loadedAt) {
+                frozen.remove(academicYear, value);
+            }
+        });
+        return loaded;
+    }
+
+    public boolean isClosed(int academicYear) {
+        return frozen.containsKey(academicYear) || closedAcademicYearRepository.existsById(academicYear);
+    }
+
+    public String encode(AcademicYearStatistics statistics) {
+        try {
+            return objectMapper.writeValueAsString(statistics);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private AcademicYearStatistics decode(String json) {
+        try {
+            return objectMapper.readValue(json, AcademicYearStatistics.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (!event.affects(ClosedAcademicYear.class)) {
+            return;
+        }
+        generation.incrementAndGet();
+        if (event.isBulk()) {
+            frozen.clear();
+        } else {
+            frozen.remove(event.entityAs(ClosedAcademicYear.class).getAcademicYear());
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.springdatajpa.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory radix tree from names to the ids stored under them, searched for every name
+ * within an edit distance of a query.
+ *
+ * <p>The search walks the tree depth first, carrying one row of the edit-distance table per
+ * character of the path (the Levenshtein automaton of the query, simulated), and abandons a
+ * branch as soon as every cell of its row exceeds the distance: no name below it can match. The
+ * cost therefore depends on the number of prefixes within the distance of some prefix of the
+ * query, not on the number of names. Distances count insertions, deletions, substitutions and
+ * swaps of adjacent characters (optimal string alignment). Reads share a lock; writes hold it
+ * exclusively.
+ */
+final class FuzzyNameTrie {
+
+    private static final char[] NO_CHARS = new char[0];
+    private static final Node[] NO_NODES = new Node[0];
+    private static final long[] NO_IDS = new long[0];
+
+    private static final class Node {
+        private char[] edge;
+        private char[] firsts = NO_CHARS;
+        private Node[] children = NO_NODES;
+        private long[] ids = NO_IDS;
+
+        Node(char[] edge) {
+            this.edge = edge;
+        }
+
+        Node child(char first) {
+            int index = Arrays.binarySearch(firsts, first);
+            return index >= 0 ? children[index] : null;
+        }
+
+        void putChild(Node child) {
+            int index = Arrays.binarySearch(firsts, child.edge[0]);
+            if (index >= 0) {
+                children[index] = child;
+                return;
+            }
+            int at = -index - 1;
+            char[] grownFirsts = new char[firsts.length + 1];
+            System.arraycopy(firsts, 0, grownFirsts, 0, at);
+            grownFirsts[at] = child.edge[0];
+            System.arraycopy(firsts, at, grownFirsts, at + 1, firsts.length - at);
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, at);
+            grown[at] = child;
+            System.arraycopy(children, at, grown, at + 1, children.length - at);
+            firsts = grownFirsts;
+            children = grown;
+        }
+
+        void removeChild(char first) {
+            int at = Arrays.binarySearch(firsts, first);
+            char[] fewerFirsts = new char[firsts.length - 1];
+            System.arraycopy(firsts, 0, fewerFirsts, 0, at);
+            System.arraycopy(firsts, at + 1, fewerFirsts, at, firsts.length - at - 1);
+            Node[] fewer = new Node[children.length - 1];
+            System.arraycopy(children, 0, fewer, 0, at);
+            System.arraycopy(children, at + 1, fewer, at, children.length - at - 1);
+            firsts = fewerFirsts;
+            children = fewer;
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Node root = new Node(NO_CHARS);
+    private int names;
+    private int nodes = 1;
+
+    /**
+     * Stores the id under the name; storing it twice under one name stores it once.
+     */
+    void add(String name, long id) {
+        if (name.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Node node = insert(name.toCharArray());
+            if (node.ids.length == 0) {
+                names++;
+            }
+            if (indexOf(node.ids, id) < 0) {
+                node.ids = Arrays.copyOf(node.ids, node.ids.length + 1);
+                node.ids[node.ids.length - 1] = id;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(String name, long id) {
+        if (name.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            delete(name.toCharArray(), id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The distinct names stored.
+     */
+    int names() {
+        lock.readLock().lock();
+        try {
+            return names;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int nodes() {
+        lock.readLock().lock();
+        try {
+            return nodes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Every id stored under a name within {@code maxDistance} edits of the query, with the
+     * smallest distance of its names.
+     */
+    Map<Long, Integer> search(String query, int maxDistance) {
+        char[] target = query.toCharArray();
+        int[] first = new int[target.length + 1];
+        for (int j = 0; j <= target.length; j++) {
+            first[j] = j;
+        }
+        Map<Long, Integer> matches = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            if (first[target.length] <= maxDistance) {
+                collect(root, target.length, matches);
+            }
+            for (Node child : root.children) {
+                walk(child, target, maxDistance, first, null, (char) 0, matches);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return matches;
+    }
+
+    // Extends the distance table by the node's edge, one row per character, and recurses while a row can still match
+    private static void walk(Node node, char[] target, int maxDistance, int[] previous, int[] beforePrevious,
+                             char previousChar, Map<Long, Integer> matches) {
+        int[] row = previous;
+        int[] rowBefore = beforePrevious;
+        char last = previousChar;
+        for (char c : node.edge) {
+            int[] next = new int[target.length + 1];
+            next[0] = row[0] + 1;
+            int smallest = next[0];
+            for (int j = 1; j <= target.length; j++) {
+                int cost = target[j - 1] == c ? 0 : 1;
+                int value = Math.min(Math.min(row[j] + 1, next[j - 1] + 1), row[j - 1] + cost);
+                if (rowBefore != null && j > 1 && target[j - 1] == last && target[j - 2] == c) {
+                    value = Math.min(value, rowBefore[j - 2] + 1);
+                }
+                next[j] = value;
+                smallest = Math.min(smallest, value);
+            }
+            if (smallest > maxDistance) {
+                return;
+            }
+            rowBefore = row;
+            row = next;
+            last = c;
+        }
+        if (row[target.length] <= maxDistance) {
+            collect(node, row[target.length], matches);
+        }
+        for (Node child : node.children) {
+            walk(child, target, maxDistance, row, rowBefore, last, matches);
+        }
+    }
+
+    private static void collect(Node node, int distance, Map<Long, Integer> matches) {
+        for (long id : node.ids) {
+            matches.merge(id, distance, Math::min);
+        }
+    }
+
+    private Node insert(char[] key) {
+        Node node = root;
+        int i = 0;
+        while (i < key.length) {
+            Node child = node.child(key[i]);
+            if (child == null) {
+                child = new Node(Arrays.copyOfRange(key, i, key.length));
+                node.putChild(child);
+                nodes++;
+                return child;
+            }
+            int common = 0;
+            while (common < child.edge.length && i + common < key.length && child.edge[common] == key[i + common]) {
+                common++;
+            }
+            if (common < child.edge.length) {
+                // Split the edge: the shared part becomes a node above the rest
+                Node split = new Node(Arrays.copyOf(child.edge, common));
+                child.edge = Arrays.copyOfRange(child.edge, common, child.edge.length);
+                split.putChild(child);
+                node.putChild(split);
+                nodes++;
+                child = split;
+            }
+            node = child;
+            i += common;
+        }
+        return node;
+    }
+
+    private void delete(char[] key, long id) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length) {
+            node = node.child(key[i]);
+            if (node == null || node.edge.length > key.length - i
+                    || !Arrays.equals(node.edge, 0, node.edge.length, key, i, i + node.edge.length)) {
+                return;
+            }
+            i += node.edge.length;
+            path.add(node);
+        }
+        int at = indexOf(node.ids, id);
+        if (at < 0) {
+            return;
+        }
+        long[] fewer = new long[node.ids.length - 1];
+        System.arraycopy(node.ids, 0, fewer, 0, at);
+        System.arraycopy(node.ids, at + 1, fewer, at, node.ids.length - at - 1);
+        node.ids = fewer;
+        if (fewer.length == 0) {
+            names--;
+        }
+        for (int p = path.size() - 1; p > 0; p--) {
+            Node current = path.get(p);
+            Node parent = path.get(p - 1);
+            if (current.ids.length == 0 && current.children.length == 0) {
+                parent.removeChild(current.edge[0]);
+                nodes--;
+            } else if (current.ids.length == 0 && current.children.length == 1) {
+                // Merge a node left with a single child into that child's edge
+                Node only = current.children[0];
+                char[] merged = Arrays.copyOf(current.edge, current.edge.length + only.edge.length);
+                System.arraycopy(only.edge, 0, merged, current.edge.length, only.edge.length);
+                only.edge = merged;
+                parent.putChild(only);
+                nodes--;
+                return;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static int indexOf(long[] ids, long id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.dto.StudentNameFields;
+import com.example.springdatajpa.dto.StudentNameMatch;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.event.EntityChangedEvent;
+import com.example.springdatajpa.repository.StudentRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Typo-tolerant student lookup: every student whose first name, last name or full name (in
+ * either order) is within a few edits of the query, from a {@link FuzzyNameTrie} held in memory.
+ * Names are compared folded, without case, accents or punctuation, so "zoe o neil" matches
+ * "Zoë O'Neil" with no edits.
+ *
+ * <p>Matches are ranked by distance, then active students first, then by last and first name.
+ *
+ * <p>The index is filled by streaming every student once after startup and kept current from
+ * committed student changes; a bulk change rebuilds it on a background thread, which replaces
+ * the current one when complete, and students changed during the rebuild are read again
+ * afterwards. Until the first build completes, {@link #isLoaded()} is false and nothing matches.
+ *
+ * <p>{@code fuzzy.student.lookup} times lookups (with a 99th percentile);
+ * {@code fuzzy.student.names} and {@code fuzzy.student.nodes} report the index size.
+ */
+@Component
+@Slf4j
+public class FuzzyStudentIndex {
+
+    private static final Comparator<StudentNameMatch> RANKING = Comparator.comparingInt(StudentNameMatch::distance)
+            .thenComparing(match -> !match.active())
+            .thenComparing(StudentNameMatch::lastName, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(StudentNameMatch::firstName, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(StudentNameMatch::studentId);
+
+    private record Name(String firstName, String lastName, boolean active) {
+
+        List<String> keys() {
+            String first = PrefixIndex.fold(firstName);
+            String last = PrefixIndex.fold(lastName);
+            return List.of(first, last, (first + " " + last).strip(), (last + " " + first).strip());
+        }
+    }
+
+    /**
+     * The trie and the names it holds each student under, replaced together on a rebuild.
+     */
+    private record Names(FuzzyNameTrie trie, Map<Long, Name> students) {
+    }
+
+    private final StudentRepository studentRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Timer lookups;
+    private final boolean enabled;
+    private final int maxDistance;
+    private final BackgroundReloader<Long> reloader =
+            BackgroundReloader.refreshingKeys("fuzzy-student-load", "the fuzzy student index");
+    private volatile Names names = new Names(new FuzzyNameTrie(), new ConcurrentHashMap<>());
+    private volatile boolean loaded;
+
+    public FuzzyStudentIndex(StudentRepository studentRepository,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.cache.fuzzy-students.enabled:true}") boolean enabled,
+                             @Value("${app.cache.fuzzy-students.max-distance:2}") int maxDistance) {
+        this.studentRepository = studentRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.maxDistance = maxDistance;
+        this.lookups = Timer.builder("fuzzy.student.lookup")
+                .publishPercentiles(0.99)
+                .register(meterRegistry);
+        Gauge.builder("fuzzy.student.names", this, index -> index.names.trie().names()).register(meterRegistry);
+        Gauge.builder("fuzzy.student.nodes", this, index -> index.names.trie().nodes()).register(meterRegistry);
+    }
+
+    /**
+     * The best {@code limit} students with a name within {@code distance} edits of the query.
+     */
+    public List<StudentNameMatch> find(String query, int distance, int limit) {
+        return lookups.record(() -> {
+            Names current = names;
+            String folded = PrefixIndex.fold(query);
+            if (folded.isEmpty()) {
+                return List.of();
+            }
+            List<StudentNameMatch> matches = new ArrayList<>();
+            current.trie().search(folded, Math.min(distance, maxDistance)).forEach((studentId, edits) -> {
+                Name name = current.students().get(studentId);
+                if (name != null) {
+                    matches.add(new StudentNameMatch(studentId, name.firstName(), name.lastName(), name.active(), edits));
+                }
+            });
+            matches.sort(RANKING);
+            return List.copyOf(matches.subList(0, Math.min(limit, matches.size())));
+        });
+    }
+
+    /**
+     * The edits allowed by default for a query: none below three characters, one up to five and
+     * two beyond, capped at {@code app.cache.fuzzy-students.max-distance}.
+     */
+    public int defaultDistance(String query) {
+        int length = PrefixIndex.fold(query).length();
+        return Math.min(maxDistance, length < 3 ? 0 : length <= 5 ? 1 : 2);
+    }
+
+    public int maxDistance() {
+        return maxDistance;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (enabled && !loaded) {
+            scheduleReload();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reloader.shutdown();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (!enabled || !event.affects(Student.class)) {
+            return;
+        }
+        if (event.isBulk()) {
+            scheduleReload();
+            return;
+        }
+        Student student = event.entityAs(Student.class);
+        reloader.record(student.getStudentId());
+        Names current = names;
+        if (event.changeType() == EntityChangedEvent.ChangeType.DELETED) {
+            remove(current, student.getStudentId());
+        } else {
+            put(current, student.getStudentId(), new Name(student.getFirstName(), student.getLastName(),
+                    !Boolean.FALSE.equals(student.getIsActive())));
+        }
+    }
+
+    /**
+     * Rebuilds the index from the database on the calling thread. Rebuilds run one at a time.
+     */
+    void reload() {
+        Names fresh = reloader.reload(this::load, current -> names = current, this::refresh);
+        loaded = true;
+        log.info("Indexed {} distinct names of {} students for fuzzy lookup",
+                fresh.trie().names(), fresh.students().size());
+    }
+
+    private Names load() {
+        Names fresh = new Names(new FuzzyNameTrie(), new ConcurrentHashMap<>());
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<StudentNameFields> students = studentRepository.streamNameFields()) {
+                students.forEach(student -> put(fresh, student.studentId(), name(student)));
+            }
+        });
+        return fresh;
+    }
+
+    // Re-reads a batch of students, removing those that no longer exist
+    private void refresh(Names target, List<Long> studentIds) {
+        Set<Long> found = new HashSet<>();
+        for (StudentNameFields student : studentRepository.findNameFields(studentIds)) {
+            put(target, student.studentId(), name(student));
+            found.add(student.studentId());
+        }
+        studentIds.stream().filter(id -> !found.contains(id)).forEach(id -> remove(target, id));
+    }
+
+    // Locked per index so the trie and the names map change together
+    private static void put(Names target, long studentId, Name name) {
+        synchronized (target) {
+            remove(target, studentId);
+            target.students().put(studentId, name);
+            name.keys().forEach(key -> target.trie().add(key, studentId));
+        }
+    }
+
+    private static void remove(Names target, long studentId) {
+        synchronized (target) {
+            Name previous = target.students().remove(studentId);
+            if (previous != null) {
+                previous.keys().forEach(key -> target.trie().remove(key, studentId));
+            }
+        }
+    }
+
+    private static Name name(StudentNameFields student) {
+        return new Name(student.firstName(), student.lastName(), !Boolean.FALSE.equals(student.isActive()));
+    }
+
+    private void scheduleReload() {
+        reloader.schedule(this::reload);
+    }
+}
@@ -0,0 +1,451 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.dto.CourseDimensions;
+import com.example.springdatajpa.dto.GradeDistribution;
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.event.EntityChangedEvent;
+import com.example.springdatajpa.repository.CourseRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Distributions of the grade points and attendance percentages of enrollments, as
+ * {@link ValueHistogram}s per course and term, for median and percentile queries without reading
+ * every enrollment. Histograms merge by adding counts, so the same figures are also kept summed
+ * per department and academic year and per academic year; a quantile of any of them walks at
+ * most the distinct values (hundredths) that occur, however many enrollments there are.
+ *
+ * <p>The enrollments are read from the rows of {@link EnrollmentAnalytics}, which keeps the only
+ * copy of them: the departments of courses are read once after startup, every row is counted,
+ * and each changed row takes its previous row's values out of the histograms of its course-term,
+ * department-year and year and adds its new ones. A course moving to another department, or
+ * deleted, moves its course-terms out of the department-years. A bulk change to courses rebuilds
+ * the histograms on a background thread from the course departments and the rows, and course
+ * changes committed meanwhile are applied again afterwards; a bulk change to enrollments reaches
+ * them as reloaded rows. Until both are loaded, {@link #isLoaded()} is false.
+ *
+ * <p>The course-term histograms and course departments are saved in the cache snapshot, so a
+ * restarted instance answers from them at once, without reading a table, and takes changed rows
+ * from the enrollment columns once those are loaded.
+ *
+ * <p>{@code grade.distribution.query} times queries (with a 99th percentile);
+ * {@code grade.distribution.course.terms} reports the number of course-terms held.
+ */
+@Component
+@Slf4j
+public class GradeDistributions implements CacheSnapshotContributor, EnrollmentAnalytics.RowListener {
+
+    private static final int NO_VALUE = Integer.MIN_VALUE;
+    private static final GradeDistribution.Metric[] METRICS = GradeDistribution.Metric.values();
+
+    private record CourseTerm(long courseId, int academicYear, String semester) {
+    }
+
+    private record DepartmentYear(long departmentId, int academicYear) {
+    }
+
+    /**
+     * Histograms (one per metric) per course-term, department-year and year, and course departments.
+     */
+    private record Histograms(Map<CourseTerm, ValueHistogram[]> courseTerms,
+                              Map<DepartmentYear, ValueHistogram[]> departmentYears,
+                              Map<Integer, ValueHistogram[]> years,
+                              Map<Long, Long> courseDepartments) {
+
+        static Histograms empty() {
+            return new Histograms(new HashMap<>(), new HashMap<>(), new HashMap<>(), new HashMap<>());
+        }
+    }
+
+    private final CourseRepository courseRepository;
+    private final EnrollmentAnalytics enrollmentAnalytics;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Timer queries;
+    private final boolean enabled;
+    // Guards the current histograms; the write lock also orders changes against a rebuild's swap
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Records course changes only; enrollments arrive as rows
+    private final BackgroundReloader<EntityChangedEvent> reloader =
+            BackgroundReloader.replayingEvents("grade-distribution-load", "the grade distributions", lock.writeLock());
+    private Histograms histograms = Histograms.empty();
+    // Whether the course departments are loaded, which rows can be counted by
+    private boolean departmentsLoaded;
+    private volatile boolean loaded;
+
+    public GradeDistributions(CourseRepository courseRepository,
+                              EnrollmentAnalytics enrollmentAnalytics,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.cache.grade-distributions.enabled:true}") boolean enabled) {
+        this.courseRepository = courseRepository;
+        this.enrollmentAnalytics = enrollmentAnalytics;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.queries = Timer.builder("grade.distribution.query")
+                .publishPercentiles(0.99)
+                .register(meterRegistry);
+        Gauge.builder("grade.distribution.course.terms", this,
+                        distributions -> distributions.read(current -> current.courseTerms().size()))
+                .register(meterRegistry);
+        if (enabled) {
+            enrollmentAnalytics.addRowListener(this);
+        }
+    }
+
+    /**
+     * The values of the metric at the quantiles among the course's enrollments in the term.
+     *
+     * @throws IllegalArgumentException if a quantile is not between 0 and 1
+     */
+    public GradeDistribution courseTerm(long courseId, int academicYear, String semester,
+                                        GradeDistribution.Metric metric, List<Double> quantiles) {
+        return query(current -> current.courseTerms().get(new CourseTerm(courseId, academicYear, semester)),
+                metric, quantiles);
+    }
+
+    public GradeDistribution departmentYear(long departmentId, int academicYear,
+                                            GradeDistribution.Metric metric, List<Double> quantiles) {
+        return query(current -> current.departmentYears().get(new DepartmentYear(departmentId, academicYear)),
+                metric, quantiles);
+    }
+
+    public GradeDistribution year(int academicYear, GradeDistribution.Metric metric, List<Double> quantiles) {
+        return query(current -> current.years().get(academicYear), metric, quantiles);
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (enabled && !loaded) {
+            scheduleReload();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reloader.shutdown();
+    }
+
+    // Enrollments arrive as rows of EnrollmentAnalytics instead
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (!enabled || !event.affects(Course.class)) {
+            return;
+        }
+        if (event.isBulk()) {
+            scheduleReload();
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            reloader.record(event);
+            apply(histograms, event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void rowsReloaded(EnrollmentColumns columns) {
+        lock.writeLock().lock();
+        try {
+            // Before the course departments are loaded the rows are counted once they are
+            if (departmentsLoaded) {
+                histograms.courseTerms().clear();
+                histograms.departmentYears().clear();
+                histograms.years().clear();
+                place(histograms, columns);
+                loaded = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void rowChanged(EnrollmentColumns columns, int previousRow, int row) {
+        lock.writeLock().lock();
+        try {
+            if (departmentsLoaded) {
+                if (previousRow >= 0) {
+                    add(histograms, columns, previousRow, -1);
+                }
+                if (row >= 0) {
+                    add(histograms, columns, row, 1);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reloads the course departments from the database and rebuilds the histograms from the
+     * enrollment rows on the calling thread. Rebuilds run one at a time.
+     */
+    void reload() {
+        reloader.reload(() -> {
+            Histograms fresh = load();
+            // Swapped under the analytics read lock, taken before this one as changed rows take them
+            enrollmentAnalytics.readRows(columns -> {
+                lock.writeLock().lock();
+                try {
+                    // Nothing is counted yet, so these only set course departments
+                    reloader.swap(() -> histograms = fresh).forEach(event -> apply(fresh, event));
+                    departmentsLoaded = true;
+                    if (columns != null) {
+                        place(fresh, columns);
+                        loaded = true;
+                        log.info("Built grade distributions of {} course terms", fresh.courseTerms().size());
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
+            return fresh;
+        });
+    }
+
+    private Histograms load() {
+        Histograms fresh = Histograms.empty();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            for (CourseDimensions course : courseRepository.findDimensions()) {
+                if (course.departmentId() != null) {
+                    fresh.courseDepartments().put(course.courseId(), course.departmentId());
+                }
+            }
+        });
+        return fresh;
+    }
+
+    // Applies a committed course change: a course moving to another department, or deleted, moves its
+    // course-terms out of the previous department-years; its enrollments' rows take them out of the rest
+    private static void apply(Histograms target, EntityChangedEvent event) {
+        if (!(event.entity() instanceof Course course)) {
+            return;
+        }
+        long courseId = course.getCourseId();
+        boolean deleted = event.changeType() == EntityChangedEvent.ChangeType.DELETED;
+        Long departmentId = deleted || course.getDepartment() == null ? null : course.getDepartment().getDepartmentId();
+        Long previousDepartmentId = target.courseDepartments().get(courseId);
+        // A new course has no course-terms yet
+        if (event.changeType() != EntityChangedEvent.ChangeType.CREATED && !Objects.equals(previousDepartmentId, departmentId)) {
+            target.courseTerms().forEach((courseTerm, courseHistograms) -> {
+                if (courseTerm.courseId() == courseId) {
+                    addToDepartment(target, previousDepartmentId, courseTerm.academicYear(), courseHistograms, -1);
+                    addToDepartment(target, departmentId, courseTerm.academicYear(), courseHistograms, 1);
+                }
+            });
+        }
+        if (departmentId == null) {
+            target.courseDepartments().remove(courseId);
+        } else {
+            target.courseDepartments().put(courseId, departmentId);
+        }
+    }
+
+    private static void place(Histograms target, EnrollmentColumns columns) {
+        for (int row = 0; row < columns.rowCount(); row++) {
+            if (columns.isLive(row)) {
+                add(target, columns, row, 1);
+            }
+        }
+    }
+
+    // Adds or subtracts an enrollment row's values
+    private static void add(Histograms target, EnrollmentColumns columns, int row, int sign) {
+        CourseTerm courseTerm = new CourseTerm(columns.courseId(row), columns.academicYear(row), columns.semester(row));
+        Long departmentId = target.courseDepartments().get(courseTerm.courseId());
+        List<ValueHistogram[]> scopes = new ArrayList<>(3);
+        scopes.add(histograms(target.courseTerms(), courseTerm));
+        scopes.add(histograms(target.years(), courseTerm.academicYear()));
+        if (departmentId != null) {
+            scopes.add(histograms(target.departmentYears(), new DepartmentYear(departmentId, courseTerm.academicYear())));
+        }
+        for (GradeDistribution.Metric metric : METRICS) {
+            int value = value(columns, row, metric);
+            if (value != NO_VALUE) {
+                for (ValueHistogram[] scope : scopes) {
+                    scope[metric.ordinal()].add(value, sign);
+                }
+            }
+        }
+        removeIfEmpty(target.courseTerms(), courseTerm);
+        removeIfEmpty(target.years(), courseTerm.academicYear());
+        if (departmentId != null) {
+            removeIfEmpty(target.departmentYears(), new DepartmentYear(departmentId, courseTerm.academicYear()));
+        }
+    }
+
+    // The row's value of the metric in hundredths, or NO_VALUE
+    private static int value(EnrollmentColumns columns, int row, GradeDistribution.Metric metric) {
+        return switch (metric) {
+            case GRADE_POINTS -> {
+                short gradePoints = columns.gradePoints(row);
+                yield gradePoints == EnrollmentColumns.NO_GRADE_POINTS ? NO_VALUE : gradePoints;
+            }
+            case ATTENDANCE_PERCENTAGE -> {
+                short attendance = columns.attendance(row);
+                yield attendance == EnrollmentColumns.NO_ATTENDANCE ? NO_VALUE : attendance;
+            }
+        };
+    }
+
+    private static void addToDepartment(Histograms target, Long departmentId, int academicYear,
+                                        ValueHistogram[] courseHistograms, int sign) {
+        if (departmentId == null) {
+            return;
+        }
+        DepartmentYear departmentYear = new DepartmentYear(departmentId, academicYear);
+        ValueHistogram[] departmentHistograms = histograms(target.departmentYears(), departmentYear);
+        for (int metric = 0; metric < METRICS.length; metric++) {
+            departmentHistograms[metric].addAll(courseHistograms[metric], sign);
+        }
+        removeIfEmpty(target.departmentYears(), departmentYear);
+    }
+
+    private static <K> ValueHistogram[] histograms(Map<K, ValueHistogram[]> scopes, K key) {
+        return scopes.computeIfAbsent(key, k -> {
+            ValueHistogram[] created = new ValueHistogram[METRICS.length];
+            for (int metric = 0; metric < METRICS.length; metric++) {
+                created[metric] = new ValueHistogram();
+            }
+            return created;
+        });
+    }
+
+    // Drops a scope once no enrollment of it has any value left
+    private static <K> void removeIfEmpty(Map<K, ValueHistogram[]> scopes, K key) {
+        ValueHistogram[] scope = scopes.get(key);
+        if (scope != null && Arrays.stream(scope).allMatch(ValueHistogram::isEmpty)) {
+            scopes.remove(key);
+        }
+    }
+
+    private GradeDistribution query(Function<Histograms, ValueHistogram[]> scope, GradeDistribution.Metric metric,
+                                    List<Double> quantiles) {
+        for (double quantile : quantiles) {
+            if (!(quantile >= 0 && quantile <= 1)) {
+                throw new IllegalArgumentException("Quantile must be between 0 and 1: " + quantile);
+            }
+        }
+        return queries.record(() -> read(current -> {
+            ValueHistogram[] found = scope.apply(current);
+            ValueHistogram histogram = found == null ? new ValueHistogram() : found[metric.ordinal()];
+            return new GradeDistribution(metric, histogram.count(), quantiles.stream()
+                    .map(quantile -> new GradeDistribution.Quantile(quantile, histogram.isEmpty() ? null
+                            : BigDecimal.valueOf(histogram.quantile(quantile), 2)))
+                    .toList());
+        }));
+    }
+
+    @Override
+    public String snapshotSection() {
+        return "grade-distributions";
+    }
+
+    @Override
+    public List<String> snapshotEntities() {
+        return List.of("Enrollment", "Course");
+    }
+
+    @Override
+    public void writeSnapshot(DataOutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            out.writeBoolean(loaded);
+            if (!loaded) {
+                return;
+            }
+            out.writeInt(histograms.courseDepartments().size());
+            for (Map.Entry<Long, Long> entry : histograms.courseDepartments().entrySet()) {
+                out.writeLong(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+            out.writeInt(histograms.courseTerms().size());
+            for (Map.Entry<CourseTerm, ValueHistogram[]> entry : histograms.courseTerms().entrySet()) {
+                out.writeLong(entry.getKey().courseId());
+                out.writeInt(entry.getKey().academicYear());
+                out.writeUTF(entry.getKey().semester());
+                for (ValueHistogram histogram : entry.getValue()) {
+                    histogram.write(out);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void restoreSnapshot(ByteBuffer section) {
+        if (section.get() == 0) {
+            return;
+        }
+        Histograms restored = Histograms.empty();
+        for (int i = section.getInt(); i > 0; i--) {
+            restored.courseDepartments().put(section.getLong(), section.getLong());
+        }
+        for (int i = section.getInt(); i > 0; i--) {
+            CourseTerm courseTerm = new CourseTerm(section.getLong(), section.getInt(), CacheSnapshotStore.readUtf(section));
+            ValueHistogram[] courseHistograms = new ValueHistogram[METRICS.length];
+            for (int metric = 0; metric < METRICS.length; metric++) {
+                courseHistograms[metric] = ValueHistogram.read(section);
+            }
+            restored.courseTerms().put(courseTerm, courseHistograms);
+            ValueHistogram[] year = histograms(restored.years(), courseTerm.academicYear());
+            for (int metric = 0; metric < METRICS.length; metric++) {
+                year[metric].addAll(courseHistograms[metric], 1);
+            }
+            addToDepartment(restored, restored.courseDepartments().get(courseTerm.courseId()), courseTerm.academicYear(),
+                    courseHistograms, 1);
+        }
+        lock.writeLock().lock();
+        try {
+            histograms = restored;
+            departmentsLoaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        loaded = true;
+    }
+
+    private <T> T read(Function<Histograms, T> query) {
+        lock.readLock().lock();
+        try {
+            return query.apply(histograms);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void scheduleReload() {
+        reloader.schedule(this::reload);
+    }
+}
@@ -0,0 +1,345 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.dto.SearchHit;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * An in-memory inverted index over documents made of weighted text fields, ranked with BM25.
+ *
+ * <p>Text is folded to lower case without diacritics and split into runs of letters and digits;
+ * a run mixing both ({@code cs101}) is also indexed as its letter and digit parts. A document's
+ * term frequency is the sum of the weights of the fields the term occurs in. A query matches the
+ * documents containing every query term, the last one also as a prefix of at most
+ * {@value #MAX_PREFIX_EXPANSIONS} terms, so results appear while typing.
+ *
+ * <p>Postings are arrays of document ordinals in ascending order. Replacing or removing a document
+ * only marks its ordinal dead; once dead ordinals outnumber live ones, the postings are compacted.
+ * Matching starts from the query term with the fewest documents and checks the others by binary
+ * search, so a query costs about as much as its rarest term has documents. Reads share a lock;
+ * writes hold it exclusively.
+ */
+final class InvertedIndex {
+
+    static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern LETTER_DIGIT_BOUNDARY = Pattern.compile("(?<=\\p{L})(?=\\p{N})|(?<=\\p{N})(?=\\p{L})");
+    private static final Comparator<Match> RANKING = Comparator.comparingDouble(Match::score).reversed()
+            .thenComparing(match -> match.document().type())
+            .thenComparingLong(match -> match.document().id());
+
+    record Field(String text, double weight) {
+    }
+
+    private record Document(SearchHit.Type type, long id, String label, String[] terms, double length) {
+    }
+
+    private record Match(Document document, double score) {
+    }
+
+    private static final class Postings {
+        private int[] ordinals = new int[4];
+        private float[] frequencies = new float[4];
+        private int size;
+        private int live;
+
+        void append(int ordinal, float frequency) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            ordinals[size] = ordinal;
+            frequencies[size] = frequency;
+            size++;
+            live++;
+        }
+
+        int indexOf(int ordinal) {
+            return Arrays.binarySearch(ordinals, 0, size, ordinal);
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> postings = new TreeMap<>();
+    private final Map<SearchHit.Type, Map<Long, Integer>> ordinals = new EnumMap<>(SearchHit.Type.class);
+    private Document[] documents = new Document[16];
+    private int nextOrdinal;
+    private int liveDocuments;
+    private double totalLength;
+
+    /**
+     * Adds a document, replacing the one with the same type and id.
+     */
+    void put(SearchHit.Type type, long id, String label, List<Field> fields) {
+        Map<String, Double> frequencies = new LinkedHashMap<>();
+        double length = 0;
+        for (Field field : fields) {
+            for (String term : tokenize(field.text(), true)) {
+                frequencies.merge(term, field.weight(), Double::sum);
+                length += field.weight();
+            }
+        }
+        Document document = new Document(type, id, label, frequencies.keySet().toArray(String[]::new), length);
+        lock.writeLock().lock();
+        try {
+            removeLocked(type, id);
+            int ordinal = nextOrdinal++;
+            if (ordinal == documents.length) {
+                documents = Arrays.copyOf(documents, ordinal * 2);
+            }
+            documents[ordinal] = document;
+            ordinals.computeIfAbsent(type, key -> new HashMap<>()).put(id, ordinal);
+            frequencies.forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, key -> new Postings()).append(ordinal, frequency.floatValue()));
+            liveDocuments++;
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(SearchHit.Type type, long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(type, id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocuments;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int terms() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The matches of {@code query} among documents of the given types, best first: the
+     * {@code limit} matches after the first {@code offset}, and the total number of matches.
+     */
+    Results search(String query, Set<SearchHit.Type> types, int offset, int limit) {
+        // Query terms are not split into parts: "cs10" must stay a prefix of "cs101"
+        List<String> tokens = tokenize(query, false);
+        if (tokens.isEmpty() || types.isEmpty()) {
+            return new Results(List.of(), 0);
+        }
+        lock.readLock().lock();
+        try {
+            List<List<Postings>> clauses = new ArrayList<>();
+            for (int i = 0; i < tokens.size(); i++) {
+                List<Postings> clause = expand(tokens.get(i), i == tokens.size() - 1);
+                if (clause.isEmpty()) {
+                    return new Results(List.of(), 0);
+                }
+                clauses.add(clause);
+            }
+            clauses.sort(Comparator.comparingInt(InvertedIndex::documentFrequency));
+            return rank(clauses, types, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    record Results(List<SearchHit> hits, long total) {
+    }
+
+    private List<Postings> expand(String token, boolean prefix) {
+        List<Postings> clause = new ArrayList<>();
+        Postings exact = postings.get(token);
+        if (exact != null) {
+            clause.add(exact);
+        }
+        if (prefix) {
+            for (Map.Entry<String, Postings> entry : postings.tailMap(token, false).entrySet()) {
+                if (!entry.getKey().startsWith(token) || clause.size() >= MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                clause.add(entry.getValue());
+            }
+        }
+        return clause;
+    }
+
+    private Results rank(List<List<Postings>> clauses, Set<SearchHit.Type> types, int offset, int limit) {
+        double averageLength = liveDocuments == 0 ? 1 : Math.max(totalLength / liveDocuments, 1e-9);
+        double[] idf = new double[clauses.size()];
+        for (int i = 0; i < clauses.size(); i++) {
+            double df = documentFrequency(clauses.get(i));
+            idf[i] = Math.log(1 + (liveDocuments - df + 0.5) / (df + 0.5));
+        }
+        int wanted = offset + limit;
+        PriorityQueue<Match> best = new PriorityQueue<>(Math.max(1, wanted), RANKING.reversed());
+        long total = 0;
+        for (Postings lead : clauses.get(0)) {
+            for (int i = 0; i < lead.size; i++) {
+                int ordinal = lead.ordinals[i];
+                Document document = documents[ordinal];
+                if (document == null || !types.contains(document.type())
+                        || (clauses.get(0).size() > 1 && seenEarlier(clauses.get(0), lead, ordinal))) {
+                    continue;
+                }
+                double score = 0;
+                boolean matches = true;
+                for (int c = 0; c < clauses.size() && matches; c++) {
+                    double frequency = frequency(clauses.get(c), ordinal);
+                    matches = frequency > 0;
+                    score += idf[c] * frequency * (K1 + 1)
+                            / (frequency + K1 * (1 - B + B * document.length() / averageLength));
+                }
+                if (!matches) {
+                    continue;
+                }
+                total++;
+                if (wanted > 0) {
+                    best.add(new Match(document, score));
+                    if (best.size() > wanted) {
+                        best.poll();
+                    }
+                }
+            }
+        }
+        List<Match> ranked = new ArrayList<>(best);
+        ranked.sort(RANKING);
+        List<SearchHit> hits = ranked.subList(Math.min(offset, ranked.size()), ranked.size()).stream()
+                .map(match -> new SearchHit(match.document().type(), match.document().id(),
+                        match.document().label(), match.score()))
+                .toList();
+        return new Results(hits, total);
+    }
+
+    // A document matching several expansions of the lead clause is scored once, from the first
+    private static boolean seenEarlier(List<Postings> clause, Postings current, int ordinal) {
+        for (Postings earlier : clause) {
+            if (earlier == current) {
+                return false;
+            }
+            if (earlier.indexOf(ordinal) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Summed over the expansions of a prefix clause; 0 if the document has none of its terms
+    private static double frequency(List<Postings> clause, int ordinal) {
+        double frequency = 0;
+        for (Postings candidate : clause) {
+            int index = candidate.indexOf(ordinal);
+            if (index >= 0) {
+                frequency += candidate.frequencies[index];
+            }
+        }
+        return frequency;
+    }
+
+    private static int documentFrequency(Collection<Postings> clause) {
+        int frequency = 0;
+        for (Postings candidate : clause) {
+            frequency += candidate.live;
+        }
+        return frequency;
+    }
+
+    private void removeLocked(SearchHit.Type type, long id) {
+        Map<Long, Integer> byId = ordinals.get(type);
+        Integer ordinal = byId == null ? null : byId.remove(id);
+        if (ordinal == null) {
+            return;
+        }
+        Document document = documents[ordinal];
+        documents[ordinal] = null;
+        for (String term : document.terms()) {
+            postings.get(term).live--;
+        }
+        liveDocuments--;
+        totalLength -= document.length();
+        if (nextOrdinal - liveDocuments > Math.max(liveDocuments, 1024)) {
+            compact();
+        }
+    }
+
+    // Renumbers the live documents densely and drops the dead ordinals from every posting list
+    private void compact() {
+        int[] renumbered = new int[nextOrdinal];
+        Document[] live = new Document[Math.max(16, liveDocuments * 2)];
+        int next = 0;
+        for (int ordinal = 0; ordinal < nextOrdinal; ordinal++) {
+            Document document = documents[ordinal];
+            renumbered[ordinal] = document == null ? -1 : next;
+            if (document != null) {
+                live[next] = document;
+                ordinals.get(document.type()).put(document.id(), next);
+                next++;
+            }
+        }
+        postings.values().removeIf(list -> {
+            int kept = 0;
+            for (int i = 0; i < list.size; i++) {
+                int ordinal = renumbered[list.ordinals[i]];
+                if (ordinal >= 0) {
+                    list.ordinals[kept] = ordinal;
+                    list.frequencies[kept] = list.frequencies[i];
+                    kept++;
+                }
+            }
+            list.size = kept;
+            return kept == 0;
+        });
+        documents = live;
+        nextOrdinal = next;
+    }
+
+    static List<String> tokenize(String text, boolean withParts) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(folded)) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            tokens.add(token);
+            if (!withParts) {
+                continue;
+            }
+            String[] parts = LETTER_DIGIT_BOUNDARY.split(token);
+            if (parts.length > 1) {
+                tokens.addAll(Arrays.asList(parts));
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,348 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.dto.StudentSummaryRecord;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Student summaries in direct (off-heap) memory, keyed by student id. The heap only holds the
+ * buffer objects and a free-slot array, so millions of records add almost nothing for the
+ * garbage collector to trace.
+ *
+ * <ul>
+ *   <li>Records have a fixed 32-byte layout in segments of 65,536 records: the student id, four
+ *       string references and the GPA in hundredths.</li>
+ *   <li>Strings live in an append-only arena of 16 MiB chunks as a 2-byte length followed by the
+ *       UTF-8 bytes; a reference is the arena offset. Replaced strings become garbage, and the
+ *       arena is compacted once garbage outweighs live bytes.</li>
+ *   <li>Ids map to record slots through an open-addressing, linear-probing table of
+ *       (id, slot) pairs, also off-heap, kept at most 60% full.</li>
+ * </ul>
+ *
+ * <p>Thread-safe: lookups share a read lock, changes take the write lock.
+ */
+class OffHeapStudentSummaries {
+
+    static final int RECORD_BYTES = 32;
+    private static final int ID = 0;
+    private static final int FIRST_NAME = 8;
+    private static final int LAST_NAME = 12;
+    private static final int EMAIL = 16;
+    private static final int STUDENT_NUMBER = 20;
+    private static final int GPA = 24;
+    private static final int NO_STRING = -1;
+    private static final int NO_GPA = Integer.MIN_VALUE;
+
+    private static final int SEGMENT_SHIFT = 16;
+    private static final int RECORDS_PER_SEGMENT = 1 << SEGMENT_SHIFT;
+    private static final int CHUNK_SHIFT = 24;
+    private static final int CHUNK_BYTES = 1 << CHUNK_SHIFT;
+    private static final int MAX_CHUNKS = 1 << (31 - CHUNK_SHIFT);
+
+    private static final int INDEX_ENTRY_BYTES = 12;
+    private static final int INITIAL_INDEX_CAPACITY = 1 << 12;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<ByteBuffer> segments = new ArrayList<>();
+    private List<ByteBuffer> chunks = new ArrayList<>();
+    private int arenaEnd;
+    private long liveStringBytes;
+    private ByteBuffer index = ByteBuffer.allocateDirect(INITIAL_INDEX_CAPACITY * INDEX_ENTRY_BYTES);
+    private int indexCapacity = INITIAL_INDEX_CAPACITY;
+    private int size;
+    private int nextSlot;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    Optional<StudentSummaryRecord> get(long studentId) {
+        lock.readLock().lock();
+        try {
+            int slot = findSlot(studentId);
+            return slot < 0 ? Optional.empty() : Optional.of(read(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void put(StudentSummaryRecord summary) {
+        long studentId = summary.studentId();
+        if (studentId <= 0) {
+            throw new IllegalArgumentException("Student id must be positive: " + studentId);
+        }
+        lock.writeLock().lock();
+        try {
+            int slot = findSlot(studentId);
+            if (slot < 0) {
+                slot = allocateSlot();
+                insertIndex(studentId, slot);
+                size++;
+            } else {
+                releaseStrings(slot);
+            }
+            ByteBuffer segment = segments.get(slot >>> SEGMENT_SHIFT);
+            int base = (slot & (RECORDS_PER_SEGMENT - 1)) * RECORD_BYTES;
+            segment.putLong(base + ID, studentId);
+            segment.putInt(base + FIRST_NAME, appendString(summary.firstName()));
+            segment.putInt(base + LAST_NAME, appendString(summary.lastName()));
+            segment.putInt(base + EMAIL, appendString(summary.emailId()));
+            segment.putInt(base + STUDENT_NUMBER, appendString(summary.studentIdNumber()));
+            segment.putInt(base + GPA, summary.gpa() == null ? NO_GPA
+                    : summary.gpa().setScale(2, RoundingMode.HALF_UP).unscaledValue().intValueExact());
+            if (arenaEnd > CHUNK_BYTES && arenaEnd - liveStringBytes > liveStringBytes) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean remove(long studentId) {
+        lock.writeLock().lock();
+        try {
+            int slot = findSlot(studentId);
+            if (slot < 0) {
+                return false;
+            }
+            releaseStrings(slot);
+            deleteIndex(studentId);
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            }
+            freeSlots[freeCount++] = slot;
+            size--;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void forEach(Consumer<StudentSummaryRecord> action) {
+        lock.readLock().lock();
+        try {
+            for (int slot = 0; slot < nextSlot; slot++) {
+                if (isLive(slot)) {
+                    action.accept(read(slot));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Direct memory reserved by records, the string arena and the id index, in bytes.
+     */
+    long offHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) segments.size() * RECORDS_PER_SEGMENT * RECORD_BYTES
+                    + (long) chunks.size() * CHUNK_BYTES
+                    + (long) indexCapacity * INDEX_ENTRY_BYTES;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private StudentSummaryRecord read(int slot) {
+        ByteBuffer segment = segments.get(slot >>> SEGMENT_SHIFT);
+        int base = (slot & (RECORDS_PER_SEGMENT - 1)) * RECORD_BYTES;
+        int gpa = segment.getInt(base + GPA);
+        return new StudentSummaryRecord(
+                segment.getLong(base + ID),
+                readString(segment.getInt(base + FIRST_NAME)),
+                readString(segment.getInt(base + LAST_NAME)),
+                readString(segment.getInt(base + EMAIL)),
+                readString(segment.getInt(base + STUDENT_NUMBER)),
+                gpa == NO_GPA ? null : BigDecimal.valueOf(gpa, 2));
+    }
+
+    private boolean isLive(int slot) {
+        long studentId = segments.get(slot >>> SEGMENT_SHIFT).getLong((slot & (RECORDS_PER_SEGMENT - 1)) * RECORD_BYTES);
+        return studentId != 0 && findSlot(studentId) == slot;
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (nextSlot == segments.size() * RECORDS_PER_SEGMENT) {
+            segments.add(ByteBuffer.allocateDirect(RECORDS_PER_SEGMENT * RECORD_BYTES));
+        }
+        return nextSlot++;
+    }
+
+    // String arena
+
+    private int appendString(String value) {
+        if (value == null) {
+            return NO_STRING;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("String of " + bytes.length + " bytes is too long for the arena");
+        }
+        int needed = 2 + bytes.length;
+        int offsetInChunk = arenaEnd & (CHUNK_BYTES - 1);
+        if (arenaEnd == chunks.size() * CHUNK_BYTES || offsetInChunk + needed > CHUNK_BYTES) {
+            if (chunks.size() == MAX_CHUNKS) {
+                throw new IllegalStateException("Student summary string arena is full");
+            }
+            arenaEnd = chunks.size() * CHUNK_BYTES;
+            chunks.add(ByteBuffer.allocateDirect(CHUNK_BYTES));
+            offsetInChunk = 0;
+        }
+        ByteBuffer chunk = chunks.get(arenaEnd >>> CHUNK_SHIFT);
+        chunk.putShort(offsetInChunk, (short) bytes.length);
+        chunk.put(offsetInChunk + 2, bytes);
+        int reference = arenaEnd;
+        arenaEnd += needed;
+        liveStringBytes += needed;
+        return reference;
+    }
+
+    private String readString(int reference) {
+        if (reference == NO_STRING) {
+            return null;
+        }
+        ByteBuffer chunk = chunks.get(reference >>> CHUNK_SHIFT);
+        int offset = reference & (CHUNK_BYTES - 1);
+        byte[] bytes = new byte[chunk.getShort(offset)];
+        chunk.get(offset + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void releaseStrings(int slot) {
+        ByteBuffer segment = segments.get(slot >>> SEGMENT_SHIFT);
+        int base = (slot & (RECORDS_PER_SEGMENT - 1)) * RECORD_BYTES;
+        for (int field : new int[]{FIRST_NAME, LAST_NAME, EMAIL, STUDENT_NUMBER}) {
+            int reference = segment.getInt(base + field);
+            if (reference != NO_STRING) {
+                liveStringBytes -= 2 + chunks.get(reference >>> CHUNK_SHIFT).getShort(reference & (CHUNK_BYTES - 1));
+            }
+        }
+    }
+
+    /**
+     * Copies the strings of every live record into a fresh arena and drops the old chunks.
+     */
+    private void compact() {
+        List<ByteBuffer> oldChunks = chunks;
+        chunks = new ArrayList<>();
+        arenaEnd = 0;
+        liveStringBytes = 0;
+        for (int slot = 0; slot < nextSlot; slot++) {
+            if (!isLive(slot)) {
+                continue;
+            }
+            ByteBuffer segment = segments.get(slot >>> SEGMENT_SHIFT);
+            int base = (slot & (RECORDS_PER_SEGMENT - 1)) * RECORD_BYTES;
+            for (int field : new int[]{FIRST_NAME, LAST_NAME, EMAIL, STUDENT_NUMBER}) {
+                int reference = segment.getInt(base + field);
+                if (reference != NO_STRING) {
+                    ByteBuffer chunk = oldChunks.get(reference >>> CHUNK_SHIFT);
+                    int offset = reference & (CHUNK_BYTES - 1);
+                    byte[] bytes = new byte[chunk.getShort(offset)];
+                    chunk.get(offset + 2, bytes);
+                    segment.putInt(base + field, appendString(new String(bytes, StandardCharsets.UTF_8)));
+                }
+            }
+        }
+    }
+
+    // Id index: 8-byte id (0 = empty) and 4-byte slot per entry
+
+    private int findSlot(long studentId) {
+        int mask = indexCapacity - 1;
+        for (int i = hash(studentId) & mask; ; i = (i + 1) & mask) {
+            long key = index.getLong(i * INDEX_ENTRY_BYTES);
+            if (key == studentId) {
+                return index.getInt(i * INDEX_ENTRY_BYTES + 8);
+            }
+            if (key == 0) {
+                return -1;
+            }
+        }
+    }
+
+    private void insertIndex(long studentId, int slot) {
+        if ((size + 1) * 10L > indexCapacity * 6L) {
+            resizeIndex(indexCapacity * 2);
+        }
+        int mask = indexCapacity - 1;
+        int i = hash(studentId) & mask;
+        while (index.getLong(i * INDEX_ENTRY_BYTES) != 0) {
+            i = (i + 1) & mask;
+        }
+        index.putLong(i * INDEX_ENTRY_BYTES, studentId);
+        index.putInt(i * INDEX_ENTRY_BYTES + 8, slot);
+    }
+
+    /**
+     * Backward-shift deletion, so lookups never need tombstones.
+     */
+    private void deleteIndex(long studentId) {
+        int mask = indexCapacity - 1;
+        int i = hash(studentId) & mask;
+        while (index.getLong(i * INDEX_ENTRY_BYTES) != studentId) {
+            i = (i + 1) & mask;
+        }
+        for (int j = (i + 1) & mask; ; j = (j + 1) & mask) {
+            long key = index.getLong(j * INDEX_ENTRY_BYTES);
+            if (key == 0) {
+                break;
+            }
+            int home = hash(key) & mask;
+            // Move j into the hole at i unless its home lies cyclically in (i, j]
+            boolean stays = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+            if (!stays) {
+                index.putLong(i * INDEX_ENTRY_BYTES, key);
+                index.putInt(i * INDEX_ENTRY_BYTES + 8, index.getInt(j * INDEX_ENTRY_BYTES + 8));
+                i = j;
+            }
+        }
+        index.putLong(i * INDEX_ENTRY_BYTES, 0);
+    }
+
+    private void resizeIndex(int capacity) {
+        ByteBuffer old = index;
+        int oldCapacity = indexCapacity;
+        index = ByteBuffer.allocateDirect(capacity * INDEX_ENTRY_BYTES);
+        indexCapacity = capacity;
+        int mask = capacity - 1;
+        for (int e = 0; e < oldCapacity; e++) {
+            long key = old.getLong(e * INDEX_ENTRY_BYTES);
+            if (key != 0) {
+                int i = hash(key) & mask;
+                while (index.getLong(i * INDEX_ENTRY_BYTES) != 0) {
+                    i = (i + 1) & mask;
+                }
+                index.putLong(i * INDEX_ENTRY_BYTES, key);
+                index.putInt(i * INDEX_ENTRY_BYTES + 8, old.getInt(e * INDEX_ENTRY_BYTES + 8));
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
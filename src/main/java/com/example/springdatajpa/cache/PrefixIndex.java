@@ -0,0 +1,406 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.dto.Suggestion;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * An in-memory radix tree (a trie whose single-child chains are collapsed into one edge) from
+ * keys to weighted {@link Suggestion}s, answering "the best suggestions whose key starts with
+ * this prefix".
+ *
+ * <p>A suggestion is stored under several keys, one per word of its name starting at that word
+ * ("john smith", "smith"), so typing any word of the name finds it. Every node whose subtree
+ * holds more than {@code capacity} suggestions keeps that subtree's best {@code capacity}, so a
+ * lookup walks the prefix and copies at most {@code capacity} entries, however many suggestions
+ * share the prefix; smaller subtrees are collected on demand. Inserting or removing a key
+ * recomputes the kept suggestions on the nodes along its path only. Reads share a lock; writes
+ * hold it exclusively.
+ */
+final class PrefixIndex {
+
+    static final Comparator<Suggestion> RANKING = Comparator.comparingDouble(Suggestion::weight).reversed()
+            .thenComparing(Suggestion::label, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(Suggestion::id);
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final char[] NO_CHARS = new char[0];
+    private static final Node[] NO_NODES = new Node[0];
+    private static final Suggestion[] NO_SUGGESTIONS = new Suggestion[0];
+
+    private static final class Node {
+        private char[] edge;
+        private char[] firsts = NO_CHARS;
+        private Node[] children = NO_NODES;
+        private Suggestion[] terminals = NO_SUGGESTIONS;
+        private int count;
+        private Suggestion[] best;
+
+        Node(char[] edge) {
+            this.edge = edge;
+        }
+
+        Node child(char first) {
+            int index = Arrays.binarySearch(firsts, first);
+            return index >= 0 ? children[index] : null;
+        }
+
+        void putChild(Node child) {
+            int index = Arrays.binarySearch(firsts, child.edge[0]);
+            if (index >= 0) {
+                children[index] = child;
+                return;
+            }
+            int at = -index - 1;
+            firsts = insert(firsts, at, child.edge[0]);
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, at);
+            grown[at] = child;
+            System.arraycopy(children, at, grown, at + 1, children.length - at);
+            children = grown;
+        }
+
+        void removeChild(char first) {
+            int at = Arrays.binarySearch(firsts, first);
+            char[] fewerFirsts = new char[firsts.length - 1];
+            System.arraycopy(firsts, 0, fewerFirsts, 0, at);
+            System.arraycopy(firsts, at + 1, fewerFirsts, at, firsts.length - at - 1);
+            Node[] fewer = new Node[children.length - 1];
+            System.arraycopy(children, 0, fewer, 0, at);
+            System.arraycopy(children, at + 1, fewer, at, children.length - at - 1);
+            firsts = fewerFirsts;
+            children = fewer;
+        }
+
+        private static char[] insert(char[] chars, int at, char value) {
+            char[] grown = new char[chars.length + 1];
+            System.arraycopy(chars, 0, grown, 0, at);
+            grown[at] = value;
+            System.arraycopy(chars, at, grown, at + 1, chars.length - at);
+            return grown;
+        }
+    }
+
+    private record Registered(Suggestion suggestion, List<String> keys) {
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Node root = new Node(NO_CHARS);
+    private final Map<Long, Registered> suggestions = new HashMap<>();
+    private final int capacity;
+    private int nodes = 1;
+
+    PrefixIndex(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Adds a suggestion under the given keys (see {@link #keys}), replacing the one with the
+     * same id.
+     */
+    void put(Suggestion suggestion, List<String> keys) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(suggestion.id());
+            List<String> distinct = keys.stream().filter(key -> !key.isEmpty()).distinct().toList();
+            suggestions.put(suggestion.id(), new Registered(suggestion, distinct));
+            distinct.forEach(key -> insert(key.toCharArray(), suggestion));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    Optional<Suggestion> get(long id) {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(suggestions.get(id)).map(Registered::suggestion);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the weight of the suggestion with this id, if there is one.
+     */
+    void reweight(long id, double weight) {
+        lock.writeLock().lock();
+        try {
+            Registered registered = suggestions.get(id);
+            if (registered != null && registered.suggestion().weight() != weight) {
+                Suggestion current = registered.suggestion();
+                put(new Suggestion(current.type(), current.id(), current.label(), weight), registered.keys());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return suggestions.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int nodes() {
+        lock.readLock().lock();
+        try {
+            return nodes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The best {@code limit} (at most the capacity) suggestions with a key starting with the
+     * folded prefix, best first.
+     */
+    List<Suggestion> complete(String prefix, int limit) {
+        String folded = fold(prefix);
+        if (folded.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = find(folded);
+            if (node == null) {
+                return List.of();
+            }
+            List<Suggestion> best = node.best != null ? Arrays.asList(node.best) : collect(node);
+            return List.copyOf(best.subList(0, Math.min(Math.min(limit, capacity), best.size())));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The keys to store a name under: the folded name starting at each of its words.
+     */
+    static List<String> keys(String... names) {
+        List<String> keys = new ArrayList<>();
+        for (String name : names) {
+            String folded = fold(name);
+            int start = 0;
+            while (!folded.isEmpty()) {
+                keys.add(folded.substring(start));
+                int space = folded.indexOf(' ', start);
+                if (space < 0) {
+                    break;
+                }
+                start = space + 1;
+            }
+        }
+        return keys;
+    }
+
+    // Lower case without diacritics, with runs of anything but letters and digits as one space
+    static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        return SEPARATORS.matcher(folded).replaceAll(" ").strip();
+    }
+
+    // The node at or just below the end of the prefix, or null if no key starts with it
+    private Node find(String prefix) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            Node child = node.child(prefix.charAt(i));
+            if (child == null) {
+                return null;
+            }
+            for (int j = 0; j < child.edge.length && i < prefix.length(); j++, i++) {
+                if (child.edge[j] != prefix.charAt(i)) {
+                    return null;
+                }
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    private void insert(char[] key, Suggestion suggestion) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length) {
+            Node child = node.child(key[i]);
+            if (child == null) {
+                child = new Node(Arrays.copyOfRange(key, i, key.length));
+                node.putChild(child);
+                nodes++;
+                path.add(child);
+                node = child;
+                break;
+            }
+            int common = 0;
+            while (common < child.edge.length && i + common < key.length && child.edge[common] == key[i + common]) {
+                common++;
+            }
+            if (common < child.edge.length) {
+                // Split the edge: the shared part becomes a node above the rest, with the same subtree
+                Node split = new Node(Arrays.copyOf(child.edge, common));
+                child.edge = Arrays.copyOfRange(child.edge, common, child.edge.length);
+                split.putChild(child);
+                split.count = child.count;
+                split.best = child.best;
+                node.putChild(split);
+                nodes++;
+                child = split;
+            }
+            path.add(child);
+            node = child;
+            i += common;
+        }
+        node.terminals = Arrays.copyOf(node.terminals, node.terminals.length + 1);
+        node.terminals[node.terminals.length - 1] = suggestion;
+        for (int p = path.size() - 1; p >= 0; p--) {
+            Node current = path.get(p);
+            current.count++;
+            if (current.best == null) {
+                rank(current);
+            } else {
+                offer(current, suggestion);
+            }
+        }
+    }
+
+    // An added suggestion can only push others out of a kept list, so it is merged in place
+    private void offer(Node node, Suggestion suggestion) {
+        for (Suggestion kept : node.best) {
+            if (kept.id().equals(suggestion.id())) {
+                return;
+            }
+        }
+        int at = -Arrays.binarySearch(node.best, suggestion, RANKING) - 1;
+        if (at >= capacity) {
+            return;
+        }
+        Suggestion[] best = new Suggestion[Math.min(capacity, node.best.length + 1)];
+        System.arraycopy(node.best, 0, best, 0, at);
+        best[at] = suggestion;
+        System.arraycopy(node.best, at, best, at + 1, best.length - at - 1);
+        node.best = best;
+    }
+
+    private void removeLocked(long id) {
+        Registered registered = suggestions.remove(id);
+        if (registered != null) {
+            registered.keys().forEach(key -> delete(key.toCharArray(), registered.suggestion()));
+        }
+    }
+
+    private void delete(char[] key, Suggestion suggestion) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length) {
+            node = node.child(key[i]);
+            i += node.edge.length;
+            path.add(node);
+        }
+        int at = Arrays.asList(node.terminals).indexOf(suggestion);
+        Suggestion[] fewer = new Suggestion[node.terminals.length - 1];
+        System.arraycopy(node.terminals, 0, fewer, 0, at);
+        System.arraycopy(node.terminals, at + 1, fewer, at, node.terminals.length - at - 1);
+        node.terminals = fewer;
+        for (int p = path.size() - 1; p > 0; p--) {
+            Node current = path.get(p);
+            Node parent = path.get(p - 1);
+            current.count--;
+            if (current.terminals.length == 0 && current.children.length == 0) {
+                parent.removeChild(current.edge[0]);
+                nodes--;
+            } else if (current.terminals.length == 0 && current.children.length == 1) {
+                // Merge a node left with a single child into that child's edge
+                Node only = current.children[0];
+                char[] merged = Arrays.copyOf(current.edge, current.edge.length + only.edge.length);
+                System.arraycopy(only.edge, 0, merged, current.edge.length, only.edge.length);
+                only.edge = merged;
+                parent.putChild(only);
+                nodes--;
+            } else {
+                rank(current);
+            }
+        }
+        root.count--;
+        rank(root);
+    }
+
+    // Keeps the subtree's best suggestions on nodes with more than capacity of them
+    private void rank(Node node) {
+        if (node.count <= capacity) {
+            node.best = null;
+            return;
+        }
+        List<Suggestion> candidates = new ArrayList<>(Arrays.asList(node.terminals));
+        for (Node child : node.children) {
+            candidates.addAll(child.best != null ? Arrays.asList(child.best) : collect(child));
+        }
+        List<Suggestion> best = distinctRanked(candidates);
+        node.best = best.subList(0, Math.min(capacity, best.size())).toArray(NO_SUGGESTIONS);
+    }
+
+    // Every suggestion in a subtree small enough to hold no kept list, best first
+    private static List<Suggestion> collect(Node node) {
+        List<Suggestion> all = new ArrayList<>();
+        collectInto(node, all);
+        return distinctRanked(all);
+    }
+
+    private static void collectInto(Node node, List<Suggestion> all) {
+        all.addAll(Arrays.asList(node.terminals));
+        for (Node child : node.children) {
+            if (child.best != null) {
+                all.addAll(Arrays.asList(child.best));
+            } else {
+                collectInto(child, all);
+            }
+        }
+    }
+
+    // A suggestion stored under several keys of one subtree is listed once
+    private static List<Suggestion> distinctRanked(List<Suggestion> suggestions) {
+        suggestions.sort(RANKING);
+        Set<Long> seen = new HashSet<>();
+        List<Suggestion> distinct = new ArrayList<>(suggestions.size());
+        for (Suggestion suggestion : suggestions) {
+            if (seen.add(suggestion.id())) {
+                distinct.add(suggestion);
+            }
+        }
+        return distinct;
+    }
+}
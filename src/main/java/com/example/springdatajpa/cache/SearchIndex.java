@@ -0,0 +1,249 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.dto.CourseSearchFields;
+import com.example.springdatajpa.dto.DepartmentSearchFields;
+import com.example.springdatajpa.dto.SearchHit;
+import com.example.springdatajpa.dto.StudentSearchFields;
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.entity.Department;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.event.EntityChangedEvent;
+import com.example.springdatajpa.repository.CourseRepository;
+import com.example.springdatajpa.repository.DepartmentRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Full-text search over courses (code, title, description), departments (code, name, head) and
+ * students (student number, names, email), held in memory in one {@link InvertedIndex}.
+ *
+ * <p>The index is filled by streaming the three tables once after startup and kept current from
+ * committed changes: a created or updated entity is re-indexed from the entity itself, a deleted
+ * one removed. A course whose lazily loaded description was never read is re-read by id on a
+ * background thread instead. A bulk change rebuilds the whole index into a new one on that
+ * thread, which replaces the current one when complete; entities changed during the rebuild are
+ * read again afterwards. Until the first build completes, {@link #isLoaded()} is false and
+ * searches find nothing.
+ *
+ * <p>{@code search.index.documents} and {@code search.index.terms} report the index size.
+ */
+@Component
+@Slf4j
+public class SearchIndex {
+
+    private record Source<T>(Supplier<Stream<T>> all, Function<Collection<Long>, List<T>> byIds,
+                             Function<T, Document> document) {
+    }
+
+    /**
+     * What a course, department or student is indexed as: its display title and weighted fields.
+     */
+    private record Document(long id, String title, List<InvertedIndex.Field> fields) {
+    }
+
+    private record DocumentKey(SearchHit.Type type, long id) {
+    }
+
+    private final Map<SearchHit.Type, Source<?>> sources = new EnumMap<>(SearchHit.Type.class);
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final BackgroundReloader<DocumentKey> reloader =
+            BackgroundReloader.refreshingKeys("search-index-load", "the search index");
+    private volatile InvertedIndex index = new InvertedIndex();
+    private volatile boolean loaded;
+
+    public SearchIndex(CourseRepository courseRepository,
+                       DepartmentRepository departmentRepository,
+                       StudentRepository studentRepository,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.cache.search-index.enabled:true}") boolean enabled) {
+        sources.put(SearchHit.Type.COURSE, new Source<>(courseRepository::streamSearchFields,
+                courseRepository::findSearchFields, SearchIndex::course));
+        sources.put(SearchHit.Type.DEPARTMENT, new Source<>(departmentRepository::streamSearchFields,
+                departmentRepository::findSearchFields, SearchIndex::department));
+        sources.put(SearchHit.Type.STUDENT, new Source<>(studentRepository::streamSearchFields,
+                studentRepository::findSearchFields, SearchIndex::student));
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        Gauge.builder("search.index.documents", this, search -> search.index.size()).register(meterRegistry);
+        Gauge.builder("search.index.terms", this, search -> search.index.terms()).register(meterRegistry);
+    }
+
+    /**
+     * The page of matches of {@code query} among the given types, best first.
+     */
+    public Page<SearchHit> search(String query, Set<SearchHit.Type> types, Pageable pageable) {
+        InvertedIndex.Results results = index.search(query, types, (int) pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(results.hits(), pageable, results.total());
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (enabled && !loaded) {
+            scheduleReload();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reloader.shutdown();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        SearchHit.Type type = event.affects(Course.class) ? SearchHit.Type.COURSE
+                : event.affects(Department.class) ? SearchHit.Type.DEPARTMENT
+                : event.affects(Student.class) ? SearchHit.Type.STUDENT
+                : null;
+        if (type == null) {
+            return;
+        }
+        if (event.isBulk()) {
+            scheduleReload();
+            return;
+        }
+        Object entity = event.entity();
+        long id = switch (type) {
+            case COURSE -> ((Course) entity).getCourseId();
+            case DEPARTMENT -> ((Department) entity).getDepartmentId();
+            case STUDENT -> ((Student) entity).getStudentId();
+        };
+        reloader.record(new DocumentKey(type, id));
+        if (event.changeType() == EntityChangedEvent.ChangeType.DELETED) {
+            index.remove(type, id);
+        } else if (entity instanceof Course course && !Hibernate.isPropertyInitialized(course, "description")) {
+            reloader.execute(() -> refreshQuietly(index, List.of(new DocumentKey(type, id))));
+        } else {
+            Document document = switch (type) {
+                case COURSE -> {
+                    Course course = (Course) entity;
+                    yield course(new CourseSearchFields(id, course.getTitle(), course.getCourseCode(),
+                            course.getDescription()));
+                }
+                case DEPARTMENT -> {
+                    Department department = (Department) entity;
+                    yield department(new DepartmentSearchFields(id, department.getDepartmentName(),
+                            department.getDepartmentCode(), department.getHeadOfDepartment()));
+                }
+                case STUDENT -> {
+                    Student student = (Student) entity;
+                    yield student(new StudentSearchFields(id, student.getFirstName(), student.getLastName(),
+                            student.getEmailId(), student.getStudentIdNumber()));
+                }
+            };
+            put(index, type, document);
+        }
+    }
+
+    /**
+     * Rebuilds the index from the database on the calling thread. Rebuilds run one at a time.
+     */
+    void reload() {
+        InvertedIndex fresh = reloader.reload(this::load, current -> index = current, this::refresh);
+        loaded = true;
+        log.info("Indexed {} documents, {} terms for search", fresh.size(), fresh.terms());
+    }
+
+    private InvertedIndex load() {
+        InvertedIndex fresh = new InvertedIndex();
+        sources.forEach((type, source) -> readOnlyTransaction.executeWithoutResult(status -> load(fresh, type, source)));
+        return fresh;
+    }
+
+    private static <T> void load(InvertedIndex target, SearchHit.Type type, Source<T> source) {
+        try (Stream<T> rows = source.all().get()) {
+            rows.forEach(row -> put(target, type, source.document().apply(row)));
+        }
+    }
+
+    private void refreshQuietly(InvertedIndex target, List<DocumentKey> keys) {
+        try {
+            refresh(target, keys);
+        } catch (RuntimeException e) {
+            log.warn("Re-indexing {} failed: {}", keys, e.getMessage());
+        }
+    }
+
+    // Re-reads a batch of documents, removing those that no longer exist
+    private void refresh(InvertedIndex target, List<DocumentKey> keys) {
+        Map<SearchHit.Type, List<Long>> idsByType = new EnumMap<>(SearchHit.Type.class);
+        keys.forEach(key -> idsByType.computeIfAbsent(key.type(), type -> new ArrayList<>()).add(key.id()));
+        idsByType.forEach((type, ids) -> {
+            List<Document> documents = readOnlyTransaction.execute(status -> read(sources.get(type), ids));
+            Set<Long> found = new HashSet<>();
+            for (Document document : documents) {
+                put(target, type, document);
+                found.add(document.id());
+            }
+            ids.stream().filter(id -> !found.contains(id)).forEach(id -> target.remove(type, id));
+        });
+    }
+
+    private static <T> List<Document> read(Source<T> source, Collection<Long> ids) {
+        return source.byIds().apply(ids).stream().map(source.document()).toList();
+    }
+
+    private static void put(InvertedIndex target, SearchHit.Type type, Document document) {
+        target.put(type, document.id(), document.title(), document.fields());
+    }
+
+    private static Document course(CourseSearchFields course) {
+        return new Document(course.courseId(), course.title(), List.of(
+                new InvertedIndex.Field(course.courseCode(), 4),
+                new InvertedIndex.Field(course.title(), 3),
+                new InvertedIndex.Field(course.description(), 1)));
+    }
+
+    private static Document department(DepartmentSearchFields department) {
+        return new Document(department.departmentId(), department.departmentName(), List.of(
+                new InvertedIndex.Field(department.departmentCode(), 4),
+                new InvertedIndex.Field(department.departmentName(), 3),
+                new InvertedIndex.Field(department.headOfDepartment(), 1)));
+    }
+
+    private static Document student(StudentSearchFields student) {
+        return new Document(student.studentId(), student.firstName() + " " + student.lastName(), List.of(
+                new InvertedIndex.Field(student.studentIdNumber(), 4),
+                new InvertedIndex.Field(student.firstName(), 3),
+                new InvertedIndex.Field(student.lastName(), 3),
+                new InvertedIndex.Field(student.emailId(), 1)));
+    }
+
+    private void scheduleReload() {
+        reloader.schedule(this::reload);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.springdatajpa.cache;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Cache key for one search: the endpoint, the entity type whose writes invalidate it and the
+ * normalized parameters. Normalization only merges parameter values the query treats
+ * identically: empty strings match everything just like absent ones, case-insensitive text
+ * is lower-cased and decimals lose trailing zeros.
+ */
+public record SearchKey(String endpoint, Class<?> entityType, List<Object> parameters) {
+
+    public static SearchKey of(String endpoint, Class<?> entityType, Object... parameters) {
+        List<Object> normalized = new ArrayList<>(parameters.length);
+        for (Object parameter : parameters) {
+            normalized.add(normalize(parameter));
+        }
+        return new SearchKey(endpoint, entityType, Collections.unmodifiableList(normalized));
+    }
+
+    /**
+     * Lower-cases a parameter that is matched case-insensitively.
+     */
+    public static String ignoreCase(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    // Rough retained size, used to keep the cache within its memory budget
+    int estimatedBytes() {
+        int bytes = 64 + endpoint.length() * 2;
+        for (Object parameter : parameters) {
+            bytes += 16 + (parameter instanceof String text ? 40 + text.length() * 2 : 24);
+        }
+        return bytes;
+    }
+
+    private static Object normalize(Object parameter) {
+        if (parameter instanceof String text && text.isEmpty()) {
+            return null;
+        }
+        if (parameter instanceof BigDecimal decimal) {
+            return decimal.stripTrailingZeros();
+        }
+        return parameter;
+    }
+}
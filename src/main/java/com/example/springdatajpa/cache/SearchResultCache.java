@@ -0,0 +1,136 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.event.EntityChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Caches search results as arrays of entity ids, keyed by {@link SearchKey}.
+ *
+ * <p>The cache is bounded by an estimated memory budget rather than an entry count, since result
+ * sizes vary widely. A committed write to an entity type drops every cached search over that
+ * type; a per-type generation counter keeps a search that raced with such a commit from storing
+ * its result afterwards. Searches inside a read-write transaction bypass the cache because they
+ * may see that transaction's uncommitted changes. Entries also expire after a TTL.
+ *
+ * <p>Hits and misses are counted per endpoint ({@code search.cache.requests}) together with a
+ * {@code search.cache.hit.ratio} gauge.
+ */
+@Component
+@Slf4j
+public class SearchResultCache {
+
+    private final Cache<SearchKey, long[]> cache;
+    private final Map<Class<?>, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final Map<String, EndpointStats> endpointStats = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public SearchResultCache(MeterRegistry meterRegistry,
+                             @Value("${app.cache.search-results.max-bytes:16777216}") long maxBytes,
+                             @Value("${app.cache.search-results.ttl:PT10M}") Duration ttl) {
+        this.meterRegistry = meterRegistry;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((SearchKey key, long[] ids) -> key.estimatedBytes() + 16 + ids.length * Long.BYTES)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "searchResults");
+    }
+
+    /**
+     * Returns the ids of the search's result, running {@code search} only on a miss.
+     */
+    public List<Long> getIds(SearchKey key, Supplier<List<Long>> search) {
+        EndpointStats stats = statsFor(key.endpoint());
+        if (!cacheable()) {
+            return search.get();
+        }
+        long[] cached = cache.getIfPresent(key);
+        if (cached != null) {
+            stats.hits.increment();
+            return Arrays.stream(cached).boxed().toList();
+        }
+        stats.misses.increment();
+        long generation = generation(key.entityType()).get();
+        List<Long> ids = search.get();
+        if (generation(key.entityType()).get() == generation) {
+            cache.put(key, ids.stream().mapToLong(Long::longValue).toArray());
+        }
+        return ids;
+    }
+
+    /**
+     * Orders loaded entities like the cached ids; entities deleted in the meantime are skipped.
+     */
+    public static <T> List<T> inIdOrder(List<Long> ids, List<T> entities, Function<T, Long> idOf) {
+        Map<Long, T> byId = new HashMap<>(entities.size() * 2);
+        for (T entity : entities) {
+            byId.put(idOf.apply(entity), entity);
+        }
+        return ids.stream().map(byId::get).filter(entity -> entity != null).toList();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        generation(event.entityType()).incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> event.affects(key.entityType()));
+        log.debug("Invalidated cached searches over {}", event.entityType().getSimpleName());
+    }
+
+    public double hitRatio(String endpoint) {
+        return statsFor(endpoint).hitRatio();
+    }
+
+    private AtomicLong generation(Class<?> entityType) {
+        return generations.computeIfAbsent(entityType, type -> new AtomicLong());
+    }
+
+    private static boolean cacheable() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private EndpointStats statsFor(String endpoint) {
+        return endpointStats.computeIfAbsent(endpoint, this::registerEndpoint);
+    }
+
+    private EndpointStats registerEndpoint(String endpoint) {
+        EndpointStats stats = new EndpointStats(
+                Counter.builder("search.cache.requests").tag("endpoint", endpoint).tag("result", "hit")
+                        .register(meterRegistry),
+                Counter.builder("search.cache.requests").tag("endpoint", endpoint).tag("result", "miss")
+                        .register(meterRegistry));
+        Gauge.builder("search.cache.hit.ratio", stats, EndpointStats::hitRatio)
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+        return stats;
+    }
+
+    private record EndpointStats(Counter hits, Counter misses) {
+
+        double hitRatio() {
+            double total = hits.count() + misses.count();
+            return total == 0 ? 0.0 : hits.count() / total;
+        }
+    }
+}
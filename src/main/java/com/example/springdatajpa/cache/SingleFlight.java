@@ -0,0 +1,27 @@
+package com.example.springdatajpa.cache;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a read-only method whose concurrent invocations with equal arguments may share one
+ * execution: the first caller runs the method, callers arriving while it runs wait for and
+ * receive the same result (or exception). Nothing is kept once the execution finishes.
+ *
+ * <p>The shared result is handed to every caller, so it must not be mutated by them.
+ *
+ * @see SingleFlightAspect
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SingleFlight {
+
+    /**
+     * Name of the flight, used as the {@code key} tag of the {@code single.flight.calls} metric.
+     */
+    String value();
+}
@@ -0,0 +1,97 @@
+package com.example.springdatajpa.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Coalesces concurrent calls of {@link SingleFlight} methods. Calls are keyed by flight name and
+ * argument values; while a call for a key is running, further calls for that key wait for it
+ * instead of executing the method again.
+ *
+ * <p>Runs outside the transaction advice, so only the leading call opens a transaction. Callers
+ * that are already inside a read-write transaction always execute the method themselves, since
+ * they may need to see their own uncommitted changes.
+ *
+ * <p>Every call is counted in {@code single.flight.calls}, tagged with the flight name and
+ * {@code role=leader} (executed the method) or {@code role=collapsed} (shared a leader's result).
+ */
+@Aspect
+@Component
+@Order(0) // before the transaction advice, which has the lowest precedence
+@RequiredArgsConstructor
+public class SingleFlightAspect {
+
+    private final Map<FlightKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, FlightStats> flightStats = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    @Around("@annotation(singleFlight)")
+    public Object coalesce(ProceedingJoinPoint joinPoint, SingleFlight singleFlight) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return joinPoint.proceed();
+        }
+        FlightStats stats = statsFor(singleFlight.value());
+        FlightKey key = new FlightKey(singleFlight.value(), Arrays.asList(joinPoint.getArgs()));
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            stats.collapsed().increment();
+            return await(running);
+        }
+        stats.leaders().increment();
+        try {
+            Object result = joinPoint.proceed();
+            flight.complete(result);
+            return result;
+        } catch (Throwable e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    public long collapsedCalls(String flight) {
+        return (long) statsFor(flight).collapsed().count();
+    }
+
+    private static Object await(CompletableFuture<Object> running) throws Throwable {
+        try {
+            return running.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a shared call", e);
+        }
+    }
+
+    private FlightStats statsFor(String flight) {
+        return flightStats.computeIfAbsent(flight, name -> new FlightStats(
+                Counter.builder("single.flight.calls").tag("key", name).tag("role", "leader")
+                        .register(meterRegistry),
+                Counter.builder("single.flight.calls").tag("key", name).tag("role", "collapsed")
+                        .register(meterRegistry)));
+    }
+
+    private record FlightKey(String flight, List<Object> arguments) {
+    }
+
+    private record FlightStats(Counter leaders, Counter collapsed) {
+    }
+}
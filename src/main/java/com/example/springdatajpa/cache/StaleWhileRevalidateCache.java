@@ -0,0 +1,191 @@
+package com.example.springdatajpa.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Stale-while-revalidate cache for aggregate responses that may be a few seconds old.
+ *
+ * <p>A value younger than the soft TTL is returned as is. Past the soft TTL it is still returned
+ * immediately, and a refresh is started on a background thread. Only a missing value, or one
+ * older than the hard TTL, makes the caller wait for the computation. Refreshes and waiting
+ * loads of the same key share one computation. A failed background refresh, or one the refresh
+ * threads reject, keeps the old value.
+ *
+ * <p>Callers inside a read-write transaction compute the value themselves and leave the cache
+ * untouched, since they may see uncommitted changes. Requests are counted per key in
+ * {@code stats.cache.requests} with {@code result=fresh|stale|miss}.
+ */
+@Component
+@Slf4j
+public class StaleWhileRevalidateCache {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Entry>> loads = new ConcurrentHashMap<>();
+    private final Map<String, KeyStats> keyStats = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final Duration softTtl;
+    private final Duration hardTtl;
+    private final Clock clock;
+    private final ExecutorService refreshExecutor;
+
+    @Autowired
+    public StaleWhileRevalidateCache(MeterRegistry meterRegistry,
+                                     @Value("${app.cache.stats.soft-ttl:PT10S}") Duration softTtl,
+                                     @Value("${app.cache.stats.hard-ttl:PT5M}") Duration hardTtl) {
+        this(meterRegistry, softTtl, hardTtl, Clock.systemUTC(), Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "stats-refresh");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    StaleWhileRevalidateCache(MeterRegistry meterRegistry, Duration softTtl, Duration hardTtl,
+                              Clock clock, ExecutorService refreshExecutor) {
+        if (hardTtl.compareTo(softTtl) < 0) {
+            throw new IllegalArgumentException("Hard TTL " + hardTtl + " is shorter than soft TTL " + softTtl);
+        }
+        this.meterRegistry = meterRegistry;
+        this.softTtl = softTtl;
+        this.hardTtl = hardTtl;
+        this.clock = clock;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    /**
+     * Returns the cached value of {@code key} with its age, computing it with {@code loader}
+     * as described in the class comment.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> AgedValue<T> get(String key, Supplier<T> loader) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return new AgedValue<>(loader.get(), Duration.ZERO);
+        }
+        KeyStats stats = statsFor(key);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            Duration age = entry.age(clock);
+            if (age.compareTo(softTtl) < 0) {
+                stats.fresh().increment();
+                return new AgedValue<>((T) entry.value(), age);
+            }
+            if (age.compareTo(hardTtl) < 0) {
+                stats.stale().increment();
+                load(key, loader, true);
+                return new AgedValue<>((T) entry.value(), age);
+            }
+        }
+        stats.misses().increment();
+        Entry loaded = await(load(key, loader, false));
+        return new AgedValue<>((T) loaded.value(), loaded.age(clock));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private CompletableFuture<Entry> load(String key, Supplier<?> loader, boolean inBackground) {
+        CompletableFuture<Entry> load = new CompletableFuture<>();
+        CompletableFuture<Entry> running = loads.putIfAbsent(key, load);
+        if (running != null) {
+            return running;
+        }
+        Runnable task = () -> {
+            try {
+                long startedAt = clock.millis();
+                Entry entry = new Entry(loader.get(), startedAt);
+                entries.put(key, entry);
+                load.complete(entry);
+            } catch (RuntimeException e) {
+                if (inBackground) {
+                    log.warn("Refreshing cached statistics '{}' failed, serving the previous value: {}",
+                            key, e.getMessage());
+                }
+                load.completeExceptionally(e);
+            } finally {
+                loads.remove(key, load);
+            }
+        };
+        if (inBackground) {
+            try {
+                refreshExecutor.execute(task);
+            } catch (RejectedExecutionException e) {
+                log.warn("Refreshing cached statistics '{}' was rejected, serving the previous value", key);
+                loads.remove(key, load);
+                load.completeExceptionally(e);
+            }
+        } else {
+            task.run();
+        }
+        return load;
+    }
+
+    private static Entry await(CompletableFuture<Entry> load) {
+        try {
+            return load.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for cached statistics", e);
+        }
+    }
+
+    private KeyStats statsFor(String key) {
+        return keyStats.computeIfAbsent(key, name -> new KeyStats(
+                counter(name, "fresh"), counter(name, "stale"), counter(name, "miss")));
+    }
+
+    private Counter counter(String key, String result) {
+        return Counter.builder("stats.cache.requests").tag("key", key).tag("result", result).register(meterRegistry);
+    }
+
+    private record Entry(Object value, long computedAt) {
+
+        Duration age(Clock clock) {
+            return Duration.ofMillis(Math.max(0, clock.millis() - computedAt));
+        }
+    }
+
+    private record KeyStats(Counter fresh, Counter stale, Counter misses) {
+    }
+
+    /**
+     * A cached value and the time since its computation started.
+     */
+    public record AgedValue<T>(T value, Duration age) {
+
+        /**
+         * 200 response with the value as body and its age, in whole seconds, in the Age header.
+         */
+        public ResponseEntity<T> toResponse() {
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.AGE, Long.toString(age.toSeconds()))
+                    .body(value);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.config.CacheConfig;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.event.EntityChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Keeps the student number resolution cache consistent with committed writes. The event of an
+ * updated student carries only its new number, so the number cached for it is looked up in the
+ * reverse id to number cache and evicted by key. New students need no eviction because unknown
+ * numbers are never cached.
+ */
+@Component
+@RequiredArgsConstructor
+public class StudentNumberCacheInvalidator {
+
+    private final CacheManager cacheManager;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (!event.affects(Student.class) || event.changeType() == EntityChangedEvent.ChangeType.CREATED) {
+            return;
+        }
+        if (event.isBulk()) {
+            studentNumberCache().clear();
+            studentIdNumberCache().clear();
+            return;
+        }
+        Long studentId = event.entityAs(Student.class).getStudentId();
+        String cachedNumber = studentIdNumberCache().get(studentId, String.class);
+        if (cachedNumber != null) {
+            studentNumberCache().evict(cachedNumber);
+            studentIdNumberCache().evict(studentId);
+        }
+    }
+
+    private Cache studentNumberCache() {
+        return cacheManager.getCache(CacheConfig.STUDENT_NUMBER_IDS);
+    }
+
+    private Cache studentIdNumberCache() {
+        return cacheManager.getCache(CacheConfig.STUDENT_ID_NUMBERS);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.config.CacheConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Saves the student number resolution cache in the cache snapshot. The entries only depend on
+ * student rows, so they are restored whenever the student table is unchanged.
+ */
+@Component
+@RequiredArgsConstructor
+public class StudentNumberCacheSnapshot implements CacheSnapshotContributor {
+
+    private final CacheManager cacheManager;
+
+    @Override
+    public String snapshotSection() {
+        return "student-number-ids";
+    }
+
+    @Override
+    public List<String> snapshotEntities() {
+        return List.of("Student");
+    }
+
+    @Override
+    public void writeSnapshot(DataOutputStream out) throws IOException {
+        Map<Object, Object> entries = nativeCache().asMap();
+        List<Map.Entry<Object, Object>> copy = List.copyOf(entries.entrySet());
+        out.writeInt(copy.size());
+        for (Map.Entry<Object, Object> entry : copy) {
+            out.writeUTF((String) entry.getKey());
+            out.writeLong((Long) entry.getValue());
+        }
+    }
+
+    @Override
+    public void restoreSnapshot(ByteBuffer section) {
+        Cache cache = studentNumberCache();
+        Cache reverse = cacheManager.getCache(CacheConfig.STUDENT_ID_NUMBERS);
+        for (int i = section.getInt(); i > 0; i--) {
+            String studentIdNumber = CacheSnapshotStore.readUtf(section);
+            long studentId = section.getLong();
+            if (cache.putIfAbsent(studentIdNumber, studentId) == null) {
+                reverse.put(studentId, studentIdNumber);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache() {
+        return (com.github.benmanes.caffeine.cache.Cache<Object, Object>) studentNumberCache().getNativeCache();
+    }
+
+    private Cache studentNumberCache() {
+        return cacheManager.getCache(CacheConfig.STUDENT_NUMBER_IDS);
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.entity.Enrollment;
+import com.example.springdatajpa.entity.Student;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A set expression over students, as accepted by {@link EnrollmentBitmapIndex}:
+ *
+ * <pre>
+ * expression := term ( OR term )*
+ * term       := factor ( ( AND | AND NOT | ANDNOT ) factor )*
+ * factor     := '(' expression ')' | atom
+ * atom       := course:CODE[/STATUS] | department:CODE[/STATUS] | status:STATUS | student-status:STATUS
+ * </pre>
+ *
+ * {@code course:CS101} is the students enrolled in CS101 and {@code course:CS101/COMPLETED}
+ * those who completed it; {@code department:} does the same over every course of a department,
+ * {@code status:} over every course, and {@code student-status:} selects by the students' own
+ * status. Keywords, prefixes and statuses are case-insensitive; AND binds tighter than OR.
+ */
+final class StudentSetExpression {
+
+    sealed interface Node permits Course, Department, EnrollmentStatus, StudentStatus, And, Or, AndNot {
+    }
+
+    /**
+     * @param status the enrollment status to require, or null for any
+     */
+    record Course(String courseCode, Enrollment.EnrollmentStatus status) implements Node {
+    }
+
+    record Department(String departmentCode, Enrollment.EnrollmentStatus status) implements Node {
+    }
+
+    record EnrollmentStatus(Enrollment.EnrollmentStatus status) implements Node {
+    }
+
+    record StudentStatus(Student.StudentStatus status) implements Node {
+    }
+
+    record And(Node left, Node right) implements Node {
+    }
+
+    record Or(Node left, Node right) implements Node {
+    }
+
+    record AndNot(Node left, Node right) implements Node {
+    }
+
+    private final List<String> tokens;
+    private int position;
+
+    private StudentSetExpression(List<String> tokens) {
+        this.tokens = tokens;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the expression is blank or malformed
+     */
+    static Node parse(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("Expression must not be blank");
+        }
+        StudentSetExpression parser = new StudentSetExpression(tokenize(expression));
+        Node node = parser.expression();
+        if (parser.position < parser.tokens.size()) {
+            throw new IllegalArgumentException("Unexpected '" + parser.tokens.get(parser.position) + "'");
+        }
+        return node;
+    }
+
+    private Node expression() {
+        Node node = term();
+        while (accept("OR")) {
+            node = new Or(node, term());
+        }
+        return node;
+    }
+
+    private Node term() {
+        Node node = factor();
+        while (true) {
+            if (accept("ANDNOT")) {
+                node = new AndNot(node, factor());
+            } else if (accept("AND")) {
+                node = accept("NOT") ? new AndNot(node, factor()) : new And(node, factor());
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private Node factor() {
+        if (position == tokens.size()) {
+            throw new IllegalArgumentException("Unexpected end of expression");
+        }
+        String token = tokens.get(position++);
+        if (token.equals("(")) {
+            Node node = expression();
+            if (!accept(")")) {
+                throw new IllegalArgumentException("Missing ')'");
+            }
+            return node;
+        }
+        return atom(token);
+    }
+
+    private static Node atom(String token) {
+        int colon = token.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Expected course:, department:, status: or student-status: but got '"
+                    + token + "'");
+        }
+        String kind = token.substring(0, colon).toLowerCase(Locale.ROOT);
+        String value = token.substring(colon + 1);
+        int slash = value.indexOf('/');
+        String code = slash < 0 ? value : value.substring(0, slash);
+        Enrollment.EnrollmentStatus status = slash < 0 ? null
+                : parseEnum(Enrollment.EnrollmentStatus.class, value.substring(slash + 1));
+        if (code.isEmpty()) {
+            throw new IllegalArgumentException("Missing value in '" + token + "'");
+        }
+        return switch (kind) {
+            case "course" -> new Course(code, status);
+            case "department" -> new Department(code, status);
+            case "status" -> new EnrollmentStatus(parseEnum(Enrollment.EnrollmentStatus.class, requireNoStatus(token, value)));
+            case "student-status" -> new StudentStatus(parseEnum(Student.StudentStatus.class, requireNoStatus(token, value)));
+            default -> throw new IllegalArgumentException("Unknown selector '" + kind + ":'");
+        };
+    }
+
+    private static String requireNoStatus(String token, String value) {
+        if (value.indexOf('/') >= 0) {
+            throw new IllegalArgumentException("'" + token + "' does not take a /STATUS suffix");
+        }
+        return value;
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown " + type.getSimpleName() + " '" + value + "'");
+        }
+    }
+
+    private boolean accept(String keyword) {
+        if (position < tokens.size() && tokens.get(position).equalsIgnoreCase(keyword)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private static List<String> tokenize(String expression) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (Character.isWhitespace(c) || c == '(' || c == ')') {
+                if (!token.isEmpty()) {
+                    tokens.add(token.toString());
+                    token.setLength(0);
+                }
+                if (c == '(' || c == ')') {
+                    tokens.add(String.valueOf(c));
+                }
+            } else {
+                token.append(c);
+            }
+        }
+        if (!token.isEmpty()) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.dto.StudentSummaryRecord;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.event.EntityChangedEvent;
+import com.example.springdatajpa.repository.StudentRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Summaries (name, email, student number, GPA) of all active students, held off-heap in
+ * {@link OffHeapStudentSummaries} for lookups by student id.
+ *
+ * <p>The store is filled by streaming the active students once after startup, unless the cache
+ * snapshot restored it, and is kept current from committed student changes: a created or
+ * updated student is written from the entity itself, a deactivated or deleted one removed.
+ * A bulk change reloads every summary into a new store on a background thread, which replaces
+ * the current one when complete; students changed during the reload are read again afterwards.
+ * Until the first load completes, and for inactive students, lookups miss.
+ *
+ * <p>{@code student.summary.store.records} and {@code student.summary.store.bytes} report the
+ * record count and the direct memory in use.
+ */
+@Component
+@Slf4j
+public class StudentSummaryStore implements CacheSnapshotContributor {
+
+    private final StudentRepository studentRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final BackgroundReloader<Long> reloader =
+            BackgroundReloader.refreshingKeys("student-summary-load", "the student summaries");
+    private volatile OffHeapStudentSummaries summaries = new OffHeapStudentSummaries();
+    private volatile boolean loaded;
+
+    public StudentSummaryStore(StudentRepository studentRepository,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.cache.student-summaries.enabled:true}") boolean enabled) {
+        this.studentRepository = studentRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        Gauge.builder("student.summary.store.records", this, store -> store.summaries.size())
+                .register(meterRegistry);
+        Gauge.builder("student.summary.store.bytes", this, store -> store.summaries.offHeapBytes())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public Optional<StudentSummaryRecord> get(long studentId) {
+        return summaries.get(studentId);
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int size() {
+        return summaries.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (enabled && !loaded) {
+            scheduleReload();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reloader.shutdown();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (!enabled || !event.affects(Student.class)) {
+            return;
+        }
+        if (event.isBulk()) {
+            scheduleReload();
+            return;
+        }
+        Student student = event.entityAs(Student.class);
+        reloader.record(student.getStudentId());
+        if (event.changeType() != EntityChangedEvent.ChangeType.DELETED && Boolean.TRUE.equals(student.getIsActive())) {
+            summaries.put(new StudentSummaryRecord(student.getStudentId(), student.getFirstName(),
+                    student.getLastName(), student.getEmailId(), student.getStudentIdNumber(), student.getGpa()));
+        } else {
+            summaries.remove(student.getStudentId());
+        }
+    }
+
+    /**
+     * Reloads every summary from the database on the calling thread. Reloads run one at a time.
+     */
+    void reload() {
+        OffHeapStudentSummaries fresh = reloader.reload(this::load, current -> summaries = current, this::refresh);
+        loaded = true;
+        log.info("Loaded {} student summaries ({} bytes off-heap)", fresh.size(), fresh.offHeapBytes());
+    }
+
+    private OffHeapStudentSummaries load() {
+        OffHeapStudentSummaries fresh = new OffHeapStudentSummaries();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<StudentSummaryRecord> records = studentRepository.streamActiveStudentSummaryRecords()) {
+                records.forEach(fresh::put);
+            }
+        });
+        return fresh;
+    }
+
+    // Re-reads a batch of students, removing those no longer active
+    private void refresh(OffHeapStudentSummaries target, List<Long> studentIds) {
+        Set<Long> active = new HashSet<>();
+        for (StudentSummaryRecord summary : studentRepository.findActiveStudentSummaryRecords(studentIds)) {
+            target.put(summary);
+            active.add(summary.studentId());
+        }
+        studentIds.stream().filter(id -> !active.contains(id)).forEach(target::remove);
+    }
+
+    private void scheduleReload() {
+        reloader.schedule(this::reload);
+    }
+
+    @Override
+    public String snapshotSection() {
+        return "student-summaries";
+    }
+
+    @Override
+    public List<String> snapshotEntities() {
+        return List.of("Student");
+    }
+
+    @Override
+    public void writeSnapshot(DataOutputStream out) throws IOException {
+        if (!loaded) {
+            out.writeBoolean(false);
+            return;
+        }
+        out.writeBoolean(true);
+        // Written straight out, without a count, so the records are not copied onto the heap
+        try {
+            summaries.forEach(summary -> {
+                try {
+                    out.writeLong(summary.studentId());
+                    writeNullable(out, summary.firstName());
+                    writeNullable(out, summary.lastName());
+                    writeNullable(out, summary.emailId());
+                    writeNullable(out, summary.studentIdNumber());
+                    out.writeInt(summary.gpa() == null ? Integer.MIN_VALUE
+                            : summary.gpa().unscaledValue().intValueExact());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public void restoreSnapshot(ByteBuffer section) {
+        if (section.get() == 0) {
+            return;
+        }
+        OffHeapStudentSummaries restored = new OffHeapStudentSummaries();
+        while (section.hasRemaining()) {
+            long studentId = section.getLong();
+            String firstName = readNullable(section);
+            String lastName = readNullable(section);
+            String emailId = readNullable(section);
+            String studentIdNumber = readNullable(section);
+            int gpa = section.getInt();
+            restored.put(new StudentSummaryRecord(studentId, firstName, lastName, emailId, studentIdNumber,
+                    gpa == Integer.MIN_VALUE ? null : BigDecimal.valueOf(gpa, 2)));
+        }
+        summaries = restored;
+        loaded = true;
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(ByteBuffer section) {
+        return section.get() == 0 ? null : CacheSnapshotStore.readUtf(section);
+    }
+}
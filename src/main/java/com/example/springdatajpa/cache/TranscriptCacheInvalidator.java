@@ -0,0 +1,49 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.config.CacheConfig;
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.entity.Department;
+import com.example.springdatajpa.entity.Enrollment;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.event.EntityChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Keeps cached closed transcript terms consistent with committed writes: an enrollment
+ * change evicts its student, while course or department changes (titles, credit hours,
+ * names shown on every transcript) and bulk changes clear the whole cache.
+ */
+@Component
+@RequiredArgsConstructor
+public class TranscriptCacheInvalidator {
+
+    private final CacheManager cacheManager;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.affects(Enrollment.class)) {
+            if (event.isBulk() || event.isIdOnly()) {
+                transcriptCache().clear();
+            } else {
+                transcriptCache().evict(event.entityAs(Enrollment.class).getStudent().getStudentId());
+            }
+        } else if (event.affects(Student.class)) {
+            if (event.isBulk()) {
+                transcriptCache().clear();
+            } else if (event.changeType() == EntityChangedEvent.ChangeType.DELETED) {
+                transcriptCache().evict(event.entityAs(Student.class).getStudentId());
+            }
+        } else if ((event.affects(Course.class) || event.affects(Department.class))
+                && event.changeType() != EntityChangedEvent.ChangeType.CREATED) {
+            transcriptCache().clear();
+        }
+    }
+
+    private Cache transcriptCache() {
+        return cacheManager.getCache(CacheConfig.TRANSCRIPT_CLOSED_TERMS);
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.entity.Department;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.event.EntityChangedEvent;
+import com.example.springdatajpa.repository.CourseRepository;
+import com.example.springdatajpa.repository.DepartmentRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * In-memory {@link BloomFilter}s over the unique keys checked before inserts: student email,
+ * student number, course code and department code.
+ *
+ * <p>{@link #exists} consults the filter first and runs the existence query only when the key
+ * may be present, so checks for new keys, nearly all of them, cost no query. A filter never
+ * answers "absent" for a key written through this instance: filters are built after startup by
+ * streaming the key column, writers {@link #add} the keys they are about to insert, and every
+ * create or update adds its keys when it is flushed and again when it commits, which covers a
+ * build swapped in between. Keys of writes rolled back stay behind as false positives. Keys are
+ * compared case-insensitively and without surrounding blanks, as the MySQL collation does.
+ * Deleted keys stay in the filter and only add false positives. Bulk changes, including writes
+ * of other instances reported by {@link ClusterCacheCoherence}, rebuild the affected filters in
+ * the background, as does a filter holding more keys than it was sized for. Until a filter is
+ * built every key may be present. Either way the unique constraints remain the final arbiter.
+ *
+ * <p>Per key, {@code unique.key.filter.bytes} reports the memory used,
+ * {@code unique.key.filter.expected.fpp} the false-positive rate implied by the bits set, and
+ * {@code unique.key.filter.checks} counts checks by {@code result=absent|present|false-positive};
+ * false positives over false positives plus absent is the observed rate.
+ */
+@Component
+@Slf4j
+public class UniqueKeyFilters {
+
+    public enum Key {
+        STUDENT_EMAIL("student.email"),
+        STUDENT_NUMBER("student.number"),
+        COURSE_CODE("course.code"),
+        DEPARTMENT_CODE("department.code");
+
+        private final String tag;
+
+        Key(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final Map<Key, KeyFilter> filters = new EnumMap<>(Key.class);
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final double falsePositiveRate;
+    private final long minimumCapacity;
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "unique-key-filter-build");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public UniqueKeyFilters(StudentRepository studentRepository,
+                            CourseRepository courseRepository,
+                            DepartmentRepository departmentRepository,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.cache.key-filters.enabled:true}") boolean enabled,
+                            @Value("${app.cache.key-filters.false-positive-rate:0.01}") double falsePositiveRate,
+                            @Value("${app.cache.key-filters.minimum-capacity:100000}") long minimumCapacity) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.falsePositiveRate = falsePositiveRate;
+        this.minimumCapacity = minimumCapacity;
+        filters.put(Key.STUDENT_EMAIL, new KeyFilter(Key.STUDENT_EMAIL, studentRepository::count,
+                studentRepository::streamEmailIds, meterRegistry));
+        filters.put(Key.STUDENT_NUMBER, new KeyFilter(Key.STUDENT_NUMBER, studentRepository::count,
+                studentRepository::streamStudentIdNumbers, meterRegistry));
+        filters.put(Key.COURSE_CODE, new KeyFilter(Key.COURSE_CODE, courseRepository::count,
+                courseRepository::streamCourseCodes, meterRegistry));
+        filters.put(Key.DEPARTMENT_CODE, new KeyFilter(Key.DEPARTMENT_CODE, departmentRepository::count,
+                departmentRepository::streamDepartmentCodes, meterRegistry));
+    }
+
+    /**
+     * Whether {@code value} exists as {@code key}: {@code false} without a query when the filter
+     * rules it out, otherwise the answer of {@code query}.
+     */
+    public boolean exists(Key key, String value, Predicate<String> query) {
+        KeyFilter filter = filters.get(key);
+        BloomFilter current = filter.current;
+        if (value == null || current == null) {
+            return query.test(value);
+        }
+        if (!current.mightContain(normalize(value))) {
+            filter.absent.increment();
+            return false;
+        }
+        boolean exists = query.test(value);
+        (exists ? filter.present : filter.falsePositives).increment();
+        return exists;
+    }
+
+    /**
+     * Adds a key about to be inserted, so a second insert of it in the same transaction is
+     * checked even before the first is flushed.
+     */
+    public void add(Key key, String value) {
+        if (enabled && value != null) {
+            add(filters.get(key), normalize(value));
+        }
+    }
+
+    public boolean isBuilt(Key key) {
+        return filters.get(key).current != null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (enabled) {
+            filters.values().forEach(this::scheduleRebuild);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        builder.shutdownNow();
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (enabled && !event.isBulk()) {
+            apply(event);
+        }
+    }
+
+    // Bulk changes are only visible to a rebuild once committed, and a flushed key is added again
+    // here in case a build swapped in between, its stream having started before the commit
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChangeCommitted(EntityChangedEvent event) {
+        if (enabled) {
+            apply(event);
+        }
+    }
+
+    /**
+     * Rebuilds every filter from the database on the calling thread.
+     */
+    void rebuild() {
+        filters.values().forEach(this::rebuild);
+    }
+
+    private void apply(EntityChangedEvent event) {
+        if (event.changeType() == EntityChangedEvent.ChangeType.DELETED) {
+            return;
+        }
+        if (event.affects(Student.class)) {
+            apply(event, Student.class, Key.STUDENT_EMAIL, Student::getEmailId);
+            apply(event, Student.class, Key.STUDENT_NUMBER, Student::getStudentIdNumber);
+        } else if (event.affects(Course.class)) {
+            apply(event, Course.class, Key.COURSE_CODE, Course::getCourseCode);
+        } else if (event.affects(Department.class)) {
+            apply(event, Department.class, Key.DEPARTMENT_CODE, Department::getDepartmentCode);
+        }
+    }
+
+    private <T> void apply(EntityChangedEvent event, Class<T> type, Key key, Function<T, String> keyOf) {
+        KeyFilter filter = filters.get(key);
+        if (event.isBulk()) {
+            scheduleRebuild(filter);
+            return;
+        }
+        String value = keyOf.apply(event.entityAs(type));
+        if (value != null) {
+            add(filter, normalize(value));
+        }
+    }
+
+    private void add(KeyFilter filter, String normalized) {
+        // Added to a filter being built as well, in case its stream started before the insert; a
+        // key already there is not added again, so the second event of an insert is not counted
+        for (BloomFilter target : new BloomFilter[]{filter.current, filter.building}) {
+            if (target != null && !target.mightContain(normalized)) {
+                target.add(normalized);
+            }
+        }
+        BloomFilter current = filter.current;
+        if (current != null && current.additions() > current.capacity()) {
+            scheduleRebuild(filter);
+        }
+    }
+
+    private void scheduleRebuild(KeyFilter filter) {
+        if (!filter.rebuildPending.compareAndSet(false, true)) {
+            return;
+        }
+        builder.execute(() -> {
+            filter.rebuildPending.set(false);
+            try {
+                rebuild(filter);
+            } catch (RuntimeException e) {
+                log.warn("Building the {} filter failed: {}", filter.key.tag, e.getMessage());
+            }
+        });
+    }
+
+    private synchronized void rebuild(KeyFilter filter) {
+        long rows = Objects.requireNonNullElse(readOnlyTransaction.execute(status -> filter.rowCount.getAsLong()), 0L);
+        // Twice the current rows, so the filter keeps its false-positive rate while the table doubles
+        BloomFilter fresh = new BloomFilter(Math.max(minimumCapacity, 2 * rows), falsePositiveRate);
+        filter.building = fresh;
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<String> values = filter.values.get()) {
+                    values.filter(Objects::nonNull).map(UniqueKeyFilters::normalize).forEach(fresh::add);
+                }
+            });
+            filter.current = fresh;
+            log.info("Built the {} filter: {} keys, {} bytes", filter.key.tag, fresh.additions(), fresh.sizeInBytes());
+        } finally {
+            filter.building = null;
+        }
+    }
+
+    private static String normalize(String value) {
+        return value.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class KeyFilter {
+
+        private final Key key;
+        private final LongSupplier rowCount;
+        private final Supplier<Stream<String>> values;
+        private final Counter absent;
+        private final Counter present;
+        private final Counter falsePositives;
+        private final AtomicBoolean rebuildPending = new AtomicBoolean();
+        private volatile BloomFilter current;
+        private volatile BloomFilter building;
+
+        private KeyFilter(Key key, LongSupplier rowCount, Supplier<Stream<String>> values, MeterRegistry meterRegistry) {
+            this.key = key;
+            this.rowCount = rowCount;
+            this.values = values;
+            this.absent = checks(meterRegistry, "absent");
+            this.present = checks(meterRegistry, "present");
+            this.falsePositives = checks(meterRegistry, "false-positive");
+            Gauge.builder("unique.key.filter.bytes", this, filter -> filter.current == null ? 0 : filter.current.sizeInBytes())
+                    .tag("key", key.tag)
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+            Gauge.builder("unique.key.filter.expected.fpp", this,
+                            filter -> filter.current == null ? 1 : filter.current.expectedFalsePositiveRate())
+                    .tag("key", key.tag)
+                    .register(meterRegistry);
+        }
+
+        private Counter checks(MeterRegistry meterRegistry, String result) {
+            return Counter.builder("unique.key.filter.checks")
+                    .tag("key", key.tag)
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.springdatajpa.cache;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * How often each value occurs, for values in hundredths such as a {@code NUMERIC(5,2)} column
+ * holds: the distinct values in ascending order with their counts, in two parallel arrays.
+ * Unlike a t-digest or KLL sketch it is exact and values can be taken out again, while its size
+ * is bounded by the number of distinct values (at most 10,001 between 0 and 100), however many
+ * are counted. Histograms merge by adding counts, so one over a department or a year is the sum
+ * of those of its courses and terms. Not thread-safe.
+ */
+final class ValueHistogram {
+
+    private int[] values = new int[8];
+    private int[] counts = new int[8];
+    private int distinct;
+    private long total;
+
+    /**
+     * Adds {@code delta} occurrences of the value, or takes them out if negative.
+     *
+     * @throws IllegalStateException if that would leave a negative count
+     */
+    void add(int value, int delta) {
+        int at = Arrays.binarySearch(values, 0, distinct, value);
+        if (at >= 0) {
+            int count = counts[at] + delta;
+            if (count < 0) {
+                throw new IllegalStateException("Value " + value + " counted " + counts[at] + " times, not " + -delta);
+            }
+            if (count == 0) {
+                System.arraycopy(values, at + 1, values, at, distinct - at - 1);
+                System.arraycopy(counts, at + 1, counts, at, distinct - at - 1);
+                distinct--;
+            } else {
+                counts[at] = count;
+            }
+        } else if (delta < 0) {
+            throw new IllegalStateException("Value " + value + " not counted");
+        } else if (delta > 0) {
+            int insert = -at - 1;
+            if (distinct == values.length) {
+                values = Arrays.copyOf(values, distinct * 2);
+                counts = Arrays.copyOf(counts, distinct * 2);
+            }
+            System.arraycopy(values, insert, values, insert + 1, distinct - insert);
+            System.arraycopy(counts, insert, counts, insert + 1, distinct - insert);
+            values[insert] = value;
+            counts[insert] = delta;
+            distinct++;
+        }
+        total += delta;
+    }
+
+    /**
+     * Adds the other histogram's counts, or takes them out if {@code sign} is negative.
+     */
+    void addAll(ValueHistogram other, int sign) {
+        for (int i = 0; i < other.distinct; i++) {
+            add(other.values[i], sign * other.counts[i]);
+        }
+    }
+
+    long count() {
+        return total;
+    }
+
+    boolean isEmpty() {
+        return total == 0;
+    }
+
+    /**
+     * The smallest value at least the fraction {@code quantile} of all values are less than or
+     * equal to (the first value at that cumulative distribution, as the SQL standard defines
+     * {@code PERCENTILE_DISC}), in hundredths.
+     *
+     * @throws IllegalArgumentException if the quantile is not between 0 and 1
+     * @throws IllegalStateException    if the histogram is empty
+     */
+    int quantile(double quantile) {
+        if (!(quantile >= 0 && quantile <= 1)) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1: " + quantile);
+        }
+        if (total == 0) {
+            throw new IllegalStateException("No values counted");
+        }
+        // Rounded up exactly, so 0.1 of 30 values is the 3rd and not the 4th
+        long rank = BigDecimal.valueOf(quantile).multiply(BigDecimal.valueOf(total))
+                .setScale(0, RoundingMode.CEILING).longValueExact();
+        long cumulative = 0;
+        for (int i = 0; i < distinct; i++) {
+            cumulative += counts[i];
+            if (cumulative >= rank) {
+                return values[i];
+            }
+        }
+        return values[distinct - 1];
+    }
+
+    /**
+     * Writes the distinct values as deltas from the previous one, each with its count, as
+     * varints: a hundredth apart with a count below 128 takes two bytes. The first value is
+     * zigzag-encoded in case it is negative; the deltas after it are always positive.
+     */
+    void write(DataOutputStream out) throws IOException {
+        writeVarint(out, distinct);
+        for (int i = 0; i < distinct; i++) {
+            writeVarint(out, i == 0 ? (values[0] << 1) ^ (values[0] >> 31) : values[i] - values[i - 1]);
+            writeVarint(out, counts[i]);
+        }
+    }
+
+    static ValueHistogram read(ByteBuffer in) {
+        ValueHistogram histogram = new ValueHistogram();
+        int distinct = readVarint(in);
+        histogram.values = new int[Math.max(distinct, 8)];
+        histogram.counts = new int[Math.max(distinct, 8)];
+        int value = 0;
+        for (int i = 0; i < distinct; i++) {
+            int encoded = readVarint(in);
+            value = i == 0 ? (encoded >>> 1) ^ -(encoded & 1) : value + encoded;
+            histogram.values[i] = value;
+            histogram.counts[i] = readVarint(in);
+            histogram.total += histogram.counts[i];
+        }
+        histogram.distinct = distinct;
+        return histogram;
+    }
+
+    private static void writeVarint(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
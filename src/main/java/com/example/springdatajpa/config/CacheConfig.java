@@ -0,0 +1,78 @@
+package com.example.springdatajpa.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Application-level caches. Every cache is a bounded Caffeine cache with statistics
+ * enabled; entries are evicted by listeners reacting to committed entity changes and
+ * expire after a TTL as a backstop.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String COURSE_ROSTER = "courseRoster";
+    public static final String TRANSCRIPT_CLOSED_TERMS = "transcriptClosedTerms";
+    public static final String STUDENT_NUMBER_IDS = "studentNumberIds";
+    // Student id -> cached student number, for evicting a number by key once it changes; an
+    // entry goes with the student number entry it mirrors
+    public static final String STUDENT_ID_NUMBERS = "studentIdNumbers";
+
+    @Value("${app.cache.course-roster.maximum-size:10000}")
+    private long courseRosterMaximumSize;
+
+    @Value("${app.cache.course-roster.ttl:PT30M}")
+    private Duration courseRosterTtl;
+
+    @Value("${app.cache.transcript-closed-terms.maximum-size:50000}")
+    private long transcriptMaximumSize;
+
+    @Value("${app.cache.transcript-closed-terms.ttl:PT12H}")
+    private Duration transcriptTtl;
+
+    @Value("${app.cache.student-number-ids.maximum-size:100000}")
+    private long studentNumberIdsMaximumSize;
+
+    @Value("${app.cache.student-number-ids.ttl:PT1H}")
+    private Duration studentNumberIdsTtl;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setAllowNullValues(false);
+        cacheManager.registerCustomCache(COURSE_ROSTER, boundedCache(courseRosterMaximumSize, courseRosterTtl));
+        cacheManager.registerCustomCache(TRANSCRIPT_CLOSED_TERMS, boundedCache(transcriptMaximumSize, transcriptTtl));
+        Cache<Object, Object> studentIdNumbers = Caffeine.newBuilder().recordStats().build();
+        cacheManager.registerCustomCache(STUDENT_ID_NUMBERS, studentIdNumbers);
+        cacheManager.registerCustomCache(STUDENT_NUMBER_IDS, Caffeine.newBuilder()
+                .maximumSize(studentNumberIdsMaximumSize)
+                .expireAfterWrite(studentNumberIdsTtl)
+                .recordStats()
+                .executor(Runnable::run)
+                .removalListener((number, studentId, cause) -> {
+                    if (cause != RemovalCause.REPLACED && studentId != null) {
+                        studentIdNumbers.asMap().remove(studentId, number);
+                    }
+                })
+                .build());
+        return cacheManager;
+    }
+
+    private static Cache<Object, Object> boundedCache(long maximumSize, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+}
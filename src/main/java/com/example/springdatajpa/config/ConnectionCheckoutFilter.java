@@ -0,0 +1,70 @@
+package com.example.springdatajpa.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records, for every HTTP request, how many JDBC connections its thread asked for and how many
+ * of those were checked out of the pool, as the {@code db.connections.per.request} summary
+ * tagged with the request's {@code uri} pattern and {@code kind=requested|checked-out}.
+ *
+ * <p>Without lazy connections (see {@link LazyConnectionDataSourceConfig}) the two are equal; the
+ * gap between them is the checkouts saved by requests that never ran a statement.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConnectionCheckoutFilter extends OncePerRequestFilter {
+
+    // [requested, checked out] for the request the current thread is handling
+    private static final ThreadLocal<int[]> COUNTS = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+
+    static void connectionRequested() {
+        int[] counts = COUNTS.get();
+        if (counts != null) {
+            counts[0]++;
+        }
+    }
+
+    static void connectionCheckedOut() {
+        int[] counts = COUNTS.get();
+        if (counts != null) {
+            counts[1]++;
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        int[] counts = new int[2];
+        COUNTS.set(counts);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            COUNTS.remove();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            summary(uri, "requested").record(counts[0]);
+            summary(uri, "checked-out").record(counts[1]);
+        }
+    }
+
+    private DistributionSummary summary(String uri, String kind) {
+        return DistributionSummary.builder("db.connections.per.request")
+                .description("JDBC connections per HTTP request")
+                .tag("uri", uri)
+                .tag("kind", kind)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.springdatajpa.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Defers the pool checkout of a transaction until it runs its first statement.
+ *
+ * <p>Every service is a read-only transaction at class level, and the JPA transaction manager
+ * begins one by preparing a JDBC connection (read-only flag, auto-commit off). Without this,
+ * that takes a connection from the pool at method entry, even when the answer then comes from a
+ * cache and no SQL runs. The pool is therefore wrapped in a {@link LazyConnectionDataSourceProxy}:
+ * transactions get a proxy that records the preparation and replays it on a pooled connection
+ * when a statement is first created. A transaction that creates none never checks one out, and
+ * its commit is a no-op.
+ *
+ * <p>{@code app.datasource.lazy-connections=false} hands out pooled connections directly again.
+ * Either way, {@link ConnectionCheckoutFilter} reports per request how many connections were
+ * requested and how many were actually checked out of the pool.
+ */
+@Configuration
+public class LazyConnectionDataSourceConfig {
+
+    @Bean
+    public static BeanPostProcessor lazyConnectionDataSourcePostProcessor(Environment environment) {
+        boolean lazy = environment.getProperty("app.datasource.lazy-connections", Boolean.class, true);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof DelegatingDataSource) {
+                    return bean;
+                }
+                DataSource pool = new CheckoutCountingDataSource(dataSource, !lazy);
+                return lazy ? new RequestCountingLazyDataSource(pool) : pool;
+            }
+        };
+    }
+
+    /**
+     * Counts the connections taken from the pool; when not behind the lazy proxy every
+     * connection request is one.
+     */
+    private static class CheckoutCountingDataSource extends DelegatingDataSource {
+
+        private final boolean countRequests;
+
+        CheckoutCountingDataSource(DataSource pool, boolean countRequests) {
+            super(pool);
+            this.countRequests = countRequests;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            count();
+            return connection;
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            Connection connection = super.getConnection(username, password);
+            count();
+            return connection;
+        }
+
+        private void count() {
+            if (countRequests) {
+                ConnectionCheckoutFilter.connectionRequested();
+            }
+            ConnectionCheckoutFilter.connectionCheckedOut();
+        }
+    }
+
+    private static class RequestCountingLazyDataSource extends LazyConnectionDataSourceProxy {
+
+        RequestCountingLazyDataSource(DataSource pool) {
+            super(pool);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            ConnectionCheckoutFilter.connectionRequested();
+            return super.getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            ConnectionCheckoutFilter.connectionRequested();
+            return super.getConnection(username, password);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.springdatajpa.config;
+
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.entity.Department;
+import com.example.springdatajpa.entity.Student;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level cache for the catalog (departments, courses and department course
+ * lists) and the natural-id resolution caches (course code, department code, student email),
+ * backed by Caffeine through JCache.
+ *
+ * <p>Each region is created here with its own size bound and TTL, and Hibernate is handed this
+ * cache manager instead of building one from a provider default, so every application context
+ * gets an isolated cache. Hit, miss, put and eviction counts of every region are published to
+ * Micrometer as {@code cache.*} meters tagged with the region name.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    private static final List<String> REGIONS = List.of(
+            Department.CACHE_REGION, Course.CACHE_REGION, Department.COURSES_CACHE_REGION,
+            Course.NATURAL_ID_CACHE_REGION, Department.NATURAL_ID_CACHE_REGION, Student.NATURAL_ID_CACHE_REGION);
+
+    @Value("${app.cache.l2.department.maximum-size:1000}")
+    private long departmentMaximumSize;
+
+    @Value("${app.cache.l2.department.ttl:PT1H}")
+    private Duration departmentTtl;
+
+    @Value("${app.cache.l2.course.maximum-size:10000}")
+    private long courseMaximumSize;
+
+    @Value("${app.cache.l2.course.ttl:PT1H}")
+    private Duration courseTtl;
+
+    @Value("${app.cache.l2.department-courses.maximum-size:1000}")
+    private long departmentCoursesMaximumSize;
+
+    @Value("${app.cache.l2.department-courses.ttl:PT30M}")
+    private Duration departmentCoursesTtl;
+
+    @Value("${app.cache.l2.natural-id.maximum-size:100000}")
+    private long naturalIdMaximumSize;
+
+    @Value("${app.cache.l2.natural-id.ttl:PT1H}")
+    private Duration naturalIdTtl;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager() {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("urn:spring-data-jpa:l2:" + UUID.randomUUID()), getClass().getClassLoader());
+        cacheManager.createCache(Department.CACHE_REGION, region(departmentMaximumSize, departmentTtl));
+        cacheManager.createCache(Course.CACHE_REGION, region(courseMaximumSize, courseTtl));
+        cacheManager.createCache(Department.COURSES_CACHE_REGION, region(departmentCoursesMaximumSize, departmentCoursesTtl));
+        for (String naturalIdRegion : List.of(Course.NATURAL_ID_CACHE_REGION, Department.NATURAL_ID_CACHE_REGION,
+                Student.NATURAL_ID_CACHE_REGION)) {
+            cacheManager.createCache(naturalIdRegion, region(naturalIdMaximumSize, naturalIdTtl));
+        }
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+    }
+
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(CacheManager secondLevelCacheManager) {
+        return registry -> {
+            for (String region : REGIONS) {
+                JCacheMetrics.monitor(registry, secondLevelCacheManager.getCache(region));
+            }
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long maximumSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
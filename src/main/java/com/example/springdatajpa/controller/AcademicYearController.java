@@ -0,0 +1,121 @@
+package com.example.springdatajpa.controller;
+
+import com.example.springdatajpa.dto.AcademicYearStatistics;
+import com.example.springdatajpa.service.AcademicYearService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+@RestController
+@RequestMapping("/api/academic-years")
+@RequiredArgsConstructor
+@Tag(name = "Academic Year Management", description = "APIs for closing academic years and reading their enrollment statistics")
+public class AcademicYearController {
+
+    private final AcademicYearService academicYearService;
+
+    // Closed years never change unless re-opened, so clients and proxies may keep them this long
+    @Value("${app.academic-years.closed-max-age:P365D}")
+    private Duration closedMaxAge;
+
+    @Operation(summary = "Get course statistics of an academic year",
+            description = "Per-course enrollment count, completions, average grade and pass rate; "
+                    + "closed years are served from their frozen snapshot with a long-lived Cache-Control")
+    @GetMapping("/{academicYear}/statistics/courses")
+    public ResponseEntity<List<AcademicYearStatistics.CourseStatistics>> getCourseStatistics(
+            @Parameter(description = "Academic Year", required = true, example = "2024")
+            @PathVariable Integer academicYear) {
+        return respond(academicYear, AcademicYearStatistics::courses,
+                () -> academicYearService.getCourseStatistics(academicYear));
+    }
+
+    @Operation(summary = "Get student performance of an academic year",
+            description = "Students with graded enrollments, best average grade first; "
+                    + "closed years are served from their frozen snapshot with a long-lived Cache-Control")
+    @GetMapping("/{academicYear}/statistics/student-performance")
+    public ResponseEntity<List<AcademicYearStatistics.StudentPerformance>> getStudentPerformance(
+            @Parameter(description = "Academic Year", required = true, example = "2024")
+            @PathVariable Integer academicYear) {
+        return respond(academicYear, AcademicYearStatistics::studentPerformance,
+                () -> academicYearService.getStudentPerformance(academicYear));
+    }
+
+    @Operation(summary = "Get the most active students of an academic year",
+            description = "Students with the most enrollments, most first; "
+                    + "closed years are served from their frozen snapshot with a long-lived Cache-Control")
+    @GetMapping("/{academicYear}/statistics/most-active-students")
+    public ResponseEntity<List<AcademicYearStatistics.StudentActivity>> getMostActiveStudents(
+            @Parameter(description = "Academic Year", required = true, example = "2024")
+            @PathVariable Integer academicYear,
+            @Parameter(description = "Maximum number of students", example = "10")
+            @RequestParam(defaultValue = "10") int limit) {
+        return respond(academicYear, statistics -> statistics.mostActiveStudents(limit),
+                () -> academicYearService.getMostActiveStudents(academicYear, limit));
+    }
+
+    @Operation(summary = "Close an academic year",
+            description = "Freezes the year's statistics and rejects further changes to its enrollments until re-opened")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Academic year closed",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = AcademicYearStatistics.class))),
+            @ApiResponse(responseCode = "409", description = "Academic year already closed or still has active enrollments",
+                    content = @Content)
+    })
+    @PostMapping("/{academicYear}/close")
+    public ResponseEntity<AcademicYearStatistics> closeYear(
+            @Parameter(description = "Academic Year", required = true, example = "2023")
+            @PathVariable Integer academicYear) {
+        try {
+            return new ResponseEntity<>(academicYearService.closeYear(academicYear), HttpStatus.CREATED);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @Operation(summary = "Re-open an academic year",
+            description = "Discards the year's frozen statistics; they are computed from the live enrollments again")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Academic year re-opened"),
+            @ApiResponse(responseCode = "404", description = "Academic year is not closed")
+    })
+    @PostMapping("/{academicYear}/reopen")
+    public ResponseEntity<Void> reopenYear(
+            @Parameter(description = "Academic Year", required = true, example = "2023")
+            @PathVariable Integer academicYear) {
+        try {
+            academicYearService.reopenYear(academicYear);
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    private <T> ResponseEntity<T> respond(Integer academicYear, Function<AcademicYearStatistics, T> frozenView,
+                                          Supplier<T> live) {
+        Optional<AcademicYearStatistics> closed = academicYearService.findClosedYearStatistics(academicYear);
+        if (closed.isPresent()) {
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.maxAge(closedMaxAge).cachePublic().immutable())
+                    .body(frozenView.apply(closed.get()));
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(live.get());
+    }
+}
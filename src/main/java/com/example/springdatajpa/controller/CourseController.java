@@ -1,18 +1,29 @@
 package com.example.springdatajpa.controller;
 
+import com.example.springdatajpa.cache.CatalogResponseCache;
+import com.example.springdatajpa.cache.StaleWhileRevalidateCache;
+import com.example.springdatajpa.dto.CourseDetail;
+import com.example.springdatajpa.dto.CourseRosterEntry;
+import com.example.springdatajpa.dto.VersionStamp;
 import com.example.springdatajpa.entity.Course;
 import com.example.springdatajpa.service.CourseService;
+import com.example.springdatajpa.service.EnrollmentService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -23,6 +34,9 @@ import java.util.List;
 public class CourseController {
 
     private final CourseService courseService;
+    private final EnrollmentService enrollmentService;
+    private final CatalogResponseCache catalogResponseCache;
+    private final StaleWhileRevalidateCache statsCache;
 
     @Operation(
             summary = "Create a new course",
@@ -32,50 +46,86 @@ public class CourseController {
             @ApiResponse(
                     responseCode = "201",
                     description = "Course created successfully",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Course.class))
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CourseDetail.class))
             ),
             @ApiResponse(responseCode = "400", description = "Invalid input data")
     })
     @PostMapping
-    public ResponseEntity<Course> createCourse(@RequestBody Course course) {
+    public ResponseEntity<CourseDetail> createCourse(@RequestBody Course course) {
         Course createdCourse = courseService.createCourse(course);
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdCourse);
+        return ResponseEntity.status(HttpStatus.CREATED).body(CourseDetail.of(createdCourse));
     }
 
-    @Operation(summary = "Get course by ID", description = "Retrieves a course by its ID")
+    @Operation(summary = "Get course by ID", description = "Retrieves a course by its ID; honours If-None-Match and If-Modified-Since")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Course found",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CourseDetail.class))
+            ),
+            @ApiResponse(responseCode = "304", description = "Course unchanged since the client's copy"),
+            @ApiResponse(responseCode = "404", description = "Course not found")
+    })
     @GetMapping("/{id}")
-    public ResponseEntity<Course> getCourseById(
+    public ResponseEntity<CourseDetail> getCourseById(
             @Parameter(description = "Course ID", required = true, example = "1")
-            @PathVariable Long id) {
-        return courseService.findById(id)
+            @PathVariable Long id,
+            WebRequest webRequest) {
+        VersionStamp version = courseService.getCourseVersion(id);
+        if (!version.exists()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (webRequest.checkNotModified(version.eTag("course-" + id), version.lastModifiedMillis())) {
+            return null;
+        }
+        return courseService.findDetailById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
-    @Operation(summary = "Get all courses", description = "Retrieves all courses")
+    @Operation(summary = "Get all courses", description = "Retrieves all courses, served from the encoded response cache")
+    @ApiResponse(
+            responseCode = "200",
+            description = "All courses, gzip-compressed when the client accepts it",
+            content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = Course.class)))
+    )
     @GetMapping
-    public ResponseEntity<List<Course>> getAllCourses() {
-        List<Course> courses = courseService.findAllCourses();
-        return ResponseEntity.ok(courses);
+    public ResponseEntity<byte[]> getAllCourses(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return catalogResponseCache.get(CatalogResponseCache.View.COURSES).toResponse(acceptEncoding);
     }
 
-    @Operation(summary = "Get active courses", description = "Retrieves all active courses")
+    @Operation(summary = "Get active courses", description = "Retrieves all active courses, served from the encoded response cache")
+    @ApiResponse(
+            responseCode = "200",
+            description = "Active courses ordered by title, gzip-compressed when the client accepts it",
+            content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = Course.class)))
+    )
     @GetMapping("/active")
-    public ResponseEntity<List<Course>> getActiveCourses() {
-        List<Course> activeCourses = courseService.findActiveCourses();
-        return ResponseEntity.ok(activeCourses);
+    public ResponseEntity<byte[]> getActiveCourses(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return catalogResponseCache.get(CatalogResponseCache.View.ACTIVE_COURSES).toResponse(acceptEncoding);
     }
 
     @Operation(summary = "Get course by code", description = "Finds a course by its course code")
     @GetMapping("/code/{courseCode}")
-    public ResponseEntity<Course> getCourseByCode(
+    public ResponseEntity<CourseDetail> getCourseByCode(
             @Parameter(description = "Course code", required = true, example = "CS101")
             @PathVariable String courseCode) {
-        return courseService.findByCourseCode(courseCode)
+        return courseService.findDetailByCourseCode(courseCode)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @Operation(summary = "Search courses", description = "Search courses by keyword in title, course code or description")
+    @GetMapping("/search")
+    public ResponseEntity<List<Course>> searchCourses(
+            @Parameter(description = "Search keyword", required = true, example = "Programming")
+            @RequestParam String keyword) {
+        List<Course> courses = courseService.searchCourses(keyword);
+        return ResponseEntity.ok(courses);
+    }
+
     @Operation(summary = "Get courses by department", description = "Retrieves courses for a specific department")
     @GetMapping("/department/{departmentId}")
     public ResponseEntity<List<Course>> getCoursesByDepartment(
@@ -85,9 +135,27 @@ public class CourseController {
         return ResponseEntity.ok(courses);
     }
 
+    @Operation(summary = "Get course roster", description = "Retrieves the students enrolled in a course for a semester, with pagination")
+    @GetMapping("/{courseId}/roster")
+    public ResponseEntity<Page<CourseRosterEntry>> getCourseRoster(
+            @Parameter(description = "Course ID", required = true, example = "1")
+            @PathVariable Long courseId,
+            @Parameter(description = "Semester", required = true, example = "Fall 2024")
+            @RequestParam String semester,
+            @Parameter(description = "Academic Year", required = true, example = "2024")
+            @RequestParam Integer academicYear,
+            @Parameter(description = "Page number", example = "0")
+            @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size", example = "50")
+            @RequestParam(defaultValue = "50") int size) {
+        Page<CourseRosterEntry> roster = enrollmentService.getCourseRoster(
+                courseId, semester, academicYear, PageRequest.of(page, size));
+        return ResponseEntity.ok(roster);
+    }
+
     @Operation(summary = "Update course", description = "Updates an existing course")
     @PutMapping("/{id}")
-    public ResponseEntity<Course> updateCourse(
+    public ResponseEntity<CourseDetail> updateCourse(
             @PathVariable Long id,
             @RequestBody Course course) {
         if (!courseService.findById(id).isPresent()) {
@@ -95,7 +163,7 @@ public class CourseController {
         }
         course.setCourseId(id);
         Course updatedCourse = courseService.updateCourse(course);
-        return ResponseEntity.ok(updatedCourse);
+        return ResponseEntity.ok(CourseDetail.of(updatedCourse));
     }
 
     @Operation(summary = "Activate course", description = "Activates a course")
@@ -131,12 +199,14 @@ public class CourseController {
         }
     }
 
-    @Operation(summary = "Get course statistics", description = "Get basic statistics about courses")
+    @Operation(summary = "Get course statistics",
+            description = "Get basic statistics about courses; may be a few seconds old, the Age header tells by how much")
     @GetMapping("/stats")
     public ResponseEntity<String> getCourseStats() {
-        long totalCourses = courseService.findAllCourses().size();
-        long activeCourses = courseService.countActiveCourses();
-        return ResponseEntity.ok(String.format("Total courses: %d, Active courses: %d", 
-                totalCourses, activeCourses));
+        return statsCache.get("courses", () -> {
+            long totalCourses = courseService.findAllCourses().size();
+            long activeCourses = courseService.countActiveCourses();
+            return String.format("Total courses: %d, Active courses: %d", totalCourses, activeCourses);
+        }).toResponse();
     }
 }
\ No newline at end of file
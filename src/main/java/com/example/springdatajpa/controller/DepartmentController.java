@@ -1,19 +1,26 @@
 package com.example.springdatajpa.controller;
 
+import com.example.springdatajpa.cache.CatalogResponseCache;
+import com.example.springdatajpa.cache.StaleWhileRevalidateCache;
+import com.example.springdatajpa.dto.VersionStamp;
 import com.example.springdatajpa.entity.Department;
 import com.example.springdatajpa.service.DepartmentService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +32,8 @@ import java.util.Map;
 public class DepartmentController {
 
     private final DepartmentService departmentService;
+    private final CatalogResponseCache catalogResponseCache;
+    private final StaleWhileRevalidateCache statsCache;
 
     @Operation(
             summary = "Create a new department",
@@ -44,21 +53,43 @@ public class DepartmentController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdDepartment);
     }
 
-    @Operation(summary = "Get department by ID", description = "Retrieves a department by its ID")
+    @Operation(summary = "Get department by ID", description = "Retrieves a department by its ID; honours If-None-Match and If-Modified-Since")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Department found",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Department.class))
+            ),
+            @ApiResponse(responseCode = "304", description = "Department unchanged since the client's copy"),
+            @ApiResponse(responseCode = "404", description = "Department not found")
+    })
     @GetMapping("/{id}")
     public ResponseEntity<Department> getDepartmentById(
             @Parameter(description = "Department ID", required = true, example = "1")
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            WebRequest webRequest) {
+        VersionStamp version = departmentService.getDepartmentVersion(id);
+        if (!version.exists()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (webRequest.checkNotModified(version.eTag("department-" + id), version.lastModifiedMillis())) {
+            return null;
+        }
         return departmentService.getDepartmentById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
-    @Operation(summary = "Get all departments", description = "Retrieves all departments")
+    @Operation(summary = "Get all departments", description = "Retrieves all departments, served from the encoded response cache")
+    @ApiResponse(
+            responseCode = "200",
+            description = "All departments, gzip-compressed when the client accepts it",
+            content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = Department.class)))
+    )
     @GetMapping
-    public ResponseEntity<List<Department>> getAllDepartments() {
-        List<Department> departments = departmentService.getAllDepartments();
-        return ResponseEntity.ok(departments);
+    public ResponseEntity<byte[]> getAllDepartments(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return catalogResponseCache.get(CatalogResponseCache.View.DEPARTMENTS).toResponse(acceptEncoding);
     }
 
     @Operation(summary = "Search departments", description = "Search departments by keyword")
@@ -77,12 +108,15 @@ public class DepartmentController {
         return ResponseEntity.ok(summaries);
     }
 
-    @Operation(summary = "Get department statistics", description = "Get statistical information about departments")
+    @Operation(summary = "Get department statistics",
+            description = "Get statistical information about departments; may be a few seconds old, the Age header tells by how much")
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getDepartmentStats() {
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("totalDepartments", departmentService.getAllDepartments().size());
-        return ResponseEntity.ok(stats);
+        return statsCache.get("departments", () -> {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("totalDepartments", departmentService.getAllDepartments().size());
+            return Collections.unmodifiableMap(stats);
+        }).toResponse();
     }
 
     @Operation(summary = "Update department", description = "Updates an existing department")
@@ -109,10 +143,15 @@ public class DepartmentController {
         }
     }
 
-    @Operation(summary = "Get active departments", description = "Get all active departments")
+    @Operation(summary = "Get active departments", description = "Get all active departments, served from the encoded response cache")
+    @ApiResponse(
+            responseCode = "200",
+            description = "Active departments, gzip-compressed when the client accepts it",
+            content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = Department.class)))
+    )
     @GetMapping("/active")
-    public ResponseEntity<List<Department>> getActiveDepartments() {
-        List<Department> activeDepartments = departmentService.getActiveDepartmentsNonTransactional();
-        return ResponseEntity.ok(activeDepartments);
+    public ResponseEntity<byte[]> getActiveDepartments(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return catalogResponseCache.get(CatalogResponseCache.View.ACTIVE_DEPARTMENTS).toResponse(acceptEncoding);
     }
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+package com.example.springdatajpa.controller;
+
+import com.example.springdatajpa.dto.DuplicateDetectionRun;
+import com.example.springdatajpa.dto.DuplicateStudentPair;
+import com.example.springdatajpa.entity.DuplicateCandidate;
+import com.example.springdatajpa.service.DuplicateStudentService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/students/duplicates")
+@RequiredArgsConstructor
+@Tag(name = "Duplicate Students", description = "Detection and review of students registered more than once")
+public class DuplicateStudentController {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final DuplicateStudentService duplicateStudentService;
+
+    @Operation(summary = "Start duplicate detection",
+            description = "Starts a background run that compares students sharing a phonetic name, date of birth or "
+                    + "guardian mobile and replaces the pending pairs of the report; reviewed pairs are kept")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Run started"),
+            @ApiResponse(responseCode = "409", description = "A run is already in progress", content = @Content)
+    })
+    @PostMapping("/detection")
+    public ResponseEntity<DuplicateDetectionRun> startDetection() {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(duplicateStudentService.startDetection());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(duplicateStudentService.getLastRun());
+        }
+    }
+
+    @Operation(summary = "Get the last duplicate detection run", description = "Progress or outcome of the last run")
+    @GetMapping("/detection")
+    public ResponseEntity<DuplicateDetectionRun> getLastRun() {
+        return ResponseEntity.ok(duplicateStudentService.getLastRun());
+    }
+
+    @Operation(summary = "Get the duplicate student report",
+            description = "Candidate pairs with the given review status, highest score first")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page of candidate pairs"),
+            @ApiResponse(responseCode = "400", description = "Invalid paging", content = @Content)
+    })
+    @GetMapping
+    public ResponseEntity<Page<DuplicateStudentPair>> getReport(
+            @Parameter(description = "Review status", example = "PENDING")
+            @RequestParam(defaultValue = "PENDING") DuplicateCandidate.Status status,
+            @Parameter(description = "Page number", example = "0")
+            @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size", example = "20")
+            @RequestParam(defaultValue = "20") int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(duplicateStudentService.getReport(status, PageRequest.of(page, size)));
+    }
+
+    @Operation(summary = "Review a candidate pair", description = "Confirms or dismisses a pair of the report")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Pair reviewed"),
+            @ApiResponse(responseCode = "400", description = "Status is not CONFIRMED or DISMISSED", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Pair not found", content = @Content)
+    })
+    @PutMapping("/{candidateId}/review")
+    public ResponseEntity<DuplicateStudentPair> review(
+            @Parameter(description = "Candidate pair ID", required = true, example = "1")
+            @PathVariable Long candidateId,
+            @Parameter(description = "Decision", required = true, example = "DISMISSED")
+            @RequestParam DuplicateCandidate.Status status) {
+        if (status == DuplicateCandidate.Status.PENDING) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(duplicateStudentService.review(candidateId, status));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
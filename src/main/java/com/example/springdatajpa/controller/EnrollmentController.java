@@ -1,5 +1,9 @@
 package com.example.springdatajpa.controller;
 
+import com.example.springdatajpa.cache.EnrollmentCube;
+import com.example.springdatajpa.dto.EnrollmentCubeCell;
+import com.example.springdatajpa.dto.GradeDistribution;
+import com.example.springdatajpa.entity.Course;
 import com.example.springdatajpa.entity.Enrollment;
 import com.example.springdatajpa.service.EnrollmentService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -10,6 +14,9 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -17,6 +24,7 @@ import org.springframework.web.bind.annotation.*;
 import jakarta.validation.Valid;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/enrollments")
@@ -24,6 +32,8 @@ import java.util.List;
 @Tag(name = "Enrollment Management", description = "APIs for managing student course enrollments")
 public class EnrollmentController {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final EnrollmentService enrollmentService;
 
     @Operation(
@@ -99,6 +109,8 @@ public class EnrollmentController {
             return ResponseEntity.ok(updatedEnrollment);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         }
     }
 
@@ -112,6 +124,8 @@ public class EnrollmentController {
             return ResponseEntity.noContent().build();
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         }
     }
 
@@ -143,8 +157,144 @@ public class EnrollmentController {
         try {
             Enrollment enrollment = enrollmentService.enrollStudentInCourse(studentId, courseId, semester, academicYear);
             return ResponseEntity.ok(enrollment);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
         }
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "Find students by set expression",
+            description = "Evaluates an expression over enrollments with AND, OR, AND NOT (or ANDNOT) and parentheses. "
+                    + "Atoms are course:CODE, department:CODE (either optionally followed by /STATUS), "
+                    + "status:STATUS for an enrollment status in any course, and student-status:STATUS. "
+                    + "Returns the matching student ids in ascending order, with their count as totalElements")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page of matching student ids"),
+            @ApiResponse(responseCode = "400", description = "Malformed expression, unknown code or invalid page",
+                    content = @Content),
+            @ApiResponse(responseCode = "503", description = "Enrollment bitmaps still loading", content = @Content)
+    })
+    @GetMapping("/student-sets")
+    public ResponseEntity<Page<Long>> findStudentSet(
+            @Parameter(description = "Set expression", required = true,
+                    example = "course:CS101/COMPLETED AND NOT department:MATH")
+            @RequestParam String q,
+            @Parameter(description = "Restrict enrollments to an academic year", example = "2024")
+            @RequestParam(required = false) Integer academicYear,
+            @Parameter(description = "Restrict enrollments to a semester", example = "Fall 2024")
+            @RequestParam(required = false) String semester,
+            @Parameter(description = "Page number (0-based)", example = "0")
+            @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size (at most 1000)", example = "100")
+            @RequestParam(defaultValue = "100") int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!enrollmentService.isStudentSetQueryAvailable()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+        try {
+            return ResponseEntity.ok(enrollmentService.findStudentIdsInSet(q, academicYear, semester,
+                    PageRequest.of(page, size)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(summary = "Count students by set expression",
+            description = "Counts the students a set expression selects; see /api/enrollments/student-sets")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Number of matching students"),
+            @ApiResponse(responseCode = "400", description = "Malformed expression or unknown code", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Enrollment bitmaps still loading", content = @Content)
+    })
+    @GetMapping("/student-sets/count")
+    public ResponseEntity<Map<String, Long>> countStudentSet(
+            @Parameter(description = "Set expression", required = true, example = "department:CS AND status:ACTIVE")
+            @RequestParam String q,
+            @Parameter(description = "Restrict enrollments to an academic year", example = "2024")
+            @RequestParam(required = false) Integer academicYear,
+            @Parameter(description = "Restrict enrollments to a semester", example = "Fall 2024")
+            @RequestParam(required = false) String semester) {
+        if (!enrollmentService.isStudentSetQueryAvailable()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+        try {
+            return ResponseEntity.ok(Map.of("count", enrollmentService.countStudentsInSet(q, academicYear, semester)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(summary = "Slice enrollment statistics",
+            description = "Enrollment counts, average grade points and pass rates from the in-memory enrollment cube, "
+                    + "restricted to the given dimension values and grouped by the dimensions in groupBy "
+                    + "(DEPARTMENT, COURSE_LEVEL, TERM, STATUS, ADMISSION_YEAR); the other dimensions are rolled up "
+                    + "and null in the result")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "One entry per combination of grouped values"),
+            @ApiResponse(responseCode = "400", description = "Unknown dimension, value or department code",
+                    content = @Content),
+            @ApiResponse(responseCode = "503", description = "Enrollment cube still loading", content = @Content)
+    })
+    @GetMapping("/cube")
+    public ResponseEntity<List<EnrollmentCubeCell>> queryEnrollmentCube(
+            @Parameter(description = "Dimensions to group by", example = "DEPARTMENT,TERM")
+            @RequestParam(required = false) List<EnrollmentCube.Dimension> groupBy,
+            @Parameter(description = "Department code", example = "CS")
+            @RequestParam(required = false) String department,
+            @Parameter(description = "Course level", example = "BEGINNER")
+            @RequestParam(required = false) Course.CourseLevel courseLevel,
+            @Parameter(description = "Term (semester)", example = "Fall 2024")
+            @RequestParam(required = false) String term,
+            @Parameter(description = "Enrollment status", example = "COMPLETED")
+            @RequestParam(required = false) Enrollment.EnrollmentStatus status,
+            @Parameter(description = "Year the students were admitted", example = "2023")
+            @RequestParam(required = false) Integer admissionYear) {
+        if (!enrollmentService.isEnrollmentCubeAvailable()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+        try {
+            return ResponseEntity.ok(enrollmentService.queryEnrollmentCube(groupBy == null ? List.of() : groupBy,
+                    new EnrollmentCube.Slice(department, courseLevel, term, status, admissionYear)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(summary = "Get grade point or attendance quantiles",
+            description = "Medians and percentiles of grade points or attendance percentages from in-memory "
+                    + "histograms, of a course's term (courseId and semester), a department's academic year "
+                    + "(departmentId) or the whole academic year. A quantile q is the first value at least a "
+                    + "fraction q of the enrollments with a value are at or below, as the SQL standard defines PERCENTILE_DISC")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Number of values and the value at each quantile"),
+            @ApiResponse(responseCode = "400", description = "Invalid scope or quantile", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Grade distributions still loading", content = @Content)
+    })
+    @GetMapping("/grade-distribution")
+    public ResponseEntity<GradeDistribution> getGradeDistribution(
+            @Parameter(description = "Academic Year", required = true, example = "2024")
+            @RequestParam Integer academicYear,
+            @Parameter(description = "Course ID, with a semester", example = "1")
+            @RequestParam(required = false) Long courseId,
+            @Parameter(description = "Semester of the course", example = "Fall 2024")
+            @RequestParam(required = false) String semester,
+            @Parameter(description = "Department ID", example = "1")
+            @RequestParam(required = false) Long departmentId,
+            @Parameter(description = "Values to take quantiles of", example = "GRADE_POINTS")
+            @RequestParam(defaultValue = "GRADE_POINTS") GradeDistribution.Metric metric,
+            @Parameter(description = "Quantiles between 0 and 1", example = "0.5,0.9")
+            @RequestParam(defaultValue = "0.25,0.5,0.75,0.9") List<Double> quantiles) {
+        if (!enrollmentService.isGradeDistributionAvailable()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+        try {
+            return ResponseEntity.ok(enrollmentService.getGradeDistribution(academicYear, courseId, semester,
+                    departmentId, metric, quantiles));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.springdatajpa.controller;
+
+import com.example.springdatajpa.dto.SearchHit;
+import com.example.springdatajpa.dto.Suggestion;
+import com.example.springdatajpa.service.SearchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+@Tag(name = "Search", description = "Ranked full-text search across courses, departments and students")
+public class SearchController {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final SearchService searchService;
+
+    @Operation(summary = "Search courses, departments and students",
+            description = "Matches course codes, titles and descriptions, department codes, names and heads, and "
+                    + "student numbers, names and emails; the last word of the query also matches as a prefix. "
+                    + "Results are ranked by relevance, best first")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page of search hits"),
+            @ApiResponse(responseCode = "400", description = "Blank query or invalid paging", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Search index still being built", content = @Content)
+    })
+    @GetMapping
+    public ResponseEntity<Page<SearchHit>> search(
+            @Parameter(description = "Search query", required = true, example = "computer sci")
+            @RequestParam String q,
+            @Parameter(description = "Restrict to these document types; all when omitted")
+            @RequestParam(name = "type", required = false) Set<SearchHit.Type> types,
+            @Parameter(description = "Page number", example = "0")
+            @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size", example = "10")
+            @RequestParam(defaultValue = "10") int size) {
+        if (q.isBlank() || page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!searchService.isAvailable()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+        return ResponseEntity.ok(searchService.search(q, types == null ? EnumSet.noneOf(SearchHit.Type.class) : types,
+                PageRequest.of(page, size)));
+    }
+
+    @Operation(summary = "Autocomplete student names and course titles and codes",
+            description = "Suggests students and courses with a name word starting with the prefix (first or last "
+                    + "name for students, title or course code for courses), active students and the courses with "
+                    + "most enrollments first")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Suggestions, best first"),
+            @ApiResponse(responseCode = "400", description = "Blank prefix, department type or limit out of range",
+                    content = @Content),
+            @ApiResponse(responseCode = "503", description = "Autocomplete index still being built", content = @Content)
+    })
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<Suggestion>> autocomplete(
+            @Parameter(description = "Prefix typed so far", required = true, example = "ada lov")
+            @RequestParam String q,
+            @Parameter(description = "Restrict to STUDENT or COURSE; both when omitted")
+            @RequestParam(name = "type", required = false) Set<SearchHit.Type> types,
+            @Parameter(description = "Maximum number of suggestions", example = "10")
+            @RequestParam(defaultValue = "10") int limit) {
+        if (q.isBlank() || limit < 1 || limit > searchService.maxSuggestions()
+                || (types != null && types.contains(SearchHit.Type.DEPARTMENT))) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!searchService.isAutocompleteAvailable()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+        return ResponseEntity.ok(searchService.autocomplete(q, types, limit));
+    }
+}
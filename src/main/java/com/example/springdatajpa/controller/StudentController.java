@@ -1,7 +1,13 @@
 package com.example.springdatajpa.controller;
 
+import com.example.springdatajpa.cache.StaleWhileRevalidateCache;
+import com.example.springdatajpa.dto.StudentNameMatch;
+import com.example.springdatajpa.dto.StudentSummaryRecord;
+import com.example.springdatajpa.dto.StudentTranscript;
+import com.example.springdatajpa.dto.VersionStamp;
 import com.example.springdatajpa.entity.Student;
 import com.example.springdatajpa.service.StudentService;
+import com.example.springdatajpa.service.TranscriptService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -14,9 +20,11 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import jakarta.validation.Valid;
 import java.math.BigDecimal;
@@ -30,7 +38,11 @@ import java.util.Map;
 @Tag(name = "Student Management", description = "Comprehensive APIs for managing students in the educational system")
 public class StudentController {
 
+    private static final int MAX_FUZZY_MATCHES = 100;
+
     private final StudentService studentService;
+    private final TranscriptService transcriptService;
+    private final StaleWhileRevalidateCache statsCache;
 
     @Operation(
             summary = "Create a new student",
@@ -50,16 +62,72 @@ public class StudentController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdStudent);
     }
 
-    @Operation(summary = "Get student by ID", description = "Retrieves a student by their ID")
+    @Operation(summary = "Get student by ID", description = "Retrieves a student by their ID; honours If-None-Match and If-Modified-Since")
     @GetMapping("/{id}")
     public ResponseEntity<Student> getStudentById(
             @Parameter(description = "Student ID", required = true, example = "1")
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            WebRequest webRequest) {
+        VersionStamp version = studentService.getStudentVersion(id);
+        if (!version.exists()) {
+            throw new RuntimeException("Student not found with id: " + id);
+        }
+        if (webRequest.checkNotModified(version.eTag("student-" + id), version.lastModifiedMillis())) {
+            return null;
+        }
         return studentService.getStudentById(id)
                 .map(ResponseEntity::ok)
                 .orElseThrow(() -> new RuntimeException("Student not found with id: " + id));
     }
 
+    @Operation(summary = "Get student by student ID number", description = "Retrieves a student by their student ID number")
+    @GetMapping("/number/{studentIdNumber}")
+    public ResponseEntity<Student> getStudentByStudentIdNumber(
+            @Parameter(description = "Student ID number", required = true, example = "STU001")
+            @PathVariable String studentIdNumber) {
+        return studentService.getStudentByStudentIdNumber(studentIdNumber)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @Operation(
+            summary = "Get student summary",
+            description = "Returns name, email, student number and GPA of an active student from the in-memory summary store"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Summary found",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = StudentSummaryRecord.class))),
+            @ApiResponse(responseCode = "404", description = "Student not found or inactive")
+    })
+    @GetMapping("/{id}/summary")
+    public ResponseEntity<StudentSummaryRecord> getStudentSummary(
+            @Parameter(description = "Student ID", required = true, example = "1")
+            @PathVariable Long id) {
+        return studentService.getStudentSummary(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @Operation(
+            summary = "Get student transcript",
+            description = "Returns every term with its courses, credit hours, grades and term GPA, plus the cumulative GPA"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Transcript built successfully",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = StudentTranscript.class))),
+            @ApiResponse(responseCode = "404", description = "Student not found")
+    })
+    @GetMapping("/{id}/transcript")
+    public ResponseEntity<StudentTranscript> getStudentTranscript(
+            @Parameter(description = "Student ID", required = true, example = "1")
+            @PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(transcriptService.getTranscript(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @Operation(summary = "Get all students with pagination", description = "Retrieves all students with pagination support")
     @GetMapping
     public ResponseEntity<Page<Student>> getAllStudents(
@@ -144,31 +212,45 @@ public class StudentController {
         return ResponseEntity.ok(students);
     }
 
-    @Operation(summary = "Get comprehensive student statistics", description = "Get detailed statistics about students")
+    @Operation(summary = "Find students by a misspelled name",
+            description = "Finds students whose first, last or full name is within a few edits (insertions, deletions, "
+                    + "substitutions or swapped letters) of the name, closest first. Without a distance, names under "
+                    + "three letters must match exactly, up to five letters allow one edit and longer names two")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Matching students, closest first"),
+            @ApiResponse(responseCode = "400", description = "Blank name, distance or limit out of range", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Name index still being built", content = @Content)
+    })
+    @GetMapping("/fuzzy")
+    public ResponseEntity<List<StudentNameMatch>> findStudentsByFuzzyName(
+            @Parameter(description = "Name as typed", required = true, example = "jon smtih")
+            @RequestParam String name,
+            @Parameter(description = "Maximum edits allowed", example = "2")
+            @RequestParam(required = false) Integer distance,
+            @Parameter(description = "Maximum number of students", example = "20")
+            @RequestParam(defaultValue = "20") int limit) {
+        if (limit < 1 || limit > MAX_FUZZY_MATCHES) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!studentService.isFuzzyLookupAvailable()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+        try {
+            return ResponseEntity.ok(studentService.findStudentsByFuzzyName(name, distance, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(summary = "Get comprehensive student statistics",
+            description = "Get detailed statistics about students; may be a few seconds old, the Age header tells by how much")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully",
                     content = @Content(mediaType = "application/json"))
     })
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getStudentStats() {
-        Map<String, Object> stats = new HashMap<>();
-        
-        List<Student> allStudents = studentService.getAllStudents();
-        stats.put("totalStudents", allStudents.size());
-        
-        long activeStudents = allStudents.stream()
-                .filter(s -> s.getIsActive() != null && s.getIsActive())
-                .count();
-        stats.put("activeStudents", activeStudents);
-        
-        long inactiveStudents = allStudents.size() - activeStudents;
-        stats.put("inactiveStudents", inactiveStudents);
-        
-        // Add enrollment statistics
-        var enrollmentStats = studentService.getStudentEnrollmentStatistics();
-        stats.put("enrollmentStatistics", enrollmentStats);
-        
-        return ResponseEntity.ok(stats);
+        return statsCache.get("students", studentService::getStudentStatistics).toResponse();
     }
 
     @Operation(summary = "Create multiple students", description = "Create multiple students in a batch operation")
@@ -0,0 +1,51 @@
+package com.example.springdatajpa.dto;
+
+import java.util.List;
+
+/**
+ * The enrollment statistics of one academic year: per-course figures, the graded students
+ * by average grade, and every student by number of enrollments. For a closed year this is
+ * the immutable snapshot taken when it was closed.
+ */
+public record AcademicYearStatistics(
+        Integer academicYear,
+        List<CourseStatistics> courses,
+        List<StudentPerformance> studentPerformance,
+        List<StudentActivity> mostActiveStudents
+) {
+
+    public AcademicYearStatistics {
+        courses = List.copyOf(courses);
+        studentPerformance = List.copyOf(studentPerformance);
+        mostActiveStudents = List.copyOf(mostActiveStudents);
+    }
+
+    public List<StudentActivity> mostActiveStudents(int limit) {
+        return mostActiveStudents.subList(0, Math.min(Math.max(limit, 0), mostActiveStudents.size()));
+    }
+
+    public record CourseStatistics(
+            String courseTitle,
+            String courseCode,
+            Long enrollmentCount,
+            Long completedCount,
+            Double averageGrade,
+            Double passRate
+    ) {
+    }
+
+    public record StudentPerformance(
+            String studentName,
+            String studentEmail,
+            Long totalEnrollments,
+            Double averageGrade
+    ) {
+    }
+
+    public record StudentActivity(
+            String firstName,
+            String lastName,
+            Long totalEnrollments
+    ) {
+    }
+}
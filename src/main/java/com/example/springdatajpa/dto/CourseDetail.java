@@ -0,0 +1,18 @@
+package com.example.springdatajpa.dto;
+
+import com.example.springdatajpa.entity.Course;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+/**
+ * A single course with its description, which the serialized {@link Course} entity leaves out
+ * so that course listings never load the lazy column.
+ */
+public record CourseDetail(
+        @JsonUnwrapped Course course,
+        String description
+) {
+
+    public static CourseDetail of(Course course) {
+        return new CourseDetail(course, course.getDescription());
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.springdatajpa.dto;
+
+import com.example.springdatajpa.entity.Course;
+
+/**
+ * Code, department and level of a course, by which the enrollment bitmaps, cube and grade
+ * distributions group its enrollments.
+ */
+public record CourseDimensions(
+        Long courseId,
+        String courseCode,
+        Long departmentId,
+        Course.CourseLevel courseLevel
+) {
+}
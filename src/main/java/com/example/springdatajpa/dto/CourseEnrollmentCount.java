@@ -0,0 +1,10 @@
+package com.example.springdatajpa.dto;
+
+/**
+ * The number of enrollments of a course, in any status.
+ */
+public record CourseEnrollmentCount(
+        Long courseId,
+        Long enrollments
+) {
+}
@@ -0,0 +1,12 @@
+package com.example.springdatajpa.dto;
+
+/**
+ * Title and course code of a course, as suggested by autocompletion and labelling the course in
+ * enrollment statistics.
+ */
+public record CourseNameFields(
+        Long courseId,
+        String title,
+        String courseCode
+) {
+}
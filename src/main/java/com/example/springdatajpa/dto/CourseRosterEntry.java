@@ -0,0 +1,18 @@
+package com.example.springdatajpa.dto;
+
+import com.example.springdatajpa.entity.Enrollment;
+
+/**
+ * One student on a course roster for a given semester, read straight from the
+ * enrollment/student join without hydrating either entity.
+ */
+public record CourseRosterEntry(
+        Long studentId,
+        String studentIdNumber,
+        String firstName,
+        String lastName,
+        String emailId,
+        Enrollment.EnrollmentStatus enrollmentStatus,
+        String grade
+) {
+}
@@ -0,0 +1,12 @@
+package com.example.springdatajpa.dto;
+
+/**
+ * The fields of a course indexed for full-text search.
+ */
+public record CourseSearchFields(
+        Long courseId,
+        String title,
+        String courseCode,
+        String description
+) {
+}
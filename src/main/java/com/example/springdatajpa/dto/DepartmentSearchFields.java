@@ -0,0 +1,12 @@
+package com.example.springdatajpa.dto;
+
+/**
+ * The fields of a department indexed for full-text search.
+ */
+public record DepartmentSearchFields(
+        Long departmentId,
+        String departmentName,
+        String departmentCode,
+        String headOfDepartment
+) {
+}
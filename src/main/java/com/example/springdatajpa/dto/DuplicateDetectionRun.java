@@ -0,0 +1,38 @@
+package com.example.springdatajpa.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress and outcome of the duplicate student detection job: how many students were read,
+ * how many blocks were compared (and skipped for their size), how many pairs were scored and
+ * how many candidates the report received.
+ */
+public record DuplicateDetectionRun(
+        State state,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt,
+        long students,
+        long blocks,
+        long oversizedBlocks,
+        long comparisons,
+        long candidates,
+        String error
+) {
+
+    public enum State {
+        IDLE, RUNNING, COMPLETED, FAILED
+    }
+
+    public static DuplicateDetectionRun idle() {
+        return new DuplicateDetectionRun(State.IDLE, null, null, 0, 0, 0, 0, 0, null);
+    }
+
+    public static DuplicateDetectionRun running(LocalDateTime startedAt) {
+        return new DuplicateDetectionRun(State.RUNNING, startedAt, null, 0, 0, 0, 0, 0, null);
+    }
+
+    public DuplicateDetectionRun failed(String error) {
+        return new DuplicateDetectionRun(State.FAILED, startedAt, LocalDateTime.now(), students, blocks,
+                oversizedBlocks, comparisons, candidates, error);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.springdatajpa.dto;
+
+import com.example.springdatajpa.entity.DuplicateCandidate;
+
+import java.time.LocalDate;
+
+/**
+ * One line of the duplicate student report: the two students side by side, the score, the
+ * evidence that agreed and the review status.
+ */
+public record DuplicateStudentPair(
+        Long candidateId,
+        double score,
+        String matchedOn,
+        DuplicateCandidate.Status status,
+        StudentDetails student,
+        StudentDetails otherStudent
+) {
+
+    public record StudentDetails(
+            Long studentId,
+            String studentIdNumber,
+            String firstName,
+            String lastName,
+            String emailId,
+            LocalDate dateOfBirth,
+            String guardianMobile
+    ) {
+    }
+}
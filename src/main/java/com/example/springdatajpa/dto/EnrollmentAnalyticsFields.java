@@ -0,0 +1,21 @@
+package com.example.springdatajpa.dto;
+
+import com.example.springdatajpa.entity.Enrollment;
+
+import java.math.BigDecimal;
+
+/**
+ * The fields of an enrollment held in the enrollment analytics columns.
+ */
+public record EnrollmentAnalyticsFields(
+        Long enrollmentId,
+        Long studentId,
+        Long courseId,
+        Integer academicYear,
+        String semester,
+        Enrollment.EnrollmentStatus enrollmentStatus,
+        BigDecimal gradePoints,
+        String grade,
+        BigDecimal attendancePercentage
+) {
+}
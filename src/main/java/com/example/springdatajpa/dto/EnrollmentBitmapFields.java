@@ -0,0 +1,15 @@
+package com.example.springdatajpa.dto;
+
+import com.example.springdatajpa.entity.Enrollment;
+
+/**
+ * Who is enrolled in which course and term, in which status, as the enrollment bitmaps hold it.
+ */
+public record EnrollmentBitmapFields(
+        Long studentId,
+        Long courseId,
+        Integer academicYear,
+        String semester,
+        Enrollment.EnrollmentStatus enrollmentStatus
+) {
+}
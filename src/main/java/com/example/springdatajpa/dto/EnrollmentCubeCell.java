@@ -0,0 +1,22 @@
+package com.example.springdatajpa.dto;
+
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.entity.Enrollment;
+
+/**
+ * One cell of an enrollment cube query: the values of the dimensions grouped by (null for those
+ * rolled up) and the enrollments in the cell, those with grade points, their average grade points
+ * (null if none) and the percentage of all enrollments with at least 2.0 grade points.
+ */
+public record EnrollmentCubeCell(
+        String departmentCode,
+        Course.CourseLevel courseLevel,
+        String term,
+        Enrollment.EnrollmentStatus status,
+        Integer admissionYear,
+        Long enrollmentCount,
+        Long gradedCount,
+        Double averageGrade,
+        Double passRate
+) {
+}
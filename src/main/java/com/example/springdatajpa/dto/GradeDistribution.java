@@ -0,0 +1,31 @@
+package com.example.springdatajpa.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Quantiles of the grade points or attendance percentages of a course's term, a department's
+ * academic year or a whole academic year: the number of enrollments with a value and, per
+ * requested quantile, the value at it (null if there are none).
+ */
+public record GradeDistribution(
+        Metric metric,
+        long count,
+        List<Quantile> quantiles
+) {
+
+    public GradeDistribution {
+        quantiles = List.copyOf(quantiles);
+    }
+
+    public enum Metric {
+        GRADE_POINTS,
+        ATTENDANCE_PERCENTAGE
+    }
+
+    public record Quantile(
+            double quantile,
+            BigDecimal value
+    ) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.springdatajpa.dto;
+
+/**
+ * One result of the full-text search across courses, departments and students, with its
+ * relevance score (higher is better).
+ */
+public record SearchHit(
+        Type type,
+        Long id,
+        String label,
+        double score
+) {
+
+    public enum Type {
+        COURSE, DEPARTMENT, STUDENT
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.springdatajpa.dto;
+
+import com.example.springdatajpa.entity.Student;
+
+import java.time.LocalDate;
+
+/**
+ * Status and admission date of a student, by which the enrollment bitmaps and cube group
+ * students and their enrollments.
+ */
+public record StudentDimensions(
+        Long studentId,
+        Student.StudentStatus studentStatus,
+        LocalDate admissionDate
+) {
+}
@@ -0,0 +1,13 @@
+package com.example.springdatajpa.dto;
+
+/**
+ * Names of a student and whether they are active, as the autocomplete and fuzzy name indexes
+ * hold them.
+ */
+public record StudentNameFields(
+        Long studentId,
+        String firstName,
+        String lastName,
+        Boolean isActive
+) {
+}
@@ -0,0 +1,14 @@
+package com.example.springdatajpa.dto;
+
+/**
+ * A student whose first, last or full name is within {@code distance} edits (insertions,
+ * deletions, substitutions or swaps of adjacent letters) of a fuzzy name lookup.
+ */
+public record StudentNameMatch(
+        Long studentId,
+        String firstName,
+        String lastName,
+        boolean active,
+        int distance
+) {
+}
@@ -0,0 +1,14 @@
+package com.example.springdatajpa.dto;
+
+/**
+ * The fields of a student indexed for full-text search, also labelling the student in
+ * enrollment statistics.
+ */
+public record StudentSearchFields(
+        Long studentId,
+        String firstName,
+        String lastName,
+        String emailId,
+        String studentIdNumber
+) {
+}
@@ -0,0 +1,17 @@
+package com.example.springdatajpa.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Name, email, student number and GPA of an active student, as kept in the off-heap
+ * student summary store.
+ */
+public record StudentSummaryRecord(
+        Long studentId,
+        String firstName,
+        String lastName,
+        String emailId,
+        String studentIdNumber,
+        BigDecimal gpa
+) {
+}
@@ -0,0 +1,15 @@
+package com.example.springdatajpa.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * A student's full transcript in term order, with the cumulative credit-weighted GPA.
+ */
+public record StudentTranscript(
+        Long studentId,
+        List<TranscriptTerm> terms,
+        BigDecimal gradedCreditHours,
+        BigDecimal cumulativeGpa
+) {
+}
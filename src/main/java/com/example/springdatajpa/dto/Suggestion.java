@@ -0,0 +1,13 @@
+package com.example.springdatajpa.dto;
+
+/**
+ * One autocomplete suggestion: a student or course whose name starts with what was typed, with
+ * the weight it is ranked by (higher first).
+ */
+public record Suggestion(
+        SearchHit.Type type,
+        Long id,
+        String label,
+        double weight
+) {
+}
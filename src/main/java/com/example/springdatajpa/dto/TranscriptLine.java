@@ -0,0 +1,30 @@
+package com.example.springdatajpa.dto;
+
+import com.example.springdatajpa.entity.Enrollment;
+
+import java.math.BigDecimal;
+
+/**
+ * One course on a student's transcript, read from the enrollment/course/department
+ * join without hydrating any of the entities.
+ */
+public record TranscriptLine(
+        String semester,
+        Integer academicYear,
+        Long courseId,
+        String courseCode,
+        String courseTitle,
+        String departmentName,
+        BigDecimal creditHours,
+        Enrollment.EnrollmentStatus enrollmentStatus,
+        String grade,
+        BigDecimal gradePoints
+) {
+
+    /**
+     * Whether the line counts towards GPA: it has grade points and a credit weight.
+     */
+    public boolean isGraded() {
+        return gradePoints != null && creditHours != null;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.springdatajpa.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * All courses a student took in one semester, with the credit-weighted GPA of the graded ones.
+ * A term is closed once no enrollment in it is still active and every completed or failed
+ * enrollment carries grade points; closed terms no longer change and are cached.
+ */
+public record TranscriptTerm(
+        String semester,
+        Integer academicYear,
+        boolean closed,
+        BigDecimal gradedCreditHours,
+        BigDecimal termGpa,
+        List<TranscriptLine> courses
+) {
+}
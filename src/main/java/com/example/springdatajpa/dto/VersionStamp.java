@@ -0,0 +1,59 @@
+package com.example.springdatajpa.dto;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Row counts and auditing timestamps of everything a representation is built from, read with
+ * an aggregate query instead of loading the entities. Equal stamps mean equal representations,
+ * which makes the stamp usable as a strong ETag; the newest timestamp is the Last-Modified.
+ *
+ * <p>Counts catch deletions, which leave no timestamp behind. A {@code rowCount} of zero means
+ * the resource does not exist.
+ */
+public record VersionStamp(long rowCount, long relatedRowCount, List<LocalDateTime> modifiedDates) {
+
+    public VersionStamp(Long rowCount, LocalDateTime lastModified) {
+        this(rowCount, 0L, Arrays.asList(lastModified));
+    }
+
+    public VersionStamp(Long rowCount, LocalDateTime lastModified, LocalDateTime referencedLastModified) {
+        this(rowCount, 0L, Arrays.asList(lastModified, referencedLastModified));
+    }
+
+    public VersionStamp(Long rowCount, Long relatedRowCount, LocalDateTime lastModified,
+                        LocalDateTime relatedLastModified, LocalDateTime referencedLastModified,
+                        LocalDateTime transitivelyReferencedLastModified) {
+        this(rowCount, relatedRowCount, Arrays.asList(lastModified, relatedLastModified,
+                referencedLastModified, transitivelyReferencedLastModified));
+    }
+
+    public boolean exists() {
+        return rowCount > 0;
+    }
+
+    /**
+     * Strong ETag for the given resource name, quoted as the header requires.
+     */
+    public String eTag(String resource) {
+        String components = resource + '|' + rowCount + '|' + relatedRowCount + '|' + modifiedDates;
+        return '"' + DigestUtils.md5DigestAsHex(components.getBytes(StandardCharsets.UTF_8)) + '"';
+    }
+
+    /**
+     * Epoch millis of the newest timestamp, or -1 when no row carries one.
+     */
+    public long lastModifiedMillis() {
+        return modifiedDates.stream()
+                .filter(Objects::nonNull)
+                .max(LocalDateTime::compareTo)
+                .map(date -> date.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli())
+                .orElse(-1L);
+    }
+}
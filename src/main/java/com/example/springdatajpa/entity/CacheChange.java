@@ -0,0 +1,73 @@
+package com.example.springdatajpa.entity;
+
+import com.example.springdatajpa.event.EntityChangedEvent;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * One entity changed by the transaction that moved its type's {@link CacheVersion} to
+ * {@code version}, so other instances can replay the change for that entity alone. A
+ * {@code BULK_UPDATED} row, whose entity id is 0 since no entity has that id, stands for an
+ * unknown set of rows. Rows are only kept for a while; the primary key serves the lookup of a
+ * type's changes by version, the time index their pruning.
+ */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@IdClass(CacheChange.Key.class)
+@Table(
+        name = "tbl_cache_change",
+        indexes = @Index(name = "idx_cache_change_changed_at", columnList = "changed_at")
+)
+public class CacheChange {
+
+    public static final long BULK_ENTITY_ID = 0;
+
+    @Id
+    @Column(name = "entity_type", length = 100)
+    private String entityType;
+
+    @Id
+    @Column(name = "version")
+    private Long version;
+
+    @Id
+    @Column(name = "entity_id")
+    private Long entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", length = 20, nullable = false)
+    private EntityChangedEvent.ChangeType changeType;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    @Getter
+    @Setter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        private String entityType;
+        private Long version;
+        private Long entityId;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.springdatajpa.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Change counter of one entity type, shared by every application instance through the database.
+ * Writers increment it in the transaction that changes the type; instances poll it to find out
+ * which of their local caches hold data another instance has changed.
+ */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "tbl_cache_version")
+public class CacheVersion {
+
+    @Id
+    @Column(name = "entity_type", length = 100)
+    private String entityType;
+
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,44 @@
+package com.example.springdatajpa.entity;
+
+import com.example.springdatajpa.event.EntityChangeListener;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * An academic year whose enrollments are frozen. The year's statistics were computed once when
+ * it was closed and are kept here as JSON; they are served from this row, not from the live
+ * enrollment table, until the year is explicitly re-opened by deleting it.
+ */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@EntityListeners(EntityChangeListener.class)
+@Table(name = "tbl_closed_academic_year")
+public class ClosedAcademicYear {
+
+    @Id
+    @Column(name = "academic_year")
+    private Integer academicYear;
+
+    @Column(name = "closed_at", nullable = false)
+    private LocalDateTime closedAt;
+
+    @Column(name = "statistics", columnDefinition = "LONGTEXT", nullable = false)
+    @ToString.Exclude
+    private String statistics;
+}
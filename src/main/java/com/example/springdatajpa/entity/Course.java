@@ -1,19 +1,31 @@
 package com.example.springdatajpa.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import com.example.springdatajpa.event.EntityChangeListener;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
-@Data
+@Getter
+@Setter
+@ToString
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
@@ -26,7 +38,11 @@ import java.util.List;
         @Index(name = "idx_department_id", columnList = "department_id")
     }
 )
-@EntityListeners(AuditingEntityListener.class)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Course.CACHE_REGION)
+@NaturalIdCache(region = Course.NATURAL_ID_CACHE_REGION)
+@EntityListeners({AuditingEntityListener.class, EntityChangeListener.class})
 @NamedQueries({
         @NamedQuery(
                 name = "Course.findByDepartmentId",
@@ -38,6 +54,10 @@ import java.util.List;
         )
 })
 public class Course {
+
+    // Second-level cache regions, configured in SecondLevelCacheConfig
+    public static final String CACHE_REGION = "catalog.course";
+    public static final String NATURAL_ID_CACHE_REGION = "catalog.course.natural-id";
     
     @Id
     @SequenceGenerator(
@@ -51,10 +71,16 @@ public class Course {
     @Column(name = "title", nullable = false, length = 200)
     private String title;
     
+    @NaturalId(mutable = true)
     @Column(name = "course_code", unique = true, nullable = false, length = 20)
     private String courseCode;
     
+    // Loaded on first access only (requires bytecode enhancement). Accepted in requests but never
+    // serialized with the entity, so listings do not load it; CourseDetail returns it for one course
+    @Basic(fetch = FetchType.LAZY)
     @Column(name = "description", columnDefinition = "TEXT")
+    @ToString.Exclude
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String description;
     
     @Column(name = "credit_hours", precision = 3, scale = 1)
@@ -75,6 +101,7 @@ public class Course {
             nullable = false,
             referencedColumnName = "departmentId"
     )
+    @ToString.Exclude
     private Department department;
     
     // Many-to-Many relationship with Student through Enrollment
@@ -83,6 +110,8 @@ public class Course {
             cascade = CascadeType.ALL,
             fetch = FetchType.LAZY
     )
+    @ToString.Exclude
+    @JsonIgnore
     private List<Enrollment> enrollments;
     
     // Auditing fields
@@ -94,6 +123,19 @@ public class Course {
     @Column(name = "last_modified_date")
     private LocalDateTime lastModifiedDate;
     
+    // Identity-based equality: never touches lazy state and stays stable across persist
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Course other)) return false;
+        return courseId != null && courseId.equals(other.getCourseId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Course.class.hashCode();
+    }
+    
     // Enum for Course Level
     public enum CourseLevel {
         BEGINNER,
@@ -1,24 +1,39 @@
 package com.example.springdatajpa.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import com.example.springdatajpa.event.EntityChangeListener;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
-@Data
+@Getter
+@Setter
+@ToString
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 @Entity
 @Table(name = "tbl_department")
-@EntityListeners(AuditingEntityListener.class)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Department.CACHE_REGION)
+@NaturalIdCache(region = Department.NATURAL_ID_CACHE_REGION)
+@EntityListeners({AuditingEntityListener.class, EntityChangeListener.class})
 @NamedQueries({
         @NamedQuery(
                 name = "Department.findByDepartmentNameIgnoreCase",
@@ -30,6 +45,11 @@ import java.util.List;
         )
 })
 public class Department {
+
+    // Second-level cache regions, configured in SecondLevelCacheConfig
+    public static final String CACHE_REGION = "catalog.department";
+    public static final String COURSES_CACHE_REGION = "catalog.department.courses";
+    public static final String NATURAL_ID_CACHE_REGION = "catalog.department.natural-id";
     
     @Id
     @SequenceGenerator(
@@ -46,6 +66,7 @@ public class Department {
     @Column(name = "department_address", length = 255)
     private String departmentAddress;
     
+    @NaturalId(mutable = true)
     @Column(name = "department_code", unique = true, length = 10)
     private String departmentCode;
     
@@ -66,6 +87,9 @@ public class Department {
             cascade = CascadeType.ALL,
             fetch = FetchType.LAZY
     )
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Department.COURSES_CACHE_REGION)
+    @ToString.Exclude
+    @JsonIgnore
     private List<Course> courses;
     
     // Auditing fields
@@ -77,6 +101,18 @@ public class Department {
     @Column(name = "last_modified_date")
     private LocalDateTime lastModifiedDate;
     
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Department other)) return false;
+        return departmentId != null && departmentId.equals(other.getDepartmentId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Department.class.hashCode();
+    }
+    
     // Enum for Department Type
     public enum DepartmentType {
         SCIENCE,
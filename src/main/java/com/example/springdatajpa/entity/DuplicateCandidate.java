@@ -0,0 +1,84 @@
+package com.example.springdatajpa.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * A pair of students the duplicate detection job found likely to be the same person, awaiting or
+ * after review. The pair is stored once, lower student id first, and refers to the students by
+ * id only so deleting either student is not blocked; pairs whose students are gone are left out
+ * of the report.
+ *
+ * <p>Each detection run replaces the pending pairs; reviewed pairs are kept and not reported
+ * again.
+ */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(
+        name = "tbl_duplicate_candidate",
+        uniqueConstraints = @UniqueConstraint(name = "duplicate_candidate_pair",
+                columnNames = {"student_id", "other_student_id"}),
+        indexes = @Index(name = "idx_duplicate_candidate_status", columnList = "status, score")
+)
+public class DuplicateCandidate {
+
+    public enum Status {
+        PENDING, CONFIRMED, DISMISSED
+    }
+
+    @Id
+    @SequenceGenerator(
+            name = "duplicate_candidate_sequence",
+            sequenceName = "duplicate_candidate_sequence",
+            allocationSize = 50
+    )
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "duplicate_candidate_sequence")
+    private Long candidateId;
+
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+
+    @Column(name = "other_student_id", nullable = false)
+    private Long otherStudentId;
+
+    // Between 0 and 1; see DuplicateStudentMatcher#score
+    @Column(name = "score", nullable = false)
+    private Double score;
+
+    // The evidence that agreed, e.g. "NAME,DATE_OF_BIRTH"
+    @Column(name = "matched_on", nullable = false, length = 100)
+    private String matchedOn;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    @Builder.Default
+    private Status status = Status.PENDING;
+
+    @Column(name = "detected_at", nullable = false)
+    private LocalDateTime detectedAt;
+
+    @Column(name = "reviewed_at")
+    private LocalDateTime reviewedAt;
+}
@@ -3,18 +3,23 @@ package com.example.springdatajpa.entity;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+import com.example.springdatajpa.event.EntityChangeListener;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
-@Data
+@Getter
+@Setter
+@ToString
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
@@ -26,12 +31,12 @@ import java.time.LocalDateTime;
         columnNames = {"student_id", "course_id", "semester", "academic_year"}
     ),
     indexes = {
-        @Index(name = "idx_student_id", columnList = "student_id"),
-        @Index(name = "idx_course_id", columnList = "course_id"),
+        @Index(name = "idx_enrollment_student_year", columnList = "student_id, academic_year"),
+        @Index(name = "idx_enrollment_course_term", columnList = "course_id, semester, academic_year"),
         @Index(name = "idx_enrollment_date", columnList = "enrollment_date")
     }
 )
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, EntityChangeListener.class})
 @NamedQueries({
         @NamedQuery(
                 name = "Enrollment.findByStudentAndSemester",
@@ -61,6 +66,7 @@ public class Enrollment {
             referencedColumnName = "studentId"
     )
     @JsonBackReference
+    @ToString.Exclude
     private Student student;
     
     // Many-to-One relationship with Course
@@ -70,6 +76,7 @@ public class Enrollment {
             nullable = false,
             referencedColumnName = "courseId"
     )
+    @ToString.Exclude
     private Course course;
     
     @Column(name = "enrollment_date", nullable = false)
@@ -105,6 +112,18 @@ public class Enrollment {
     @Column(name = "last_modified_date")
     private LocalDateTime lastModifiedDate;
     
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Enrollment other)) return false;
+        return enrollmentId != null && enrollmentId.equals(other.getEnrollmentId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Enrollment.class.hashCode();
+    }
+    
     // Enum for Enrollment Status
     public enum EnrollmentStatus {
         ACTIVE,
@@ -0,0 +1,76 @@
+package com.example.springdatajpa.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+/**
+ * One three-character substring of a searchable column value, for substring search through an
+ * index instead of a table scan. The trigram's code points are packed into a number, 21 bits
+ * each, so it compares exactly whatever the database's collation. Rows are written and read by
+ * {@link com.example.springdatajpa.repository.TrigramIndex}; the lookup index serves searches for
+ * the entities containing a trigram, the primary key (which starts with the entity id) the
+ * replacement of one entity's rows.
+ */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@IdClass(SearchTrigram.Key.class)
+@Table(
+        name = "tbl_search_trigram",
+        indexes = @Index(name = "idx_search_trigram_lookup", columnList = "source, trigram, entity_id")
+)
+public class SearchTrigram {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "source", length = 20)
+    private Source source;
+
+    @Id
+    @Column(name = "trigram")
+    private Long trigram;
+
+    @Id
+    @Column(name = "entity_id")
+    private Long entityId;
+
+    /**
+     * The column a trigram was taken from.
+     */
+    public enum Source {
+        STUDENT_FIRST_NAME,
+        STUDENT_LAST_NAME,
+        STUDENT_EMAIL,
+        COURSE_TITLE,
+        COURSE_CODE,
+        COURSE_DESCRIPTION
+    }
+
+    @Getter
+    @Setter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        private Source source;
+        private Long trigram;
+        private Long entityId;
+    }
+}
@@ -5,11 +5,16 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import com.example.springdatajpa.event.EntityChangeListener;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 
 import java.math.BigDecimal;
@@ -17,7 +22,9 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
-@Data
+@Getter
+@Setter
+@ToString
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
@@ -34,7 +41,8 @@ import java.util.List;
                 @Index(name = "idx_admission_date", columnList = "admission_date")
         }
 )
-@EntityListeners(AuditingEntityListener.class)
+@NaturalIdCache(region = Student.NATURAL_ID_CACHE_REGION)
+@EntityListeners({AuditingEntityListener.class, EntityChangeListener.class})
 @NamedQueries({
         @NamedQuery(
                 name = "Student.findByFirstNameContaining",
@@ -46,6 +54,9 @@ import java.util.List;
         )
 })
 public class Student {
+
+    // Natural-id (email) resolution cache region, configured in SecondLevelCacheConfig
+    public static final String NATURAL_ID_CACHE_REGION = "student.natural-id";
     
     @Id
     @SequenceGenerator(
@@ -69,6 +80,7 @@ public class Student {
     @NotBlank(message = "Email is required")
     @Email(message = "Email should be valid")
     @Size(max = 100, message = "Email must not exceed 100 characters")
+    @NaturalId(mutable = true)
     @Column(name = "email_address", nullable = false, unique = true, length = 100)
     private String emailId;
     
@@ -112,6 +124,7 @@ public class Student {
             fetch = FetchType.LAZY
     )
     @JsonManagedReference
+    @ToString.Exclude
     private List<Enrollment> enrollments;
     
     // Auditing fields
@@ -123,6 +136,18 @@ public class Student {
     @Column(name = "last_modified_date")
     private LocalDateTime lastModifiedDate;
     
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Student other)) return false;
+        return studentId != null && studentId.equals(other.getStudentId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Student.class.hashCode();
+    }
+    
     // Enum for Student Status
     public enum StudentStatus {
         ACTIVE,
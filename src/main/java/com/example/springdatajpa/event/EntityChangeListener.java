@@ -0,0 +1,39 @@
+package com.example.springdatajpa.event;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener that turns entity lifecycle callbacks into {@link EntityChangedEvent}s.
+ * Hibernate resolves it through Spring's bean container, so it can use injected collaborators.
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    public void onPersist(Object entity) {
+        publish(entity, EntityChangedEvent.ChangeType.CREATED);
+    }
+
+    @PostUpdate
+    public void onUpdate(Object entity) {
+        publish(entity, EntityChangedEvent.ChangeType.UPDATED);
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        publish(entity, EntityChangedEvent.ChangeType.DELETED);
+    }
+
+    private void publish(Object entity, EntityChangedEvent.ChangeType changeType) {
+        eventPublisher.publishEvent(new EntityChangedEvent(Hibernate.getClass(entity), entity, changeType));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.springdatajpa.event;
+
+/**
+ * Published whenever a persistent entity is inserted, updated or deleted.
+ * Listeners that maintain derived state (caches, indexes) should consume it with
+ * {@code @TransactionalEventListener} so they only react to committed changes.
+ *
+ * <p>A {@code null} entity means "an unknown set of rows of this type changed"
+ * (bulk JPQL updates), and listeners must drop everything they hold for the type.
+ *
+ * <p>A {@code remote} event replays a change another application instance committed; the
+ * database already holds it. The entity of a remote deletion only carries its id, so listeners
+ * that need more of a deleted entity's state must rebuild instead (see {@link #isIdOnly()}).
+ */
+public record EntityChangedEvent(Class<?> entityType, Object entity, ChangeType changeType, boolean remote) {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED,
+        BULK_UPDATED
+    }
+
+    public EntityChangedEvent(Class<?> entityType, Object entity, ChangeType changeType) {
+        this(entityType, entity, changeType, false);
+    }
+
+    public static EntityChangedEvent bulk(Class<?> entityType) {
+        return new EntityChangedEvent(entityType, null, ChangeType.BULK_UPDATED);
+    }
+
+    public EntityChangedEvent asRemote() {
+        return new EntityChangedEvent(entityType, entity, changeType, true);
+    }
+
+    public boolean affects(Class<?> type) {
+        return type.isAssignableFrom(entityType);
+    }
+
+    public boolean isBulk() {
+        return entity == null;
+    }
+
+    public boolean isIdOnly() {
+        return remote && changeType == ChangeType.DELETED;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T entityAs(Class<T> type) {
+        return (T) entity;
+    }
+}
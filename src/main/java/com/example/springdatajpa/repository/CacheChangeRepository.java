@@ -0,0 +1,27 @@
+package com.example.springdatajpa.repository;
+
+import com.example.springdatajpa.entity.CacheChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CacheChangeRepository extends JpaRepository<CacheChange, CacheChange.Key> {
+
+    @Query("SELECT c FROM CacheChange c WHERE c.entityType = :entityType AND c.version IN :versions " +
+           "ORDER BY c.version")
+    List<CacheChange> findChanges(@Param("entityType") String entityType,
+                                  @Param("versions") Collection<Long> versions,
+                                  Limit limit);
+
+    @Modifying
+    @Query("DELETE FROM CacheChange c WHERE c.changedAt < :cutoff")
+    int deleteChangesBefore(@Param("cutoff") LocalDateTime cutoff);
+}
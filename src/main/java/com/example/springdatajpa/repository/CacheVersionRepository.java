@@ -0,0 +1,9 @@
+package com.example.springdatajpa.repository;
+
+import com.example.springdatajpa.entity.CacheVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CacheVersionRepository extends JpaRepository<CacheVersion, String> {
+}
@@ -1,23 +1,69 @@
 package com.example.springdatajpa.repository;
 
+import com.example.springdatajpa.dto.CourseDimensions;
+import com.example.springdatajpa.dto.CourseNameFields;
+import com.example.springdatajpa.dto.CourseSearchFields;
+import com.example.springdatajpa.dto.VersionStamp;
 import com.example.springdatajpa.entity.Course;
 import com.example.springdatajpa.entity.Department;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface CourseRepository extends JpaRepository<Course, Long> {
+public interface CourseRepository extends NaturalIdRepository<Course, Long> {
+    
+    // Natural-id lookups (course code), served by the natural-id resolution cache
+    default Optional<Course> findByCourseCode(String courseCode) {
+        return findBySimpleNaturalId(courseCode);
+    }
+    
+    default boolean existsByCourseCode(String courseCode) {
+        return existsBySimpleNaturalId(courseCode);
+    }
+    
+    // Unique-key filter: streamed once at startup and after bulk changes
+    @Query("SELECT c.courseCode FROM Course c")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<String> streamCourseCodes();
+    
+    // Search index: streamed once at startup, then re-read by id
+    @Query("SELECT new com.example.springdatajpa.dto.CourseSearchFields(c.courseId, c.title, c.courseCode, " +
+           "c.description) FROM Course c")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<CourseSearchFields> streamSearchFields();
+    
+    @Query("SELECT new com.example.springdatajpa.dto.CourseSearchFields(c.courseId, c.title, c.courseCode, " +
+           "c.description) FROM Course c WHERE c.courseId IN :courseIds")
+    List<CourseSearchFields> findSearchFields(@Param("courseIds") Collection<Long> courseIds);
+    
+    // Autocomplete index and enrollment analytics labels: streamed once at startup, then re-read by id
+    @Query("SELECT new com.example.springdatajpa.dto.CourseNameFields(c.courseId, c.title, c.courseCode) FROM Course c")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<CourseNameFields> streamNameFields();
+    
+    @Query("SELECT new com.example.springdatajpa.dto.CourseNameFields(c.courseId, c.title, c.courseCode) FROM Course c " +
+           "WHERE c.courseId IN :courseIds")
+    List<CourseNameFields> findNameFields(@Param("courseIds") Collection<Long> courseIds);
+    
+    // Enrollment bitmaps, cube and grade distributions: code, department and level of every course, read
+    // once at startup and after bulk changes
+    @Query("SELECT new com.example.springdatajpa.dto.CourseDimensions(c.courseId, c.courseCode, d.departmentId, " +
+           "c.courseLevel) FROM Course c LEFT JOIN c.department d")
+    List<CourseDimensions> findDimensions();
     
     // Derived query methods
-    Optional<Course> findByCourseCode(String courseCode);
     
     List<Course> findByTitleContainingIgnoreCase(String title);
     
@@ -39,6 +85,22 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
     @Query("SELECT c FROM Course c WHERE c.department.departmentName = :deptName AND c.isActive = true")
     List<Course> findActiveCoursesByDepartmentName(@Param("deptName") String departmentName);
     
+    // Catalog listings serialize each course with its department, so fetch both in one query
+    @Query("SELECT c FROM Course c JOIN FETCH c.department ORDER BY c.courseId")
+    List<Course> findAllWithDepartment();
+    
+    @Query("SELECT c FROM Course c JOIN FETCH c.department WHERE c.isActive = true ORDER BY c.title")
+    List<Course> findActiveWithDepartment();
+    
+    // Version stamps for conditional GETs; a course is serialized with its department
+    @Query("SELECT new com.example.springdatajpa.dto.VersionStamp(COUNT(c), MAX(c.lastModifiedDate), " +
+           "MAX(d.lastModifiedDate)) FROM Course c JOIN c.department d WHERE c.courseId = :courseId")
+    VersionStamp findVersionStamp(@Param("courseId") Long courseId);
+    
+    @Query("SELECT new com.example.springdatajpa.dto.VersionStamp(COUNT(c), MAX(c.lastModifiedDate), " +
+           "MAX(d.lastModifiedDate)) FROM Course c JOIN c.department d")
+    VersionStamp findCatalogVersionStamp();
+    
     @Query("SELECT c FROM Course c WHERE c.creditHours >= :minCredit AND c.courseLevel = :level")
     List<Course> findCoursesByCreditsAndLevel(@Param("minCredit") BigDecimal minCredit, 
                                              @Param("level") Course.CourseLevel level);
@@ -87,6 +149,23 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
                               @Param("courseLevel") Course.CourseLevel courseLevel,
                               @Param("minCredit") BigDecimal minCredit);
     
+    // Keyword search over title, code and description, returning ids for the search result cache
+    @Query("SELECT c.courseId FROM Course c WHERE " +
+           "LOWER(c.title) LIKE CONCAT('%', LOWER(:keyword), '%') OR " +
+           "LOWER(c.courseCode) LIKE CONCAT('%', LOWER(:keyword), '%') OR " +
+           "LOWER(c.description) LIKE CONCAT('%', LOWER(:keyword), '%') " +
+           "ORDER BY c.courseId")
+    List<Long> searchIdsByKeyword(@Param("keyword") String keyword);
+    
+    // searchIdsByKeyword restricted to the candidates of the trigram index
+    @Query("SELECT c.courseId FROM Course c WHERE c.courseId IN :candidateIds AND (" +
+           "LOWER(c.title) LIKE CONCAT('%', LOWER(:keyword), '%') OR " +
+           "LOWER(c.courseCode) LIKE CONCAT('%', LOWER(:keyword), '%') OR " +
+           "LOWER(c.description) LIKE CONCAT('%', LOWER(:keyword), '%')) " +
+           "ORDER BY c.courseId")
+    List<Long> searchIdsByKeywordAmong(@Param("candidateIds") Collection<Long> candidateIds,
+                                       @Param("keyword") String keyword);
+    
     // Using named queries
     List<Course> findByDepartmentId(@Param("departmentId") Long departmentId);
 }
\ No newline at end of file
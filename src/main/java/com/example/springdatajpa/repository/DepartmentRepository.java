@@ -1,20 +1,50 @@
 package com.example.springdatajpa.repository;
 
+import com.example.springdatajpa.dto.DepartmentSearchFields;
+import com.example.springdatajpa.dto.VersionStamp;
 import com.example.springdatajpa.entity.Department;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface DepartmentRepository extends JpaRepository<Department, Long> {
+public interface DepartmentRepository extends NaturalIdRepository<Department, Long> {
+    
+    // Natural-id lookups (department code), served by the natural-id resolution cache
+    default Optional<Department> findByDepartmentCode(String departmentCode) {
+        return findBySimpleNaturalId(departmentCode);
+    }
+    
+    default boolean existsByDepartmentCode(String departmentCode) {
+        return existsBySimpleNaturalId(departmentCode);
+    }
+    
+    // Unique-key filter: streamed once at startup and after bulk changes
+    @Query("SELECT d.departmentCode FROM Department d")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<String> streamDepartmentCodes();
+    
+    // Search index: streamed once at startup, then re-read by id
+    @Query("SELECT new com.example.springdatajpa.dto.DepartmentSearchFields(d.departmentId, d.departmentName, " +
+           "d.departmentCode, d.headOfDepartment) FROM Department d")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<DepartmentSearchFields> streamSearchFields();
+    
+    @Query("SELECT new com.example.springdatajpa.dto.DepartmentSearchFields(d.departmentId, d.departmentName, " +
+           "d.departmentCode, d.headOfDepartment) FROM Department d WHERE d.departmentId IN :departmentIds")
+    List<DepartmentSearchFields> findSearchFields(@Param("departmentIds") Collection<Long> departmentIds);
     
     // Derived query methods
     Optional<Department> findByDepartmentName(String departmentName);
@@ -24,8 +54,6 @@ public interface DepartmentRepository extends JpaRepository<Department, Long> {
     List<Department> findByDepartmentTypeAndIsActive(
             Department.DepartmentType departmentType, Boolean isActive);
     
-    Optional<Department> findByDepartmentCode(String departmentCode);
-    
     List<Department> findByIsActiveTrue();
     
     Page<Department> findByDepartmentType(Department.DepartmentType departmentType, Pageable pageable);
@@ -37,6 +65,10 @@ public interface DepartmentRepository extends JpaRepository<Department, Long> {
     @Query("SELECT d FROM Department d WHERE d.departmentName LIKE %:keyword% OR d.departmentAddress LIKE %:keyword%")
     List<Department> searchByKeyword(@Param("keyword") String keyword);
     
+    @Query("SELECT d.departmentId FROM Department d WHERE d.departmentName LIKE %:keyword% OR d.departmentAddress LIKE %:keyword% " +
+           "ORDER BY d.departmentId")
+    List<Long> searchIdsByKeyword(@Param("keyword") String keyword);
+    
     @Query("SELECT d FROM Department d JOIN d.courses c WHERE c.isActive = true GROUP BY d HAVING COUNT(c) > :minCourseCount")
     List<Department> findDepartmentsWithMinimumCourses(@Param("minCourseCount") long minCourseCount);
     
@@ -52,13 +84,22 @@ public interface DepartmentRepository extends JpaRepository<Department, Long> {
     
     // Modifying queries
     @Modifying
-    @Query("UPDATE Department d SET d.isActive = false WHERE d.departmentId = :departmentId")
+    @Query("UPDATE Department d SET d.isActive = false, d.lastModifiedDate = LOCAL DATETIME WHERE d.departmentId = :departmentId")
     int deactivateDepartment(@Param("departmentId") Long departmentId);
     
     @Modifying
-    @Query("UPDATE Department d SET d.headOfDepartment = :newHead WHERE d.departmentId = :departmentId")
+    @Query("UPDATE Department d SET d.headOfDepartment = :newHead, d.lastModifiedDate = LOCAL DATETIME " +
+           "WHERE d.departmentId = :departmentId")
     int updateHeadOfDepartment(@Param("departmentId") Long departmentId, @Param("newHead") String newHead);
     
+    // Version stamps for conditional GETs, read without loading any department
+    @Query("SELECT new com.example.springdatajpa.dto.VersionStamp(COUNT(d), MAX(d.lastModifiedDate)) " +
+           "FROM Department d WHERE d.departmentId = :departmentId")
+    VersionStamp findVersionStamp(@Param("departmentId") Long departmentId);
+    
+    @Query("SELECT new com.example.springdatajpa.dto.VersionStamp(COUNT(d), MAX(d.lastModifiedDate)) FROM Department d")
+    VersionStamp findCatalogVersionStamp();
+    
     // Projection interfaces for custom return types
     interface DepartmentSummary {
         String getDepartmentName();
@@ -0,0 +1,33 @@
+package com.example.springdatajpa.repository;
+
+import com.example.springdatajpa.entity.DuplicateCandidate;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface DuplicateCandidateRepository extends JpaRepository<DuplicateCandidate, Long> {
+
+    // Each row is (candidate, student, other student); pairs with a deleted student are left out
+    @Query(value = "SELECT d, s, o FROM DuplicateCandidate d, Student s, Student o " +
+                   "WHERE s.studentId = d.studentId AND o.studentId = d.otherStudentId AND d.status = :status " +
+                   "ORDER BY d.score DESC, d.candidateId",
+           countQuery = "SELECT COUNT(d) FROM DuplicateCandidate d, Student s, Student o " +
+                        "WHERE s.studentId = d.studentId AND o.studentId = d.otherStudentId AND d.status = :status")
+    Page<Object[]> findReport(@Param("status") DuplicateCandidate.Status status, Pageable pageable);
+
+    @Query("SELECT d.studentId, d.otherStudentId FROM DuplicateCandidate d WHERE d.status <> :status")
+    List<Object[]> findPairsNotIn(@Param("status") DuplicateCandidate.Status status);
+
+    @Modifying
+    @Query("DELETE FROM DuplicateCandidate d WHERE d.status = :status")
+    int deleteByStatus(@Param("status") DuplicateCandidate.Status status);
+
+    long countByStatus(DuplicateCandidate.Status status);
+}
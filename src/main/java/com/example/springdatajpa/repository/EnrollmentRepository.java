@@ -1,19 +1,29 @@
 package com.example.springdatajpa.repository;
 
+import com.example.springdatajpa.dto.CourseEnrollmentCount;
+import com.example.springdatajpa.dto.CourseRosterEntry;
+import com.example.springdatajpa.dto.EnrollmentAnalyticsFields;
+import com.example.springdatajpa.dto.EnrollmentBitmapFields;
+import com.example.springdatajpa.dto.TranscriptLine;
+import com.example.springdatajpa.entity.Course;
 import com.example.springdatajpa.entity.Enrollment;
 import com.example.springdatajpa.entity.Student;
-import com.example.springdatajpa.entity.Course;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
@@ -31,6 +41,8 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
     
     List<Enrollment> findByAcademicYear(Integer academicYear);
     
+    boolean existsByAcademicYearAndEnrollmentStatus(Integer academicYear, Enrollment.EnrollmentStatus status);
+    
     List<Enrollment> findBySemester(String semester);
     
     List<Enrollment> findByEnrollmentDateBetween(LocalDate startDate, LocalDate endDate);
@@ -62,6 +74,31 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
     @Query("SELECT e FROM Enrollment e WHERE e.course.courseId = :courseId AND e.grade IS NOT NULL ORDER BY e.gradePoints DESC")
     List<Enrollment> findCourseEnrollmentsByGrade(@Param("courseId") Long courseId);
     
+    // Course roster: a single join served by idx_enrollment_course_term
+    @Query(value = "SELECT new com.example.springdatajpa.dto.CourseRosterEntry(" +
+           "s.studentId, s.studentIdNumber, s.firstName, s.lastName, s.emailId, e.enrollmentStatus, e.grade) " +
+           "FROM Enrollment e JOIN e.student s " +
+           "WHERE e.course.courseId = :courseId AND e.semester = :semester AND e.academicYear = :academicYear " +
+           "ORDER BY s.lastName, s.firstName, s.studentId",
+           countQuery = "SELECT COUNT(e) FROM Enrollment e " +
+           "WHERE e.course.courseId = :courseId AND e.semester = :semester AND e.academicYear = :academicYear")
+    Page<CourseRosterEntry> findCourseRoster(@Param("courseId") Long courseId,
+                                             @Param("semester") String semester,
+                                             @Param("academicYear") Integer academicYear,
+                                             Pageable pageable);
+    
+    // Transcript: every course of a student from one academic year on, in a single join
+    @Query("SELECT new com.example.springdatajpa.dto.TranscriptLine(" +
+           "e.semester, e.academicYear, c.courseId, c.courseCode, c.title, d.departmentName, c.creditHours, " +
+           "e.enrollmentStatus, e.grade, e.gradePoints) " +
+           "FROM Enrollment e JOIN e.course c JOIN c.department d " +
+           "WHERE e.student.studentId = :studentId AND e.academicYear >= :fromYear " +
+           "ORDER BY e.academicYear, e.enrollmentDate, e.semester, c.courseCode")
+    List<TranscriptLine> findTranscriptLines(@Param("studentId") Long studentId, @Param("fromYear") Integer fromYear);
+    
+    @Query("SELECT s FROM Enrollment e JOIN e.student s WHERE e.course.courseId = :courseId AND e.semester = :semester")
+    List<Student> findStudentsByCourseAndSemester(@Param("courseId") Long courseId, @Param("semester") String semester);
+    
     // Native SQL queries
     @Query(value = "SELECT s.first_name, s.last_name, COUNT(e.enrollment_id) as total_enrollments " +
            "FROM tbl_student s JOIN tbl_enrollment e ON s.student_id = e.student_id " +
@@ -125,6 +162,29 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
                                      @Param("academicYear") Integer academicYear,
                                      @Param("status") Enrollment.EnrollmentStatus status);
     
+    // Enrollments per course, in any status, for ranking course suggestions
+    @Query("SELECT new com.example.springdatajpa.dto.CourseEnrollmentCount(e.course.courseId, COUNT(e)) " +
+           "FROM Enrollment e GROUP BY e.course.courseId")
+    List<CourseEnrollmentCount> countEnrollmentsByCourse();
+    
+    @Query("SELECT new com.example.springdatajpa.dto.CourseEnrollmentCount(e.course.courseId, COUNT(e)) " +
+           "FROM Enrollment e WHERE e.course.courseId IN :courseIds GROUP BY e.course.courseId")
+    List<CourseEnrollmentCount> countEnrollmentsByCourse(@Param("courseIds") Collection<Long> courseIds);
+    
+    // Enrollment bitmaps: streamed once at startup and after bulk changes
+    @Query("SELECT new com.example.springdatajpa.dto.EnrollmentBitmapFields(e.student.studentId, e.course.courseId, " +
+           "e.academicYear, e.semester, e.enrollmentStatus) FROM Enrollment e")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<EnrollmentBitmapFields> streamBitmapIndexFields();
+    
+    // Enrollment analytics columns, behind the cube and grade distributions too: streamed once at startup
+    // and after bulk changes
+    @Query("SELECT new com.example.springdatajpa.dto.EnrollmentAnalyticsFields(e.enrollmentId, e.student.studentId, " +
+           "e.course.courseId, e.academicYear, e.semester, e.enrollmentStatus, e.gradePoints, e.grade, " +
+           "e.attendancePercentage) FROM Enrollment e")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<EnrollmentAnalyticsFields> streamAnalyticsFields();
+    
     // Using named queries
     List<Enrollment> findByStudentAndSemester(@Param("studentId") Long studentId, 
                                             @Param("semester") String semester);
@@ -0,0 +1,22 @@
+package com.example.springdatajpa.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.NoRepositoryBean;
+
+import java.util.Optional;
+
+/**
+ * Repository for entities with a simple {@code @NaturalId}. Lookups resolve the natural key to
+ * the primary key through Hibernate's natural-id resolution cache and then load by primary key,
+ * so a hot key costs a cache hit plus an entity-cache or PK fetch instead of a query on the key.
+ */
+@NoRepositoryBean
+public interface NaturalIdRepository<T, ID> extends JpaRepository<T, ID> {
+
+    Optional<T> findBySimpleNaturalId(Object naturalId);
+
+    /**
+     * Resolves the natural key to an id without loading the entity.
+     */
+    boolean existsBySimpleNaturalId(Object naturalId);
+}
@@ -0,0 +1,46 @@
+package com.example.springdatajpa.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Repository base class (see {@code @EnableJpaRepositories} on the application class) that
+ * implements {@link NaturalIdRepository} on top of Hibernate's natural-id load access.
+ * Repositories that do not extend {@link NaturalIdRepository} behave exactly like
+ * {@link SimpleJpaRepository}.
+ */
+@Transactional(readOnly = true)
+public class NaturalIdRepositoryImpl<T, ID> extends SimpleJpaRepository<T, ID> implements NaturalIdRepository<T, ID> {
+
+    private final EntityManager entityManager;
+
+    public NaturalIdRepositoryImpl(JpaEntityInformation<T, ?> entityInformation, EntityManager entityManager) {
+        super(entityInformation, entityManager);
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Optional<T> findBySimpleNaturalId(Object naturalId) {
+        if (naturalId == null) {
+            return Optional.empty();
+        }
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(getDomainClass())
+                .loadOptional(naturalId);
+    }
+
+    @Override
+    public boolean existsBySimpleNaturalId(Object naturalId) {
+        if (naturalId == null) {
+            return false;
+        }
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(getDomainClass())
+                .getReference(naturalId) != null;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.springdatajpa.repository;
+
+import com.example.springdatajpa.entity.SearchTrigram;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SearchTrigramRepository extends JpaRepository<SearchTrigram, SearchTrigram.Key> {
+
+    // Entities whose value in the source column has every one of the (distinct) trigrams
+    @Query("SELECT t.entityId FROM SearchTrigram t " +
+           "WHERE t.source = :source AND t.trigram IN :trigrams " +
+           "GROUP BY t.entityId HAVING COUNT(t) = :trigramCount")
+    List<Long> findEntityIdsWithAll(@Param("source") SearchTrigram.Source source,
+                                    @Param("trigrams") Collection<Long> trigrams,
+                                    @Param("trigramCount") long trigramCount,
+                                    Pageable pageable);
+}
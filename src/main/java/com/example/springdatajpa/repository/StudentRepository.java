@@ -1,21 +1,39 @@
 package com.example.springdatajpa.repository;
 
+import com.example.springdatajpa.dto.StudentDimensions;
+import com.example.springdatajpa.dto.StudentNameFields;
+import com.example.springdatajpa.dto.StudentSearchFields;
+import com.example.springdatajpa.dto.StudentSummaryRecord;
+import com.example.springdatajpa.dto.VersionStamp;
 import com.example.springdatajpa.entity.Student;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface StudentRepository extends JpaRepository<Student, Long> {
+public interface StudentRepository extends NaturalIdRepository<Student, Long> {
+
+    // Natural-id lookups (email), served by the natural-id resolution cache
+    default List<Student> findByEmailId(String emailId) {
+        return findBySimpleNaturalId(emailId).map(List::of).orElseGet(List::of);
+    }
+
+    default boolean existsByEmailId(String emailId) {
+        return existsBySimpleNaturalId(emailId);
+    }
 
     // Derived query methods
     List<Student> findByFirstName(String firstName);
@@ -26,9 +44,8 @@ public interface StudentRepository extends JpaRepository<Student, Long> {
     
     List<Student> findByFirstNameContainingIgnoreCase(String firstName);
     
-    List<Student> findByEmailId(String emailId);
-    
-    Optional<Student> findByStudentIdNumber(String studentIdNumber);
+    @Query("SELECT s.studentId FROM Student s WHERE s.studentIdNumber = :studentIdNumber")
+    Optional<Long> findStudentIdByStudentIdNumber(@Param("studentIdNumber") String studentIdNumber);
     
     List<Student> findByStudentStatus(Student.StudentStatus status);
     
@@ -76,13 +93,21 @@ public interface StudentRepository extends JpaRepository<Student, Long> {
     
     // Modifying queries
     @Modifying
-    @Query("UPDATE Student s SET s.isActive = false WHERE s.studentId = :studentId")
+    @Query("UPDATE Student s SET s.isActive = false, s.lastModifiedDate = LOCAL DATETIME WHERE s.studentId = :studentId")
     int deactivateStudent(@Param("studentId") Long studentId);
     
     @Modifying
-    @Query("UPDATE Student s SET s.gpa = :gpa WHERE s.studentId = :studentId")
+    @Query("UPDATE Student s SET s.gpa = :gpa, s.lastModifiedDate = LOCAL DATETIME WHERE s.studentId = :studentId")
     int updateStudentGpa(@Param("studentId") Long studentId, @Param("gpa") BigDecimal gpa);
     
+    // Version stamp for conditional GETs: a student is serialized with its enrollments,
+    // their courses and the courses' departments, so all of them count
+    @Query("SELECT new com.example.springdatajpa.dto.VersionStamp(COUNT(DISTINCT s.studentId), COUNT(e), " +
+           "MAX(s.lastModifiedDate), MAX(e.lastModifiedDate), MAX(c.lastModifiedDate), MAX(d.lastModifiedDate)) " +
+           "FROM Student s LEFT JOIN s.enrollments e LEFT JOIN e.course c LEFT JOIN c.department d " +
+           "WHERE s.studentId = :studentId")
+    VersionStamp findVersionStamp(@Param("studentId") Long studentId);
+    
     // Projection interfaces
     interface StudentSummary {
         String getFirstName();
@@ -96,6 +121,56 @@ public interface StudentRepository extends JpaRepository<Student, Long> {
            "s.studentIdNumber as studentIdNumber, s.gpa as gpa " +
            "FROM Student s WHERE s.isActive = true ORDER BY s.gpa DESC")
     List<StudentSummary> getActiveStudentSummaries();
+
+    // Unique-key filters: streamed once at startup and after bulk changes
+    @Query("SELECT s.emailId FROM Student s")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<String> streamEmailIds();
+
+    @Query("SELECT s.studentIdNumber FROM Student s WHERE s.studentIdNumber IS NOT NULL")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<String> streamStudentIdNumbers();
+
+    // Search index: streamed once at startup, then re-read by id
+    @Query("SELECT new com.example.springdatajpa.dto.StudentSearchFields(s.studentId, s.firstName, s.lastName, " +
+           "s.emailId, s.studentIdNumber) FROM Student s")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<StudentSearchFields> streamSearchFields();
+
+    @Query("SELECT new com.example.springdatajpa.dto.StudentSearchFields(s.studentId, s.firstName, s.lastName, " +
+           "s.emailId, s.studentIdNumber) FROM Student s WHERE s.studentId IN :studentIds")
+    List<StudentSearchFields> findSearchFields(@Param("studentIds") Collection<Long> studentIds);
+
+    // Autocomplete and fuzzy name indexes: streamed once at startup, then re-read by id
+    @Query("SELECT new com.example.springdatajpa.dto.StudentNameFields(s.studentId, s.firstName, s.lastName, " +
+           "s.isActive) FROM Student s")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<StudentNameFields> streamNameFields();
+
+    @Query("SELECT new com.example.springdatajpa.dto.StudentNameFields(s.studentId, s.firstName, s.lastName, " +
+           "s.isActive) FROM Student s WHERE s.studentId IN :studentIds")
+    List<StudentNameFields> findNameFields(@Param("studentIds") Collection<Long> studentIds);
+
+    // Enrollment bitmaps and cube: streamed once at startup and after bulk changes
+    @Query("SELECT new com.example.springdatajpa.dto.StudentDimensions(s.studentId, s.studentStatus, " +
+           "s.admissionDate) FROM Student s")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<StudentDimensions> streamDimensions();
+
+    // Duplicate detection: every student's compared fields, streamed once per run
+    @Query("SELECT s.studentId, s.firstName, s.lastName, s.emailId, s.dateOfBirth, s.guardian.mobile FROM Student s")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<Object[]> streamDuplicateDetectionFields();
+
+    // Off-heap summary store: streamed once at startup, then re-read by id after bulk changes
+    @Query("SELECT new com.example.springdatajpa.dto.StudentSummaryRecord(s.studentId, s.firstName, s.lastName, " +
+           "s.emailId, s.studentIdNumber, s.gpa) FROM Student s WHERE s.isActive = true")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<StudentSummaryRecord> streamActiveStudentSummaryRecords();
+
+    @Query("SELECT new com.example.springdatajpa.dto.StudentSummaryRecord(s.studentId, s.firstName, s.lastName, " +
+           "s.emailId, s.studentIdNumber, s.gpa) FROM Student s WHERE s.isActive = true AND s.studentId IN :studentIds")
+    List<StudentSummaryRecord> findActiveStudentSummaryRecords(@Param("studentIds") Collection<Long> studentIds);
     
     interface StudentWithEnrollmentCount {
         Long getStudentId();
@@ -126,6 +201,39 @@ public interface StudentRepository extends JpaRepository<Student, Long> {
                                @Param("minGpa") BigDecimal minGpa,
                                @Param("maxGpa") BigDecimal maxGpa);
     
+    // Same filter as searchStudents, returning ids only for the search result cache
+    @Query("SELECT s.studentId FROM Student s WHERE " +
+           "(:firstName IS NULL OR UPPER(s.firstName) LIKE UPPER(CONCAT('%', :firstName, '%'))) AND " +
+           "(:lastName IS NULL OR UPPER(s.lastName) LIKE UPPER(CONCAT('%', :lastName, '%'))) AND " +
+           "(:email IS NULL OR UPPER(s.emailId) LIKE UPPER(CONCAT('%', :email, '%'))) AND " +
+           "(:status IS NULL OR s.studentStatus = :status) AND " +
+           "(:minGpa IS NULL OR s.gpa >= :minGpa) AND " +
+           "(:maxGpa IS NULL OR s.gpa <= :maxGpa) " +
+           "ORDER BY s.studentId")
+    List<Long> searchStudentIds(@Param("firstName") String firstName,
+                                @Param("lastName") String lastName,
+                                @Param("email") String email,
+                                @Param("status") Student.StudentStatus status,
+                                @Param("minGpa") BigDecimal minGpa,
+                                @Param("maxGpa") BigDecimal maxGpa);
+    
+    // searchStudentIds restricted to the candidates of the trigram index
+    @Query("SELECT s.studentId FROM Student s WHERE s.studentId IN :candidateIds AND " +
+           "(:firstName IS NULL OR UPPER(s.firstName) LIKE UPPER(CONCAT('%', :firstName, '%'))) AND " +
+           "(:lastName IS NULL OR UPPER(s.lastName) LIKE UPPER(CONCAT('%', :lastName, '%'))) AND " +
+           "(:email IS NULL OR UPPER(s.emailId) LIKE UPPER(CONCAT('%', :email, '%'))) AND " +
+           "(:status IS NULL OR s.studentStatus = :status) AND " +
+           "(:minGpa IS NULL OR s.gpa >= :minGpa) AND " +
+           "(:maxGpa IS NULL OR s.gpa <= :maxGpa) " +
+           "ORDER BY s.studentId")
+    List<Long> searchStudentIdsAmong(@Param("candidateIds") Collection<Long> candidateIds,
+                                     @Param("firstName") String firstName,
+                                     @Param("lastName") String lastName,
+                                     @Param("email") String email,
+                                     @Param("status") Student.StudentStatus status,
+                                     @Param("minGpa") BigDecimal minGpa,
+                                     @Param("maxGpa") BigDecimal maxGpa);
+    
     // Using named queries
     List<Student> findByFirstNameContaining(@Param("firstName") String firstName);
     
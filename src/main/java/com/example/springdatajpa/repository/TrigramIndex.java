@@ -0,0 +1,500 @@
+package com.example.springdatajpa.repository;
+
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.entity.SearchTrigram.Source;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.event.EntityChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Trigram index in {@code tbl_search_trigram} over student first and last names and emails and
+ * course titles, codes and descriptions, for the {@code LIKE '%...%'} searches that no B-tree
+ * index can serve.
+ *
+ * <p>A search pattern of three or more characters is split into its trigrams, and only entities
+ * whose value has all of them can contain the pattern. {@link #candidatesForAll} and
+ * {@link #candidatesForAny} return those entities' ids, which the search then verifies with its
+ * original {@code LIKE} predicate restricted to them. Trigrams are taken of the upper-cased value
+ * with accents removed, so the candidates are a superset of the case-insensitive matches on H2
+ * as well as under MySQL's accent-insensitive collations. No candidates are returned, and the
+ * search scans as before, for patterns shorter than three characters, patterns with {@code LIKE}
+ * wildcards, patterns too common to narrow the search to {@code app.search.trigram-index.max-candidates}
+ * entities, and until the index is complete.
+ *
+ * <p>The rows of a created, updated or deleted entity are replaced in the transaction that
+ * changes it, as the change is flushed, so they commit or roll back with it. An update only
+ * replaces the rows of the sources Hibernate found dirty, so GPA or status changes, and an
+ * unloaded lazy description, write nothing. After startup, entities without rows (written by SQL scripts or before the index
+ * existed) are indexed in the background; the index is used once that completes. Values changed
+ * with plain SQL later are not seen, the same as for every cache that follows entity events.
+ *
+ * <p>{@code search.trigram.lookups} counts searches by {@code outcome=indexed|scanned}.
+ */
+@Repository
+@Slf4j
+public class TrigramIndex implements PostUpdateEventListener {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final String DELETE_SQL = "DELETE FROM tbl_search_trigram WHERE entity_id = ? AND source = ?";
+    private static final String INSERT_SQL =
+            "INSERT INTO tbl_search_trigram (source, trigram, entity_id) VALUES (?, ?, ?)";
+
+    /**
+     * A column whose values are indexed, its entity property, and how to read it from the entity.
+     */
+    private record IndexedColumn(Source source, String column, String property, Function<Object, String> value) {
+    }
+
+    /**
+     * An indexed table, its id and its indexed columns. Rows without trigrams of the first column
+     * have not been indexed yet.
+     */
+    private record IndexedTable(Class<?> entityType, String table, String idColumn, Function<Object, Long> id,
+                                List<IndexedColumn> columns) {
+
+        String unindexedSql() {
+            return "SELECT " + selectList() + " FROM " + table + " e WHERE e." + idColumn + " > ?"
+                    + " AND NOT EXISTS (SELECT 1 FROM tbl_search_trigram t WHERE t.entity_id = e." + idColumn
+                    + " AND t.source = '" + columns.get(0).source() + "')"
+                    + " ORDER BY e." + idColumn + " LIMIT " + BATCH_SIZE;
+        }
+
+        String byIdsSql(int count) {
+            return "SELECT " + selectList() + " FROM " + table + " WHERE " + idColumn
+                    + " IN (" + String.join(", ", Collections.nCopies(count, "?")) + ")";
+        }
+
+        private String selectList() {
+            return idColumn + ", " + columns.stream().map(IndexedColumn::column).collect(Collectors.joining(", "));
+        }
+    }
+
+    private record Change(IndexedTable table, long entityId, Map<Source, String> values, boolean created) {
+    }
+
+    private record EntityKey(Class<?> entityType, long entityId) {
+    }
+
+    private static final List<IndexedTable> TABLES = List.of(
+            new IndexedTable(Student.class, "tbl_student", "student_id", student -> ((Student) student).getStudentId(),
+                    List.of(new IndexedColumn(Source.STUDENT_EMAIL, "email_address", "emailId",
+                                    student -> ((Student) student).getEmailId()),
+                            new IndexedColumn(Source.STUDENT_FIRST_NAME, "first_name", "firstName",
+                                    student -> ((Student) student).getFirstName()),
+                            new IndexedColumn(Source.STUDENT_LAST_NAME, "last_name", "lastName",
+                                    student -> ((Student) student).getLastName()))),
+            new IndexedTable(Course.class, "tbl_course", "course_id", course -> ((Course) course).getCourseId(),
+                    List.of(new IndexedColumn(Source.COURSE_CODE, "course_code", "courseCode",
+                                    course -> ((Course) course).getCourseCode()),
+                            new IndexedColumn(Source.COURSE_TITLE, "title", "title",
+                                    course -> ((Course) course).getTitle()),
+                            new IndexedColumn(Source.COURSE_DESCRIPTION, "description", "description",
+                                    course -> ((Course) course).getDescription()))));
+
+    private final SearchTrigramRepository searchTrigramRepository;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate newTransaction;
+    private final boolean enabled;
+    private final int maxCandidates;
+    private final Counter indexedLookups;
+    private final Counter scannedLookups;
+    private final ExecutorService backfiller = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "trigram-index-backfill");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Object backfillLock = new Object();
+    private volatile boolean complete;
+    // Entities changed while the backfill runs, indexed again after it; null when it is not running
+    private Set<EntityKey> changedDuringBackfill;
+
+    public TrigramIndex(SearchTrigramRepository searchTrigramRepository,
+                        EntityManager entityManager,
+                        JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager,
+                        MeterRegistry meterRegistry,
+                        @Value("${app.search.trigram-index.enabled:true}") boolean enabled,
+                        @Value("${app.search.trigram-index.max-candidates:5000}") int maxCandidates) {
+        this.searchTrigramRepository = searchTrigramRepository;
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.maxCandidates = maxCandidates;
+        this.indexedLookups = Counter.builder("search.trigram.lookups").tag("outcome", "indexed").register(meterRegistry);
+        this.scannedLookups = Counter.builder("search.trigram.lookups").tag("outcome", "scanned").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void registerUpdateListener() {
+        if (enabled) {
+            entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+                    .requireService(EventListenerRegistry.class)
+                    .appendListeners(EventType.POST_UPDATE, this);
+        }
+    }
+
+    /**
+     * Ids of the entities whose value contains the pattern in every source given a non-empty
+     * pattern, narrowed by the patterns the index can serve; empty when none of them can be.
+     */
+    public Optional<Collection<Long>> candidatesForAll(Map<Source, String> patterns) {
+        Set<Long> candidates = null;
+        for (Map.Entry<Source, String> pattern : patterns.entrySet()) {
+            if (pattern.getValue() == null || pattern.getValue().isEmpty()) {
+                continue;
+            }
+            Optional<List<Long>> ids = candidates(pattern.getKey(), pattern.getValue());
+            if (ids.isPresent()) {
+                if (candidates == null) {
+                    candidates = new LinkedHashSet<>(ids.get());
+                } else {
+                    candidates.retainAll(new HashSet<>(ids.get()));
+                }
+            }
+        }
+        return counted(Optional.ofNullable(candidates));
+    }
+
+    /**
+     * Ids of the entities whose value contains the pattern in at least one of the sources;
+     * empty unless the index can serve the pattern for all of them.
+     */
+    public Optional<Collection<Long>> candidatesForAny(String pattern, Source... sources) {
+        Set<Long> candidates = new LinkedHashSet<>();
+        for (Source source : sources) {
+            Optional<List<Long>> ids = pattern == null ? Optional.empty() : candidates(source, pattern);
+            if (ids.isEmpty()) {
+                return counted(Optional.empty());
+            }
+            candidates.addAll(ids.get());
+            if (candidates.size() > maxCandidates) {
+                return counted(Optional.empty());
+            }
+        }
+        return counted(Optional.of(candidates));
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    private Optional<List<Long>> candidates(Source source, String pattern) {
+        Set<Long> trigrams = usable(pattern) ? trigrams(pattern) : Set.of();
+        if (!complete || trigrams.isEmpty()) {
+            return Optional.empty();
+        }
+        // The trigram query does not read the searched tables, so Hibernate would not flush pending
+        // changes to those tables first, as it does before the LIKE query it replaces
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            entityManager.flush();
+        }
+        List<Long> ids = searchTrigramRepository.findEntityIdsWithAll(source, trigrams, trigrams.size(),
+                PageRequest.of(0, maxCandidates + 1));
+        return ids.size() > maxCandidates ? Optional.empty() : Optional.of(ids);
+    }
+
+    private Optional<Collection<Long>> counted(Optional<Collection<Long>> candidates) {
+        (candidates.isPresent() ? indexedLookups : scannedLookups).increment();
+        return candidates;
+    }
+
+    // LIKE wildcards and escapes in the pattern keep their meaning in the search, so it must scan
+    private static boolean usable(String pattern) {
+        return pattern.indexOf('%') < 0 && pattern.indexOf('_') < 0 && pattern.indexOf('\\') < 0;
+    }
+
+    /**
+     * The distinct three-code-point substrings of the value, upper-cased and without accents,
+     * each packed into a number.
+     */
+    static Set<Long> trigrams(String value) {
+        if (value == null) {
+            return Set.of();
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toUpperCase(Locale.ROOT);
+        int[] codePoints = folded.codePoints().toArray();
+        Set<Long> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= codePoints.length; i++) {
+            trigrams.add(((long) codePoints[i] << 42) | ((long) codePoints[i + 1] << 21) | codePoints[i + 2]);
+        }
+        return trigrams;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (enabled && !complete) {
+            backfiller.execute(() -> {
+                try {
+                    backfill();
+                } catch (RuntimeException e) {
+                    log.warn("Building the trigram index failed, substring searches keep scanning: {}", e.getMessage());
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backfiller.shutdownNow();
+    }
+
+    /**
+     * Indexes every entity without trigram rows, then marks the index complete. Runs on the
+     * calling thread.
+     */
+    void backfill() {
+        synchronized (backfillLock) {
+            backfillExclusively();
+        }
+    }
+
+    private void backfillExclusively() {
+        synchronized (this) {
+            changedDuringBackfill = new HashSet<>();
+        }
+        try {
+            long indexed = 0;
+            for (IndexedTable table : TABLES) {
+                long[] after = {0};
+                int read;
+                do {
+                    List<Change> changes = newTransaction.execute(status -> jdbcTemplate.query(
+                            table.unindexedSql(), (resultSet, row) -> change(table, resultSet), after[0]));
+                    read = changes.size();
+                    if (read > 0) {
+                        after[0] = changes.get(read - 1).entityId();
+                        newTransaction.executeWithoutResult(status -> write(changes));
+                        indexed += read;
+                    }
+                } while (read == BATCH_SIZE);
+            }
+            Set<EntityKey> changed;
+            synchronized (this) {
+                changed = changedDuringBackfill;
+                changedDuringBackfill = null;
+            }
+            reindex(changed);
+            complete = true;
+            log.info("Trigram index complete, {} entities indexed at startup", indexed);
+        } finally {
+            synchronized (this) {
+                changedDuringBackfill = null;
+            }
+        }
+    }
+
+    private void reindex(Set<EntityKey> keys) {
+        for (IndexedTable table : TABLES) {
+            List<Long> ids = keys.stream()
+                    .filter(key -> key.entityType() == table.entityType())
+                    .map(EntityKey::entityId)
+                    .toList();
+            for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+                List<Long> batch = ids.subList(from, Math.min(ids.size(), from + BATCH_SIZE));
+                newTransaction.executeWithoutResult(status -> {
+                    List<Change> changes = new ArrayList<>(jdbcTemplate.query(table.byIdsSql(batch.size()),
+                            (resultSet, row) -> change(table, resultSet), batch.toArray()));
+                    Set<Long> found = changes.stream().map(Change::entityId).collect(Collectors.toSet());
+                    batch.stream()
+                            .filter(id -> !found.contains(id))
+                            .forEach(id -> changes.add(new Change(table, id, deleted(table), false)));
+                    write(changes);
+                });
+            }
+        }
+    }
+
+    private static Change change(IndexedTable table, ResultSet resultSet) throws SQLException {
+        Map<Source, String> values = new EnumMap<>(Source.class);
+        int index = 2;
+        for (IndexedColumn column : table.columns()) {
+            values.put(column.source(), Objects.requireNonNullElse(resultSet.getString(index++), ""));
+        }
+        return new Change(table, resultSet.getLong(1), values, false);
+    }
+
+    /**
+     * Replaces the created or deleted entity's rows as its change is flushed, on the flushing
+     * transaction's connection, so searches later in the same transaction see them. Updates are
+     * handled by {@link #onPostUpdate}, which knows which properties changed. Remote changes were
+     * written to the shared table by the instance that made them.
+     */
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (!enabled || event.isBulk() || event.remote()
+                || event.changeType() == EntityChangedEvent.ChangeType.UPDATED) {
+            return;
+        }
+        IndexedTable table = table(event.entityType());
+        if (table == null) {
+            return;
+        }
+        Object entity = event.entity();
+        long entityId = table.id().apply(entity);
+        Change change = event.changeType() == EntityChangedEvent.ChangeType.DELETED
+                ? new Change(table, entityId, deleted(table), false)
+                : new Change(table, entityId, values(table, entity, column -> true), true);
+        changed(change);
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            newTransaction.executeWithoutResult(status -> write(List.of(change)));
+        } else {
+            entityManager.unwrap(SessionImplementor.class).doWork(connection -> write(connection, List.of(change)));
+        }
+    }
+
+    /**
+     * Replaces the rows of the sources whose properties the flushed update changed, on the
+     * flushing session's connection. Without dirty-checking results every loaded source is
+     * replaced.
+     */
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        IndexedTable table = table(event.getPersister().getMappedClass());
+        if (table == null) {
+            return;
+        }
+        int[] dirtyProperties = event.getDirtyProperties();
+        String[] propertyNames = event.getPersister().getPropertyNames();
+        Set<String> dirty = dirtyProperties == null ? null : Arrays.stream(dirtyProperties)
+                .mapToObj(property -> propertyNames[property])
+                .collect(Collectors.toSet());
+        Map<Source, String> values = values(table, event.getEntity(),
+                column -> dirty == null || dirty.contains(column.property()));
+        if (values.isEmpty()) {
+            return;
+        }
+        Change change = new Change(table, table.id().apply(event.getEntity()), values, false);
+        changed(change);
+        event.getSession().doWork(connection -> write(connection, List.of(change)));
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private static IndexedTable table(Class<?> entityType) {
+        return TABLES.stream().filter(candidate -> candidate.entityType().isAssignableFrom(entityType))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private synchronized void changed(Change change) {
+        if (changedDuringBackfill != null) {
+            changedDuringBackfill.add(new EntityKey(change.table().entityType(), change.entityId()));
+        }
+    }
+
+    // Values of the entity's selected sources; a lazy description that was never loaded is left out
+    private static Map<Source, String> values(IndexedTable table, Object entity, Predicate<IndexedColumn> selected) {
+        Map<Source, String> values = new EnumMap<>(Source.class);
+        for (IndexedColumn column : table.columns()) {
+            if (selected.test(column) && Hibernate.isPropertyInitialized(entity, column.property())) {
+                values.put(column.source(), Objects.requireNonNullElse(column.value().apply(entity), ""));
+            }
+        }
+        return values;
+    }
+
+    // A null value removes the source's rows without adding any
+    private static Map<Source, String> deleted(IndexedTable table) {
+        Map<Source, String> values = new EnumMap<>(Source.class);
+        table.columns().forEach(column -> values.put(column.source(), null));
+        return values;
+    }
+
+    private void write(List<Change> changes) {
+        jdbcTemplate.execute((Connection connection) -> {
+            write(connection, changes);
+            return null;
+        });
+    }
+
+    private static void write(Connection connection, List<Change> changes) throws SQLException {
+        try (PreparedStatement delete = connection.prepareStatement(DELETE_SQL);
+             PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+            int deletes = 0;
+            int inserts = 0;
+            for (Change change : changes) {
+                for (Map.Entry<Source, String> value : change.values().entrySet()) {
+                    if (!change.created()) {
+                        delete.setLong(1, change.entityId());
+                        delete.setString(2, value.getKey().name());
+                        delete.addBatch();
+                        deletes++;
+                    }
+                    for (long trigram : trigrams(value.getValue())) {
+                        insert.setString(1, value.getKey().name());
+                        insert.setLong(2, trigram);
+                        insert.setLong(3, change.entityId());
+                        insert.addBatch();
+                        inserts++;
+                    }
+                }
+            }
+            // Every delete runs before the inserts, so an entity changed twice never collides with itself
+            if (deletes > 0) {
+                delete.executeBatch();
+            }
+            if (inserts > 0) {
+                insert.executeBatch();
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.springdatajpa.service;
+
+import com.example.springdatajpa.cache.EnrollmentAnalytics;
+import com.example.springdatajpa.cache.FrozenAcademicYears;
+import com.example.springdatajpa.dto.AcademicYearStatistics;
+import com.example.springdatajpa.entity.ClosedAcademicYear;
+import com.example.springdatajpa.entity.Enrollment;
+import com.example.springdatajpa.repository.ClosedAcademicYearRepository;
+import com.example.springdatajpa.repository.EnrollmentRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Closing and re-opening academic years, and their enrollment statistics.
+ *
+ * <p>Closing a year computes its statistics once from the live enrollment table and stores them
+ * as an immutable snapshot; from then on the year's statistics are served from that snapshot and
+ * its enrollments can no longer be created, changed or deleted. A year stays closed until it is
+ * explicitly re-opened, which discards the snapshot. Statistics of open years, the current one
+ * included, are computed from the live enrollments: by {@link EnrollmentAnalytics} once its
+ * in-memory copy is loaded, by the database before that and when a year is closed.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class AcademicYearService {
+
+    private final ClosedAcademicYearRepository closedAcademicYearRepository;
+    private final EnrollmentRepository enrollmentRepository;
+    private final FrozenAcademicYears frozenAcademicYears;
+    private final EnrollmentAnalytics enrollmentAnalytics;
+
+    public boolean isClosed(Integer academicYear) {
+        return academicYear != null && frozenAcademicYears.isClosed(academicYear);
+    }
+
+    /**
+     * @throws IllegalStateException if the year is closed
+     */
+    public void requireOpen(Integer academicYear) {
+        if (isClosed(academicYear)) {
+            throw new IllegalStateException("Academic year " + academicYear + " is closed");
+        }
+    }
+
+    /**
+     * The frozen statistics of a closed year, or empty if the year is open.
+     */
+    public Optional<AcademicYearStatistics> findClosedYearStatistics(Integer academicYear) {
+        return frozenAcademicYears.get(academicYear);
+    }
+
+    public List<AcademicYearStatistics.CourseStatistics> getCourseStatistics(Integer academicYear) {
+        return findClosedYearStatistics(academicYear)
+                .map(AcademicYearStatistics::courses)
+                .orElseGet(() -> enrollmentAnalytics.isLoaded() ? enrollmentAnalytics.courseStatistics(academicYear)
+                        : liveCourseStatistics(academicYear));
+    }
+
+    public List<AcademicYearStatistics.StudentPerformance> getStudentPerformance(Integer academicYear) {
+        return findClosedYearStatistics(academicYear)
+                .map(AcademicYearStatistics::studentPerformance)
+                .orElseGet(() -> enrollmentAnalytics.isLoaded() ? enrollmentAnalytics.studentPerformance(academicYear)
+                        : liveStudentPerformance(academicYear));
+    }
+
+    public List<AcademicYearStatistics.StudentActivity> getMostActiveStudents(Integer academicYear, int limit) {
+        return findClosedYearStatistics(academicYear)
+                .map(statistics -> statistics.mostActiveStudents(limit))
+                .orElseGet(() -> enrollmentAnalytics.isLoaded() ? enrollmentAnalytics.mostActiveStudents(academicYear, limit)
+                        : liveMostActiveStudents(academicYear, limit));
+    }
+
+    /**
+     * Freezes a year's statistics as they are now.
+     *
+     * @throws IllegalStateException if the year is already closed or still has active enrollments
+     */
+    @Transactional
+    public AcademicYearStatistics closeYear(Integer academicYear) {
+        if (closedAcademicYearRepository.existsById(academicYear)) {
+            throw new IllegalStateException("Academic year " + academicYear + " is already closed");
+        }
+        if (enrollmentRepository.existsByAcademicYearAndEnrollmentStatus(academicYear, Enrollment.EnrollmentStatus.ACTIVE)) {
+            throw new IllegalStateException("Academic year " + academicYear + " still has active enrollments");
+        }
+        AcademicYearStatistics statistics = new AcademicYearStatistics(academicYear,
+                liveCourseStatistics(academicYear),
+                liveStudentPerformance(academicYear),
+                liveMostActiveStudents(academicYear, Integer.MAX_VALUE));
+        closedAcademicYearRepository.save(ClosedAcademicYear.builder()
+                .academicYear(academicYear)
+                .closedAt(LocalDateTime.now())
+                .statistics(frozenAcademicYears.encode(statistics))
+                .build());
+        return statistics;
+    }
+
+    /**
+     * Discards a closed year's snapshot, so its enrollments can change again.
+     *
+     * @throws IllegalArgumentException if the year is not closed
+     */
+    @Transactional
+    public void reopenYear(Integer academicYear) {
+        ClosedAcademicYear closedYear = closedAcademicYearRepository.findById(academicYear)
+                .orElseThrow(() -> new IllegalArgumentException("Academic year " + academicYear + " is not closed"));
+        closedAcademicYearRepository.delete(closedYear);
+    }
+
+    private List<AcademicYearStatistics.CourseStatistics> liveCourseStatistics(Integer academicYear) {
+        return enrollmentRepository.getCourseEnrollmentStatistics(academicYear).stream()
+                .map(row -> new AcademicYearStatistics.CourseStatistics(row.getCourseTitle(), row.getCourseCode(),
+                        row.getEnrollmentCount(), row.getCompletedCount(), row.getAverageGrade(), row.getPassRate()))
+                .toList();
+    }
+
+    private List<AcademicYearStatistics.StudentPerformance> liveStudentPerformance(Integer academicYear) {
+        return enrollmentRepository.getStudentPerformanceSummary(academicYear).stream()
+                .map(row -> new AcademicYearStatistics.StudentPerformance(row.getStudentName(), row.getStudentEmail(),
+                        row.getTotalEnrollments(), row.getAverageGrade()))
+                .toList();
+    }
+
+    private List<AcademicYearStatistics.StudentActivity> liveMostActiveStudents(Integer academicYear, int limit) {
+        return enrollmentRepository.findMostActiveStudentsByYear(academicYear, limit).stream()
+                .map(row -> new AcademicYearStatistics.StudentActivity((String) row[0], (String) row[1],
+                        ((Number) row[2]).longValue()))
+                .toList();
+    }
+}
@@ -1,9 +1,16 @@
 package com.example.springdatajpa.service;
 
+import com.example.springdatajpa.cache.SearchKey;
+import com.example.springdatajpa.cache.SearchResultCache;
+import com.example.springdatajpa.cache.UniqueKeyFilters;
+import com.example.springdatajpa.dto.CourseDetail;
+import com.example.springdatajpa.dto.VersionStamp;
 import com.example.springdatajpa.entity.Course;
 import com.example.springdatajpa.entity.Department;
+import com.example.springdatajpa.entity.SearchTrigram;
 import com.example.springdatajpa.repository.CourseRepository;
 import com.example.springdatajpa.repository.DepartmentRepository;
+import com.example.springdatajpa.repository.TrigramIndex;
 import lombok.RequiredArgsConstructor;
 
 import java.math.BigDecimal;
@@ -22,6 +29,9 @@ public class CourseService {
 
     private final CourseRepository courseRepository;
     private final DepartmentRepository departmentRepository;
+    private final SearchResultCache searchResultCache;
+    private final UniqueKeyFilters uniqueKeyFilters;
+    private final TrigramIndex trigramIndex;
 
     @Transactional
     public Course createCourse(Course course) {
@@ -46,6 +56,16 @@ public class CourseService {
         return courseRepository.findById(id);
     }
 
+    // The course with its lazy description, read in this transaction
+    public Optional<CourseDetail> findDetailById(Long id) {
+        return courseRepository.findById(id).map(CourseDetail::of);
+    }
+
+    // Counts and auditing timestamps behind a course's representation, without loading it
+    public VersionStamp getCourseVersion(Long id) {
+        return courseRepository.findVersionStamp(id);
+    }
+
     public List<Course> findAllCourses() {
         return courseRepository.findAll();
     }
@@ -58,6 +78,10 @@ public class CourseService {
         return courseRepository.findByCourseCode(courseCode);
     }
 
+    public Optional<CourseDetail> findDetailByCourseCode(String courseCode) {
+        return courseRepository.findByCourseCode(courseCode).map(CourseDetail::of);
+    }
+
     public List<Course> findByDepartment(Long departmentId) {
         return courseRepository.findByDepartmentDepartmentId(departmentId);
     }
@@ -143,17 +167,19 @@ public class CourseService {
     }
 
     public boolean existsByCourseCode(String courseCode) {
-        return courseRepository.findByCourseCode(courseCode).isPresent();
+        return uniqueKeyFilters.exists(UniqueKeyFilters.Key.COURSE_CODE, courseCode, courseRepository::existsByCourseCode);
     }
 
     public List<Course> searchCourses(String searchTerm) {
         // Search by title, course code, or description
-        return courseRepository.findAll().stream()
-                .filter(course -> 
-                    course.getTitle().toLowerCase().contains(searchTerm.toLowerCase()) ||
-                    course.getCourseCode().toLowerCase().contains(searchTerm.toLowerCase()) ||
-                    (course.getDescription() != null && course.getDescription().toLowerCase().contains(searchTerm.toLowerCase())))
-                .toList();
+        List<Long> ids = searchResultCache.getIds(
+                SearchKey.of("courses", Course.class, SearchKey.ignoreCase(searchTerm)),
+                () -> trigramIndex.candidatesForAny(searchTerm, SearchTrigram.Source.COURSE_TITLE,
+                                SearchTrigram.Source.COURSE_CODE, SearchTrigram.Source.COURSE_DESCRIPTION)
+                        .map(candidates -> candidates.isEmpty() ? List.<Long>of()
+                                : courseRepository.searchIdsByKeywordAmong(candidates, searchTerm))
+                        .orElseGet(() -> courseRepository.searchIdsByKeyword(searchTerm)));
+        return SearchResultCache.inIdOrder(ids, courseRepository.findAllById(ids), Course::getCourseId);
     }
 
     @Transactional
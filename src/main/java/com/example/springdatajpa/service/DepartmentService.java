@@ -1,10 +1,16 @@
 package com.example.springdatajpa.service;
 
+import com.example.springdatajpa.cache.SearchKey;
+import com.example.springdatajpa.cache.SearchResultCache;
+import com.example.springdatajpa.cache.UniqueKeyFilters;
+import com.example.springdatajpa.dto.VersionStamp;
 import com.example.springdatajpa.entity.Department;
 import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.event.EntityChangedEvent;
 import com.example.springdatajpa.repository.DepartmentRepository;
 import com.example.springdatajpa.repository.CourseRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -22,6 +28,9 @@ public class DepartmentService {
 
     private final DepartmentRepository departmentRepository;
     private final CourseRepository courseRepository;
+    private final SearchResultCache searchResultCache;
+    private final UniqueKeyFilters uniqueKeyFilters;
+    private final ApplicationEventPublisher eventPublisher;
 
     // Read operations
     public List<Department> getAllDepartments() {
@@ -32,12 +41,19 @@ public class DepartmentService {
         return departmentRepository.findById(id);
     }
 
+    // Counts and auditing timestamps behind a department's representation, without loading it
+    public VersionStamp getDepartmentVersion(Long id) {
+        return departmentRepository.findVersionStamp(id);
+    }
+
     public Page<Department> getDepartmentsByType(Department.DepartmentType type, Pageable pageable) {
         return departmentRepository.findByDepartmentType(type, pageable);
     }
 
     public List<Department> searchDepartments(String keyword) {
-        return departmentRepository.searchByKeyword(keyword);
+        List<Long> ids = searchResultCache.getIds(SearchKey.of("departments", Department.class, keyword),
+                () -> departmentRepository.searchIdsByKeyword(keyword));
+        return SearchResultCache.inIdOrder(ids, departmentRepository.findAllById(ids), Department::getDepartmentId);
     }
 
     public List<DepartmentRepository.DepartmentSummary> getDepartmentSummaries() {
@@ -47,14 +63,14 @@ public class DepartmentService {
     // Write operations with transactions
     @Transactional
     public Department createDepartment(Department department) {
-        // Validate unique constraints
-        if (department.getDepartmentCode() != null) {
-            Optional<Department> existingDept = departmentRepository.findByDepartmentCode(department.getDepartmentCode());
-            if (existingDept.isPresent()) {
-                throw new IllegalArgumentException("Department code already exists: " + department.getDepartmentCode());
-            }
+        // Validate unique constraints; the key filter skips the query for codes that are certainly new
+        if (department.getDepartmentCode() != null
+                && uniqueKeyFilters.exists(UniqueKeyFilters.Key.DEPARTMENT_CODE, department.getDepartmentCode(),
+                        departmentRepository::existsByDepartmentCode)) {
+            throw new IllegalArgumentException("Department code already exists: " + department.getDepartmentCode());
         }
 
+        uniqueKeyFilters.add(UniqueKeyFilters.Key.DEPARTMENT_CODE, department.getDepartmentCode());
         return departmentRepository.save(department);
     }
 
@@ -179,6 +195,8 @@ public class DepartmentService {
                 throw new IllegalArgumentException("Department not found: " + departmentIds.get(i));
             }
         }
+        // The bulk updates bypass entity listeners
+        eventPublisher.publishEvent(EntityChangedEvent.bulk(Department.class));
     }
 
     // Transaction with custom rollback conditions
@@ -0,0 +1,312 @@
+package com.example.springdatajpa.service;
+
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * Finds likely duplicate students among many without comparing every pair.
+ *
+ * <p>Each student is put into up to three blocks: the Soundex codes of last and first name, the
+ * date of birth with the last name's initial, and the guardian's mobile number. Only students
+ * sharing a block are compared, each pair once, in the first block they share; blocks larger
+ * than {@code maxBlockSize} (a mobile number entered as a placeholder for thousands of
+ * students, say) are skipped and counted. Blocks are compared in parallel.
+ *
+ * <p>A compared pair is scored between 0 and 1 as the weighted agreement of the evidence both
+ * students have: name similarity (Jaro-Winkler, also with first and last name swapped), equal
+ * dates of birth, equal guardian mobiles and similar email local parts. Evidence missing on
+ * either side counts neither way, so two students with the same name and nothing else recorded
+ * score 1 while two with the same name and different birth dates do not.
+ */
+final class DuplicateStudentMatcher {
+
+    enum Evidence {
+        NAME, DATE_OF_BIRTH, GUARDIAN_MOBILE, EMAIL
+    }
+
+    /**
+     * A student's fields as compared: names folded, the email's local part and the mobile's digits.
+     */
+    record StudentRow(long studentId, String firstName, String lastName, String email, LocalDate dateOfBirth,
+                      String mobile) {
+
+        static StudentRow of(long studentId, String firstName, String lastName, String email, LocalDate dateOfBirth,
+                             String mobile) {
+            String local = email == null ? "" : email.substring(0, Math.max(0, email.indexOf('@')));
+            String digits = mobile == null ? "" : NON_DIGITS.matcher(mobile).replaceAll("");
+            // The last ten digits, so a number with and without its country code is the same number
+            return new StudentRow(studentId, fold(firstName), fold(lastName), fold(local), dateOfBirth,
+                    digits.length() < MIN_MOBILE_DIGITS ? "" : digits.substring(Math.max(0, digits.length() - 10)));
+        }
+    }
+
+    record Match(long studentId, long otherStudentId, double score, Set<Evidence> matchedOn) {
+    }
+
+    record Result(List<Match> matches, long blocks, long oversizedBlocks, long comparisons) {
+    }
+
+    /**
+     * Pairs not to report, whatever their score.
+     */
+    interface Exclusions {
+        boolean excludes(long studentId, long otherStudentId);
+    }
+
+    private static final double NAME_WEIGHT = 0.5;
+    private static final double DATE_OF_BIRTH_WEIGHT = 0.2;
+    private static final double MOBILE_WEIGHT = 0.15;
+    private static final double EMAIL_WEIGHT = 0.15;
+    private static final double SIMILAR = 0.9;
+    private static final int MIN_MOBILE_DIGITS = 7;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_LETTERS = Pattern.compile("[^\\p{L}]+");
+    private static final Pattern NON_DIGITS = Pattern.compile("\\D+");
+    private static final String SOUNDEX_CODES = "01230120022455012623010202";
+
+    private final double minScore;
+    private final int maxBlockSize;
+    private final int parallelism;
+
+    DuplicateStudentMatcher(double minScore, int maxBlockSize, int parallelism) {
+        this.minScore = minScore;
+        this.maxBlockSize = maxBlockSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Every pair scoring at least {@code minScore}, lower student id first.
+     */
+    Result match(List<StudentRow> rows, Exclusions exclusions) {
+        // One entry per (block, row): the block key's hash above the row index, sorted into runs per block.
+        // Keys whose hashes collide share a block, which costs comparisons but loses no pair
+        int[][] keys = new int[rows.size()][];
+        long[] entries = new long[rows.size() * 3];
+        int size = 0;
+        for (int row = 0; row < rows.size(); row++) {
+            keys[row] = blockingKeys(rows.get(row));
+            for (int key : keys[row]) {
+                entries[size++] = ((long) key << 32) | row;
+            }
+        }
+        long[] sorted = Arrays.copyOf(entries, size);
+        Arrays.parallelSort(sorted);
+
+        List<int[]> blocks = new ArrayList<>();
+        long oversized = 0;
+        for (int start = 0, end; start < sorted.length; start = end) {
+            end = start + 1;
+            while (end < sorted.length && sorted[end] >>> 32 == sorted[start] >>> 32) {
+                end++;
+            }
+            if (end - start > maxBlockSize) {
+                oversized++;
+            } else if (end - start > 1) {
+                blocks.add(new int[]{start, end});
+            }
+        }
+
+        ConcurrentLinkedQueue<Match> matches = new ConcurrentLinkedQueue<>();
+        LongAdder comparisons = new LongAdder();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> IntStream.range(0, blocks.size()).parallel().forEach(b -> {
+                int start = blocks.get(b)[0];
+                int end = blocks.get(b)[1];
+                int key = (int) (sorted[start] >>> 32);
+                for (int i = start; i < end; i++) {
+                    int row = (int) sorted[i];
+                    for (int j = i + 1; j < end; j++) {
+                        int other = (int) sorted[j];
+                        if (firstSharedKey(keys[row], keys[other]) != key) {
+                            continue;
+                        }
+                        comparisons.increment();
+                        Match match = score(rows.get(row), rows.get(other));
+                        if (match.score() >= minScore
+                                && !exclusions.excludes(match.studentId(), match.otherStudentId())) {
+                            matches.add(match);
+                        }
+                    }
+                }
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Duplicate detection was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Duplicate detection failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return new Result(List.copyOf(matches), blocks.size(), oversized, comparisons.sum());
+    }
+
+    /**
+     * The hashes of the student's block keys, distinct; a row appears once per block.
+     */
+    static int[] blockingKeys(StudentRow row) {
+        List<String> keys = new ArrayList<>(3);
+        if (!row.firstName().isEmpty() && !row.lastName().isEmpty()) {
+            keys.add("N" + soundex(row.lastName()) + soundex(row.firstName()));
+        }
+        if (row.dateOfBirth() != null && !row.lastName().isEmpty()) {
+            keys.add("D" + row.dateOfBirth() + row.lastName().charAt(0));
+        }
+        if (!row.mobile().isEmpty()) {
+            keys.add("M" + row.mobile());
+        }
+        return keys.stream().mapToInt(DuplicateStudentMatcher::hash).distinct().toArray();
+    }
+
+    static Match score(StudentRow a, StudentRow b) {
+        StudentRow first = a.studentId() <= b.studentId() ? a : b;
+        StudentRow second = first == a ? b : a;
+        Set<Evidence> matchedOn = EnumSet.noneOf(Evidence.class);
+        double agreement = 0;
+        double weight = 0;
+
+        double name = Math.max(
+                0.4 * jaroWinkler(first.firstName(), second.firstName()) + 0.6 * jaroWinkler(first.lastName(), second.lastName()),
+                0.4 * jaroWinkler(first.firstName(), second.lastName()) + 0.6 * jaroWinkler(first.lastName(), second.firstName()));
+        agreement += NAME_WEIGHT * name;
+        weight += NAME_WEIGHT;
+        if (name >= SIMILAR) {
+            matchedOn.add(Evidence.NAME);
+        }
+        if (first.dateOfBirth() != null && second.dateOfBirth() != null) {
+            weight += DATE_OF_BIRTH_WEIGHT;
+            if (first.dateOfBirth().equals(second.dateOfBirth())) {
+                agreement += DATE_OF_BIRTH_WEIGHT;
+                matchedOn.add(Evidence.DATE_OF_BIRTH);
+            }
+        }
+        if (!first.mobile().isEmpty() && !second.mobile().isEmpty()) {
+            weight += MOBILE_WEIGHT;
+            if (first.mobile().equals(second.mobile())) {
+                agreement += MOBILE_WEIGHT;
+                matchedOn.add(Evidence.GUARDIAN_MOBILE);
+            }
+        }
+        if (!first.email().isEmpty() && !second.email().isEmpty()) {
+            double email = jaroWinkler(first.email(), second.email());
+            weight += EMAIL_WEIGHT;
+            agreement += EMAIL_WEIGHT * email;
+            if (email >= SIMILAR) {
+                matchedOn.add(Evidence.EMAIL);
+            }
+        }
+        return new Match(first.studentId(), second.studentId(), agreement / weight, matchedOn);
+    }
+
+    /**
+     * American Soundex: the first letter and up to three digits for the consonant groups that follow.
+     */
+    static String soundex(String folded) {
+        StringBuilder code = new StringBuilder(4);
+        char previous = 0;
+        for (int i = 0; i < folded.length() && code.length() < 4; i++) {
+            char c = folded.charAt(i);
+            if (c < 'a' || c > 'z') {
+                continue;
+            }
+            char digit = SOUNDEX_CODES.charAt(c - 'a');
+            if (code.isEmpty()) {
+                code.append(Character.toUpperCase(c));
+            } else if (digit != '0' && digit != previous) {
+                code.append(digit);
+            }
+            // H and W do not separate letters with the same code; vowels do
+            if (c != 'h' && c != 'w') {
+                previous = digit;
+            }
+        }
+        while (!code.isEmpty() && code.length() < 4) {
+            code.append('0');
+        }
+        return code.toString();
+    }
+
+    static double jaroWinkler(String a, String b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return a.equals(b) ? 1 : 0;
+        }
+        int window = Math.max(0, Math.max(a.length(), b.length()) / 2 - 1);
+        boolean[] aMatched = new boolean[a.length()];
+        boolean[] bMatched = new boolean[b.length()];
+        int matches = 0;
+        for (int i = 0; i < a.length(); i++) {
+            for (int j = Math.max(0, i - window); j < Math.min(b.length(), i + window + 1); j++) {
+                if (!bMatched[j] && a.charAt(i) == b.charAt(j)) {
+                    aMatched[i] = true;
+                    bMatched[j] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+        if (matches == 0) {
+            return 0;
+        }
+        int transpositions = 0;
+        for (int i = 0, j = 0; i < a.length(); i++) {
+            if (aMatched[i]) {
+                while (!bMatched[j]) {
+                    j++;
+                }
+                if (a.charAt(i) != b.charAt(j)) {
+                    transpositions++;
+                }
+                j++;
+            }
+        }
+        double m = matches;
+        double jaro = (m / a.length() + m / b.length() + (m - transpositions / 2.0) / m) / 3;
+        int prefix = 0;
+        while (prefix < Math.min(4, Math.min(a.length(), b.length())) && a.charAt(prefix) == b.charAt(prefix)) {
+            prefix++;
+        }
+        return jaro + prefix * 0.1 * (1 - jaro);
+    }
+
+    // Lower case letters only, without accents
+    static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String stripped = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return NON_LETTERS.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll("");
+    }
+
+    // The smallest key both students have, which names the one block their pair is compared in
+    private static int firstSharedKey(int[] keys, int[] otherKeys) {
+        int first = Integer.MAX_VALUE;
+        boolean found = false;
+        for (int key : keys) {
+            for (int otherKey : otherKeys) {
+                if (key == otherKey && (!found || Integer.compareUnsigned(key, first) < 0)) {
+                    first = key;
+                    found = true;
+                }
+            }
+        }
+        return first;
+    }
+
+    private static int hash(String key) {
+        // Spread the bits, since String hashes of similar keys differ in the low bits only
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.springdatajpa.service;
+
+import com.example.springdatajpa.dto.DuplicateDetectionRun;
+import com.example.springdatajpa.dto.DuplicateStudentPair;
+import com.example.springdatajpa.entity.DuplicateCandidate;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.repository.DuplicateCandidateRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The duplicate student detection job and its report.
+ *
+ * <p>A run reads the compared fields of every student, finds likely duplicate pairs with
+ * {@link DuplicateStudentMatcher} (blocked by phonetic name, date of birth and guardian mobile,
+ * compared in parallel) and replaces the pending pairs of the report with those scoring at
+ * least {@code app.duplicates.min-score}. Pairs already confirmed or dismissed are kept and not
+ * reported again. Runs go one at a time on a background thread; the last run's progress and
+ * outcome are kept in memory.
+ */
+@Service
+@Slf4j
+@Transactional(readOnly = true)
+public class DuplicateStudentService {
+
+    private static final int WRITE_BATCH_SIZE = 1000;
+
+    private record Pair(long studentId, long otherStudentId) {
+    }
+
+    private final StudentRepository studentRepository;
+    private final DuplicateCandidateRepository duplicateCandidateRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final DuplicateStudentMatcher matcher;
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "duplicate-detection");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicReference<DuplicateDetectionRun> lastRun = new AtomicReference<>(DuplicateDetectionRun.idle());
+
+    public DuplicateStudentService(StudentRepository studentRepository,
+                                   DuplicateCandidateRepository duplicateCandidateRepository,
+                                   EntityManager entityManager,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${app.duplicates.min-score:0.85}") double minScore,
+                                   @Value("${app.duplicates.max-block-size:1000}") int maxBlockSize,
+                                   @Value("${app.duplicates.parallelism:0}") int parallelism) {
+        this.studentRepository = studentRepository;
+        this.duplicateCandidateRepository = duplicateCandidateRepository;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.matcher = new DuplicateStudentMatcher(minScore, maxBlockSize,
+                parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    public DuplicateDetectionRun getLastRun() {
+        return lastRun.get();
+    }
+
+    /**
+     * Starts a run in the background.
+     *
+     * @throws IllegalStateException if a run is in progress
+     */
+    public DuplicateDetectionRun startDetection() {
+        DuplicateDetectionRun started = begin();
+        runner.execute(() -> run(started));
+        return started;
+    }
+
+    /**
+     * Runs detection on the calling thread and returns its outcome.
+     *
+     * @throws IllegalStateException if a run is in progress
+     */
+    DuplicateDetectionRun detect() {
+        run(begin());
+        return lastRun.get();
+    }
+
+    public Page<DuplicateStudentPair> getReport(DuplicateCandidate.Status status, Pageable pageable) {
+        return duplicateCandidateRepository.findReport(status, pageable).map(row ->
+                pair((DuplicateCandidate) row[0], (Student) row[1], (Student) row[2]));
+    }
+
+    /**
+     * Records the reviewer's decision on a pair.
+     *
+     * @throws IllegalArgumentException if there is no such pair or the status is not a decision
+     */
+    @Transactional
+    public DuplicateStudentPair review(Long candidateId, DuplicateCandidate.Status status) {
+        if (status == DuplicateCandidate.Status.PENDING) {
+            throw new IllegalArgumentException("A review must confirm or dismiss the pair");
+        }
+        DuplicateCandidate candidate = duplicateCandidateRepository.findById(candidateId)
+                .orElseThrow(() -> new IllegalArgumentException("Duplicate candidate not found: " + candidateId));
+        candidate.setStatus(status);
+        candidate.setReviewedAt(LocalDateTime.now());
+        Student student = studentRepository.findById(candidate.getStudentId())
+                .orElseThrow(() -> new IllegalArgumentException("Student not found: " + candidate.getStudentId()));
+        Student other = studentRepository.findById(candidate.getOtherStudentId())
+                .orElseThrow(() -> new IllegalArgumentException("Student not found: " + candidate.getOtherStudentId()));
+        return pair(candidate, student, other);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+
+    private DuplicateDetectionRun begin() {
+        DuplicateDetectionRun current = lastRun.get();
+        DuplicateDetectionRun started = DuplicateDetectionRun.running(LocalDateTime.now());
+        if (current.state() == DuplicateDetectionRun.State.RUNNING || !lastRun.compareAndSet(current, started)) {
+            throw new IllegalStateException("Duplicate detection is already running");
+        }
+        return started;
+    }
+
+    private void run(DuplicateDetectionRun started) {
+        try {
+            List<DuplicateStudentMatcher.StudentRow> rows = readOnlyTransaction.execute(status -> {
+                try (Stream<Object[]> students = studentRepository.streamDuplicateDetectionFields()) {
+                    return students.map(row -> DuplicateStudentMatcher.StudentRow.of((Long) row[0], (String) row[1],
+                            (String) row[2], (String) row[3], (LocalDate) row[4], (String) row[5])).toList();
+                }
+            });
+            Set<Pair> reviewed = new HashSet<>();
+            for (Object[] row : duplicateCandidateRepository.findPairsNotIn(DuplicateCandidate.Status.PENDING)) {
+                reviewed.add(new Pair((Long) row[0], (Long) row[1]));
+            }
+            DuplicateStudentMatcher.Result result = matcher.match(rows,
+                    (studentId, otherStudentId) -> reviewed.contains(new Pair(studentId, otherStudentId)));
+            writeReport(result.matches(), started.startedAt());
+            lastRun.set(new DuplicateDetectionRun(DuplicateDetectionRun.State.COMPLETED, started.startedAt(),
+                    LocalDateTime.now(), rows.size(), result.blocks(), result.oversizedBlocks(), result.comparisons(),
+                    result.matches().size(), null));
+            log.info("Duplicate detection compared {} pairs of {} students in {} blocks ({} too large) and found {} "
+                    + "candidates", result.comparisons(), rows.size(), result.blocks(), result.oversizedBlocks(),
+                    result.matches().size());
+        } catch (RuntimeException e) {
+            lastRun.set(started.failed(e.getMessage()));
+            log.warn("Duplicate detection failed: {}", e.getMessage());
+        }
+    }
+
+    // Replaces the pending pairs in one transaction, so the report is never seen half written
+    private void writeReport(List<DuplicateStudentMatcher.Match> matches, LocalDateTime detectedAt) {
+        writeTransaction.executeWithoutResult(status -> {
+            duplicateCandidateRepository.deleteByStatus(DuplicateCandidate.Status.PENDING);
+            List<DuplicateCandidate> batch = new ArrayList<>(WRITE_BATCH_SIZE);
+            for (DuplicateStudentMatcher.Match match : matches) {
+                batch.add(DuplicateCandidate.builder()
+                        .studentId(match.studentId())
+                        .otherStudentId(match.otherStudentId())
+                        .score(match.score())
+                        .matchedOn(match.matchedOn().stream().map(Enum::name).collect(Collectors.joining(",")))
+                        .detectedAt(detectedAt)
+                        .build());
+                if (batch.size() == WRITE_BATCH_SIZE) {
+                    flush(batch);
+                }
+            }
+            flush(batch);
+        });
+    }
+
+    private void flush(List<DuplicateCandidate> batch) {
+        duplicateCandidateRepository.saveAll(batch);
+        duplicateCandidateRepository.flush();
+        entityManager.clear();
+        batch.clear();
+    }
+
+    private static DuplicateStudentPair pair(DuplicateCandidate candidate, Student student, Student other) {
+        return new DuplicateStudentPair(candidate.getCandidateId(), candidate.getScore(), candidate.getMatchedOn(),
+                candidate.getStatus(), details(student), details(other));
+    }
+
+    private static DuplicateStudentPair.StudentDetails details(Student student) {
+        return new DuplicateStudentPair.StudentDetails(student.getStudentId(), student.getStudentIdNumber(),
+                student.getFirstName(), student.getLastName(), student.getEmailId(), student.getDateOfBirth(),
+                student.getGuardian() == null ? null : student.getGuardian().getMobile());
+    }
+}
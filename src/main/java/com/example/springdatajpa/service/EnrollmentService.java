@@ -1,5 +1,14 @@
 package com.example.springdatajpa.service;
 
+import com.example.springdatajpa.cache.CourseRosterKey;
+import com.example.springdatajpa.cache.EnrollmentBitmapIndex;
+import com.example.springdatajpa.cache.EnrollmentCube;
+import com.example.springdatajpa.cache.GradeDistributions;
+import com.example.springdatajpa.config.CacheConfig;
+import com.example.springdatajpa.dto.AcademicYearStatistics;
+import com.example.springdatajpa.dto.CourseRosterEntry;
+import com.example.springdatajpa.dto.EnrollmentCubeCell;
+import com.example.springdatajpa.dto.GradeDistribution;
 import com.example.springdatajpa.entity.Course;
 import com.example.springdatajpa.entity.Enrollment;
 import com.example.springdatajpa.entity.Student;
@@ -7,13 +16,16 @@ import com.example.springdatajpa.repository.CourseRepository;
 import com.example.springdatajpa.repository.EnrollmentRepository;
 import com.example.springdatajpa.repository.StudentRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,9 +37,15 @@ public class EnrollmentService {
     private final EnrollmentRepository enrollmentRepository;
     private final StudentRepository studentRepository;
     private final CourseRepository courseRepository;
+    private final CacheManager cacheManager;
+    private final AcademicYearService academicYearService;
+    private final EnrollmentBitmapIndex enrollmentBitmapIndex;
+    private final EnrollmentCube enrollmentCube;
+    private final GradeDistributions gradeDistributions;
 
     @Transactional
     public Enrollment createEnrollment(Enrollment enrollment) {
+        academicYearService.requireOpen(enrollment.getAcademicYear());
         if (enrollment.getEnrollmentDate() == null) {
             enrollment.setEnrollmentDate(LocalDate.now());
         }
@@ -43,6 +61,7 @@ public class EnrollmentService {
                 .orElseThrow(() -> new RuntimeException("Student not found with id: " + studentId));
         Course course = courseRepository.findById(courseId)
                 .orElseThrow(() -> new RuntimeException("Course not found with id: " + courseId));
+        academicYearService.requireOpen(academicYear);
 
         // Check if enrollment already exists
         Optional<Enrollment> existingEnrollment = enrollmentRepository
@@ -110,9 +129,10 @@ public class EnrollmentService {
 
     @Transactional
     public Enrollment updateEnrollment(Enrollment enrollment) {
-        if (!enrollmentRepository.existsById(enrollment.getEnrollmentId())) {
-            throw new RuntimeException("Enrollment not found with id: " + enrollment.getEnrollmentId());
-        }
+        Enrollment existing = enrollmentRepository.findById(enrollment.getEnrollmentId())
+                .orElseThrow(() -> new RuntimeException("Enrollment not found with id: " + enrollment.getEnrollmentId()));
+        academicYearService.requireOpen(existing.getAcademicYear());
+        academicYearService.requireOpen(enrollment.getAcademicYear());
         return enrollmentRepository.save(enrollment);
     }
 
@@ -120,6 +140,7 @@ public class EnrollmentService {
     public Enrollment updateEnrollmentStatus(Long enrollmentId, Enrollment.EnrollmentStatus status) {
         Enrollment enrollment = enrollmentRepository.findById(enrollmentId)
                 .orElseThrow(() -> new RuntimeException("Enrollment not found with id: " + enrollmentId));
+        academicYearService.requireOpen(enrollment.getAcademicYear());
         enrollment.setEnrollmentStatus(status);
         return enrollmentRepository.save(enrollment);
     }
@@ -128,6 +149,7 @@ public class EnrollmentService {
     public Enrollment updateGrade(Long enrollmentId, String grade, BigDecimal gradePoints) {
         Enrollment enrollment = enrollmentRepository.findById(enrollmentId)
                 .orElseThrow(() -> new RuntimeException("Enrollment not found with id: " + enrollmentId));
+        academicYearService.requireOpen(enrollment.getAcademicYear());
         enrollment.setGrade(grade);
         enrollment.setGradePoints(gradePoints);
         if (gradePoints.compareTo(BigDecimal.ZERO) > 0) {
@@ -140,22 +162,24 @@ public class EnrollmentService {
     public Enrollment updateAttendance(Long enrollmentId, BigDecimal attendancePercentage) {
         Enrollment enrollment = enrollmentRepository.findById(enrollmentId)
                 .orElseThrow(() -> new RuntimeException("Enrollment not found with id: " + enrollmentId));
+        academicYearService.requireOpen(enrollment.getAcademicYear());
         enrollment.setAttendancePercentage(attendancePercentage);
         return enrollmentRepository.save(enrollment);
     }
 
     @Transactional
     public void deleteEnrollment(Long id) {
-        if (!enrollmentRepository.existsById(id)) {
-            throw new RuntimeException("Enrollment not found with id: " + id);
-        }
-        enrollmentRepository.deleteById(id);
+        Enrollment enrollment = enrollmentRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Enrollment not found with id: " + id));
+        academicYearService.requireOpen(enrollment.getAcademicYear());
+        enrollmentRepository.delete(enrollment);
     }
 
     @Transactional
     public Enrollment dropEnrollment(Long enrollmentId) {
         Enrollment enrollment = enrollmentRepository.findById(enrollmentId)
                 .orElseThrow(() -> new RuntimeException("Enrollment not found with id: " + enrollmentId));
+        academicYearService.requireOpen(enrollment.getAcademicYear());
         enrollment.setEnrollmentStatus(Enrollment.EnrollmentStatus.DROPPED);
         return enrollmentRepository.save(enrollment);
     }
@@ -176,16 +200,17 @@ public class EnrollmentService {
         return enrollmentRepository.calculateStudentGPA(studentId);
     }
 
-    public List<EnrollmentRepository.CourseEnrollmentStats> getCourseStatistics(Integer academicYear) {
-        return enrollmentRepository.getCourseEnrollmentStatistics(academicYear);
+    // Served from the frozen snapshot once the year is closed (see AcademicYearService)
+    public List<AcademicYearStatistics.CourseStatistics> getCourseStatistics(Integer academicYear) {
+        return academicYearService.getCourseStatistics(academicYear);
     }
 
-    public List<EnrollmentRepository.StudentEnrollmentSummary> getTopStudentsByGrade(Integer academicYear) {
-        return enrollmentRepository.getStudentPerformanceSummary(academicYear);
+    public List<AcademicYearStatistics.StudentPerformance> getTopStudentsByGrade(Integer academicYear) {
+        return academicYearService.getStudentPerformance(academicYear);
     }
 
-    public List<Object[]> getTopEnrolledStudents(Integer academicYear, int limit) {
-        return enrollmentRepository.findMostActiveStudentsByYear(academicYear, limit);
+    public List<AcademicYearStatistics.StudentActivity> getTopEnrolledStudents(Integer academicYear, int limit) {
+        return academicYearService.getMostActiveStudents(academicYear, limit);
     }
 
     public List<Enrollment> searchEnrollments(Long studentId, Long courseId, String semester, 
@@ -210,11 +235,15 @@ public class EnrollmentService {
     }
 
     public List<Student> getStudentsInCourse(Long courseId, String semester) {
-        return enrollmentRepository.findByCourseAndAcademicYear(courseId, null) // Using null for now, can be improved
-                .stream()
-                .filter(e -> semester.equals(e.getSemester()))
-                .map(Enrollment::getStudent)
-                .toList();
+        return enrollmentRepository.findStudentsByCourseAndSemester(courseId, semester);
+    }
+
+    // Cached until an enrollment of the course changes (see CourseRosterCacheInvalidator)
+    public Page<CourseRosterEntry> getCourseRoster(Long courseId, String semester, Integer academicYear, Pageable pageable) {
+        CourseRosterKey key = new CourseRosterKey(courseId, semester, academicYear,
+                pageable.getPageNumber(), pageable.getPageSize());
+        return cacheManager.getCache(CacheConfig.COURSE_ROSTER).get(key, () -> enrollmentRepository.findCourseRoster(
+                courseId, semester, academicYear, PageRequest.of(pageable.getPageNumber(), pageable.getPageSize())));
     }
 
     public List<Course> getCoursesForStudent(Long studentId, String semester) {
@@ -223,4 +252,63 @@ public class EnrollmentService {
                 .map(Enrollment::getCourse)
                 .toList();
     }
-}
\ No newline at end of file
+
+    public boolean isStudentSetQueryAvailable() {
+        return enrollmentBitmapIndex.isLoaded();
+    }
+
+    /**
+     * The students an expression over course, department and status memberships selects, such as
+     * {@code (course:CS101 OR course:CS102) AND NOT status:DROPPED}; see {@link EnrollmentBitmapIndex}.
+     *
+     * @throws IllegalArgumentException if the expression is malformed or names an unknown course or department
+     */
+    public Page<Long> findStudentIdsInSet(String expression, Integer academicYear, String semester, Pageable pageable) {
+        return enrollmentBitmapIndex.findStudentIds(expression, academicYear, semester, pageable);
+    }
+
+    public long countStudentsInSet(String expression, Integer academicYear, String semester) {
+        return enrollmentBitmapIndex.count(expression, academicYear, semester);
+    }
+
+    public boolean isEnrollmentCubeAvailable() {
+        return enrollmentCube.isLoaded();
+    }
+
+    /**
+     * Enrollment counts, average grade points and pass rates in a slice of the enrollments, per
+     * combination of the grouped dimensions; see {@link EnrollmentCube}.
+     *
+     * @throws IllegalArgumentException if the slice names an unknown department code
+     */
+    public List<EnrollmentCubeCell> queryEnrollmentCube(Collection<EnrollmentCube.Dimension> groupBy,
+                                                        EnrollmentCube.Slice slice) {
+        return enrollmentCube.query(groupBy, slice);
+    }
+
+    public boolean isGradeDistributionAvailable() {
+        return gradeDistributions.isLoaded();
+    }
+
+    /**
+     * Quantiles of grade points or attendance of a course's term (given a course and semester),
+     * of a department's academic year (given a department) or of the whole academic year.
+     *
+     * @throws IllegalArgumentException if both a course and a department, or only one of course
+     *                                  and semester, are given, or a quantile is not between 0 and 1
+     */
+    public GradeDistribution getGradeDistribution(Integer academicYear, Long courseId, String semester,
+                                                  Long departmentId, GradeDistribution.Metric metric,
+                                                  List<Double> quantiles) {
+        if ((courseId == null) != (semester == null) || (courseId != null && departmentId != null)) {
+            throw new IllegalArgumentException("Give a course with a semester, a department or neither");
+        }
+        if (courseId != null) {
+            return gradeDistributions.courseTerm(courseId, academicYear, semester, metric, quantiles);
+        }
+        if (departmentId != null) {
+            return gradeDistributions.departmentYear(departmentId, academicYear, metric, quantiles);
+        }
+        return gradeDistributions.year(academicYear, metric, quantiles);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.springdatajpa.service;
+
+import com.example.springdatajpa.cache.AutocompleteIndex;
+import com.example.springdatajpa.cache.SearchIndex;
+import com.example.springdatajpa.dto.SearchHit;
+import com.example.springdatajpa.dto.Suggestion;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Ranked full-text search across courses, departments and students, answered from the
+ * in-memory {@link SearchIndex} without touching the database.
+ *
+ * <p>Every word of the query must match a whole word of the document, except the last, which
+ * also matches as a prefix ("computer sci" finds "Computer Science"). Accents and case are ignored.
+ * Autocompletion of student names and course titles and codes is answered from the
+ * {@link AutocompleteIndex}.
+ */
+@Service
+@RequiredArgsConstructor
+public class SearchService {
+
+    private final SearchIndex searchIndex;
+    private final AutocompleteIndex autocompleteIndex;
+
+    public boolean isAvailable() {
+        return searchIndex.isLoaded();
+    }
+
+    public boolean isAutocompleteAvailable() {
+        return autocompleteIndex.isLoaded();
+    }
+
+    public int maxSuggestions() {
+        return autocompleteIndex.maxSuggestions();
+    }
+
+    /**
+     * @param types the document types to search; all of them when empty
+     */
+    public Page<SearchHit> search(String query, Set<SearchHit.Type> types, Pageable pageable) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query must not be blank");
+        }
+        return searchIndex.search(query, types == null || types.isEmpty() ? EnumSet.allOf(SearchHit.Type.class) : types,
+                pageable);
+    }
+
+    /**
+     * Suggestions whose name has a word starting with the prefix, ranked by weight: active
+     * students and the courses with most enrollments first.
+     *
+     * @param types {@link SearchHit.Type#STUDENT} and/or {@link SearchHit.Type#COURSE}; both when empty
+     */
+    public List<Suggestion> autocomplete(String prefix, Set<SearchHit.Type> types, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new IllegalArgumentException("Autocomplete prefix must not be blank");
+        }
+        if (limit < 1 || limit > maxSuggestions()) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + maxSuggestions());
+        }
+        return autocompleteIndex.complete(prefix, types == null || types.isEmpty()
+                ? EnumSet.of(SearchHit.Type.STUDENT, SearchHit.Type.COURSE) : types, limit);
+    }
+}
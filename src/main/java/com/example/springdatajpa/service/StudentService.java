@@ -1,12 +1,28 @@
 package com.example.springdatajpa.service;
 
+import com.example.springdatajpa.cache.FuzzyStudentIndex;
+import com.example.springdatajpa.cache.SearchKey;
+import com.example.springdatajpa.cache.SearchResultCache;
+import com.example.springdatajpa.cache.SingleFlight;
+import com.example.springdatajpa.cache.StudentSummaryStore;
+import com.example.springdatajpa.cache.UniqueKeyFilters;
+import com.example.springdatajpa.config.CacheConfig;
+import com.example.springdatajpa.dto.StudentNameMatch;
+import com.example.springdatajpa.dto.StudentSummaryRecord;
+import com.example.springdatajpa.dto.VersionStamp;
 import com.example.springdatajpa.entity.Student;
 import com.example.springdatajpa.entity.Course;
 import com.example.springdatajpa.entity.Enrollment;
+import com.example.springdatajpa.entity.SearchTrigram;
+import com.example.springdatajpa.event.EntityChangedEvent;
 import com.example.springdatajpa.repository.StudentRepository;
 import com.example.springdatajpa.repository.CourseRepository;
 import com.example.springdatajpa.repository.EnrollmentRepository;
+import com.example.springdatajpa.repository.TrigramIndex;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -16,7 +32,11 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -27,6 +47,13 @@ public class StudentService {
     private final StudentRepository studentRepository;
     private final CourseRepository courseRepository;
     private final EnrollmentRepository enrollmentRepository;
+    private final CacheManager cacheManager;
+    private final SearchResultCache searchResultCache;
+    private final StudentSummaryStore studentSummaryStore;
+    private final UniqueKeyFilters uniqueKeyFilters;
+    private final TrigramIndex trigramIndex;
+    private final FuzzyStudentIndex fuzzyStudentIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     // Read operations (no transaction needed)
     public List<Student> getAllStudents() {
@@ -41,6 +68,24 @@ public class StudentService {
         return studentRepository.findById(id);
     }
 
+    // Counts and auditing timestamps behind a student's representation, without loading it
+    public VersionStamp getStudentVersion(Long id) {
+        return studentRepository.findVersionStamp(id);
+    }
+
+    // Active students only; answered by the off-heap summary store once it has loaded
+    public Optional<StudentSummaryRecord> getStudentSummary(Long id) {
+        if (studentSummaryStore.isLoaded()) {
+            return studentSummaryStore.get(id);
+        }
+        return studentRepository.findActiveStudentSummaryRecords(List.of(id)).stream().findFirst();
+    }
+
+    // Student number -> id through the resolution cache, then a PK fetch
+    public Optional<Student> getStudentByStudentIdNumber(String studentIdNumber) {
+        return resolveStudentIdNumber(studentIdNumber).flatMap(studentRepository::findById);
+    }
+
     public Page<Student> getActiveStudents(Pageable pageable) {
         return studentRepository.findByStudentStatusAndIsActive(
                 Student.StudentStatus.ACTIVE, true, pageable);
@@ -48,22 +93,61 @@ public class StudentService {
 
     public List<Student> searchStudents(String firstName, String lastName, String email,
                                       Student.StudentStatus status, BigDecimal minGpa, BigDecimal maxGpa) {
-        return studentRepository.searchStudents(firstName, lastName, email, status, minGpa, maxGpa);
+        SearchKey key = SearchKey.of("students", Student.class, SearchKey.ignoreCase(firstName),
+                SearchKey.ignoreCase(lastName), SearchKey.ignoreCase(email), status, minGpa, maxGpa);
+        List<Long> ids = searchResultCache.getIds(key,
+                () -> searchStudentIds(firstName, lastName, email, status, minGpa, maxGpa));
+        return SearchResultCache.inIdOrder(ids, studentRepository.findAllById(ids), Student::getStudentId);
+    }
+
+    public boolean isFuzzyLookupAvailable() {
+        return fuzzyStudentIndex.isLoaded();
+    }
+
+    /**
+     * Students whose first, last or full name is within {@code distance} edits of the name, closest
+     * first; without a distance, short names must match exactly and longer ones allow one or two edits.
+     */
+    public List<StudentNameMatch> findStudentsByFuzzyName(String name, Integer distance, int limit) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Name must not be blank");
+        }
+        if (distance != null && (distance < 0 || distance > fuzzyStudentIndex.maxDistance())) {
+            throw new IllegalArgumentException("Distance must be between 0 and " + fuzzyStudentIndex.maxDistance());
+        }
+        return fuzzyStudentIndex.find(name, distance != null ? distance : fuzzyStudentIndex.defaultDistance(name), limit);
+    }
+
+    // The name and email patterns are looked up in the trigram index first, when it can serve them
+    private List<Long> searchStudentIds(String firstName, String lastName, String email,
+                                        Student.StudentStatus status, BigDecimal minGpa, BigDecimal maxGpa) {
+        Map<SearchTrigram.Source, String> patterns = new EnumMap<>(SearchTrigram.Source.class);
+        patterns.put(SearchTrigram.Source.STUDENT_FIRST_NAME, firstName);
+        patterns.put(SearchTrigram.Source.STUDENT_LAST_NAME, lastName);
+        patterns.put(SearchTrigram.Source.STUDENT_EMAIL, email);
+        return trigramIndex.candidatesForAll(patterns)
+                .map(candidates -> candidates.isEmpty() ? List.<Long>of() : studentRepository.searchStudentIdsAmong(
+                        candidates, firstName, lastName, email, status, minGpa, maxGpa))
+                .orElseGet(() -> studentRepository.searchStudentIds(firstName, lastName, email, status, minGpa, maxGpa));
     }
 
     // Write operations with transactions
     @Transactional
     public Student createStudent(Student student) {
-        // Validate unique constraints
-        if (studentRepository.findByEmailId(student.getEmailId()).size() > 0) {
+        // Validate unique constraints; the key filters skip the query for keys that are certainly new
+        if (uniqueKeyFilters.exists(UniqueKeyFilters.Key.STUDENT_EMAIL, student.getEmailId(),
+                studentRepository::existsByEmailId)) {
             throw new IllegalArgumentException("Email already exists: " + student.getEmailId());
         }
         
-        if (student.getStudentIdNumber() != null && 
-            studentRepository.findByStudentIdNumber(student.getStudentIdNumber()).isPresent()) {
+        if (student.getStudentIdNumber() != null &&
+            uniqueKeyFilters.exists(UniqueKeyFilters.Key.STUDENT_NUMBER, student.getStudentIdNumber(),
+                    studentIdNumber -> resolveStudentIdNumber(studentIdNumber).isPresent())) {
             throw new IllegalArgumentException("Student ID number already exists: " + student.getStudentIdNumber());
         }
 
+        uniqueKeyFilters.add(UniqueKeyFilters.Key.STUDENT_EMAIL, student.getEmailId());
+        uniqueKeyFilters.add(UniqueKeyFilters.Key.STUDENT_NUMBER, student.getStudentIdNumber());
         return studentRepository.save(student);
     }
 
@@ -141,6 +225,9 @@ public class StudentService {
         if (newGPA != null) {
             BigDecimal gpaToUpdate = BigDecimal.valueOf(newGPA);
             studentRepository.updateStudentGpa(studentId, gpaToUpdate);
+            // The bulk update bypasses entity listeners
+            eventPublisher.publishEvent(new EntityChangedEvent(
+                    Student.class, enrollment.getStudent(), EntityChangedEvent.ChangeType.UPDATED));
         }
     }
 
@@ -149,10 +236,12 @@ public class StudentService {
     public List<Student> createStudentsBatch(List<Student> students) {
         // Validate all students before saving any
         for (Student student : students) {
-            if (studentRepository.findByEmailId(student.getEmailId()).size() > 0) {
+            if (uniqueKeyFilters.exists(UniqueKeyFilters.Key.STUDENT_EMAIL, student.getEmailId(),
+                    studentRepository::existsByEmailId)) {
                 throw new IllegalArgumentException("Email already exists: " + student.getEmailId());
             }
         }
+        students.forEach(student -> uniqueKeyFilters.add(UniqueKeyFilters.Key.STUDENT_EMAIL, student.getEmailId()));
 
         return studentRepository.saveAll(students);
     }
@@ -187,12 +276,31 @@ public class StudentService {
         }
     }
 
-    // Read-only transaction with specific isolation level
+    // Read-only transaction with specific isolation level; concurrent callers share one query
+    @SingleFlight("student-enrollment-stats")
     @Transactional(readOnly = true, isolation = Isolation.READ_UNCOMMITTED)
     public List<StudentRepository.StudentWithEnrollmentCount> getStudentEnrollmentStatistics() {
         return studentRepository.getStudentsWithEnrollmentCount();
     }
 
+    // Full-table statistics; concurrent callers share one computation, so the map is read-only
+    @SingleFlight("student-stats")
+    public Map<String, Object> getStudentStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+
+        List<Student> allStudents = studentRepository.findAll();
+        stats.put("totalStudents", allStudents.size());
+
+        long activeStudents = allStudents.stream()
+                .filter(s -> s.getIsActive() != null && s.getIsActive())
+                .count();
+        stats.put("activeStudents", activeStudents);
+        stats.put("inactiveStudents", allStudents.size() - activeStudents);
+        stats.put("enrollmentStatistics", studentRepository.getStudentsWithEnrollmentCount());
+
+        return Collections.unmodifiableMap(stats);
+    }
+
     // Transaction with timeout
     @Transactional(timeout = 30) // 30 seconds timeout
     public void performBulkGradeUpdate(String semester, Integer academicYear) {
@@ -210,6 +318,20 @@ public class StudentService {
     }
 
     // Helper methods
+    // Unknown numbers are not cached, so a student created later is found immediately
+    private Optional<Long> resolveStudentIdNumber(String studentIdNumber) {
+        Cache cache = cacheManager.getCache(CacheConfig.STUDENT_NUMBER_IDS);
+        Long studentId = cache.get(studentIdNumber, Long.class);
+        if (studentId == null) {
+            studentId = studentRepository.findStudentIdByStudentIdNumber(studentIdNumber).orElse(null);
+            if (studentId != null) {
+                cache.put(studentIdNumber, studentId);
+                cacheManager.getCache(CacheConfig.STUDENT_ID_NUMBERS).put(studentId, studentIdNumber);
+            }
+        }
+        return Optional.ofNullable(studentId);
+    }
+
     private BigDecimal calculateGradeBasedOnAttendance(Enrollment enrollment) {
         BigDecimal attendance = enrollment.getAttendancePercentage();
         if (attendance == null) return BigDecimal.valueOf(2.0); // Default C grade
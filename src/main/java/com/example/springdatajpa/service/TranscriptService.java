@@ -0,0 +1,137 @@
+package com.example.springdatajpa.service;
+
+import com.example.springdatajpa.cache.ClosedTranscriptTerms;
+import com.example.springdatajpa.config.CacheConfig;
+import com.example.springdatajpa.dto.StudentTranscript;
+import com.example.springdatajpa.dto.TranscriptLine;
+import com.example.springdatajpa.dto.TranscriptTerm;
+import com.example.springdatajpa.repository.EnrollmentRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds student transcripts from a single enrollment/course/department join.
+ *
+ * <p>The closed prefix of a transcript (all terms of the academic years in which every term is
+ * closed) is cached per student; only the years after it are read from the database, and a
+ * transcript with no open term is served from the cache alone. See {@link TranscriptTerm} for
+ * when a term is closed and {@code TranscriptCacheInvalidator} for eviction.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class TranscriptService {
+
+    private static final int GPA_SCALE = 2;
+
+    private final EnrollmentRepository enrollmentRepository;
+    private final StudentRepository studentRepository;
+    private final CacheManager cacheManager;
+
+    public StudentTranscript getTranscript(Long studentId) {
+        Cache cache = cacheManager.getCache(CacheConfig.TRANSCRIPT_CLOSED_TERMS);
+        ClosedTranscriptTerms closed = cache.get(studentId, ClosedTranscriptTerms.class);
+        if (closed != null && closed.complete()) {
+            return toTranscript(studentId, closed.terms());
+        }
+
+        int fromYear = closed != null ? closed.closedThroughYear() + 1 : Integer.MIN_VALUE;
+        List<TranscriptLine> lines = enrollmentRepository.findTranscriptLines(studentId, fromYear);
+        if (lines.isEmpty() && closed == null && !studentRepository.existsById(studentId)) {
+            throw new IllegalArgumentException("Student not found with id: " + studentId);
+        }
+        List<TranscriptTerm> loadedTerms = toTerms(lines);
+
+        if (closed == null) {
+            closed = closedPrefix(loadedTerms);
+            if (!closed.terms().isEmpty()) {
+                cache.put(studentId, closed);
+            }
+            return toTranscript(studentId, loadedTerms);
+        }
+        List<TranscriptTerm> terms = new ArrayList<>(closed.terms());
+        terms.addAll(loadedTerms);
+        return toTranscript(studentId, terms);
+    }
+
+    private static List<TranscriptTerm> toTerms(List<TranscriptLine> lines) {
+        Map<String, List<TranscriptLine>> linesByTerm = new LinkedHashMap<>();
+        for (TranscriptLine line : lines) {
+            linesByTerm.computeIfAbsent(line.academicYear() + "|" + line.semester(), key -> new ArrayList<>()).add(line);
+        }
+        List<TranscriptTerm> terms = new ArrayList<>(linesByTerm.size());
+        for (List<TranscriptLine> termLines : linesByTerm.values()) {
+            TranscriptLine first = termLines.get(0);
+            terms.add(new TranscriptTerm(first.semester(), first.academicYear(), isClosed(termLines),
+                    gradedCreditHours(termLines), gpa(termLines), List.copyOf(termLines)));
+        }
+        return terms;
+    }
+
+    // Terms come in academic-year order, so the closed prefix ends before the first year with an open term
+    private static ClosedTranscriptTerms closedPrefix(List<TranscriptTerm> terms) {
+        List<TranscriptTerm> closedTerms = new ArrayList<>();
+        int closedThroughYear = Integer.MIN_VALUE;
+        int index = 0;
+        while (index < terms.size()) {
+            int year = terms.get(index).academicYear();
+            int end = index;
+            boolean yearClosed = true;
+            while (end < terms.size() && terms.get(end).academicYear() == year) {
+                yearClosed &= terms.get(end).closed();
+                end++;
+            }
+            if (!yearClosed) {
+                break;
+            }
+            closedTerms.addAll(terms.subList(index, end));
+            closedThroughYear = year;
+            index = end;
+        }
+        return new ClosedTranscriptTerms(List.copyOf(closedTerms), closedThroughYear, index == terms.size());
+    }
+
+    private static StudentTranscript toTranscript(Long studentId, List<TranscriptTerm> terms) {
+        List<TranscriptLine> allLines = terms.stream().flatMap(term -> term.courses().stream()).toList();
+        return new StudentTranscript(studentId, terms, gradedCreditHours(allLines), gpa(allLines));
+    }
+
+    private static boolean isClosed(List<TranscriptLine> lines) {
+        return lines.stream().allMatch(line -> line.enrollmentStatus() != null && switch (line.enrollmentStatus()) {
+            case ACTIVE -> false;
+            case COMPLETED, FAILED -> line.gradePoints() != null;
+            case DROPPED, WITHDRAWN -> true;
+        });
+    }
+
+    private static BigDecimal gradedCreditHours(List<TranscriptLine> lines) {
+        return lines.stream()
+                .filter(TranscriptLine::isGraded)
+                .map(TranscriptLine::creditHours)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    // Credit-weighted: sum(grade points x credit hours) / sum(credit hours) over graded courses
+    private static BigDecimal gpa(List<TranscriptLine> lines) {
+        BigDecimal credits = gradedCreditHours(lines);
+        if (credits.signum() == 0) {
+            return null;
+        }
+        BigDecimal qualityPoints = lines.stream()
+                .filter(TranscriptLine::isGraded)
+                .map(line -> line.gradePoints().multiply(line.creditHours()))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return qualityPoints.divide(credits, GPA_SCALE, RoundingMode.HALF_UP);
+    }
+}
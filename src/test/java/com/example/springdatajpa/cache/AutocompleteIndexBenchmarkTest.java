@@ -0,0 +1,71 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.dto.SearchHit;
+import com.example.springdatajpa.dto.Suggestion;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lookup latency of the autocomplete prefix tree. Not part of the regular build; run with
+ * {@code mvn test -Dtest=AutocompleteIndexBenchmarkTest -Dbenchmark=true [-Dbenchmark.names=1000000]}.
+ *
+ * <p>It indexes random two-word names under both word orders, then reports the build time, the
+ * node count and the median and 99th percentile latency of lookups for prefixes of one to five
+ * characters, the short ones matching hundreds of thousands of names.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Autocomplete Index Benchmark")
+class AutocompleteIndexBenchmarkTest {
+
+    private static final int NAMES = Integer.getInteger("benchmark.names", 1_000_000);
+    private static final int LOOKUPS = 200_000;
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+    @Test
+    @DisplayName("Top-10 lookups by prefix length")
+    void lookupLatency() {
+        Random random = new Random(42);
+        PrefixIndex index = new PrefixIndex(10);
+        long start = System.nanoTime();
+        for (long id = 1; id <= NAMES; id++) {
+            String first = word(random);
+            String last = word(random);
+            index.put(new Suggestion(SearchHit.Type.STUDENT, id, first + " " + last, random.nextInt(2)),
+                    PrefixIndex.keys(first + " " + last, last + " " + first));
+        }
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("%n%,d names indexed in %,d ms, %,d nodes%n", NAMES, buildMillis, index.nodes());
+        System.out.printf("%-8s %12s %12s%n", "prefix", "p50 us", "p99 us");
+        for (int length = 1; length <= 5; length++) {
+            long[] nanos = new long[LOOKUPS];
+            int found = 0;
+            for (int i = 0; i < LOOKUPS; i++) {
+                String prefix = word(random).substring(0, length);
+                long lookupStart = System.nanoTime();
+                found += index.complete(prefix, 10).size();
+                nanos[i] = System.nanoTime() - lookupStart;
+            }
+            Arrays.sort(nanos);
+            long p99 = nanos[LOOKUPS * 99 / 100];
+            System.out.printf("%-8d %12.1f %12.1f%n", length, nanos[LOOKUPS / 2] / 1000.0, p99 / 1000.0);
+            assertTrue(found > 0);
+            assertTrue(p99 < 1_000_000, "p99 under 1 ms");
+        }
+    }
+
+    // Five to nine letters, so five-letter prefixes still match several names
+    private static String word(Random random) {
+        char[] chars = new char[5 + random.nextInt(5)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = LETTERS.charAt(random.nextInt(i < 3 ? 8 : LETTERS.length()));
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.dto.SearchHit;
+import com.example.springdatajpa.dto.Suggestion;
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.entity.Department;
+import com.example.springdatajpa.entity.Enrollment;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.repository.CourseRepository;
+import com.example.springdatajpa.repository.DepartmentRepository;
+import com.example.springdatajpa.repository.EnrollmentRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Autocomplete Index Tests")
+class AutocompleteIndexTest {
+
+    private static final Set<SearchHit.Type> STUDENTS = EnumSet.of(SearchHit.Type.STUDENT);
+    private static final Set<SearchHit.Type> COURSES = EnumSet.of(SearchHit.Type.COURSE);
+
+    @Autowired
+    private AutocompleteIndex autocompleteIndex;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Course databases;
+    private Course dataStructures;
+    private Student adaActive;
+    private Student adamInactive;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        courseRepository.deleteAll();
+        studentRepository.deleteAll();
+        departmentRepository.deleteAll();
+
+        Department department = departmentRepository.save(Department.builder()
+                .departmentName("Computer Science")
+                .departmentCode("CS")
+                .departmentType(Department.DepartmentType.ENGINEERING)
+                .build());
+        databases = courseRepository.save(Course.builder()
+                .title("Databases")
+                .courseCode("CS310")
+                .creditHours(new BigDecimal("3.0"))
+                .courseLevel(Course.CourseLevel.INTERMEDIATE)
+                .department(department)
+                .build());
+        dataStructures = courseRepository.save(Course.builder()
+                .title("Data Structures")
+                .courseCode("CS201")
+                .creditHours(new BigDecimal("4.0"))
+                .courseLevel(Course.CourseLevel.INTERMEDIATE)
+                .department(department)
+                .build());
+        adamInactive = studentRepository.save(Student.builder()
+                .firstName("Adam")
+                .lastName("Smith")
+                .emailId("adam.smith@example.com")
+                .isActive(false)
+                .build());
+        adaActive = studentRepository.save(Student.builder()
+                .firstName("Ada")
+                .lastName("Lovelace")
+                .emailId("ada.lovelace@example.com")
+                .build());
+        enroll(adaActive, databases);
+        autocompleteIndex.reload();
+    }
+
+    @Test
+    @DisplayName("Suggestions match any word of the name and rank active students and popular courses first")
+    void ranksByWeight() {
+        // When
+        List<Suggestion> students = autocompleteIndex.complete("ad", STUDENTS, 10);
+        List<Suggestion> courses = autocompleteIndex.complete("data", COURSES, 10);
+
+        // Then
+        assertEquals(List.of(adaActive.getStudentId(), adamInactive.getStudentId()), ids(students));
+        assertEquals("Ada Lovelace", students.get(0).label());
+        assertEquals(List.of(databases.getCourseId(), dataStructures.getCourseId()), ids(courses));
+        assertEquals("Databases (CS310)", courses.get(0).label());
+        assertEquals(1.0, courses.get(0).weight());
+
+        assertEquals(List.of(adaActive.getStudentId()), ids(autocompleteIndex.complete("LOVE", STUDENTS, 10)));
+        assertEquals(List.of(adaActive.getStudentId()), ids(autocompleteIndex.complete("lovelace, a", STUDENTS, 10)));
+        assertEquals(List.of(dataStructures.getCourseId()), ids(autocompleteIndex.complete("struct", COURSES, 10)));
+        assertEquals(List.of(dataStructures.getCourseId()), ids(autocompleteIndex.complete("cs2", COURSES, 10)));
+        assertEquals(1, autocompleteIndex.complete("ad", STUDENTS, 1).size());
+        assertTrue(autocompleteIndex.complete("adx", STUDENTS, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Committed students, courses and enrollments update suggestions and weights")
+    void writeEventsKeepIndexCurrent() {
+        // When: two enrollments make Data Structures the more popular course
+        Student grace = studentRepository.save(Student.builder()
+                .firstName("Grace")
+                .lastName("Hopper")
+                .emailId("grace.hopper@example.com")
+                .build());
+        enroll(grace, dataStructures);
+        Enrollment second = enroll(adaActive, dataStructures);
+        adamInactive.setIsActive(true);
+        adamInactive.setFirstName("Adamo");
+        studentRepository.save(adamInactive);
+
+        // Then
+        assertEquals(List.of(grace.getStudentId()), ids(autocompleteIndex.complete("hop", STUDENTS, 10)));
+        assertEquals(List.of(dataStructures.getCourseId(), databases.getCourseId()),
+                ids(autocompleteIndex.complete("data", COURSES, 10)));
+        assertEquals("Adamo Smith", autocompleteIndex.complete("adamo", STUDENTS, 10).get(0).label());
+        assertEquals(1.0, autocompleteIndex.complete("adamo", STUDENTS, 10).get(0).weight());
+
+        // When
+        enrollmentRepository.delete(second);
+        studentRepository.deleteById(grace.getStudentId());
+        courseRepository.deleteById(databases.getCourseId());
+
+        // Then: deleting Grace also removed her enrollment
+        assertTrue(autocompleteIndex.complete("hop", STUDENTS, 10).isEmpty());
+        List<Suggestion> courses = autocompleteIndex.complete("data", COURSES, 10);
+        assertEquals(List.of(dataStructures.getCourseId()), ids(courses));
+        assertEquals(0.0, courses.get(0).weight());
+    }
+
+    @Test
+    @DisplayName("Random puts, reweights and removes match a brute-force scan")
+    void prefixIndexMatchesBruteForce() {
+        PrefixIndex index = new PrefixIndex(5);
+        Map<Long, Suggestion> model = new HashMap<>();
+        Map<Long, List<String>> modelKeys = new HashMap<>();
+        String[] words = {"an", "ana", "anna", "annabel", "ann", "bob", "bo", "bobby", "b", "annie", "anne", "bea"};
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20_000; i++) {
+            long id = 1 + random.nextInt(300);
+            int operation = random.nextInt(6);
+            if (operation == 0) {
+                index.remove(id);
+                model.remove(id);
+                modelKeys.remove(id);
+            } else if (operation == 1 && model.containsKey(id)) {
+                double weight = random.nextInt(10);
+                index.reweight(id, weight);
+                Suggestion current = model.get(id);
+                model.put(id, new Suggestion(current.type(), id, current.label(), weight));
+            } else {
+                String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+                Suggestion suggestion = new Suggestion(SearchHit.Type.STUDENT, id, name, random.nextInt(10));
+                List<String> keys = PrefixIndex.keys(name);
+                index.put(suggestion, keys);
+                model.put(id, suggestion);
+                modelKeys.put(id, keys);
+            }
+            if (i % 100 == 0) {
+                for (String prefix : List.of("a", "an", "ann", "anna", "annab", "b", "bo", "bob", "be", "x", "ann b")) {
+                    assertEquals(bruteForce(model, modelKeys, prefix, 5), index.complete(prefix, 5), prefix);
+                }
+            }
+        }
+        assertEquals(model.size(), index.size());
+        model.keySet().forEach(index::remove);
+        assertEquals(0, index.size());
+        assertEquals(1, index.nodes());
+    }
+
+    @Test
+    @DisplayName("The autocomplete endpoint merges both types and rejects blank prefixes and bad limits")
+    void autocompleteEndpoint() throws Exception {
+        mockMvc.perform(get("/api/search/autocomplete").param("q", "Da"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].type").value("COURSE"))
+                .andExpect(jsonPath("$[0].label").value("Databases (CS310)"));
+        mockMvc.perform(get("/api/search/autocomplete").param("q", "a").param("type", "STUDENT").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].label").value("Ada Lovelace"));
+        mockMvc.perform(get("/api/search/autocomplete").param("q", " "))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/search/autocomplete").param("q", "a").param("limit", "11"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/search/autocomplete").param("q", "a").param("type", "DEPARTMENT"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Enrollment enroll(Student student, Course course) {
+        return enrollmentRepository.save(Enrollment.builder()
+                .student(student)
+                .course(course)
+                .enrollmentDate(LocalDate.now())
+                .semester("Fall 2024")
+                .academicYear(2024)
+                .build());
+    }
+
+    private static List<Suggestion> bruteForce(Map<Long, Suggestion> model, Map<Long, List<String>> keys,
+                                               String prefix, int limit) {
+        List<Suggestion> matches = new ArrayList<>();
+        for (Suggestion suggestion : model.values()) {
+            if (keys.get(suggestion.id()).stream().anyMatch(key -> key.startsWith(prefix))) {
+                matches.add(suggestion);
+            }
+        }
+        matches.sort(PrefixIndex.RANKING);
+        return matches.subList(0, Math.min(limit, matches.size()));
+    }
+
+    private static List<Long> ids(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::id).toList();
+    }
+}
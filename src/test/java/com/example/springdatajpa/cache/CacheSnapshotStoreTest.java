@@ -0,0 +1,205 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.config.CacheConfig;
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.entity.Department;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.event.EntityChangedEvent;
+import com.example.springdatajpa.repository.CourseRepository;
+import com.example.springdatajpa.repository.DepartmentRepository;
+import com.example.springdatajpa.repository.EnrollmentRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import com.example.springdatajpa.service.CourseService;
+import com.example.springdatajpa.service.StudentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Cache Snapshot Store Tests")
+class CacheSnapshotStoreTest {
+
+    private static final List<String> ALL_SECTIONS = List.of("catalog-responses", "grade-distributions", "student-number-ids",
+            "student-summaries");
+
+    @TempDir
+    static Path snapshotDirectory;
+
+    @DynamicPropertySource
+    static void snapshotProperties(DynamicPropertyRegistry registry) {
+        registry.add("app.cache.snapshot.enabled", () -> "true");
+        registry.add("app.cache.snapshot.path", () -> snapshotDirectory.resolve("snapshot.bin").toString());
+        registry.add("app.cache.snapshot.interval", () -> "PT1H");
+    }
+
+    @Autowired
+    private CacheSnapshotStore snapshotStore;
+
+    @Autowired
+    private CatalogResponseCache catalogResponseCache;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private StudentSummaryStore studentSummaryStore;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Course course;
+    private Student student;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        courseRepository.deleteAll();
+        studentRepository.deleteAll();
+        departmentRepository.deleteAll();
+
+        Department department = departmentRepository.save(Department.builder()
+                .departmentName("Snapshot Department")
+                .departmentCode("SNP")
+                .departmentType(Department.DepartmentType.SCIENCE)
+                .build());
+        course = courseRepository.save(Course.builder()
+                .title("Snapshot Course")
+                .courseCode("SNP101")
+                .creditHours(new BigDecimal("3.0"))
+                .courseLevel(Course.CourseLevel.BEGINNER)
+                .department(department)
+                .build());
+        student = studentRepository.save(Student.builder()
+                .firstName("Snap")
+                .lastName("Shot")
+                .emailId("snap.shot@example.com")
+                .studentIdNumber("SNP-0001")
+                .build());
+    }
+
+    @Test
+    @DisplayName("Caches written to the snapshot are restored while their tables are unchanged")
+    void unchangedTablesAreRestored() throws Exception {
+        // Given
+        byte[] listing = catalogResponseCache.get(CatalogResponseCache.View.COURSES).json();
+        assertTrue(studentService.getStudentByStudentIdNumber("SNP-0001").isPresent());
+        snapshotStore.write();
+        dropCaches();
+
+        // When
+        List<String> restored = snapshotStore.restore();
+
+        // Then
+        assertEquals(ALL_SECTIONS, restored.stream().sorted().toList());
+        assertTrue(catalogResponseCache.isEncoded(CatalogResponseCache.View.COURSES));
+        assertFalse(catalogResponseCache.isEncoded(CatalogResponseCache.View.DEPARTMENTS));
+        assertArrayEquals(listing, catalogResponseCache.get(CatalogResponseCache.View.COURSES).json());
+        assertEquals(student.getStudentId(), studentNumberIds().get("SNP-0001", Long.class));
+        assertEquals("Shot", studentSummaryStore.get(student.getStudentId()).orElseThrow().lastName());
+    }
+
+    @Test
+    @DisplayName("Sections whose tables changed after the snapshot are discarded")
+    void changedTablesAreNotRestored() throws Exception {
+        // Given
+        catalogResponseCache.get(CatalogResponseCache.View.COURSES);
+        studentService.getStudentByStudentIdNumber("SNP-0001");
+        snapshotStore.write();
+        dropCaches();
+
+        // When
+        courseService.updateCourseTitle(course.getCourseId(), "Renamed Snapshot Course");
+        List<String> restored = snapshotStore.restore();
+
+        // Then
+        assertEquals(List.of("student-number-ids", "student-summaries"), restored.stream().sorted().toList());
+        assertFalse(catalogResponseCache.isEncoded(CatalogResponseCache.View.COURSES));
+    }
+
+    @Test
+    @DisplayName("Reconciliation replaces a restored listing the watermarks could not catch")
+    void reconciliationReplacesOutdatedListings() throws Exception {
+        // Given: a change made behind the application's back, which leaves the watermarks alone
+        catalogResponseCache.get(CatalogResponseCache.View.COURSES);
+        snapshotStore.write();
+        dropCaches();
+        jdbcTemplate.update("UPDATE tbl_course SET title = 'Out Of Band' WHERE course_id = ?", course.getCourseId());
+        assertEquals(ALL_SECTIONS, snapshotStore.restore().stream().sorted().toList());
+        assertFalse(json(CatalogResponseCache.View.COURSES).contains("Out Of Band"));
+
+        // When
+        catalogResponseCache.reconcileSnapshot();
+
+        // Then
+        assertTrue(json(CatalogResponseCache.View.COURSES).contains("Out Of Band"));
+    }
+
+    @Test
+    @DisplayName("A corrupt snapshot restores nothing and does not fail")
+    void corruptSnapshotIsIgnored() throws Exception {
+        // Given
+        catalogResponseCache.get(CatalogResponseCache.View.COURSES);
+        snapshotStore.write();
+        Path file = snapshotDirectory.resolve("snapshot.bin");
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 0x5A;
+        Files.write(file, bytes);
+        dropCaches();
+
+        // When / Then
+        assertTrue(snapshotStore.restore().isEmpty());
+        assertFalse(catalogResponseCache.isEncoded(CatalogResponseCache.View.COURSES));
+    }
+
+    private String json(CatalogResponseCache.View view) {
+        return new String(catalogResponseCache.get(view).json(), StandardCharsets.UTF_8);
+    }
+
+    private void dropCaches() {
+        eventPublisher.publishEvent(EntityChangedEvent.bulk(Course.class));
+        studentNumberIds().clear();
+    }
+
+    private org.springframework.cache.Cache studentNumberIds() {
+        return cacheManager.getCache(CacheConfig.STUDENT_NUMBER_IDS);
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.entity.Department;
+import com.example.springdatajpa.repository.CourseRepository;
+import com.example.springdatajpa.repository.DepartmentRepository;
+import com.example.springdatajpa.repository.EnrollmentRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import com.example.springdatajpa.service.CourseService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Catalog Response Cache Tests")
+class CatalogResponseCacheTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Course course;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        courseRepository.deleteAll();
+        studentRepository.deleteAll();
+        departmentRepository.deleteAll();
+
+        Department department = departmentRepository.save(Department.builder()
+                .departmentName("Catalog Department")
+                .departmentCode("CAT")
+                .departmentType(Department.DepartmentType.ARTS)
+                .build());
+        course = courseRepository.save(Course.builder()
+                .title("Catalog Course")
+                .courseCode("CAT101")
+                .description("Served from encoded bytes")
+                .creditHours(new BigDecimal("3.0"))
+                .courseLevel(Course.CourseLevel.BEGINNER)
+                .department(department)
+                .build());
+    }
+
+    @Test
+    @DisplayName("Listings are served as JSON or gzip depending on Accept-Encoding")
+    void servesJsonAndGzip() throws Exception {
+        // When
+        MockHttpServletResponse plain = fetch("/api/courses", null);
+        MockHttpServletResponse compressed = fetch("/api/courses", "gzip, deflate");
+
+        // Then
+        assertNull(plain.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("gzip", compressed.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertTrue(compressed.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING));
+        assertArrayEquals(plain.getContentAsByteArray(), gunzip(compressed.getContentAsByteArray()));
+
+        JsonNode courses = objectMapper.readTree(plain.getContentAsByteArray());
+        assertEquals(1, courses.size());
+        assertEquals("CAT101", courses.get(0).get("courseCode").asText());
+        assertEquals("Catalog Department", courses.get(0).get("department").get("departmentName").asText());
+        assertFalse(courses.get(0).has("enrollments"));
+        assertFalse(courses.get(0).get("department").has("courses"));
+    }
+
+    @Test
+    @DisplayName("Repeated requests are answered from the cached bytes")
+    void repeatedRequestsHitTheCache() throws Exception {
+        // Given
+        fetch("/api/departments/active", null);
+        double hits = requests("active_departments", "hit");
+
+        // When: a write that bypasses JPA is invisible while the listing is cached
+        jdbcTemplate.update("UPDATE tbl_department SET department_name = 'Renamed'");
+
+        // Then
+        JsonNode departments = objectMapper.readTree(fetch("/api/departments/active", null).getContentAsByteArray());
+        assertEquals("Catalog Department", departments.get(0).get("departmentName").asText());
+        assertEquals(hits + 1, requests("active_departments", "hit"));
+    }
+
+    @Test
+    @DisplayName("A committed course change is visible to the next request")
+    void commitsInvalidateListings() throws Exception {
+        // Given
+        assertEquals(1, objectMapper.readTree(fetch("/api/courses/active", null).getContentAsByteArray()).size());
+
+        // When
+        courseService.deactivateCourse(course.getCourseId());
+
+        // Then
+        assertEquals(0, objectMapper.readTree(fetch("/api/courses/active", null).getContentAsByteArray()).size());
+        assertEquals(1, objectMapper.readTree(fetch("/api/courses", null).getContentAsByteArray()).size());
+    }
+
+    @Test
+    @DisplayName("gzip with q=0 is not accepted")
+    void gzipCanBeRefused() {
+        assertTrue(CatalogResponseCache.EncodedResponse.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertFalse(CatalogResponseCache.EncodedResponse.acceptsGzip("gzip;q=0"));
+        assertFalse(CatalogResponseCache.EncodedResponse.acceptsGzip("identity"));
+        assertFalse(CatalogResponseCache.EncodedResponse.acceptsGzip(null));
+    }
+
+    private MockHttpServletResponse fetch(String path, String acceptEncoding) throws Exception {
+        var request = get(path);
+        if (acceptEncoding != null) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        MockHttpServletResponse response = mockMvc.perform(request).andReturn().getResponse();
+        assertEquals(200, response.getStatus());
+        return response;
+    }
+
+    private double requests(String view, String result) {
+        return meterRegistry.get("catalog.response.cache.requests").tag("view", view).tag("result", result)
+                .counter().count();
+    }
+
+    private static byte[] gunzip(byte[] bytes) throws Exception {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.entity.Department;
+import com.example.springdatajpa.service.DepartmentService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "app.cache.catalog-responses.background-rebuild=true")
+@ActiveProfiles("test")
+@DisplayName("Catalog Response Background Rebuild Tests")
+class CatalogResponseRebuildTest {
+
+    @Autowired
+    private CatalogResponseCache catalogResponseCache;
+
+    @Autowired
+    private DepartmentService departmentService;
+
+    @Test
+    @DisplayName("A department commit re-encodes every listing without a request")
+    void commitTriggersBackgroundRebuild() throws InterruptedException {
+        // When
+        departmentService.createDepartment(Department.builder()
+                .departmentName("Rebuild Department")
+                .departmentCode("RBD")
+                .departmentType(Department.DepartmentType.LAW)
+                .build());
+
+        // Then
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!allEncoded() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(allEncoded());
+        String departments = new String(catalogResponseCache.get(CatalogResponseCache.View.DEPARTMENTS).json());
+        assertTrue(departments.contains("\"departmentCode\":\"RBD\""));
+    }
+
+    private boolean allEncoded() {
+        for (CatalogResponseCache.View view : CatalogResponseCache.View.values()) {
+            if (!catalogResponseCache.isEncoded(view)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,276 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.SpringDataJpaApplication;
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.entity.Department;
+import com.example.springdatajpa.repository.DepartmentRepository;
+import com.example.springdatajpa.service.CourseService;
+import com.example.springdatajpa.service.DepartmentService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs three application instances in this JVM against one shared in-memory H2 database.
+ */
+@DisplayName("Cluster Cache Coherence Tests")
+class ClusterCacheCoherenceTest {
+
+    private static final String COURSES_ROLE = Department.class.getName() + ".courses";
+    private static final String DATABASE_URL = "jdbc:h2:mem:cluster-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+    private static final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    @BeforeAll
+    static void startNodes() {
+        for (int i = 0; i < 3; i++) {
+            nodes.add(new SpringApplicationBuilder(SpringDataJpaApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .profiles("test")
+                    // Arguments rather than default properties, which the test profile would override
+                    .run("--spring.datasource.url=" + DATABASE_URL,
+                            "--spring.jpa.hibernate.ddl-auto=update",
+                            "--spring.jpa.show-sql=false",
+                            "--app.cache.coherence.poll-interval=PT0.05S",
+                            "--app.cache.coherence.max-staleness=PT5S"));
+        }
+    }
+
+    @AfterAll
+    static void stopNodes() throws Exception {
+        nodes.forEach(ConfigurableApplicationContext::close);
+        try (Connection connection = DriverManager.getConnection(DATABASE_URL, "sa", "")) {
+            connection.createStatement().execute("SHUTDOWN");
+        }
+    }
+
+    @Test
+    @DisplayName("An entity cached on one node is refreshed after another node updates it")
+    void secondLevelCacheFollowsRemoteUpdates() {
+        // Given
+        Department department = node(0, DepartmentService.class).createDepartment(Department.builder()
+                .departmentName("Coherent Department")
+                .departmentCode("COH")
+                .departmentType(Department.DepartmentType.SCIENCE)
+                .build());
+        Long id = department.getDepartmentId();
+        awaitCached(() -> node(1, DepartmentService.class).getDepartmentById(id),
+                () -> secondLevelCache(1).containsEntity(Department.class, id));
+        double writerRemoteBefore = remoteInvalidations(0, "Department");
+        double readerRemoteBefore = remoteInvalidations(1, "Department");
+
+        // When
+        department.setDepartmentName("Renamed Department");
+        node(0, DepartmentService.class).updateDepartment(id, department);
+
+        // Then
+        awaitTrue(() -> remoteInvalidations(1, "Department") > readerRemoteBefore);
+        assertEquals("Renamed Department", node(1, DepartmentService.class).getDepartmentById(id).orElseThrow()
+                .getDepartmentName());
+        assertEquals(writerRemoteBefore, remoteInvalidations(0, "Department"));
+    }
+
+    @Test
+    @DisplayName("Cached search results are dropped on every node after a remote insert")
+    void searchResultsFollowRemoteInserts() {
+        // Given
+        Department department = node(2, DepartmentService.class).createDepartment(Department.builder()
+                .departmentName("Search Department")
+                .departmentCode("CSR")
+                .departmentType(Department.DepartmentType.ENGINEERING)
+                .build());
+        assertTrue(node(0, CourseService.class).searchCourses("Polling").isEmpty());
+        assertTrue(node(1, CourseService.class).searchCourses("Polling").isEmpty());
+
+        // When
+        node(2, CourseService.class).createCourseForDepartment(Course.builder()
+                .title("Polling Systems")
+                .courseCode("CSR101")
+                .creditHours(new BigDecimal("3.0"))
+                .courseLevel(Course.CourseLevel.INTERMEDIATE)
+                .build(), department.getDepartmentId());
+
+        // Then
+        awaitTrue(() -> node(0, CourseService.class).searchCourses("Polling").size() == 1
+                && node(1, CourseService.class).searchCourses("Polling").size() == 1);
+    }
+
+    @Test
+    @DisplayName("A remote update evicts only the changed entity and the collections it owns")
+    void remoteUpdatesEvictOnlyTheChangedEntity() {
+        // Given
+        Department changed = node(0, DepartmentService.class).createDepartment(Department.builder()
+                .departmentName("Changed Department")
+                .departmentCode("CHG")
+                .departmentType(Department.DepartmentType.ARTS)
+                .build());
+        Department untouched = node(0, DepartmentService.class).createDepartment(Department.builder()
+                .departmentName("Untouched Department")
+                .departmentCode("UNT")
+                .departmentType(Department.DepartmentType.ARTS)
+                .build());
+        node(0, CourseService.class).createCourseForDepartment(Course.builder()
+                .title("Untouched Course")
+                .courseCode("UNT101")
+                .creditHours(new BigDecimal("3.0"))
+                .courseLevel(Course.CourseLevel.BEGINNER)
+                .build(), untouched.getDepartmentId());
+        Long changedId = changed.getDepartmentId();
+        Long untouchedId = untouched.getDepartmentId();
+        Cache cache = secondLevelCache(1);
+        awaitCached(() -> {
+            loadWithCourses(1, changedId);
+            loadWithCourses(1, untouchedId);
+        }, () -> cache.containsEntity(Department.class, changedId) && cache.containsCollection(COURSES_ROLE, changedId)
+                && cache.containsEntity(Department.class, untouchedId)
+                && cache.containsCollection(COURSES_ROLE, untouchedId));
+        double remoteBefore = remoteInvalidations(1, "Department");
+        double bulkBefore = invalidations(1, "Department", "remote-bulk");
+
+        // When
+        changed.setDepartmentName("Changed Again");
+        node(0, DepartmentService.class).updateDepartment(changedId, changed);
+
+        // Then
+        awaitTrue(() -> remoteInvalidations(1, "Department") > remoteBefore);
+        // The replay has cached the changed department again, as it is now
+        assertFalse(cache.containsCollection(COURSES_ROLE, changedId));
+        assertTrue(cache.containsEntity(Department.class, untouchedId));
+        assertTrue(cache.containsCollection(COURSES_ROLE, untouchedId));
+        assertEquals(bulkBefore, invalidations(1, "Department", "remote-bulk"));
+        assertEquals("Changed Again", node(1, DepartmentService.class).getDepartmentById(changedId).orElseThrow()
+                .getDepartmentName());
+    }
+
+    @Test
+    @DisplayName("An entity deleted on one node disappears from the caches of the others")
+    void secondLevelCacheFollowsRemoteDeletes() {
+        // Given
+        Department department = node(0, DepartmentService.class).createDepartment(Department.builder()
+                .departmentName("Deleted Department")
+                .departmentCode("DEL")
+                .departmentType(Department.DepartmentType.LAW)
+                .build());
+        Long id = department.getDepartmentId();
+        awaitCached(() -> node(2, DepartmentService.class).getDepartmentById(id),
+                () -> secondLevelCache(2).containsEntity(Department.class, id));
+        double bulkBefore = invalidations(2, "Department", "remote-bulk");
+
+        // When
+        node(0, DepartmentRepository.class).deleteById(id);
+
+        // Then
+        awaitTrue(() -> node(2, DepartmentService.class).getDepartmentById(id).isEmpty());
+        assertEquals(bulkBefore, invalidations(2, "Department", "remote-bulk"));
+    }
+
+    @Test
+    @DisplayName("A version whose changes were not logged drops the whole type")
+    void unloggedVersionsDropTheWholeType() throws Exception {
+        // Given
+        Department department = node(0, DepartmentService.class).createDepartment(Department.builder()
+                .departmentName("Unlogged Department")
+                .departmentCode("UNL")
+                .departmentType(Department.DepartmentType.SCIENCE)
+                .build());
+        Long id = department.getDepartmentId();
+        Cache cache = secondLevelCache(1);
+        awaitCached(() -> node(1, DepartmentService.class).getDepartmentById(id),
+                () -> cache.containsEntity(Department.class, id));
+        double bulkBefore = invalidations(1, "Department", "remote-bulk");
+
+        // When
+        try (Connection connection = DriverManager.getConnection(DATABASE_URL, "sa", "")) {
+            connection.createStatement().executeUpdate(
+                    "UPDATE tbl_cache_version SET version = version + 1 WHERE entity_type = 'Department'");
+        }
+
+        // Then
+        awaitTrue(() -> invalidations(1, "Department", "remote-bulk") > bulkBefore);
+        assertFalse(cache.containsEntity(Department.class, id));
+    }
+
+    @Test
+    @DisplayName("Every node keeps its view of the version table within the staleness bound")
+    void nodesPollWithinStalenessBound() {
+        for (int i = 0; i < nodes.size(); i++) {
+            ClusterCacheCoherence coherence = node(i, ClusterCacheCoherence.class);
+            awaitTrue(() -> coherence.staleness().toMillis() < 1_000);
+        }
+    }
+
+    private static <T> T node(int index, Class<T> beanType) {
+        return nodes.get(index).getBean(beanType);
+    }
+
+    private static double remoteInvalidations(int index, String entity) {
+        return invalidations(index, entity, "remote");
+    }
+
+    private static double invalidations(int index, String entity, String cause) {
+        Counter counter = node(index, MeterRegistry.class).find("cache.coherence.invalidations")
+                .tag("entity", entity).tag("cause", cause).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private static Cache secondLevelCache(int index) {
+        return node(index, EntityManagerFactory.class).unwrap(SessionFactory.class).getCache();
+    }
+
+    private static void loadWithCourses(int index, Long departmentId) {
+        EntityManager entityManager = node(index, EntityManagerFactory.class).createEntityManager();
+        try {
+            entityManager.find(Department.class, departmentId).getCourses().size();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    // Reads until the reader's polls of earlier writes no longer evict what it has just cached
+    private static void awaitCached(Runnable read, BooleanSupplier cached) {
+        awaitTrue(() -> {
+            read.run();
+            if (!cached.getAsBoolean()) {
+                return false;
+            }
+            sleep(200);
+            return cached.getAsBoolean();
+        });
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Condition not met within 5 seconds");
+            sleep(20);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
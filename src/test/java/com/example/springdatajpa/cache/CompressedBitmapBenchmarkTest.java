@@ -0,0 +1,118 @@
+package com.example.springdatajpa.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Latency of the set expressions behind {@code /api/enrollments/student-sets} on compressed
+ * bitmaps against the same algebra on {@code HashSet<Long>}. Not part of the regular build; run
+ * with {@code mvn test -Dtest=CompressedBitmapBenchmarkTest -Dbenchmark=true
+ * [-Dbenchmark.students=1000000] [-Dbenchmark.courses=2000]}.
+ *
+ * <p>Each student takes eight random courses, one of them among the first twenty (the large
+ * introductory courses); courses are grouped forty to a department. The queries are an
+ * intersection of two small courses, a department minus a large course, and a union over
+ * every course of one department intersected with a large course, each counted and paged.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Compressed Bitmap Benchmark")
+class CompressedBitmapBenchmarkTest {
+
+    private static final int STUDENTS = Integer.getInteger("benchmark.students", 1_000_000);
+    private static final int COURSES = Integer.getInteger("benchmark.courses", 2_000);
+    private static final int COURSES_PER_DEPARTMENT = 40;
+    private static final int ROUNDS = 1_000;
+
+    @Test
+    @DisplayName("Bitmaps versus hash sets")
+    void compareWithHashSets() {
+        Random random = new Random(7);
+        CompressedBitmap[] bitmaps = new CompressedBitmap[COURSES];
+        @SuppressWarnings("unchecked")
+        Set<Long>[] sets = new Set[COURSES];
+        for (int c = 0; c < COURSES; c++) {
+            bitmaps[c] = new CompressedBitmap();
+            sets[c] = new HashSet<>();
+        }
+        for (long student = 1; student <= STUDENTS; student++) {
+            for (int i = 0; i < 8; i++) {
+                int course = i == 0 ? random.nextInt(20) : 20 + random.nextInt(COURSES - 20);
+                bitmaps[course].add(student);
+                sets[course].add(student);
+            }
+        }
+        long bytes = Arrays.stream(bitmaps).mapToLong(CompressedBitmap::sizeInBytes).sum();
+
+        int small = 100;
+        int other = 101;
+        int department = 2;
+        System.out.printf("%n%,d students, %,d courses, %.1f MiB of bitmaps%n", STUDENTS, COURSES, bytes / 1048576.0);
+        System.out.printf("%-34s %12s %12s %14s %14s%n", "query", "matches", "bitmap p50 us", "bitmap p99 us",
+                "HashSet p50 us");
+        report("course AND course", () -> bitmaps[small].and(bitmaps[other]).cardinality(), () -> {
+            Set<Long> result = new HashSet<>(sets[small]);
+            result.retainAll(sets[other]);
+            return result.size();
+        });
+        report("department ANDNOT large course", () -> department(bitmaps, department).andNot(bitmaps[0]).cardinality(), () -> {
+            Set<Long> result = department(sets, department);
+            result.removeAll(sets[0]);
+            return result.size();
+        });
+        report("department AND large course, page", () -> {
+            CompressedBitmap result = department(bitmaps, department).and(bitmaps[1]);
+            return result.select(Math.max(0, result.cardinality() - 100), 100).length + result.cardinality();
+        }, () -> {
+            Set<Long> result = department(sets, department);
+            result.retainAll(sets[1]);
+            return 100 + result.stream().sorted().skip(Math.max(0, result.size() - 100)).count() - 100 + result.size();
+        });
+    }
+
+    private static CompressedBitmap department(CompressedBitmap[] bitmaps, int department) {
+        return CompressedBitmap.union(Arrays.asList(bitmaps)
+                .subList(department * COURSES_PER_DEPARTMENT, (department + 1) * COURSES_PER_DEPARTMENT));
+    }
+
+    private static Set<Long> department(Set<Long>[] sets, int department) {
+        Set<Long> union = new HashSet<>();
+        for (int c = department * COURSES_PER_DEPARTMENT; c < (department + 1) * COURSES_PER_DEPARTMENT; c++) {
+            union.addAll(sets[c]);
+        }
+        return union;
+    }
+
+    private static void report(String name, LongSupplier bitmapQuery, LongSupplier setQuery) {
+        long[] bitmapNanos = time(bitmapQuery);
+        long[] setNanos = time(setQuery);
+        long matches = bitmapQuery.getAsLong();
+        assertEquals(setQuery.getAsLong(), matches);
+        System.out.printf("%-34s %12d %12.1f %14.1f %14.1f%n", name, matches, bitmapNanos[ROUNDS / 2] / 1000.0,
+                bitmapNanos[ROUNDS * 99 / 100] / 1000.0, setNanos[ROUNDS / 2] / 1000.0);
+    }
+
+    private static long[] time(LongSupplier query) {
+        for (int i = 0; i < ROUNDS / 4; i++) {
+            query.getAsLong();
+        }
+        long[] nanos = new long[ROUNDS];
+        long sink = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            sink += query.getAsLong();
+            nanos[i] = System.nanoTime() - start;
+        }
+        assertTrue(sink >= 0);
+        Arrays.sort(nanos);
+        return nanos;
+    }
+}
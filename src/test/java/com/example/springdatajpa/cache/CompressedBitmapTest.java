@@ -0,0 +1,78 @@
+package com.example.springdatajpa.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Compressed Bitmap Tests")
+class CompressedBitmapTest {
+
+    @Test
+    @DisplayName("Random bitmap operations match sorted sets, across array and bitset containers")
+    void bitmapsMatchSortedSets() {
+        Random random = new Random(42);
+        List<CompressedBitmap> bitmaps = new ArrayList<>();
+        List<TreeSet<Long>> models = new ArrayList<>();
+        for (int b = 0; b < 4; b++) {
+            bitmaps.add(new CompressedBitmap());
+            models.add(new TreeSet<>());
+        }
+        for (int i = 0; i < 200_000; i++) {
+            int b = random.nextInt(4);
+            // Dense around a few high halves so containers cross the 4,096 value threshold both ways
+            long value = (long) random.nextInt(3) << 16 | random.nextInt(b < 2 ? 12_000 : 65_536);
+            if (random.nextInt(3) == 0) {
+                bitmaps.get(b).remove(value);
+                models.get(b).remove(value);
+            } else {
+                bitmaps.get(b).add(value);
+                models.get(b).add(value);
+            }
+            if (i % 20_000 == 19_999) {
+                for (int x = 0; x < 4; x++) {
+                    assertEquals(models.get(x), values(bitmaps.get(x)));
+                    for (int y = 0; y < 4; y++) {
+                        TreeSet<Long> and = new TreeSet<>(models.get(x));
+                        and.retainAll(models.get(y));
+                        TreeSet<Long> or = new TreeSet<>(models.get(x));
+                        or.addAll(models.get(y));
+                        TreeSet<Long> andNot = new TreeSet<>(models.get(x));
+                        andNot.removeAll(models.get(y));
+                        assertEquals(and, values(bitmaps.get(x).and(bitmaps.get(y))));
+                        assertEquals(or, values(bitmaps.get(x).or(bitmaps.get(y))));
+                        assertEquals(andNot, values(bitmaps.get(x).andNot(bitmaps.get(y))));
+                        TreeSet<Long> union = new TreeSet<>(or);
+                        union.addAll(models.get((x + 1) % 4));
+                        assertEquals(union, values(CompressedBitmap.union(
+                                List.of(bitmaps.get(x), bitmaps.get(y), bitmaps.get((x + 1) % 4)))));
+                    }
+                }
+            }
+        }
+        CompressedBitmap bitmap = bitmaps.get(3);
+        List<Long> sorted = new ArrayList<>(models.get(3));
+        assertEquals(sorted.subList(5_000, 5_100), boxed(bitmap.select(5_000, 100)));
+        assertEquals(sorted.subList(sorted.size() - 3, sorted.size()), boxed(bitmap.select(sorted.size() - 3, 100)));
+        assertEquals(0, bitmap.select(sorted.size(), 100).length);
+        assertTrue(CompressedBitmap.of(0xFFFFFFFFL).contains(0xFFFFFFFFL));
+        assertThrows(IllegalArgumentException.class, () -> bitmap.add(1L << 32));
+    }
+
+    private static TreeSet<Long> values(CompressedBitmap bitmap) {
+        return new TreeSet<>(boxed(bitmap.select(0, Integer.MAX_VALUE)));
+    }
+
+    private static List<Long> boxed(long[] values) {
+        List<Long> boxed = new ArrayList<>(values.length);
+        for (long value : values) {
+            boxed.add(value);
+        }
+        return boxed;
+    }
+}
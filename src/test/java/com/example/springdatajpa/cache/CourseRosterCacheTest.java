@@ -0,0 +1,126 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.dto.CourseRosterEntry;
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.entity.Department;
+import com.example.springdatajpa.entity.Enrollment;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.repository.CourseRepository;
+import com.example.springdatajpa.repository.DepartmentRepository;
+import com.example.springdatajpa.repository.EnrollmentRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import com.example.springdatajpa.service.EnrollmentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Course Roster Cache Tests")
+class CourseRosterCacheTest {
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    private Course rosterCourse;
+    private Course otherCourse;
+    private Student first;
+    private Student second;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        courseRepository.deleteAll();
+        studentRepository.deleteAll();
+        departmentRepository.deleteAll();
+
+        Department department = departmentRepository.save(Department.builder()
+                .departmentName("Roster Department")
+                .departmentCode("ROS")
+                .departmentType(Department.DepartmentType.SCIENCE)
+                .build());
+        rosterCourse = courseRepository.save(course("ROS101", department));
+        otherCourse = courseRepository.save(course("ROS201", department));
+        first = studentRepository.save(student("Ada", "Lovelace", "ada@example.com"));
+        second = studentRepository.save(student("Alan", "Turing", "alan@example.com"));
+    }
+
+    @Test
+    @DisplayName("Roster pages are cached until an enrollment of the course changes")
+    void rosterIsCachedUntilCourseEnrollmentChanges() {
+        enrollmentService.enrollStudentInCourse(first.getStudentId(), rosterCourse.getCourseId(), "Fall 2024", 2024);
+
+        Page<CourseRosterEntry> initial = roster();
+        assertEquals(1, initial.getTotalElements());
+        assertSame(initial, roster(), "second read should be served from the cache");
+
+        // An enrollment in another course leaves the cached roster alone
+        enrollmentService.enrollStudentInCourse(second.getStudentId(), otherCourse.getCourseId(), "Fall 2024", 2024);
+        assertSame(initial, roster());
+
+        // An enrollment in this course evicts it
+        enrollmentService.enrollStudentInCourse(second.getStudentId(), rosterCourse.getCourseId(), "Fall 2024", 2024);
+        Page<CourseRosterEntry> refreshed = roster();
+        assertNotSame(initial, refreshed);
+        assertEquals(2, refreshed.getTotalElements());
+    }
+
+    @Test
+    @DisplayName("An enrollment moved to another course evicts the roster it left")
+    void movedEnrollmentEvictsPreviousCourse() {
+        Enrollment enrollment = enrollmentService.enrollStudentInCourse(
+                first.getStudentId(), rosterCourse.getCourseId(), "Fall 2024", 2024);
+        Page<CourseRosterEntry> initial = roster();
+        assertEquals(1, initial.getTotalElements());
+
+        enrollment.setCourse(otherCourse);
+        enrollmentRepository.save(enrollment);
+
+        Page<CourseRosterEntry> refreshed = roster();
+        assertNotSame(initial, refreshed);
+        assertEquals(0, refreshed.getTotalElements());
+    }
+
+    private Page<CourseRosterEntry> roster() {
+        return enrollmentService.getCourseRoster(rosterCourse.getCourseId(), "Fall 2024", 2024, PageRequest.of(0, 20));
+    }
+
+    private static Course course(String code, Department department) {
+        return Course.builder()
+                .title("Course " + code)
+                .courseCode(code)
+                .creditHours(new BigDecimal("3.0"))
+                .courseLevel(Course.CourseLevel.BEGINNER)
+                .department(department)
+                .build();
+    }
+
+    private static Student student(String firstName, String lastName, String email) {
+        return Student.builder()
+                .firstName(firstName)
+                .lastName(lastName)
+                .emailId(email)
+                .build();
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.repository.EnrollmentRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The academic year statistics from the columnar enrollment copy against the GROUP BY queries
+ * they replace. Not part of the regular build; run with
+ * {@code mvn test -Dtest=EnrollmentAnalyticsBenchmarkTest -Dbenchmark=true
+ * [-Dbenchmark.enrollments=1000000]}.
+ *
+ * <p>The enrollments (ten per student over two years, in 2,000 courses) are written with plain
+ * SQL into a file-based H2 database and loaded into the copy. For each statistic it reports the
+ * rows returned and the best of five runs of each side; both must return the same number of rows.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Enrollment Analytics Benchmark")
+class EnrollmentAnalyticsBenchmarkTest {
+
+    private static final int ENROLLMENTS = Integer.getInteger("benchmark.enrollments", 1_000_000);
+    private static final int COURSES = 2_000;
+    private static final int RUNS = 5;
+    private static final long FIRST_ID = 1_000_000_000L;
+    private static final String[] GRADES = {"A", "B", "C", "D", "F"};
+    private static final String[] STATUSES = {"ACTIVE", "COMPLETED", "DROPPED", "WITHDRAWN", "FAILED"};
+
+    @TempDir
+    static Path databaseDirectory;
+
+    @DynamicPropertySource
+    static void benchmarkProperties(DynamicPropertyRegistry registry) {
+        // Without reusing the result of a repeated query over unchanged tables, which H2 does by default
+        registry.add("spring.datasource.url", () -> "jdbc:h2:file:" + databaseDirectory.resolve("benchmark")
+                + ";OPTIMIZE_REUSE_RESULTS=FALSE");
+        registry.add("spring.jpa.show-sql", () -> "false");
+    }
+
+    @Autowired
+    private EnrollmentAnalytics analytics;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Columnar scans versus GROUP BY queries")
+    void compareWithSql() {
+        long start = System.nanoTime();
+        insertEnrollments();
+        long inserted = System.nanoTime();
+        analytics.reload();
+        long loaded = System.nanoTime();
+        System.out.printf("%n%,d enrollments inserted in %,d ms, loaded in %,d ms, %d cores%n", ENROLLMENTS,
+                (inserted - start) / 1_000_000, (loaded - inserted) / 1_000_000,
+                Runtime.getRuntime().availableProcessors());
+
+        System.out.printf("%-26s %10s %10s %12s%n", "statistic", "rows", "SQL ms", "columns ms");
+        compare("course statistics", () -> enrollmentRepository.getCourseEnrollmentStatistics(2024),
+                () -> analytics.courseStatistics(2024));
+        compare("student performance", () -> enrollmentRepository.getStudentPerformanceSummary(2024),
+                () -> analytics.studentPerformance(2024));
+        compare("most active students (10)", () -> enrollmentRepository.findMostActiveStudentsByYear(2024, 10),
+                () -> analytics.mostActiveStudents(2024, 10));
+    }
+
+    private void compare(String label, Supplier<List<?>> sql, Supplier<List<?>> columns) {
+        int rows = sql.get().size();
+        assertEquals(rows, columns.get().size(), label);
+        System.out.printf("%-26s %10d %10.1f %12.1f%n", label, rows, bestMillis(sql), bestMillis(columns));
+    }
+
+    private static double bestMillis(Supplier<List<?>> statistic) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            statistic.get();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1_000_000.0;
+    }
+
+    private void insertEnrollments() {
+        jdbcTemplate.update("INSERT INTO tbl_department (department_id, department_name, department_code) "
+                + "VALUES (?, 'Benchmark', 'BNCH')", FIRST_ID);
+        List<Object[]> batch = new ArrayList<>();
+        for (long id = FIRST_ID; id < FIRST_ID + COURSES; id++) {
+            batch.add(new Object[]{id, "Course " + id, "C" + id, FIRST_ID});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO tbl_course (course_id, title, course_code, department_id) "
+                + "VALUES (?, ?, ?, ?)", batch);
+        batch.clear();
+        int students = ENROLLMENTS / 10;
+        for (long id = FIRST_ID; id < FIRST_ID + students; id++) {
+            batch.add(new Object[]{id, "First" + id, "Last" + id, "student" + id + "@example.edu"});
+            if (batch.size() == 10_000) {
+                jdbcTemplate.batchUpdate("INSERT INTO tbl_student (student_id, first_name, last_name, email_address, "
+                        + "is_active, student_status) VALUES (?, ?, ?, ?, TRUE, 'ACTIVE')", batch);
+                batch.clear();
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO tbl_student (student_id, first_name, last_name, email_address, "
+                + "is_active, student_status) VALUES (?, ?, ?, ?, TRUE, 'ACTIVE')", batch);
+        batch.clear();
+        Random random = new Random(11);
+        for (long id = FIRST_ID; id < FIRST_ID + ENROLLMENTS; id++) {
+            long student = FIRST_ID + (id - FIRST_ID) / 10;
+            int year = 2023 + (int) ((id - FIRST_ID) % 2);
+            // Five distinct courses a year per student
+            long course = FIRST_ID + ((student * 7 + (id - FIRST_ID) % 10 * 199) % COURSES);
+            boolean graded = random.nextInt(4) > 0;
+            batch.add(new Object[]{id, student, course, "Fall " + year, year, STATUSES[random.nextInt(STATUSES.length)],
+                    graded ? GRADES[random.nextInt(GRADES.length)] : null, graded ? random.nextInt(401) / 100.0 : null});
+            if (batch.size() == 10_000) {
+                insert(batch);
+            }
+        }
+        insert(batch);
+    }
+
+    private void insert(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("INSERT INTO tbl_enrollment (enrollment_id, student_id, course_id, semester, "
+                + "academic_year, enrollment_status, grade, grade_points, enrollment_date) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, DATE '2024-09-01')", batch);
+        batch.clear();
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.dto.AcademicYearStatistics;
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.entity.Department;
+import com.example.springdatajpa.entity.Enrollment;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.event.EntityChangedEvent;
+import com.example.springdatajpa.repository.CourseRepository;
+import com.example.springdatajpa.repository.DepartmentRepository;
+import com.example.springdatajpa.repository.EnrollmentRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import com.example.springdatajpa.service.AcademicYearService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Enrollment Analytics Tests")
+class EnrollmentAnalyticsTest {
+
+    private static final String[] GRADES = {"A", "B", "C", "D", "F"};
+
+    @Autowired
+    private EnrollmentAnalytics analytics;
+
+    @Autowired
+    private AcademicYearService academicYearService;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final Random random = new Random(42);
+    private final List<Course> courses = new ArrayList<>();
+    private final List<Student> students = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        courseRepository.deleteAll();
+        studentRepository.deleteAll();
+        departmentRepository.deleteAll();
+        courses.clear();
+        students.clear();
+
+        Department department = departmentRepository.save(Department.builder()
+                .departmentName("Analytics Department")
+                .departmentCode("ANL")
+                .departmentType(Department.DepartmentType.SCIENCE)
+                .build());
+        for (int i = 0; i < 6; i++) {
+            courses.add(courseRepository.save(Course.builder()
+                    .title("Analytics Course " + i)
+                    .courseCode("ANL10" + i)
+                    .creditHours(new BigDecimal("3.0"))
+                    .courseLevel(Course.CourseLevel.BEGINNER)
+                    .department(department)
+                    .build()));
+        }
+        for (int i = 0; i < 40; i++) {
+            students.add(studentRepository.save(Student.builder()
+                    .firstName("First" + i)
+                    .lastName("Last" + i)
+                    .emailId("analytics" + i + "@example.com")
+                    .build()));
+        }
+        for (Student student : students) {
+            for (Course course : courses) {
+                for (int year = 2023; year <= 2024; year++) {
+                    if (random.nextInt(3) > 0) {
+                        enrollmentRepository.save(randomEnrollment(Enrollment.builder()
+                                .student(student)
+                                .course(course)
+                                .semester(random.nextBoolean() ? "Fall " + year : "Spring " + year)
+                                .academicYear(year)
+                                .enrollmentDate(LocalDate.of(year, 9, 1))
+                                .build()));
+                    }
+                }
+            }
+        }
+        analytics.reload();
+    }
+
+    @Test
+    @DisplayName("Statistics equal the SQL answers, also after committed updates and deletes")
+    void matchesSql() {
+        assertTrue(analytics.isLoaded());
+        assertMatchesSql();
+
+        // When: enough changes through the application to compact the columns more than once
+        List<Enrollment> enrollments = enrollmentRepository.findAll();
+        for (int i = 0; i < 1_200; i++) {
+            Enrollment enrollment = enrollments.get(random.nextInt(enrollments.size()));
+            enrollmentRepository.save(randomEnrollment(enrollment));
+        }
+        for (int i = 0; i < 20; i++) {
+            enrollmentRepository.delete(enrollments.remove(random.nextInt(enrollments.size())));
+        }
+        studentRepository.deleteById(students.get(0).getStudentId());
+
+        // Then
+        assertMatchesSql();
+    }
+
+    @Test
+    @DisplayName("A bulk change makes the copy stale until its reload completes")
+    void bulkChangeFallsBackToDatabase() throws Exception {
+        // When
+        jdbcTemplate.update("UPDATE tbl_enrollment SET grade_points = 1.0 WHERE academic_year = 2024");
+        eventPublisher.publishEvent(EntityChangedEvent.bulk(Enrollment.class));
+
+        // Then: served from the database or the reloaded copy, never the stale one
+        assertEquals(1.0, academicYearService.getCourseStatistics(2024).get(0).averageGrade());
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!analytics.isLoaded() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(analytics.isLoaded());
+        assertEquals(1.0, analytics.courseStatistics(2024).get(0).averageGrade());
+    }
+
+    @Test
+    @DisplayName("Random puts and removes match a HashMap, across growth and compaction")
+    void columnsMatchHashMapModel() {
+        EnrollmentColumns columns = new EnrollmentColumns();
+        Map<Long, Object[]> model = new HashMap<>();
+        Random random = new Random(7);
+        int compactions = 0;
+        for (int i = 0; i < 50_000; i++) {
+            long enrollmentId = 1 + random.nextInt(3_000);
+            if (random.nextInt(4) == 0) {
+                columns.remove(enrollmentId);
+                model.remove(enrollmentId);
+            } else {
+                Object[] row = {(long) random.nextInt(500), (long) random.nextInt(50), 2020 + random.nextInt(5),
+                        "Term " + random.nextInt(3), Enrollment.EnrollmentStatus.values()[random.nextInt(5)],
+                        random.nextBoolean() ? null : new BigDecimal(random.nextInt(401)).movePointLeft(2),
+                        random.nextBoolean(),
+                        random.nextBoolean() ? null : new BigDecimal(random.nextInt(10_001)).movePointLeft(2)};
+                columns.put(enrollmentId, (Long) row[0], (Long) row[1], (Integer) row[2], (String) row[3],
+                        (Enrollment.EnrollmentStatus) row[4], (BigDecimal) row[5], (Boolean) row[6], (BigDecimal) row[7]);
+                model.put(enrollmentId, row);
+            }
+            if (columns.needsCompaction()) {
+                columns.compact();
+                compactions++;
+            }
+        }
+        assertTrue(compactions > 5);
+        assertEquals(model.size(), columns.size());
+        List<String> expected = model.values().stream().map(EnrollmentAnalyticsTest::describe).sorted().toList();
+        List<String> actual = new ArrayList<>();
+        for (int row = 0; row < columns.rowCount(); row++) {
+            if (columns.isLive(row)) {
+                short points = columns.gradePoints(row);
+                short attendance = columns.attendance(row);
+                actual.add(describe(new Object[]{columns.studentId(row), columns.courseId(row), columns.academicYear(row),
+                        columns.semester(row), EnrollmentColumns.status(columns.status(row)),
+                        points == EnrollmentColumns.NO_GRADE_POINTS ? null : BigDecimal.valueOf(points, 2),
+                        columns.isGraded(row),
+                        attendance == EnrollmentColumns.NO_ATTENDANCE ? null : BigDecimal.valueOf(attendance, 2)}));
+            }
+        }
+        assertEquals(expected, actual.stream().sorted().toList());
+    }
+
+    private void assertMatchesSql() {
+        for (int year = 2023; year <= 2024; year++) {
+            List<AcademicYearStatistics.CourseStatistics> sqlCourses = enrollmentRepository.getCourseEnrollmentStatistics(year)
+                    .stream()
+                    .map(row -> new AcademicYearStatistics.CourseStatistics(row.getCourseTitle(), row.getCourseCode(),
+                            row.getEnrollmentCount(), row.getCompletedCount(), row.getAverageGrade(), row.getPassRate()))
+                    .toList();
+            assertEquals(sortedBy(sqlCourses, Comparator.comparing(AcademicYearStatistics.CourseStatistics::enrollmentCount)
+                            .reversed().thenComparing(AcademicYearStatistics.CourseStatistics::courseCode)),
+                    sortedBy(analytics.courseStatistics(year), Comparator.comparing(
+                            AcademicYearStatistics.CourseStatistics::enrollmentCount).reversed()
+                            .thenComparing(AcademicYearStatistics.CourseStatistics::courseCode)));
+            assertEquals(sqlCourses.stream().map(AcademicYearStatistics.CourseStatistics::enrollmentCount).toList(),
+                    analytics.courseStatistics(year).stream().map(AcademicYearStatistics.CourseStatistics::enrollmentCount).toList());
+
+            Comparator<AcademicYearStatistics.StudentPerformance> byAverage = Comparator.comparing(
+                            AcademicYearStatistics.StudentPerformance::averageGrade,
+                            Comparator.nullsLast(Comparator.reverseOrder()))
+                    .thenComparing(AcademicYearStatistics.StudentPerformance::studentEmail);
+            List<AcademicYearStatistics.StudentPerformance> sqlPerformance = enrollmentRepository
+                    .getStudentPerformanceSummary(year).stream()
+                    .map(row -> new AcademicYearStatistics.StudentPerformance(row.getStudentName(), row.getStudentEmail(),
+                            row.getTotalEnrollments(), row.getAverageGrade()))
+                    .toList();
+            List<AcademicYearStatistics.StudentPerformance> performance = analytics.studentPerformance(year);
+            assertEquals(sortedBy(sqlPerformance, byAverage), sortedBy(performance, byAverage));
+            assertEquals(sqlPerformance.stream().map(AcademicYearStatistics.StudentPerformance::averageGrade).toList(),
+                    performance.stream().map(AcademicYearStatistics.StudentPerformance::averageGrade).toList());
+
+            Comparator<AcademicYearStatistics.StudentActivity> byCount = Comparator.comparing(
+                            AcademicYearStatistics.StudentActivity::totalEnrollments).reversed()
+                    .thenComparing(AcademicYearStatistics.StudentActivity::lastName);
+            List<AcademicYearStatistics.StudentActivity> sqlActivity = enrollmentRepository
+                    .findMostActiveStudentsByYear(year, Integer.MAX_VALUE).stream()
+                    .map(row -> new AcademicYearStatistics.StudentActivity((String) row[0], (String) row[1],
+                            ((Number) row[2]).longValue()))
+                    .toList();
+            List<AcademicYearStatistics.StudentActivity> activity = analytics.mostActiveStudents(year, Integer.MAX_VALUE);
+            assertEquals(sortedBy(sqlActivity, byCount), sortedBy(activity, byCount));
+            assertEquals(activity.subList(0, 5), analytics.mostActiveStudents(year, 5));
+        }
+    }
+
+    private Enrollment randomEnrollment(Enrollment enrollment) {
+        enrollment.setEnrollmentStatus(Enrollment.EnrollmentStatus.values()[random.nextInt(5)]);
+        enrollment.setGrade(random.nextInt(4) == 0 ? null : GRADES[random.nextInt(GRADES.length)]);
+        enrollment.setGradePoints(random.nextInt(5) == 0 ? null : new BigDecimal(random.nextInt(401)).movePointLeft(2));
+        return enrollment;
+    }
+
+    private static <T> List<T> sortedBy(List<T> rows, Comparator<T> order) {
+        return rows.stream().sorted(order).toList();
+    }
+
+    private static String describe(Object[] row) {
+        return java.util.Arrays.toString(row);
+    }
+}
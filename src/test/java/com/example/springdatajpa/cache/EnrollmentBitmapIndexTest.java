@@ -0,0 +1,217 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.entity.Department;
+import com.example.springdatajpa.entity.Enrollment;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.repository.CourseRepository;
+import com.example.springdatajpa.repository.DepartmentRepository;
+import com.example.springdatajpa.repository.EnrollmentRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Enrollment Bitmap Index Tests")
+class EnrollmentBitmapIndexTest {
+
+    @Autowired
+    private EnrollmentBitmapIndex bitmapIndex;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Course databases;
+    private Course calculus;
+    private Student ada;
+    private Student alan;
+    private Student grace;
+    private Enrollment alanCalculus;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        courseRepository.deleteAll();
+        studentRepository.deleteAll();
+        departmentRepository.deleteAll();
+
+        Department computing = department("Computer Science", "CS");
+        Department mathematics = department("Mathematics", "MATH");
+        databases = course("Databases", "CS310", computing);
+        calculus = course("Calculus", "MA101", mathematics);
+        ada = student("Ada", "Lovelace");
+        alan = student("Alan", "Turing");
+        grace = student("Grace", "Hopper");
+        grace.setStudentStatus(Student.StudentStatus.GRADUATED);
+        studentRepository.save(grace);
+
+        enroll(ada, databases, "Fall 2024", 2024, Enrollment.EnrollmentStatus.COMPLETED);
+        enroll(ada, calculus, "Fall 2024", 2024, Enrollment.EnrollmentStatus.ACTIVE);
+        enroll(alan, databases, "Spring 2025", 2025, Enrollment.EnrollmentStatus.ACTIVE);
+        alanCalculus = enroll(alan, calculus, "Fall 2024", 2024, Enrollment.EnrollmentStatus.DROPPED);
+        enroll(grace, databases, "Fall 2024", 2024, Enrollment.EnrollmentStatus.COMPLETED);
+        bitmapIndex.reload();
+    }
+
+    @Test
+    @DisplayName("Expressions combine course, department and status memberships within the term scope")
+    void evaluatesExpressions() {
+        assertTrue(bitmapIndex.isLoaded());
+        assertEquals(List.of(ada.getStudentId(), alan.getStudentId(), grace.getStudentId()), ids("course:cs310", null, null));
+        assertEquals(List.of(ada.getStudentId(), grace.getStudentId()), ids("course:CS310/completed", null, null));
+        assertEquals(List.of(ada.getStudentId()), ids("department:CS AND department:MATH AND NOT status:DROPPED", null, null));
+        assertEquals(List.of(alan.getStudentId(), grace.getStudentId()),
+                ids("course:CS310 ANDNOT (course:MA101/ACTIVE OR student-status:inactive)", null, null));
+        assertEquals(List.of(grace.getStudentId()), ids("course:CS310 AND student-status:GRADUATED", null, null));
+        assertEquals(List.of(ada.getStudentId(), grace.getStudentId()), ids("department:CS", 2024, null));
+        assertEquals(List.of(alan.getStudentId()), ids("course:CS310", null, "Spring 2025"));
+        assertEquals(0, bitmapIndex.count("course:CS310", 2025, "Fall 2024"));
+        assertEquals(3, bitmapIndex.count("status:ACTIVE OR status:COMPLETED", null, null));
+
+        assertThrows(IllegalArgumentException.class, () -> bitmapIndex.count("course:NOPE", null, null));
+        assertThrows(IllegalArgumentException.class, () -> bitmapIndex.count("course:CS310 AND", null, null));
+        assertThrows(IllegalArgumentException.class, () -> bitmapIndex.count("(course:CS310", null, null));
+        assertThrows(IllegalArgumentException.class, () -> bitmapIndex.count("status:SLEEPING", null, null));
+        assertThrows(IllegalArgumentException.class, () -> bitmapIndex.count("CS310", null, null));
+    }
+
+    @Test
+    @DisplayName("Committed enrollments, students and courses keep the bitmaps current")
+    void writeEventsKeepBitmapsCurrent() throws Exception {
+        // When
+        enroll(grace, calculus, "Fall 2024", 2024, Enrollment.EnrollmentStatus.ACTIVE);
+        alanCalculus.setEnrollmentStatus(Enrollment.EnrollmentStatus.ACTIVE);
+        enrollmentRepository.save(alanCalculus);
+        ada.setStudentStatus(Student.StudentStatus.SUSPENDED);
+        studentRepository.save(ada);
+        calculus.setCourseCode("MA102");
+        courseRepository.save(calculus);
+
+        // Then
+        assertEquals(List.of(ada.getStudentId(), alan.getStudentId(), grace.getStudentId()),
+                ids("course:MA102/ACTIVE", null, null));
+        assertEquals(0, bitmapIndex.count("course:MA102/DROPPED", null, null));
+        assertEquals(List.of(ada.getStudentId()), ids("student-status:SUSPENDED", null, null));
+        assertThrows(IllegalArgumentException.class, () -> bitmapIndex.count("course:MA101", null, null));
+
+        // When: deleting a student cascades to their enrollments
+        enrollmentRepository.delete(alanCalculus);
+        studentRepository.deleteById(grace.getStudentId());
+
+        // Then
+        assertEquals(List.of(ada.getStudentId()), ids("course:MA102", null, null));
+        assertEquals(List.of(ada.getStudentId(), alan.getStudentId()), ids("course:CS310", null, null));
+
+        // When: an enrollment moved to another term is not where the bitmaps have it
+        Enrollment moved = enrollmentRepository.findAll().stream()
+                .filter(enrollment -> enrollment.getCourse().getCourseId().equals(calculus.getCourseId()))
+                .findFirst().orElseThrow();
+        moved.setSemester("Spring 2025");
+        moved.setAcademicYear(2025);
+        enrollmentRepository.save(moved);
+
+        // Then: a rebuild is scheduled and puts it right
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (bitmapIndex.count("course:MA102", 2024, null) > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, bitmapIndex.count("course:MA102", 2024, null));
+        assertEquals(List.of(ada.getStudentId()), ids("course:MA102", 2025, null));
+    }
+
+    @Test
+    @DisplayName("The student-set endpoints page ids, count them and reject malformed expressions")
+    void studentSetEndpoints() throws Exception {
+        mockMvc.perform(get("/api/enrollments/student-sets")
+                        .param("q", "course:CS310 OR course:MA101")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(3))
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0]").value(ada.getStudentId()));
+        mockMvc.perform(get("/api/enrollments/student-sets/count")
+                        .param("q", "department:MATH AND NOT status:DROPPED")
+                        .param("academicYear", "2024")
+                        .param("semester", "Fall 2024"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(1));
+        mockMvc.perform(get("/api/enrollments/student-sets").param("q", "course:CS310 OR"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/enrollments/student-sets/count").param("q", "department:NOPE"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/enrollments/student-sets").param("q", "course:CS310").param("size", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<Long> ids(String expression, Integer academicYear, String semester) {
+        return bitmapIndex.findStudentIds(expression, academicYear, semester, PageRequest.of(0, 100)).getContent();
+    }
+
+    private Department department(String name, String code) {
+        return departmentRepository.save(Department.builder()
+                .departmentName(name)
+                .departmentCode(code)
+                .departmentType(Department.DepartmentType.SCIENCE)
+                .build());
+    }
+
+    private Course course(String title, String code, Department department) {
+        return courseRepository.save(Course.builder()
+                .title(title)
+                .courseCode(code)
+                .creditHours(new BigDecimal("3.0"))
+                .courseLevel(Course.CourseLevel.BEGINNER)
+                .department(department)
+                .build());
+    }
+
+    private Student student(String firstName, String lastName) {
+        return studentRepository.save(Student.builder()
+                .firstName(firstName)
+                .lastName(lastName)
+                .emailId(firstName.toLowerCase() + "." + lastName.toLowerCase() + "@example.com")
+                .build());
+    }
+
+    private Enrollment enroll(Student student, Course course, String semester, int academicYear,
+                              Enrollment.EnrollmentStatus status) {
+        return enrollmentRepository.save(Enrollment.builder()
+                .student(student)
+                .course(course)
+                .enrollmentDate(LocalDate.now())
+                .semester(semester)
+                .academicYear(academicYear)
+                .enrollmentStatus(status)
+                .build());
+    }
+}
@@ -0,0 +1,283 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.dto.EnrollmentCubeCell;
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.entity.Department;
+import com.example.springdatajpa.entity.Enrollment;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.repository.CourseRepository;
+import com.example.springdatajpa.repository.DepartmentRepository;
+import com.example.springdatajpa.repository.EnrollmentRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Enrollment Cube Tests")
+class EnrollmentCubeTest {
+
+    private static final Map<EnrollmentCube.Dimension, String> COLUMNS = new EnumMap<>(Map.of(
+            EnrollmentCube.Dimension.DEPARTMENT, "d.department_code",
+            EnrollmentCube.Dimension.COURSE_LEVEL, "c.course_level",
+            EnrollmentCube.Dimension.TERM, "e.semester",
+            EnrollmentCube.Dimension.STATUS, "e.enrollment_status",
+            EnrollmentCube.Dimension.ADMISSION_YEAR, "YEAR(s.admission_date)"));
+
+    private static final Comparator<EnrollmentCubeCell> ORDER = Comparator
+            .comparing(EnrollmentCubeCell::departmentCode, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(EnrollmentCubeCell::courseLevel, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(EnrollmentCubeCell::term, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(EnrollmentCubeCell::status, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(EnrollmentCubeCell::admissionYear, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    @Autowired
+    private EnrollmentCube cube;
+
+    @Autowired
+    private EnrollmentAnalytics analytics;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private final Random random = new Random(42);
+    private final List<Department> departments = new ArrayList<>();
+    private final List<Course> courses = new ArrayList<>();
+    private final List<Student> students = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        courseRepository.deleteAll();
+        studentRepository.deleteAll();
+        departmentRepository.deleteAll();
+        departments.clear();
+        courses.clear();
+        students.clear();
+
+        for (String code : List.of("CS", "MATH", "PHYS")) {
+            departments.add(departmentRepository.save(Department.builder()
+                    .departmentName("Department of " + code)
+                    .departmentCode(code)
+                    .departmentType(Department.DepartmentType.SCIENCE)
+                    .build()));
+        }
+        for (int i = 0; i < 8; i++) {
+            courses.add(courseRepository.save(Course.builder()
+                    .title("Cube Course " + i)
+                    .courseCode("CUBE10" + i)
+                    .creditHours(new BigDecimal("3.0"))
+                    .courseLevel(i == 7 ? null : Course.CourseLevel.values()[random.nextInt(3)])
+                    .department(departments.get(i % departments.size()))
+                    .build()));
+        }
+        for (int i = 0; i < 30; i++) {
+            students.add(studentRepository.save(Student.builder()
+                    .firstName("Cube" + i)
+                    .lastName("Student" + i)
+                    .emailId("cube" + i + "@example.com")
+                    .admissionDate(i % 10 == 9 ? null : LocalDate.of(2021 + random.nextInt(3), 9, 1))
+                    .build()));
+        }
+        for (Student student : students) {
+            for (Course course : courses) {
+                if (random.nextInt(3) > 0) {
+                    int year = 2023 + random.nextInt(2);
+                    enrollmentRepository.save(randomize(Enrollment.builder()
+                            .student(student)
+                            .course(course)
+                            .semester(random.nextBoolean() ? "Fall " + year : "Spring " + year)
+                            .academicYear(year)
+                            .enrollmentDate(LocalDate.of(year, 9, 1))
+                            .build()));
+                }
+            }
+        }
+        analytics.reload();
+        cube.reload();
+    }
+
+    @Test
+    @DisplayName("Roll-ups and drill-downs equal the GROUP BY over the joined tables")
+    void matchesGroupBy() {
+        assertTrue(cube.isLoaded());
+        assertMatchesGroupBy();
+    }
+
+    @Test
+    @DisplayName("Committed enrollment, course and student changes keep the cube current")
+    void writeEventsKeepCubeCurrent() {
+        // When: grades and statuses change, enrollments come and go
+        List<Enrollment> enrollments = new ArrayList<>(enrollmentRepository.findAll());
+        for (int i = 0; i < 60; i++) {
+            enrollmentRepository.save(randomize(enrollments.get(random.nextInt(enrollments.size()))));
+        }
+        for (int i = 0; i < 10; i++) {
+            enrollmentRepository.delete(enrollments.remove(random.nextInt(enrollments.size())));
+        }
+
+        // And: a course moves to another department and level, a student to another admission year
+        Course moved = courses.get(0);
+        moved.setDepartment(departments.get(2));
+        moved.setCourseLevel(Course.CourseLevel.ADVANCED);
+        courseRepository.save(moved);
+        Student readmitted = students.get(1);
+        readmitted.setAdmissionDate(LocalDate.of(2020, 1, 15));
+        studentRepository.save(readmitted);
+
+        // And: a student is deleted with their enrollments, and a department renamed
+        studentRepository.deleteById(students.get(2).getStudentId());
+        Department physics = departments.get(2);
+        physics.setDepartmentCode("PHY");
+        departmentRepository.save(physics);
+
+        // And: a new student enrolls in a new course
+        Student newcomer = studentRepository.save(Student.builder()
+                .firstName("Cube")
+                .lastName("Newcomer")
+                .emailId("cube.newcomer@example.com")
+                .admissionDate(LocalDate.of(2024, 9, 1))
+                .build());
+        Course elective = courseRepository.save(Course.builder()
+                .title("Cube Elective")
+                .courseCode("CUBE200")
+                .creditHours(new BigDecimal("3.0"))
+                .courseLevel(Course.CourseLevel.INTERMEDIATE)
+                .department(departments.get(1))
+                .build());
+        enrollmentRepository.save(randomize(Enrollment.builder()
+                .student(newcomer)
+                .course(elective)
+                .semester("Fall 2024")
+                .academicYear(2024)
+                .enrollmentDate(LocalDate.of(2024, 9, 1))
+                .build()));
+
+        // Then
+        assertMatchesGroupBy();
+        assertEquals(groupBy(List.of(EnrollmentCube.Dimension.DEPARTMENT), "d.department_code = 'PHY'"),
+                cube.query(List.of(EnrollmentCube.Dimension.DEPARTMENT), new EnrollmentCube.Slice("phy", null, null, null, null)));
+    }
+
+    @Test
+    @DisplayName("The cube endpoint groups by the requested dimensions and rejects unknown ones")
+    void cubeEndpoint() throws Exception {
+        long total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tbl_enrollment", Long.class);
+        long completed = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM tbl_enrollment WHERE enrollment_status = 'COMPLETED'", Long.class);
+
+        mockMvc.perform(get("/api/enrollments/cube"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].enrollmentCount").value(total))
+                .andExpect(jsonPath("$[0].departmentCode").doesNotExist());
+        mockMvc.perform(get("/api/enrollments/cube").param("groupBy", "STATUS").param("status", "COMPLETED"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].status").value("COMPLETED"))
+                .andExpect(jsonPath("$[0].enrollmentCount").value(completed));
+        mockMvc.perform(get("/api/enrollments/cube").param("groupBy", "DEPARTMENT,TERM").param("department", "math"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].departmentCode").value("MATH"))
+                .andExpect(jsonPath("$[0].courseLevel").doesNotExist());
+        mockMvc.perform(get("/api/enrollments/cube").param("groupBy", "SHOE_SIZE"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/enrollments/cube").param("department", "NOPE"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private void assertMatchesGroupBy() {
+        List<List<EnrollmentCube.Dimension>> groupings = List.of(
+                List.of(),
+                List.of(EnrollmentCube.Dimension.values()),
+                List.of(EnrollmentCube.Dimension.DEPARTMENT),
+                List.of(EnrollmentCube.Dimension.DEPARTMENT, EnrollmentCube.Dimension.TERM),
+                List.of(EnrollmentCube.Dimension.COURSE_LEVEL, EnrollmentCube.Dimension.STATUS),
+                List.of(EnrollmentCube.Dimension.ADMISSION_YEAR, EnrollmentCube.Dimension.STATUS));
+        for (List<EnrollmentCube.Dimension> groupBy : groupings) {
+            assertEquals(groupBy(groupBy, "1 = 1"), cube.query(groupBy, EnrollmentCube.Slice.all()));
+            assertEquals(groupBy(groupBy, "d.department_code = 'CS' AND e.semester = 'Fall 2024'"),
+                    cube.query(groupBy, new EnrollmentCube.Slice("cs", null, "Fall 2024", null, null)));
+            assertEquals(groupBy(groupBy, "c.course_level = 'BEGINNER' AND e.enrollment_status = 'COMPLETED' "
+                            + "AND YEAR(s.admission_date) = 2022"),
+                    cube.query(groupBy, new EnrollmentCube.Slice(null, Course.CourseLevel.BEGINNER, null,
+                            Enrollment.EnrollmentStatus.COMPLETED, 2022)));
+        }
+    }
+
+    // The cells as the GROUP BY the cube replaces computes them
+    private List<EnrollmentCubeCell> groupBy(List<EnrollmentCube.Dimension> groupBy, String where) {
+        String selected = COLUMNS.entrySet().stream()
+                .map(entry -> groupBy.contains(entry.getKey()) ? entry.getValue() : "NULL")
+                .collect(Collectors.joining(", "));
+        String grouped = groupBy.stream().map(COLUMNS::get).collect(Collectors.joining(", "));
+        String sql = "SELECT " + selected + ", COUNT(*), COUNT(e.grade_points), SUM(e.grade_points), "
+                + "SUM(CASE WHEN e.grade_points >= 2.0 THEN 1 ELSE 0 END) "
+                + "FROM tbl_enrollment e JOIN tbl_course c ON c.course_id = e.course_id "
+                + "LEFT JOIN tbl_department d ON d.department_id = c.department_id "
+                + "JOIN tbl_student s ON s.student_id = e.student_id WHERE " + where
+                + (grouped.isEmpty() ? "" : " GROUP BY " + grouped);
+        return jdbcTemplate.query(sql, (row, rowNumber) -> {
+                    long enrollments = row.getLong(6);
+                    long graded = row.getLong(7);
+                    BigDecimal gradePoints = row.getBigDecimal(8);
+                    String courseLevel = row.getString(2);
+                    String status = row.getString(4);
+                    return new EnrollmentCubeCell(row.getString(1),
+                            courseLevel == null ? null : Course.CourseLevel.valueOf(courseLevel),
+                            row.getString(3),
+                            status == null ? null : Enrollment.EnrollmentStatus.valueOf(status),
+                            (Integer) row.getObject(5, Integer.class),
+                            enrollments, graded,
+                            graded == 0 ? null : gradePoints.movePointRight(2).longValueExact() / (100.0 * graded),
+                            enrollments == 0 ? 0.0 : row.getLong(9) * 100.0 / enrollments);
+                }).stream()
+                .filter(cell -> cell.enrollmentCount() > 0)
+                .sorted(ORDER)
+                .toList();
+    }
+
+    private Enrollment randomize(Enrollment enrollment) {
+        enrollment.setEnrollmentStatus(Enrollment.EnrollmentStatus.values()[random.nextInt(5)]);
+        enrollment.setGradePoints(random.nextInt(4) == 0 ? null : new BigDecimal(random.nextInt(401)).movePointLeft(2));
+        return enrollment;
+    }
+}
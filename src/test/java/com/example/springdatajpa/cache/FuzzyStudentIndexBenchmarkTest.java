@@ -0,0 +1,120 @@
+package com.example.springdatajpa.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fuzzy name lookup latency of {@link FuzzyNameTrie} against a linear edit-distance scan. Not
+ * part of the regular build; run with
+ * {@code mvn test -Dtest=FuzzyStudentIndexBenchmarkTest -Dbenchmark=true [-Dbenchmark.students=1000000]}.
+ *
+ * <p>Students get names built from syllables, indexed as in {@link FuzzyStudentIndex} (first,
+ * last and full name in both orders). Lookups are misspelled last and full names, one random
+ * edit away from an indexed student; the scan is measured on a sample of them only.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Fuzzy Student Index Benchmark")
+class FuzzyStudentIndexBenchmarkTest {
+
+    private static final int STUDENTS = Integer.getInteger("benchmark.students", 1_000_000);
+    private static final int LOOKUPS = 2_000;
+    private static final int SCANS = 20;
+    private static final String[] SYLLABLES = {"an", "ber", "cha", "dor", "el", "fin", "gar", "ha", "is", "jo",
+            "ka", "lin", "mar", "no", "os", "pet", "ra", "son", "ta", "vi", "wil", "yan", "ze", "mi", "lo", "ri"};
+
+    @Test
+    @DisplayName("Trie search versus linear scan")
+    void compareWithLinearScan() {
+        Random random = new Random(42);
+        FuzzyNameTrie trie = new FuzzyNameTrie();
+        String[] fullNames = new String[STUDENTS];
+        long start = System.nanoTime();
+        for (int id = 0; id < STUDENTS; id++) {
+            String first = name(random, 2);
+            String last = name(random, 3);
+            fullNames[id] = first + " " + last;
+            for (String key : new String[]{first, last, first + " " + last, last + " " + first}) {
+                trie.add(key, id);
+            }
+        }
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("%n%,d students, %,d distinct names, %,d nodes, built in %,d ms%n", STUDENTS,
+                trie.names(), trie.nodes(), buildMillis);
+        System.out.printf("%-22s %10s %10s %12s%n", "query", "p50 ms", "p99 ms", "scan ms");
+        for (int distance = 1; distance <= 2; distance++) {
+            for (boolean full : new boolean[]{false, true}) {
+                long[] nanos = new long[LOOKUPS];
+                String[] queries = new String[LOOKUPS];
+                for (int i = 0; i < LOOKUPS; i++) {
+                    String name = fullNames[random.nextInt(STUDENTS)];
+                    queries[i] = misspell(random, full ? name : name.substring(name.indexOf(' ') + 1));
+                    long lookupStart = System.nanoTime();
+                    assertFalse(trie.search(queries[i], distance).isEmpty());
+                    nanos[i] = System.nanoTime() - lookupStart;
+                }
+                Arrays.sort(nanos);
+                long scanStart = System.nanoTime();
+                for (int i = 0; i < SCANS; i++) {
+                    scan(fullNames, queries[i], distance);
+                }
+                double scanMillis = (System.nanoTime() - scanStart) / 1e6 / SCANS;
+                System.out.printf("%-22s %10.2f %10.2f %12.1f%n", (full ? "full name" : "last name") + ", distance "
+                        + distance, nanos[LOOKUPS / 2] / 1e6, nanos[LOOKUPS * 99 / 100] / 1e6, scanMillis);
+            }
+        }
+    }
+
+    private static int scan(String[] fullNames, String query, int distance) {
+        int found = 0;
+        for (String name : fullNames) {
+            if (distance(query, name) <= distance) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static String name(Random random, int maxSyllables) {
+        StringBuilder name = new StringBuilder();
+        for (int i = 1 + random.nextInt(maxSyllables); i >= 0; i--) {
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return name.toString();
+    }
+
+    private static String misspell(Random random, String name) {
+        int at = random.nextInt(name.length());
+        char letter = (char) ('a' + random.nextInt(26));
+        return switch (random.nextInt(3)) {
+            case 0 -> name.substring(0, at) + letter + name.substring(at + 1);
+            case 1 -> name.substring(0, at) + name.substring(at + 1);
+            default -> name.substring(0, at) + letter + name.substring(at);
+        };
+    }
+
+    private static int distance(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.dto.StudentNameMatch;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.repository.EnrollmentRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Fuzzy Student Index Tests")
+class FuzzyStudentIndexTest {
+
+    @Autowired
+    private FuzzyStudentIndex fuzzyStudentIndex;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Student johnSmith;
+    private Student janeSmyth;
+    private Student zoe;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        studentRepository.deleteAll();
+        johnSmith = student("John", "Smith", "john.smith@example.com", true);
+        janeSmyth = student("Jane", "Smyth", "jane.smyth@example.com", false);
+        zoe = student("Zoë", "O'Neil", "zoe.oneil@example.com", true);
+        fuzzyStudentIndex.reload();
+    }
+
+    @Test
+    @DisplayName("Misspelled first, last and full names match within the distance, closest first")
+    void findsMisspelledNames() {
+        // When
+        List<StudentNameMatch> smiths = fuzzyStudentIndex.find("smiht", 2, 10);
+
+        // Then: a swapped pair is one edit; Smyth is two away and inactive
+        assertEquals(List.of(johnSmith.getStudentId(), janeSmyth.getStudentId()), ids(smiths));
+        assertEquals(List.of(1, 2), smiths.stream().map(StudentNameMatch::distance).toList());
+        assertEquals(List.of(johnSmith.getStudentId()), ids(fuzzyStudentIndex.find("smiht", 1, 10)));
+
+        assertEquals(List.of(johnSmith.getStudentId()), ids(fuzzyStudentIndex.find("jon smtih", 2, 10)));
+        assertEquals(List.of(johnSmith.getStudentId()), ids(fuzzyStudentIndex.find("Smith, Jon", 1, 10)));
+        assertEquals(0, fuzzyStudentIndex.find("zoe o neil", 0, 10).get(0).distance());
+        assertEquals("Zoë", fuzzyStudentIndex.find("zoey", 1, 10).get(0).firstName());
+        assertTrue(fuzzyStudentIndex.find("smiht", 0, 10).isEmpty());
+        assertEquals(1, fuzzyStudentIndex.find("smiht", 2, 1).size());
+
+        assertEquals(0, fuzzyStudentIndex.defaultDistance("Jo"));
+        assertEquals(1, fuzzyStudentIndex.defaultDistance("smiht"));
+        assertEquals(2, fuzzyStudentIndex.defaultDistance("jon smtih"));
+    }
+
+    @Test
+    @DisplayName("Committed creates, renames and deletes keep the index current")
+    void writeEventsKeepIndexCurrent() {
+        // When
+        Student created = student("Grace", "Hopper", "grace.hopper@example.com", true);
+        johnSmith.setLastName("Smithers");
+        studentRepository.save(johnSmith);
+
+        // Then
+        assertEquals(List.of(created.getStudentId()), ids(fuzzyStudentIndex.find("hoper", 1, 10)));
+        assertEquals(List.of(janeSmyth.getStudentId()), ids(fuzzyStudentIndex.find("smith", 1, 10)));
+        assertEquals(List.of(johnSmith.getStudentId()), ids(fuzzyStudentIndex.find("smithres", 1, 10)));
+
+        // When
+        studentRepository.deleteById(created.getStudentId());
+
+        // Then
+        assertTrue(fuzzyStudentIndex.find("hopper", 2, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Random adds, removes and searches match a brute-force edit distance scan")
+    void trieMatchesBruteForce() {
+        FuzzyNameTrie trie = new FuzzyNameTrie();
+        Map<Long, String> model = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 5_000; i++) {
+            long id = 1 + random.nextInt(400);
+            String previous = model.remove(id);
+            if (previous != null) {
+                trie.remove(previous, id);
+            }
+            if (random.nextInt(4) != 0) {
+                String name = word(random);
+                trie.add(name, id);
+                model.put(id, name);
+            }
+            if (i % 50 == 0) {
+                String query = word(random);
+                for (int distance = 0; distance <= 2; distance++) {
+                    Map<Long, Integer> expected = new HashMap<>();
+                    for (Map.Entry<Long, String> entry : model.entrySet()) {
+                        int edits = distance(query, entry.getValue());
+                        if (edits <= distance) {
+                            expected.put(entry.getKey(), edits);
+                        }
+                    }
+                    assertEquals(expected, trie.search(query, distance), query);
+                }
+            }
+        }
+        assertEquals(model.values().stream().distinct().count(), trie.names());
+        model.forEach((id, name) -> trie.remove(name, id));
+        assertEquals(0, trie.names());
+        assertEquals(1, trie.nodes());
+    }
+
+    @Test
+    @DisplayName("The fuzzy endpoint returns matches and rejects blank names and bad distances")
+    void fuzzyEndpoint() throws Exception {
+        mockMvc.perform(get("/api/students/fuzzy").param("name", "Jhon Smith"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].lastName").value("Smith"))
+                .andExpect(jsonPath("$[0].distance").value(1))
+                .andExpect(jsonPath("$[0].active").value(true));
+        mockMvc.perform(get("/api/students/fuzzy").param("name", " "))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/students/fuzzy").param("name", "smith").param("distance", "3"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/students/fuzzy").param("name", "smith").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Student student(String firstName, String lastName, String email, boolean active) {
+        return studentRepository.save(Student.builder()
+                .firstName(firstName)
+                .lastName(lastName)
+                .emailId(email)
+                .isActive(active)
+                .build());
+    }
+
+    private static List<Long> ids(List<StudentNameMatch> matches) {
+        return matches.stream().map(StudentNameMatch::studentId).toList();
+    }
+
+    // Short words over a small alphabet, so that many are within two edits of each other
+    private static String word(Random random) {
+        char[] chars = new char[1 + random.nextInt(6)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = "abcd".charAt(random.nextInt(4));
+        }
+        return new String(chars);
+    }
+
+    // Optimal string alignment distance, computed over the full table
+    private static int distance(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+}
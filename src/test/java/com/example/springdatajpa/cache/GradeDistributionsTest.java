@@ -0,0 +1,311 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.dto.GradeDistribution;
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.entity.Department;
+import com.example.springdatajpa.entity.Enrollment;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.repository.CourseRepository;
+import com.example.springdatajpa.repository.DepartmentRepository;
+import com.example.springdatajpa.repository.EnrollmentRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Grade Distributions Tests")
+class GradeDistributionsTest {
+
+    private static final List<Double> QUANTILES = List.of(0.0, 0.1, 0.25, 0.5, 0.9, 1.0);
+    private static final Map<GradeDistribution.Metric, String> COLUMNS = Map.of(
+            GradeDistribution.Metric.GRADE_POINTS, "e.grade_points",
+            GradeDistribution.Metric.ATTENDANCE_PERCENTAGE, "e.attendance_percentage");
+
+    @Autowired
+    private GradeDistributions distributions;
+
+    @Autowired
+    private EnrollmentAnalytics analytics;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private final Random random = new Random(42);
+    private final List<Department> departments = new ArrayList<>();
+    private final List<Course> courses = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        courseRepository.deleteAll();
+        studentRepository.deleteAll();
+        departmentRepository.deleteAll();
+        departments.clear();
+        courses.clear();
+
+        for (String code : List.of("CS", "MATH")) {
+            departments.add(departmentRepository.save(Department.builder()
+                    .departmentName("Department of " + code)
+                    .departmentCode(code)
+                    .departmentType(Department.DepartmentType.SCIENCE)
+                    .build()));
+        }
+        for (int i = 0; i < 5; i++) {
+            courses.add(courseRepository.save(Course.builder()
+                    .title("Distribution Course " + i)
+                    .courseCode("DIST10" + i)
+                    .creditHours(new BigDecimal("3.0"))
+                    .courseLevel(Course.CourseLevel.BEGINNER)
+                    .department(departments.get(i % departments.size()))
+                    .build()));
+        }
+        for (int i = 0; i < 40; i++) {
+            Student student = studentRepository.save(Student.builder()
+                    .firstName("Distribution" + i)
+                    .lastName("Student" + i)
+                    .emailId("distribution" + i + "@example.com")
+                    .build());
+            for (Course course : courses) {
+                if (random.nextInt(4) > 0) {
+                    int year = 2023 + random.nextInt(2);
+                    enrollmentRepository.save(randomize(Enrollment.builder()
+                            .student(student)
+                            .course(course)
+                            .semester(random.nextBoolean() ? "Fall " + year : "Spring " + year)
+                            .academicYear(year)
+                            .enrollmentDate(LocalDate.of(year, 9, 1))
+                            .build()));
+                }
+            }
+        }
+        analytics.reload();
+        distributions.reload();
+    }
+
+    @Test
+    @DisplayName("Quantiles per course-term, department-year and year equal those over the rows")
+    void matchesRows() {
+        assertTrue(distributions.isLoaded());
+        assertMatchesSql();
+    }
+
+    @Test
+    @DisplayName("Committed grade, attendance and course changes keep the histograms current")
+    void writeEventsKeepHistogramsCurrent() {
+        // When
+        List<Enrollment> enrollments = new ArrayList<>(enrollmentRepository.findAll());
+        for (int i = 0; i < 80; i++) {
+            enrollmentRepository.save(randomize(enrollments.get(random.nextInt(enrollments.size()))));
+        }
+        for (int i = 0; i < 10; i++) {
+            enrollmentRepository.delete(enrollments.remove(random.nextInt(enrollments.size())));
+        }
+        Course moved = courses.get(0);
+        moved.setDepartment(departments.get(1));
+        courseRepository.save(moved);
+
+        // Then
+        assertMatchesSql();
+    }
+
+    @Test
+    @DisplayName("Restored from the snapshot, the histograms answer at once and take changes from the enrollment rows")
+    void restoresFromSnapshot() throws Exception {
+        // Given
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            distributions.writeSnapshot(out);
+        }
+
+        // When
+        distributions.restoreSnapshot(ByteBuffer.wrap(bytes.toByteArray()));
+
+        // Then
+        assertMatchesSql();
+
+        // When: the enrollment's previous row holds the values to take out, without a rebuild
+        Enrollment changed = enrollmentRepository.findAll().get(0);
+        changed.setGradePoints(new BigDecimal("4.00"));
+        enrollmentRepository.save(changed);
+
+        // Then
+        assertMatchesSql();
+    }
+
+    @Test
+    @DisplayName("The endpoint answers per scope and rejects ambiguous scopes and bad quantiles")
+    void gradeDistributionEndpoint() throws Exception {
+        Course course = courses.get(1);
+        String semester = jdbcTemplate.queryForObject("SELECT MIN(semester) FROM tbl_enrollment WHERE course_id = ? "
+                + "AND academic_year = 2024", String.class, course.getCourseId());
+        BigDecimal median = sql(GradeDistribution.Metric.GRADE_POINTS, "e.course_id = " + course.getCourseId()
+                + " AND e.academic_year = 2024 AND e.semester = '" + semester + "'").quantiles().get(3).value();
+
+        mockMvc.perform(get("/api/enrollments/grade-distribution")
+                        .param("academicYear", "2024")
+                        .param("courseId", course.getCourseId().toString())
+                        .param("semester", semester)
+                        .param("quantiles", "0.5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.metric").value("GRADE_POINTS"))
+                .andExpect(jsonPath("$.quantiles[0].quantile").value(0.5))
+                .andExpect(jsonPath("$.quantiles[0].value").value(median.doubleValue()));
+        mockMvc.perform(get("/api/enrollments/grade-distribution")
+                        .param("academicYear", "1999")
+                        .param("metric", "ATTENDANCE_PERCENTAGE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(0))
+                .andExpect(jsonPath("$.quantiles.length()").value(4))
+                .andExpect(jsonPath("$.quantiles[0].value").doesNotExist());
+        mockMvc.perform(get("/api/enrollments/grade-distribution")
+                        .param("academicYear", "2024")
+                        .param("courseId", course.getCourseId().toString()))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/enrollments/grade-distribution")
+                        .param("academicYear", "2024")
+                        .param("quantiles", "1.5"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Random adds, removals and merges match a sorted list")
+    void histogramMatchesSortedList() {
+        Random random = new Random(7);
+        ValueHistogram histogram = new ValueHistogram();
+        List<Integer> model = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            if (!model.isEmpty() && random.nextInt(3) == 0) {
+                Integer value = model.remove(random.nextInt(model.size()));
+                histogram.add(value, -1);
+            } else {
+                int value = random.nextInt(401);
+                histogram.add(value, 1);
+                model.add(value);
+            }
+        }
+        ValueHistogram merged = new ValueHistogram();
+        merged.addAll(histogram, 1);
+        merged.addAll(histogram, 1);
+        merged.addAll(histogram, -1);
+        Collections.sort(model);
+        assertEquals(model.size(), merged.count());
+        for (double quantile : List.of(0.0, 0.001, 0.1, 0.3, 0.5, 0.77, 0.999, 1.0)) {
+            int rank = Math.max(1, BigDecimal.valueOf(quantile).multiply(BigDecimal.valueOf(model.size()))
+                    .setScale(0, RoundingMode.CEILING).intValueExact());
+            assertEquals(model.get(rank - 1), merged.quantile(quantile));
+        }
+        assertThrows(IllegalStateException.class, () -> histogram.add(1_000, -1));
+        assertThrows(IllegalArgumentException.class, () -> histogram.quantile(-0.1));
+    }
+
+    @Test
+    @DisplayName("A histogram is written in a few bytes per value and read back unchanged")
+    void histogramRoundTrip() throws Exception {
+        // Given: every hundredth between -1.00 and 4.00, each counted a few times
+        ValueHistogram histogram = new ValueHistogram();
+        for (int value = -100; value <= 400; value++) {
+            histogram.add(value, 1 + Math.floorMod(value, 5));
+        }
+
+        // When
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            histogram.write(out);
+        }
+        ValueHistogram read = ValueHistogram.read(ByteBuffer.wrap(bytes.toByteArray()));
+
+        // Then
+        assertTrue(bytes.size() <= 2 + 501 * 2 + 1, "Written in " + bytes.size() + " bytes");
+        assertEquals(histogram.count(), read.count());
+        for (double quantile : List.of(0.0, 0.01, 0.25, 0.5, 0.9, 1.0)) {
+            assertEquals(histogram.quantile(quantile), read.quantile(quantile));
+        }
+    }
+
+    private void assertMatchesSql() {
+        for (GradeDistribution.Metric metric : GradeDistribution.Metric.values()) {
+            for (Map<String, Object> scope : jdbcTemplate.queryForList(
+                    "SELECT DISTINCT course_id, academic_year, semester FROM tbl_enrollment")) {
+                long courseId = ((Number) scope.get("COURSE_ID")).longValue();
+                int year = ((Number) scope.get("ACADEMIC_YEAR")).intValue();
+                String semester = (String) scope.get("SEMESTER");
+                assertEquals(sql(metric, "e.course_id = " + courseId + " AND e.academic_year = " + year
+                                + " AND e.semester = '" + semester + "'"),
+                        distributions.courseTerm(courseId, year, semester, metric, QUANTILES));
+            }
+            for (int year = 2023; year <= 2024; year++) {
+                for (Department department : departments) {
+                    assertEquals(sql(metric, "c.department_id = " + department.getDepartmentId()
+                                    + " AND e.academic_year = " + year),
+                            distributions.departmentYear(department.getDepartmentId(), year, metric, QUANTILES));
+                }
+                assertEquals(sql(metric, "e.academic_year = " + year), distributions.year(year, metric, QUANTILES));
+            }
+        }
+    }
+
+    // The distribution as the SQL standard defines PERCENTILE_DISC: the first value whose CUME_DIST reaches
+    // the quantile (H2's own PERCENTILE_DISC interpolates a rank instead)
+    private GradeDistribution sql(GradeDistribution.Metric metric, String where) {
+        String column = COLUMNS.get(metric);
+        String rows = " FROM tbl_enrollment e JOIN tbl_course c ON c.course_id = e.course_id WHERE " + where
+                + " AND " + column + " IS NOT NULL";
+        long count = jdbcTemplate.queryForObject("SELECT COUNT(*)" + rows, Long.class);
+        List<GradeDistribution.Quantile> quantiles = new ArrayList<>();
+        for (double quantile : QUANTILES) {
+            BigDecimal value = jdbcTemplate.queryForObject("SELECT MIN(v) FROM (SELECT " + column + " AS v, "
+                    + "CUME_DIST() OVER (ORDER BY " + column + ") AS d" + rows + ") t WHERE d >= " + quantile, BigDecimal.class);
+            quantiles.add(new GradeDistribution.Quantile(quantile, value == null ? null : value.setScale(2)));
+        }
+        return new GradeDistribution(metric, count, quantiles);
+    }
+
+    private Enrollment randomize(Enrollment enrollment) {
+        enrollment.setGradePoints(random.nextInt(5) == 0 ? null : new BigDecimal(random.nextInt(401)).movePointLeft(2));
+        enrollment.setAttendancePercentage(random.nextInt(5) == 0 ? null
+                : new BigDecimal(random.nextInt(10_001)).movePointLeft(2));
+        return enrollment;
+    }
+}
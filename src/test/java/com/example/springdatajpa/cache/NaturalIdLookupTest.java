@@ -0,0 +1,208 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.entity.Department;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.repository.CourseRepository;
+import com.example.springdatajpa.repository.DepartmentRepository;
+import com.example.springdatajpa.repository.EnrollmentRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import com.example.springdatajpa.service.CourseService;
+import com.example.springdatajpa.service.DepartmentService;
+import com.example.springdatajpa.service.StudentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Natural-Id Lookup Tests")
+class NaturalIdLookupTest {
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private DepartmentService departmentService;
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Department department;
+    private Course course;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        courseRepository.deleteAll();
+        studentRepository.deleteAll();
+        departmentRepository.deleteAll();
+
+        department = departmentRepository.save(Department.builder()
+                .departmentName("Natural Id Department")
+                .departmentCode("NID")
+                .departmentType(Department.DepartmentType.SCIENCE)
+                .build());
+        course = courseRepository.save(Course.builder()
+                .title("Natural Id Course")
+                .courseCode("NID101")
+                .creditHours(new BigDecimal("3.0"))
+                .courseLevel(Course.CourseLevel.BEGINNER)
+                .department(department)
+                .build());
+    }
+
+    @Test
+    @DisplayName("Course code lookups resolve through the natural-id cache")
+    void courseCodeLookupIsCached() {
+        // Given
+        courseRepository.findByCourseCode("NID101");
+        double hitsBefore = hits(Course.NATURAL_ID_CACHE_REGION);
+
+        // When
+        Course found = courseRepository.findByCourseCode("NID101").orElseThrow();
+
+        // Then
+        assertEquals(course.getCourseId(), found.getCourseId());
+        assertEquals(hitsBefore + 1, hits(Course.NATURAL_ID_CACHE_REGION));
+        assertTrue(courseRepository.findByCourseCode("MISSING").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Email lookups resolve through the natural-id cache")
+    void emailLookupIsCached() {
+        // Given
+        Student existing = studentService.createStudent(student("cached@example.com", "S-0200"));
+        studentRepository.findByEmailId("cached@example.com");
+        double hitsBefore = hits(Student.NATURAL_ID_CACHE_REGION);
+
+        // When
+        List<Student> found = studentRepository.findByEmailId("cached@example.com");
+
+        // Then
+        assertEquals(List.of(existing.getStudentId()), found.stream().map(Student::getStudentId).toList());
+        assertEquals(hitsBefore + 1, hits(Student.NATURAL_ID_CACHE_REGION));
+        assertTrue(studentRepository.findByEmailId("missing@example.com").isEmpty());
+    }
+
+    @Test
+    @DisplayName("existsByCourseCode resolves the id without loading the course")
+    void existsByCourseCodeDoesNotLoadEntity() {
+        // Given
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+
+        // When / Then
+        assertTrue(courseService.existsByCourseCode("NID101"));
+        assertFalse(courseService.existsByCourseCode("MISSING"));
+        assertFalse(entityManagerFactory.unwrap(SessionFactory.class).getCache()
+                .containsEntity(Course.class, course.getCourseId()));
+    }
+
+    @Test
+    @DisplayName("A changed course code is re-resolved")
+    void changedCourseCodeIsResolved() {
+        // Given
+        courseRepository.findByCourseCode("NID101");
+        Course renamed = courseRepository.findById(course.getCourseId()).orElseThrow();
+        renamed.setCourseCode("NID102");
+
+        // When
+        courseService.updateCourse(renamed);
+
+        // Then
+        assertTrue(courseRepository.findByCourseCode("NID101").isEmpty());
+        assertEquals(course.getCourseId(), courseRepository.findByCourseCode("NID102").orElseThrow().getCourseId());
+    }
+
+    @Test
+    @DisplayName("Uniqueness checks in createStudent and createDepartment use the natural keys")
+    void uniquenessChecksUseNaturalKeys() {
+        // Given
+        Student existing = studentService.createStudent(student("taken@example.com", "S-0001"));
+        assertEquals(existing.getStudentId(), studentService.getStudentByStudentIdNumber("S-0001").orElseThrow().getStudentId());
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class,
+                () -> studentService.createStudent(student("taken@example.com", "S-0002")));
+        assertThrows(IllegalArgumentException.class,
+                () -> studentService.createStudent(student("other@example.com", "S-0001")));
+        assertThrows(IllegalArgumentException.class, () -> departmentService.createDepartment(Department.builder()
+                .departmentName("Duplicate")
+                .departmentCode("NID")
+                .departmentType(Department.DepartmentType.ARTS)
+                .build()));
+    }
+
+    @Test
+    @DisplayName("Deleting a student drops its cached student number")
+    void deletedStudentNumberIsEvicted() {
+        // Given
+        Student existing = studentService.createStudent(student("gone@example.com", "S-0100"));
+        assertTrue(studentService.getStudentByStudentIdNumber("S-0100").isPresent());
+
+        // When
+        studentRepository.delete(existing);
+
+        // Then
+        assertTrue(studentService.getStudentByStudentIdNumber("S-0100").isEmpty());
+        assertDoesNotThrow(() -> studentService.createStudent(student("new@example.com", "S-0100")));
+    }
+
+    @Test
+    @DisplayName("Renumbering a student drops its previous cached student number")
+    void renumberedStudentNumberIsEvicted() {
+        // Given
+        Student existing = studentService.createStudent(student("renumbered@example.com", "S-0200"));
+        assertTrue(studentService.getStudentByStudentIdNumber("S-0200").isPresent());
+
+        // When
+        existing.setStudentIdNumber("S-0201");
+        studentRepository.save(existing);
+
+        // Then
+        assertTrue(studentService.getStudentByStudentIdNumber("S-0200").isEmpty());
+        assertEquals(existing.getStudentId(), studentService.getStudentByStudentIdNumber("S-0201").orElseThrow().getStudentId());
+    }
+
+    private double hits(String region) {
+        return meterRegistry.get("cache.gets").tag("cache", region).tag("result", "hit").functionCounter().count();
+    }
+
+    private static Student student(String email, String number) {
+        return Student.builder()
+                .firstName("Natural")
+                .lastName("Key")
+                .emailId(email)
+                .studentIdNumber(number)
+                .build();
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.dto.SearchHit;
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.entity.Department;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.repository.CourseRepository;
+import com.example.springdatajpa.repository.DepartmentRepository;
+import com.example.springdatajpa.repository.EnrollmentRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import com.example.springdatajpa.service.CourseService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Search Index Tests")
+class SearchIndexTest {
+
+    private static final Set<SearchHit.Type> ALL_TYPES = EnumSet.allOf(SearchHit.Type.class);
+
+    @Autowired
+    private SearchIndex searchIndex;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Department department;
+    private Course programming;
+    private Course dataStructures;
+    private Student student;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        courseRepository.deleteAll();
+        studentRepository.deleteAll();
+        departmentRepository.deleteAll();
+
+        department = departmentRepository.save(Department.builder()
+                .departmentName("Computer Science")
+                .departmentCode("CS")
+                .headOfDepartment("Grace Hopper")
+                .departmentType(Department.DepartmentType.ENGINEERING)
+                .build());
+        programming = courseRepository.save(Course.builder()
+                .title("Introduction to Programming")
+                .courseCode("CS101")
+                .description("First steps in Java")
+                .creditHours(new BigDecimal("3.0"))
+                .courseLevel(Course.CourseLevel.BEGINNER)
+                .department(department)
+                .build());
+        dataStructures = courseRepository.save(Course.builder()
+                .title("Data Structures")
+                .courseCode("CS201")
+                .description("Lists, trees and graphs, for students who know programming")
+                .creditHours(new BigDecimal("4.0"))
+                .courseLevel(Course.CourseLevel.INTERMEDIATE)
+                .department(department)
+                .build());
+        student = studentRepository.save(Student.builder()
+                .firstName("Zoë")
+                .lastName("Programmer")
+                .emailId("zoe.programmer@example.com")
+                .studentIdNumber("STU-2024-001")
+                .build());
+        searchIndex.reload();
+    }
+
+    @Test
+    @DisplayName("Matches are ranked by field weight, and the last word also matches as a prefix")
+    void ranksByFieldWeight() {
+        // When
+        List<SearchHit> hits = search("programming", ALL_TYPES).getContent();
+
+        // Then: the title match outranks the description match; "programmer" is a different word
+        assertEquals(List.of(programming.getCourseId(), dataStructures.getCourseId()),
+                hits.stream().map(SearchHit::id).toList());
+        assertTrue(hits.get(0).score() > hits.get(1).score());
+        assertEquals("Introduction to Programming", hits.get(0).label());
+
+        assertEquals(List.of(programming.getCourseId()), ids(search("cs10", ALL_TYPES)));
+        assertEquals(List.of(student.getStudentId()), ids(search("zoe prog", ALL_TYPES)));
+        assertEquals("Zoë Programmer", search("stu-2024-001", ALL_TYPES).getContent().get(0).label());
+        assertEquals(3, search("program", ALL_TYPES).getTotalElements());
+        assertTrue(search("computer science java", ALL_TYPES).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Results can be restricted to document types and paged")
+    void filtersAndPages() {
+        // When
+        Page<SearchHit> departments = search("computer", EnumSet.of(SearchHit.Type.DEPARTMENT));
+        Page<SearchHit> secondPage = searchIndex.search("cs", ALL_TYPES, PageRequest.of(1, 2));
+
+        // Then
+        assertEquals(List.of(department.getDepartmentId()), ids(departments));
+        assertEquals(SearchHit.Type.DEPARTMENT, departments.getContent().get(0).type());
+        assertEquals(3, secondPage.getTotalElements());
+        assertEquals(2, secondPage.getTotalPages());
+        assertEquals(1, secondPage.getNumberOfElements());
+    }
+
+    @Test
+    @DisplayName("Committed creates, updates and deletes keep the index current")
+    void writeEventsKeepIndexCurrent() throws Exception {
+        // When
+        Student created = studentRepository.save(Student.builder()
+                .firstName("Alan")
+                .lastName("Turing")
+                .emailId("alan.turing@example.com")
+                .build());
+        courseService.updateCourseTitle(dataStructures.getCourseId(), "Algorithms");
+
+        // Then: the course was read without its lazy description and is re-indexed in the background
+        assertEquals(List.of(created.getStudentId()), ids(search("turing", ALL_TYPES)));
+        awaitTrue(() -> ids(search("algorithms", ALL_TYPES)).equals(List.of(dataStructures.getCourseId())));
+        assertTrue(search("structures", ALL_TYPES).isEmpty());
+        assertEquals(List.of(dataStructures.getCourseId()), ids(search("graphs", ALL_TYPES)));
+
+        // When
+        studentRepository.deleteById(created.getStudentId());
+        courseRepository.deleteById(programming.getCourseId());
+
+        // Then
+        assertTrue(search("turing", ALL_TYPES).isEmpty());
+        assertTrue(search("cs101", ALL_TYPES).isEmpty());
+    }
+
+    @Test
+    @DisplayName("The search endpoint pages hits and rejects blank queries")
+    void searchEndpoint() throws Exception {
+        mockMvc.perform(get("/api/search").param("q", "Computer").param("type", "DEPARTMENT", "COURSE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].type").value("DEPARTMENT"))
+                .andExpect(jsonPath("$.content[0].label").value("Computer Science"));
+        mockMvc.perform(get("/api/search").param("q", " "))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Page<SearchHit> search(String query, Set<SearchHit.Type> types) {
+        return searchIndex.search(query, types, PageRequest.of(0, 10));
+    }
+
+    private static List<Long> ids(Page<SearchHit> hits) {
+        return hits.stream().map(SearchHit::id).toList();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition met in time");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.entity.Department;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.repository.CourseRepository;
+import com.example.springdatajpa.repository.DepartmentRepository;
+import com.example.springdatajpa.repository.EnrollmentRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import com.example.springdatajpa.service.CourseService;
+import com.example.springdatajpa.service.DepartmentService;
+import com.example.springdatajpa.service.EnrollmentService;
+import com.example.springdatajpa.service.StudentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Search Result Cache Tests")
+class SearchResultCacheTest {
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private DepartmentService departmentService;
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Course course;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        courseRepository.deleteAll();
+        studentRepository.deleteAll();
+        departmentRepository.deleteAll();
+
+        Department department = departmentRepository.save(Department.builder()
+                .departmentName("Search Sciences")
+                .departmentCode("SRCH")
+                .departmentType(Department.DepartmentType.SCIENCE)
+                .build());
+        course = courseRepository.save(Course.builder()
+                .title("Search Algorithms")
+                .courseCode("SRC101")
+                .description("Indexes, ranking and retrieval")
+                .creditHours(new BigDecimal("3.0"))
+                .courseLevel(Course.CourseLevel.ADVANCED)
+                .department(department)
+                .build());
+        studentService.createStudent(student("Alice", "alice.search@example.com"));
+    }
+
+    @Test
+    @DisplayName("Repeated searches with equivalent parameters are served from the cache")
+    void equivalentSearchesHitTheCache() {
+        // Given
+        List<Student> first = studentService.searchStudents("ALI", null, "", null, null, null);
+        double hits = requests("students", "hit");
+
+        // When
+        List<Student> second = studentService.searchStudents("ali", null, null, null, null, null);
+
+        // Then
+        assertEquals(1, first.size());
+        assertEquals(first.get(0).getStudentId(), second.get(0).getStudentId());
+        assertEquals(hits + 1, requests("students", "hit"));
+        assertTrue(searchResultCache.hitRatio("students") > 0);
+    }
+
+    @Test
+    @DisplayName("Commits invalidate only searches over the changed entity type")
+    void commitsInvalidateByEntityType() {
+        // Given
+        Student alice = studentService.searchStudents("ali", null, null, null, null, null).get(0);
+        double misses = requests("students", "miss");
+
+        // When: an enrollment commit leaves cached student searches alone
+        enrollmentService.enrollStudentInCourse(alice.getStudentId(), course.getCourseId(), "Fall 2024", 2024);
+        studentService.searchStudents("ali", null, null, null, null, null);
+
+        // Then
+        assertEquals(misses, requests("students", "miss"));
+
+        // When: a new student is committed
+        studentService.createStudent(student("Alina", "alina.search@example.com"));
+
+        // Then
+        assertEquals(2, studentService.searchStudents("ali", null, null, null, null, null).size());
+        assertEquals(misses + 1, requests("students", "miss"));
+    }
+
+    @Test
+    @DisplayName("Searches inside a read-write transaction bypass the cache")
+    void uncommittedWritesAreNeverCached() {
+        // Given
+        transactionTemplate.executeWithoutResult(status -> {
+            studentRepository.save(student("Alison", "alison.search@example.com"));
+            assertEquals(2, studentService.searchStudents("ali", null, null, null, null, null).size());
+            status.setRollbackOnly();
+        });
+
+        // When / Then
+        assertEquals(1, studentService.searchStudents("ali", null, null, null, null, null).size());
+    }
+
+    @Test
+    @DisplayName("Course and department searches are cached and invalidated on commit")
+    void courseAndDepartmentSearches() {
+        assertEquals(List.of(course.getCourseId()),
+                courseService.searchCourses("RETRIEVAL").stream().map(Course::getCourseId).toList());
+        assertEquals(1, departmentService.searchDepartments("Search").size());
+
+        courseService.updateCourseTitle(course.getCourseId(), "Information Retrieval");
+        assertEquals("Information Retrieval", courseService.searchCourses("retrieval").get(0).getTitle());
+
+        departmentService.createDepartment(Department.builder()
+                .departmentName("Search Engineering")
+                .departmentCode("SENG")
+                .departmentType(Department.DepartmentType.ENGINEERING)
+                .build());
+        assertEquals(2, departmentService.searchDepartments("Search").size());
+    }
+
+    private double requests(String endpoint, String result) {
+        return meterRegistry.get("search.cache.requests").tag("endpoint", endpoint).tag("result", result).counter().count();
+    }
+
+    private static Student student(String firstName, String email) {
+        return Student.builder()
+                .firstName(firstName)
+                .lastName("Searcher")
+                .emailId(email)
+                .build();
+    }
+}
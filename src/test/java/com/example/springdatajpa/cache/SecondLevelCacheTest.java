@@ -0,0 +1,158 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.entity.Department;
+import com.example.springdatajpa.repository.CourseRepository;
+import com.example.springdatajpa.repository.DepartmentRepository;
+import com.example.springdatajpa.repository.EnrollmentRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import com.example.springdatajpa.service.CourseService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Second-Level Cache Tests")
+class SecondLevelCacheTest {
+
+    private static final String DEPARTMENT_COURSES_ROLE = Department.class.getName() + ".courses";
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Department department;
+    private Course course;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        courseRepository.deleteAll();
+        studentRepository.deleteAll();
+        departmentRepository.deleteAll();
+        cache().evictAllRegions();
+
+        department = departmentRepository.save(department("L2A"));
+        course = courseRepository.save(Course.builder()
+                .title("Cached Course")
+                .courseCode("L2C101")
+                .creditHours(new BigDecimal("3.0"))
+                .courseLevel(Course.CourseLevel.BEGINNER)
+                .department(department)
+                .build());
+        cache().evictAllRegions();
+    }
+
+    @Test
+    @DisplayName("Departments and courses are served from their regions after the first load")
+    void entitiesAreCached() {
+        // Given
+        double hitsBefore = hits(Department.CACHE_REGION);
+        departmentRepository.findById(department.getDepartmentId());
+        courseRepository.findById(course.getCourseId());
+
+        // When
+        assertTrue(cache().containsEntity(Department.class, department.getDepartmentId()));
+        assertTrue(cache().containsEntity(Course.class, course.getCourseId()));
+        departmentRepository.findById(department.getDepartmentId());
+
+        // Then
+        assertEquals(hitsBefore + 1, hits(Department.CACHE_REGION));
+    }
+
+    @Test
+    @DisplayName("Department course lists are cached and evicted when a course moves department")
+    void departmentCoursesAreCachedAndEvicted() {
+        // Given
+        Department target = departmentRepository.save(department("L2B"));
+        assertEquals(Integer.valueOf(1), transactionTemplate.execute(status ->
+                departmentRepository.findById(department.getDepartmentId()).orElseThrow().getCourses().size()));
+        assertTrue(cache().containsCollection(DEPARTMENT_COURSES_ROLE, department.getDepartmentId()));
+
+        // When
+        courseService.transferCourseToDepartment(course.getCourseId(), target.getDepartmentId());
+
+        // Then
+        assertEquals(Integer.valueOf(0), transactionTemplate.execute(status ->
+                departmentRepository.findById(department.getDepartmentId()).orElseThrow().getCourses().size()));
+    }
+
+    @Test
+    @DisplayName("Bulk JPQL updates evict the department region")
+    void bulkUpdatesEvict() {
+        // Given
+        departmentRepository.findById(department.getDepartmentId());
+        assertTrue(cache().containsEntity(Department.class, department.getDepartmentId()));
+
+        // When
+        transactionTemplate.executeWithoutResult(status -> {
+            departmentRepository.deactivateDepartment(department.getDepartmentId());
+            departmentRepository.updateHeadOfDepartment(department.getDepartmentId(), "Dr. Bulk");
+        });
+
+        // Then
+        assertFalse(cache().containsEntity(Department.class, department.getDepartmentId()));
+        Department reloaded = departmentRepository.findById(department.getDepartmentId()).orElseThrow();
+        assertFalse(reloaded.getIsActive());
+        assertEquals("Dr. Bulk", reloaded.getHeadOfDepartment());
+    }
+
+    @Test
+    @DisplayName("Hit, miss and eviction counts are exposed per region")
+    void regionMetricsAreExposed() {
+        for (String region : new String[]{Department.CACHE_REGION, Course.CACHE_REGION, Department.COURSES_CACHE_REGION}) {
+            assertNotNull(meterRegistry.find("cache.gets").tag("cache", region).tag("result", "hit").functionCounter());
+            assertNotNull(meterRegistry.find("cache.gets").tag("cache", region).tag("result", "miss").functionCounter());
+            assertNotNull(meterRegistry.find("cache.evictions").tag("cache", region).functionCounter());
+        }
+    }
+
+    private double hits(String region) {
+        return meterRegistry.get("cache.gets").tag("cache", region).tag("result", "hit").functionCounter().count();
+    }
+
+    private org.hibernate.Cache cache() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+
+    private static Department department(String code) {
+        return Department.builder()
+                .departmentName("Department " + code)
+                .departmentCode(code)
+                .departmentType(Department.DepartmentType.SCIENCE)
+                .isActive(true)
+                .build();
+    }
+}
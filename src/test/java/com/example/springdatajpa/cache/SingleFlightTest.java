@@ -0,0 +1,231 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.repository.CourseRepository;
+import com.example.springdatajpa.repository.DepartmentRepository;
+import com.example.springdatajpa.repository.EnrollmentRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import com.example.springdatajpa.service.StudentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Single-Flight Tests")
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    @Autowired
+    private SlowLookup slowLookup;
+
+    @Autowired
+    private SingleFlightAspect singleFlightAspect;
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        slowLookup.reset();
+        enrollmentRepository.deleteAll();
+        courseRepository.deleteAll();
+        studentRepository.deleteAll();
+        departmentRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Concurrent calls with equal arguments share one execution")
+    void concurrentCallsAreCollapsed() throws Exception {
+        // Given
+        long collapsedBefore = singleFlightAspect.collapsedCalls("slow-lookup");
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(callers.submit(() -> slowLookup.lookup("key")));
+            }
+
+            // When: every follower is waiting on the leader before it finishes
+            awaitCollapsed(collapsedBefore + CALLERS - 1);
+            slowLookup.release();
+
+            // Then
+            for (Future<String> result : results) {
+                assertEquals("value-1", result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, slowLookup.executions());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Different arguments and finished flights execute again")
+    void differentArgumentsAreNotShared() {
+        slowLookup.release();
+
+        assertEquals("value-1", slowLookup.lookup("a"));
+        assertEquals("value-2", slowLookup.lookup("b"));
+        assertEquals("value-3", slowLookup.lookup("a"));
+    }
+
+    @Test
+    @DisplayName("A failing leader hands its exception to every waiting caller")
+    void failuresAreShared() throws Exception {
+        // Given
+        long collapsedBefore = singleFlightAspect.collapsedCalls("slow-lookup");
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = callers.submit(() -> slowLookup.lookup("fail"));
+            Future<String> follower = callers.submit(() -> slowLookup.lookup("fail"));
+
+            // When
+            awaitCollapsed(collapsedBefore + 1);
+            slowLookup.release();
+
+            // Then
+            for (Future<String> call : List.of(leader, follower)) {
+                ExecutionException e = assertThrows(ExecutionException.class, () -> call.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(IllegalArgumentException.class, e.getCause());
+            }
+            assertEquals(1, slowLookup.executions());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Callers inside a read-write transaction execute the method themselves")
+    void readWriteTransactionsBypass() {
+        // Given
+        double leadersBefore = leaders("slow-lookup");
+        slowLookup.release();
+
+        // When
+        transactionTemplate.executeWithoutResult(status -> slowLookup.lookup("tx"));
+
+        // Then
+        assertEquals(1, slowLookup.executions());
+        assertEquals(leadersBefore, leaders("slow-lookup"));
+    }
+
+    @Test
+    @DisplayName("Student statistics are computed through a designated flight")
+    void studentStatisticsUseSingleFlight() {
+        // Given
+        studentRepository.save(Student.builder().firstName("Ada").lastName("Flight").emailId("ada.flight@example.com").build());
+        studentRepository.save(Student.builder().firstName("Bob").lastName("Flight").emailId("bob.flight@example.com")
+                .isActive(false).build());
+        long leadersBefore = (long) leaders("student-stats");
+
+        // When
+        Map<String, Object> stats = studentService.getStudentStatistics();
+        studentService.getStudentEnrollmentStatistics();
+
+        // Then
+        assertEquals(2, stats.get("totalStudents"));
+        assertEquals(1L, stats.get("activeStudents"));
+        assertEquals(1L, stats.get("inactiveStudents"));
+        assertThrows(UnsupportedOperationException.class, () -> stats.put("totalStudents", 0));
+        assertEquals(leadersBefore + 1, (long) leaders("student-stats"));
+        assertTrue(leaders("student-enrollment-stats") >= 1);
+    }
+
+    private void awaitCollapsed(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (singleFlightAspect.collapsedCalls("slow-lookup") < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, singleFlightAspect.collapsedCalls("slow-lookup"));
+    }
+
+    private double leaders(String flight) {
+        var counter = meterRegistry.find("single.flight.calls").tag("key", flight).tag("role", "leader").counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    @TestConfiguration
+    static class SlowLookupConfig {
+
+        @Bean
+        SlowLookup slowLookup() {
+            return new SlowLookup();
+        }
+    }
+
+    static class SlowLookup {
+
+        private final AtomicInteger executions = new AtomicInteger();
+        private volatile CountDownLatch gate = new CountDownLatch(1);
+
+        @SingleFlight("slow-lookup")
+        public String lookup(String key) {
+            int execution = executions.incrementAndGet();
+            try {
+                if (!gate.await(5, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("Gate never opened");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            if (key.equals("fail")) {
+                throw new IllegalArgumentException("Lookup failed");
+            }
+            return "value-" + execution;
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        void reset() {
+            executions.set(0);
+            gate = new CountDownLatch(1);
+        }
+
+        int executions() {
+            return executions.get();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.springdatajpa.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Stale-While-Revalidate Cache Tests")
+class StaleWhileRevalidateCacheTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private ManualClock clock;
+    private ManualExecutor executor;
+    private StaleWhileRevalidateCache cache;
+    private AtomicInteger computations;
+
+    @BeforeEach
+    void setUp() {
+        clock = new ManualClock();
+        executor = new ManualExecutor();
+        cache = new StaleWhileRevalidateCache(new SimpleMeterRegistry(), Duration.ofSeconds(10), Duration.ofMinutes(5),
+                clock, executor);
+        computations = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("Values younger than the soft TTL are served without recomputation")
+    void freshValuesAreServed() {
+        // Given
+        assertEquals(1, cache.get("stats", computations::incrementAndGet).value());
+
+        // When
+        clock.advance(Duration.ofSeconds(9));
+        StaleWhileRevalidateCache.AgedValue<Integer> cached = cache.get("stats", computations::incrementAndGet);
+
+        // Then
+        assertEquals(1, cached.value());
+        assertEquals(Duration.ofSeconds(9), cached.age());
+        assertTrue(executor.tasks.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Past the soft TTL the stale value is served while a refresh runs in the background")
+    void staleValuesAreRevalidated() {
+        // Given
+        cache.get("stats", computations::incrementAndGet);
+        clock.advance(Duration.ofSeconds(30));
+
+        // When
+        StaleWhileRevalidateCache.AgedValue<Integer> stale = cache.get("stats", computations::incrementAndGet);
+        cache.get("stats", computations::incrementAndGet);
+
+        // Then: both callers got the old value, and only one refresh was scheduled
+        assertEquals(1, stale.value());
+        assertEquals(Duration.ofSeconds(30), stale.age());
+        assertEquals(1, executor.tasks.size());
+
+        executor.runAll();
+        StaleWhileRevalidateCache.AgedValue<Integer> refreshed = cache.get("stats", computations::incrementAndGet);
+        assertEquals(2, refreshed.value());
+        assertEquals(Duration.ZERO, refreshed.age());
+    }
+
+    @Test
+    @DisplayName("Past the hard TTL the caller waits for a new value")
+    void expiredValuesAreRecomputed() {
+        // Given
+        cache.get("stats", computations::incrementAndGet);
+        clock.advance(Duration.ofMinutes(6));
+
+        // When / Then
+        assertEquals(2, cache.get("stats", computations::incrementAndGet).value());
+        assertTrue(executor.tasks.isEmpty());
+    }
+
+    @Test
+    @DisplayName("A failed background refresh keeps serving the previous value")
+    void failedRefreshKeepsValue() {
+        // Given
+        cache.get("stats", computations::incrementAndGet);
+        clock.advance(Duration.ofSeconds(30));
+
+        // When
+        cache.get("stats", () -> {
+            throw new IllegalStateException("Aggregate failed");
+        });
+        executor.runAll();
+
+        // Then
+        assertEquals(1, cache.get("stats", computations::incrementAndGet).value());
+        assertThrows(IllegalArgumentException.class, () -> new StaleWhileRevalidateCache(new SimpleMeterRegistry(),
+                Duration.ofMinutes(1), Duration.ofSeconds(1), clock, executor));
+    }
+
+    @Test
+    @DisplayName("A rejected background refresh keeps the previous value and does not block later refreshes")
+    void rejectedRefreshIsRetried() {
+        // Given
+        cache.get("stats", computations::incrementAndGet);
+        clock.advance(Duration.ofSeconds(30));
+        executor.rejecting = true;
+
+        // When
+        StaleWhileRevalidateCache.AgedValue<Integer> stale = cache.get("stats", computations::incrementAndGet);
+
+        // Then
+        assertEquals(1, stale.value());
+        executor.rejecting = false;
+        cache.get("stats", computations::incrementAndGet);
+        assertEquals(1, executor.tasks.size());
+        executor.runAll();
+        assertEquals(2, cache.get("stats", computations::incrementAndGet).value());
+    }
+
+    @Test
+    @DisplayName("Statistics endpoints report the age of their response")
+    void statsEndpointsReportAge() throws Exception {
+        for (String path : List.of("/api/students/stats", "/api/courses/stats", "/api/departments/stats")) {
+            MockHttpServletResponse response = mockMvc.perform(get(path)).andReturn().getResponse();
+            assertEquals(200, response.getStatus());
+            assertTrue(Long.parseLong(response.getHeader(HttpHeaders.AGE)) >= 0, path);
+        }
+    }
+
+    private static class ManualClock extends Clock {
+
+        private Instant now = Instant.parse("2024-09-01T08:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private static class ManualExecutor extends AbstractExecutorService {
+
+        private final Deque<Runnable> tasks = new ArrayDeque<>();
+        private boolean rejecting;
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.poll().run();
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            if (rejecting) {
+                throw new RejectedExecutionException("Refresh queue full");
+            }
+            tasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.dto.StudentSummaryRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Footprint and GC pause comparison of the off-heap student summary store against an on-heap
+ * {@code ConcurrentHashMap}. Not part of the regular build; run with
+ * {@code mvn test -Dtest=StudentSummaryStoreBenchmarkTest -Dbenchmark=true [-Dbenchmark.records=1000000]}.
+ *
+ * <p>For each structure it loads the records and reports the retained heap, the direct memory
+ * reserved, the duration of a full collection with the structure live, and the time the
+ * collectors spent while the application churns through short-lived garbage and point lookups.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Student Summary Store Benchmark")
+class StudentSummaryStoreBenchmarkTest {
+
+    private static final int RECORDS = Integer.getInteger("benchmark.records", 1_000_000);
+    private static final int CHURN_ROUNDS = 5_000_000;
+
+    private static volatile byte[] sink;
+
+    @Test
+    @DisplayName("Off-heap store versus ConcurrentHashMap")
+    void compareWithConcurrentHashMap() {
+        long baseline = usedHeapAfterGc();
+
+        Map<Long, StudentSummaryRecord> map = new ConcurrentHashMap<>();
+        for (long id = 1; id <= RECORDS; id++) {
+            map.put(id, summary(id));
+        }
+        Result onHeap = measure("ConcurrentHashMap", baseline, 0, id -> Optional.ofNullable(map.get(id)));
+        map.clear();
+
+        baseline = usedHeapAfterGc();
+        OffHeapStudentSummaries store = new OffHeapStudentSummaries();
+        for (long id = 1; id <= RECORDS; id++) {
+            store.put(summary(id));
+        }
+        Result offHeap = measure("OffHeapStudentSummaries", baseline, store.offHeapBytes(), store::get);
+
+        System.out.printf("%n%,d student summaries%n", RECORDS);
+        System.out.printf("%-24s %12s %12s %14s %16s%n", "structure", "heap MiB", "direct MiB", "full GC ms",
+                "churn GC ms");
+        for (Result result : new Result[]{onHeap, offHeap}) {
+            System.out.printf("%-24s %12.1f %12.1f %14d %16d%n", result.name(), result.heapBytes() / 1048576.0,
+                    result.directBytes() / 1048576.0, result.fullGcMillis(), result.churnGcMillis());
+        }
+        assertTrue(offHeap.heapBytes() < onHeap.heapBytes());
+    }
+
+    private static Result measure(String name, long baseline, long directBytes,
+                                  LongFunction<Optional<StudentSummaryRecord>> lookup) {
+        long heapBytes = Math.max(0, usedHeapAfterGc() - baseline);
+        long fullGcMillis = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            System.gc();
+            fullGcMillis = Math.min(fullGcMillis, (System.nanoTime() - start) / 1_000_000);
+        }
+        long gcBefore = gcMillis();
+        long found = 0;
+        for (int i = 0; i < CHURN_ROUNDS; i++) {
+            long id = 1 + (i * 7919L) % RECORDS;
+            found += lookup.apply(id).map(summary -> summary.emailId().length()).orElse(0);
+            // Short-lived garbage, as request handling would produce; published so it is really allocated
+            sink = new byte[256];
+        }
+        assertTrue(found > 0);
+        return new Result(name, heapBytes, directBytes, fullGcMillis, gcMillis() - gcBefore);
+    }
+
+    private static StudentSummaryRecord summary(long id) {
+        return new StudentSummaryRecord(id, "First" + id, "Last" + id, "student" + id + "@example.com",
+                "STU" + id, BigDecimal.valueOf(id % 401, 2));
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime)
+                .sum();
+    }
+
+    private record Result(String name, long heapBytes, long directBytes, long fullGcMillis, long churnGcMillis) {
+    }
+}
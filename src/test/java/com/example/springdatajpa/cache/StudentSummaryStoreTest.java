@@ -0,0 +1,180 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.dto.StudentSummaryRecord;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.repository.EnrollmentRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import com.example.springdatajpa.service.StudentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Student Summary Store Tests")
+class StudentSummaryStoreTest {
+
+    @Autowired
+    private StudentSummaryStore store;
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Student active;
+    private Student inactive;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        studentRepository.deleteAll();
+        active = studentRepository.save(Student.builder()
+                .firstName("Zoë")
+                .lastName("Summary")
+                .emailId("zoe.summary@example.com")
+                .studentIdNumber("SUM-0001")
+                .gpa(new BigDecimal("3.75"))
+                .build());
+        inactive = studentRepository.save(Student.builder()
+                .firstName("Ivan")
+                .lastName("Inactive")
+                .emailId("ivan.inactive@example.com")
+                .isActive(false)
+                .build());
+        store.reload();
+    }
+
+    @Test
+    @DisplayName("A reload holds exactly the active students")
+    void reloadHoldsActiveStudents() {
+        assertTrue(store.isLoaded());
+        assertEquals(1, store.size());
+        assertEquals(Optional.of(new StudentSummaryRecord(active.getStudentId(), "Zoë", "Summary",
+                "zoe.summary@example.com", "SUM-0001", new BigDecimal("3.75"))), store.get(active.getStudentId()));
+        assertTrue(store.get(inactive.getStudentId()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Committed creates, updates, deactivations and deletes keep the store current")
+    void writeEventsKeepStoreCurrent() {
+        // When
+        Student created = studentRepository.save(Student.builder()
+                .firstName("Nina")
+                .lastName("New")
+                .emailId("nina.new@example.com")
+                .build());
+        active.setLastName("Renamed");
+        active.setGpa(null);
+        studentRepository.save(active);
+        inactive.setIsActive(true);
+        studentRepository.save(inactive);
+
+        // Then
+        assertEquals("Nina", store.get(created.getStudentId()).orElseThrow().firstName());
+        assertEquals("Renamed", store.get(active.getStudentId()).orElseThrow().lastName());
+        assertNull(store.get(active.getStudentId()).orElseThrow().gpa());
+        assertTrue(store.get(inactive.getStudentId()).isPresent());
+
+        // When
+        inactive.setIsActive(false);
+        studentRepository.save(inactive);
+        studentRepository.deleteById(created.getStudentId());
+
+        // Then
+        assertTrue(store.get(inactive.getStudentId()).isEmpty());
+        assertTrue(store.get(created.getStudentId()).isEmpty());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    @DisplayName("The summary endpoint serves active students and 404s the rest")
+    void summaryEndpoint() throws Exception {
+        mockMvc.perform(get("/api/students/{id}/summary", active.getStudentId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.studentIdNumber").value("SUM-0001"))
+                .andExpect(jsonPath("$.gpa").value(3.75));
+        mockMvc.perform(get("/api/students/{id}/summary", inactive.getStudentId()))
+                .andExpect(status().isNotFound());
+        assertTrue(studentService.getStudentSummary(-1L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("A reload picks up changes made without events")
+    void reloadReplacesContents() {
+        // Given
+        jdbcTemplate.update("UPDATE tbl_student SET first_name = 'Out Of Band' WHERE student_id = ?",
+                active.getStudentId());
+
+        // When
+        store.reload();
+
+        // Then
+        assertEquals("Out Of Band", store.get(active.getStudentId()).orElseThrow().firstName());
+    }
+
+    @Test
+    @DisplayName("Random puts and removes match a HashMap, across index resizes and arena compaction")
+    void recordsMatchHashMapModel() {
+        OffHeapStudentSummaries records = new OffHeapStudentSummaries();
+        Map<Long, StudentSummaryRecord> model = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 60_000; i++) {
+            long studentId = 1 + random.nextInt(20_000);
+            if (random.nextInt(4) == 0) {
+                assertEquals(model.remove(studentId) != null, records.remove(studentId));
+            } else {
+                put(records, model, new StudentSummaryRecord(studentId, "First" + i, "Last",
+                        "student" + i + "@example.com", random.nextBoolean() ? null : "STU" + i,
+                        BigDecimal.valueOf(random.nextInt(401), 2)));
+            }
+        }
+        // 80 MB of rewritten strings for 100 students: compaction must keep the arena small
+        String padding = "x".repeat(4_000);
+        for (int i = 0; i < 20_000; i++) {
+            put(records, model, new StudentSummaryRecord(1L + i % 100, "First" + i, padding, null, null, null));
+        }
+
+        assertEquals(model.size(), records.size());
+        model.forEach((studentId, summary) -> assertEquals(Optional.of(summary), records.get(studentId)));
+        assertTrue(records.offHeapBytes() < 40L * 1024 * 1024, "arena was compacted");
+        Map<Long, StudentSummaryRecord> iterated = new HashMap<>();
+        records.forEach(summary -> iterated.put(summary.studentId(), summary));
+        assertEquals(model, iterated);
+    }
+
+    private static void put(OffHeapStudentSummaries records, Map<Long, StudentSummaryRecord> model,
+                            StudentSummaryRecord summary) {
+        records.put(summary);
+        model.put(summary.studentId(), summary);
+    }
+}
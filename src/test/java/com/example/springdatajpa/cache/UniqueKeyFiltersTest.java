@@ -0,0 +1,139 @@
+package com.example.springdatajpa.cache;
+
+import com.example.springdatajpa.entity.Department;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.repository.CourseRepository;
+import com.example.springdatajpa.repository.DepartmentRepository;
+import com.example.springdatajpa.repository.EnrollmentRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import com.example.springdatajpa.service.DepartmentService;
+import com.example.springdatajpa.service.StudentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Unique Key Filters Tests")
+class UniqueKeyFiltersTest {
+
+    @Autowired
+    private UniqueKeyFilters uniqueKeyFilters;
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private DepartmentService departmentService;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        courseRepository.deleteAll();
+        studentRepository.deleteAll();
+        departmentRepository.deleteAll();
+        studentRepository.save(student("existing@example.com", "KEY-0001"));
+        uniqueKeyFilters.rebuild();
+    }
+
+    @Test
+    @DisplayName("New keys skip the existence query; existing ones are still rejected")
+    void newKeysSkipQuery() {
+        // Given
+        double absent = checks("student.email", "absent");
+
+        // When
+        studentService.createStudent(student("new@example.com", "KEY-0002"));
+
+        // Then
+        assertEquals(absent + 1, checks("student.email", "absent"));
+        assertThrows(IllegalArgumentException.class,
+                () -> studentService.createStudent(student("new@example.com", "KEY-0003")));
+        // Case and blanks are ignored, as in a case-insensitive collation; the query decides
+        assertTrue(uniqueKeyFilters.exists(UniqueKeyFilters.Key.STUDENT_EMAIL, " NEW@example.com", email -> true));
+        assertThrows(IllegalArgumentException.class,
+                () -> studentService.createStudent(student("other@example.com", "KEY-0001")));
+        assertThrows(IllegalArgumentException.class,
+                () -> studentService.createStudentsBatch(List.of(student("batch@example.com", null),
+                        student("existing@example.com", null))));
+    }
+
+    @Test
+    @DisplayName("Keys written behind the application's back are found after a rebuild")
+    void rebuildStreamsKeyColumns() {
+        // Given
+        jdbcTemplate.update("INSERT INTO tbl_department (department_id, department_name, department_code, "
+                + "department_type, is_active) VALUES (-1, 'Out Of Band', 'OOB', 'SCIENCE', true)");
+        assertFalse(uniqueKeyFilters.exists(UniqueKeyFilters.Key.DEPARTMENT_CODE, "OOB", code -> true));
+
+        // When
+        uniqueKeyFilters.rebuild();
+
+        // Then
+        assertTrue(uniqueKeyFilters.isBuilt(UniqueKeyFilters.Key.DEPARTMENT_CODE));
+        assertThrows(IllegalArgumentException.class, () -> departmentService.createDepartment(Department.builder()
+                .departmentName("Duplicate")
+                .departmentCode("OOB")
+                .departmentType(Department.DepartmentType.SCIENCE)
+                .build()));
+    }
+
+    @Test
+    @DisplayName("Bloom filter has no false negatives and about the configured false-positive rate")
+    void bloomFilterRates() {
+        BloomFilter filter = new BloomFilter(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            filter.add("student" + i + "@example.com");
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(filter.mightContain("student" + i + "@example.com"));
+            if (filter.mightContain("applicant" + i + "@example.com")) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 1_500, "false positives: " + falsePositives);
+        assertEquals(0.01, filter.expectedFalsePositiveRate(), 0.003);
+        assertTrue(filter.sizeInBytes() < 130_000);
+    }
+
+    private double checks(String key, String result) {
+        return meterRegistry.get("unique.key.filter.checks").tags("key", key, "result", result).counter().count();
+    }
+
+    private static Student student(String emailId, String studentIdNumber) {
+        return Student.builder()
+                .firstName("Key")
+                .lastName("Filter")
+                .emailId(emailId)
+                .studentIdNumber(studentIdNumber)
+                .build();
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.springdatajpa.config;
+
+import com.example.springdatajpa.cache.StudentSummaryStore;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.repository.EnrollmentRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Lazy Connection DataSource Tests")
+class LazyConnectionDataSourceTest {
+
+    private static final String SUMMARY_URI = "/api/students/{id}/summary";
+    private static final String STUDENTS_URI = "/api/students";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private StudentSummaryStore studentSummaryStore;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Student student;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        enrollmentRepository.deleteAll();
+        studentRepository.deleteAll();
+        student = studentRepository.save(Student.builder()
+                .firstName("Lazy")
+                .lastName("Connection")
+                .emailId("lazy.connection@example.com")
+                .build());
+        // The summary store loads in the background after startup; until then summaries are queried
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!studentSummaryStore.isLoaded()) {
+            assertTrue(System.nanoTime() < deadline, "student summaries loaded");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    @DisplayName("The pool is wrapped in a lazy connection proxy and still exposes Hikari")
+    void poolIsWrapped() throws Exception {
+        assertInstanceOf(LazyConnectionDataSourceProxy.class, dataSource);
+        assertNotNull(dataSource.unwrap(HikariDataSource.class));
+    }
+
+    @Test
+    @DisplayName("A read answered from a cache opens a transaction but never checks out a connection")
+    void cachedReadDoesNotTouchPool() throws Exception {
+        // Given
+        mockMvc.perform(get(SUMMARY_URI, student.getStudentId())).andExpect(status().isOk());
+        double requested = total(SUMMARY_URI, "requested");
+        double checkedOut = total(SUMMARY_URI, "checked-out");
+
+        // When
+        mockMvc.perform(get(SUMMARY_URI, student.getStudentId())).andExpect(status().isOk());
+
+        // Then
+        assertTrue(total(SUMMARY_URI, "requested") > requested);
+        assertEquals(checkedOut, total(SUMMARY_URI, "checked-out"));
+    }
+
+    @Test
+    @DisplayName("A read that runs SQL checks out one connection")
+    void queryChecksOutConnection() throws Exception {
+        // Given
+        double checkedOut = total(STUDENTS_URI, "checked-out");
+
+        // When
+        mockMvc.perform(get(STUDENTS_URI)).andExpect(status().isOk());
+
+        // Then
+        assertEquals(checkedOut + 1, total(STUDENTS_URI, "checked-out"));
+    }
+
+    private double total(String uri, String kind) {
+        DistributionSummary summary = meterRegistry.find("db.connections.per.request")
+                .tags("uri", uri, "kind", kind)
+                .summary();
+        return summary == null ? 0 : summary.totalAmount();
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.springdatajpa.controller;
+
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.entity.Department;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.repository.CourseRepository;
+import com.example.springdatajpa.repository.DepartmentRepository;
+import com.example.springdatajpa.repository.EnrollmentRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import com.example.springdatajpa.service.CourseService;
+import com.example.springdatajpa.service.EnrollmentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Conditional GET Tests")
+class ConditionalGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Department department;
+    private Course course;
+    private Student student;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        courseRepository.deleteAll();
+        studentRepository.deleteAll();
+        departmentRepository.deleteAll();
+
+        department = departmentRepository.save(Department.builder()
+                .departmentName("Conditional Department")
+                .departmentCode("CND")
+                .departmentType(Department.DepartmentType.SCIENCE)
+                .build());
+        course = courseRepository.save(Course.builder()
+                .title("Conditional Course")
+                .courseCode("CND101")
+                .creditHours(new BigDecimal("3.0"))
+                .courseLevel(Course.CourseLevel.BEGINNER)
+                .department(department)
+                .build());
+        student = studentRepository.save(Student.builder()
+                .firstName("Etag")
+                .lastName("Holder")
+                .emailId("etag.holder@example.com")
+                .build());
+    }
+
+    @Test
+    @DisplayName("A matching If-None-Match is answered with 304 and no body")
+    void matchingETagIsNotModified() throws Exception {
+        // Given
+        MockHttpServletResponse first = perform(get("/api/courses/{id}", course.getCourseId()), 200);
+        String eTag = first.getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+        assertFalse(eTag.startsWith("W/"));
+        assertNotNull(first.getHeader(HttpHeaders.LAST_MODIFIED));
+
+        // When
+        MockHttpServletResponse second = perform(get("/api/courses/{id}", course.getCourseId())
+                .header(HttpHeaders.IF_NONE_MATCH, eTag), 304);
+
+        // Then
+        assertEquals(0, second.getContentAsByteArray().length);
+        assertEquals(eTag, second.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    @DisplayName("If-Modified-Since with the returned Last-Modified is answered with 304")
+    void unmodifiedSinceIsNotModified() throws Exception {
+        String lastModified = perform(get("/api/departments/{id}", department.getDepartmentId()), 200)
+                .getHeader(HttpHeaders.LAST_MODIFIED);
+
+        perform(get("/api/departments/{id}", department.getDepartmentId())
+                .header(HttpHeaders.IF_MODIFIED_SINCE, lastModified), 304);
+    }
+
+    @Test
+    @DisplayName("A change to an embedded entity changes the ETag of the embedding one")
+    void embeddedChangesChangeETag() throws Exception {
+        // Given
+        String courseETag = eTag(get("/api/courses/{id}", course.getCourseId()));
+        String studentETag = eTag(get("/api/students/{id}", student.getStudentId()));
+
+        // When: the department shown inside the course changes through a bulk update
+        transactionTemplate.executeWithoutResult(status ->
+                departmentRepository.updateHeadOfDepartment(department.getDepartmentId(), "Dr. Conditional"));
+        enrollmentService.enrollStudentInCourse(student.getStudentId(), course.getCourseId(), "Fall 2024", 2024);
+
+        // Then
+        perform(get("/api/courses/{id}", course.getCourseId()).header(HttpHeaders.IF_NONE_MATCH, courseETag), 200);
+        perform(get("/api/students/{id}", student.getStudentId()).header(HttpHeaders.IF_NONE_MATCH, studentETag), 200);
+    }
+
+    @Test
+    @DisplayName("Catalog listings carry one ETag per content coding and are invalidated by commits")
+    void catalogListingsAreConditional() throws Exception {
+        // Given
+        String plain = eTag(get("/api/courses"));
+        String gzip = eTag(get("/api/courses").header(HttpHeaders.ACCEPT_ENCODING, "gzip"));
+        assertNotEquals(plain, gzip);
+
+        // When / Then
+        MockHttpServletResponse notModified = perform(get("/api/courses").header(HttpHeaders.IF_NONE_MATCH, plain), 304);
+        assertEquals(0, notModified.getContentAsByteArray().length);
+
+        courseService.updateCourseTitle(course.getCourseId(), "Renamed Course");
+        perform(get("/api/courses").header(HttpHeaders.IF_NONE_MATCH, plain), 200);
+    }
+
+    @Test
+    @DisplayName("Unknown entities are not found without a version")
+    void unknownEntityIsNotFound() throws Exception {
+        MockHttpServletResponse response = perform(get("/api/courses/{id}", -1L), 404);
+        assertNull(response.getHeader(HttpHeaders.ETAG));
+    }
+
+    private String eTag(MockHttpServletRequestBuilder request) throws Exception {
+        return perform(request, 200).getHeader(HttpHeaders.ETAG);
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequestBuilder request, int expectedStatus) throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(request).andReturn().getResponse();
+        assertEquals(expectedStatus, response.getStatus());
+        return response;
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.springdatajpa.entity;
+
+import com.example.springdatajpa.repository.CourseRepository;
+import com.example.springdatajpa.repository.DepartmentRepository;
+import com.example.springdatajpa.repository.EnrollmentRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnitUtil;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Entity Lazy Loading Tests")
+class EntityLazyLoadingTest {
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Long studentId;
+    private Long courseId;
+    private Long departmentId;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        courseRepository.deleteAll();
+        studentRepository.deleteAll();
+        departmentRepository.deleteAll();
+
+        Department department = departmentRepository.save(Department.builder()
+                .departmentName("Lazy Loading Department")
+                .departmentCode("LZY")
+                .departmentType(Department.DepartmentType.SCIENCE)
+                .build());
+        Course course = courseRepository.save(Course.builder()
+                .title("Lazy Loading 101")
+                .courseCode("LZY101")
+                .description("A long description that listings should never load")
+                .creditHours(new BigDecimal("3.0"))
+                .courseLevel(Course.CourseLevel.BEGINNER)
+                .department(department)
+                .build());
+        Student student = studentRepository.save(Student.builder()
+                .firstName("Lazy")
+                .lastName("Loader")
+                .emailId("lazy.loader@example.com")
+                .studentIdNumber("LZY001")
+                .admissionDate(LocalDate.of(2023, 9, 1))
+                .build());
+        enrollmentRepository.save(Enrollment.builder()
+                .student(student)
+                .course(course)
+                .semester("Fall 2024")
+                .academicYear(2024)
+                .enrollmentDate(LocalDate.of(2024, 9, 1))
+                .build());
+
+        studentId = student.getStudentId();
+        courseId = course.getCourseId();
+        departmentId = department.getDepartmentId();
+    }
+
+    @Test
+    @DisplayName("equals, hashCode and toString never initialize lazy collections")
+    void identityMethodsDoNotLoadCollections() {
+        PersistenceUnitUtil unitUtil = entityManagerFactory.getPersistenceUnitUtil();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Student student = studentRepository.findById(studentId).orElseThrow();
+            Department department = departmentRepository.findById(departmentId).orElseThrow();
+            Course course = courseRepository.findById(courseId).orElseThrow();
+
+            Set<Object> entities = new HashSet<>(List.of(student, department, course));
+            assertTrue(entities.contains(studentRepository.getReferenceById(studentId)));
+            assertFalse(student.toString().isEmpty());
+            assertFalse(department.toString().isEmpty());
+            assertFalse(course.toString().isEmpty());
+
+            assertFalse(unitUtil.isLoaded(student, "enrollments"));
+            assertFalse(unitUtil.isLoaded(department, "courses"));
+            assertFalse(unitUtil.isLoaded(course, "enrollments"));
+        });
+    }
+
+    @Test
+    @DisplayName("Course description is fetched only on first access")
+    void courseDescriptionIsLazy() {
+        PersistenceUnitUtil unitUtil = entityManagerFactory.getPersistenceUnitUtil();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Course course = courseRepository.findAll().get(0);
+            assertFalse(unitUtil.isLoaded(course, "description"));
+
+            assertEquals("A long description that listings should never load", course.getDescription());
+            assertTrue(unitUtil.isLoaded(course, "description"));
+        });
+    }
+
+    @Test
+    @DisplayName("Course listings are served without reading any description")
+    void courseListingsSkipDescriptions() throws Exception {
+        // Given
+        Department department = departmentRepository.findById(departmentId).orElseThrow();
+        for (int i = 2; i <= 6; i++) {
+            courseRepository.save(Course.builder()
+                    .title("Lazy Loading " + i + "01")
+                    .courseCode("LZY" + i + "01")
+                    .description("Another description listings should never load")
+                    .creditHours(new BigDecimal("3.0"))
+                    .courseLevel(Course.CourseLevel.BEGINNER)
+                    .department(department)
+                    .build());
+        }
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        // When / Then: the courses and their department, however many courses there are
+        mockMvc.perform(get("/api/courses/department/{departmentId}", departmentId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(6))
+                .andExpect(jsonPath("$[0].description").doesNotExist());
+        assertTrue(statistics.getPrepareStatementCount() <= 2,
+                statistics.getPrepareStatementCount() + " statements for the listing");
+
+        // When / Then: a single course still comes with its description
+        mockMvc.perform(get("/api/courses/{id}", courseId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.courseCode").value("LZY101"))
+                .andExpect(jsonPath("$.description").value("A long description that listings should never load"));
+    }
+
+    @Test
+    @DisplayName("Transient entities are only equal to themselves")
+    void transientEntitiesUseInstanceEquality() {
+        Student first = Student.builder().firstName("Same").lastName("Name").emailId("same@example.com").build();
+        Student second = Student.builder().firstName("Same").lastName("Name").emailId("same@example.com").build();
+
+        assertEquals(first, first);
+        assertNotEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.springdatajpa.repository;
 
+import com.example.springdatajpa.dto.CourseRosterEntry;
 import com.example.springdatajpa.entity.Course;
 import com.example.springdatajpa.entity.Department;
 import com.example.springdatajpa.entity.Enrollment;
@@ -842,6 +843,46 @@ class EnrollmentRepositoryTest {
         assertEquals(2025, enrollments2025.get(0).getAcademicYear());
     }
 
+    @Test
+    @DisplayName("Find Course Roster (Projection Query)")
+    void findCourseRoster() {
+        // Given
+        enrollmentRepository.save(testEnrollment);
+        
+        Enrollment secondEnrollment = Enrollment.builder()
+                .student(testStudent2)
+                .course(testCourse1)
+                .enrollmentDate(LocalDate.now())
+                .semester("Fall 2024")
+                .academicYear(2024)
+                .enrollmentStatus(Enrollment.EnrollmentStatus.ACTIVE)
+                .build();
+        enrollmentRepository.save(secondEnrollment);
+        
+        Enrollment otherTerm = Enrollment.builder()
+                .student(testStudent2)
+                .course(testCourse1)
+                .enrollmentDate(LocalDate.now())
+                .semester("Spring 2025")
+                .academicYear(2025)
+                .enrollmentStatus(Enrollment.EnrollmentStatus.ACTIVE)
+                .build();
+        enrollmentRepository.save(otherTerm);
+        
+        // When
+        Page<CourseRosterEntry> firstPage = enrollmentRepository.findCourseRoster(
+                testCourse1.getCourseId(), "Fall 2024", 2024, PageRequest.of(0, 1));
+        Page<CourseRosterEntry> secondPage = enrollmentRepository.findCourseRoster(
+                testCourse1.getCourseId(), "Fall 2024", 2024, PageRequest.of(1, 1));
+        
+        // Then - ordered by last name: Doe before Smith
+        assertEquals(2, firstPage.getTotalElements());
+        assertEquals("Doe", firstPage.getContent().get(0).lastName());
+        assertEquals(testStudent1.getEmailId(), firstPage.getContent().get(0).emailId());
+        assertEquals("Smith", secondPage.getContent().get(0).lastName());
+        assertEquals(Enrollment.EnrollmentStatus.ACTIVE, secondPage.getContent().get(0).enrollmentStatus());
+    }
+
     @Test
     @DisplayName("Test Unique Constraint on Student-Course-Semester-Year")
     void testUniqueConstraint() {
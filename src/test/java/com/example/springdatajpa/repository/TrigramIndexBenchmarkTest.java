@@ -0,0 +1,146 @@
+package com.example.springdatajpa.repository;
+
+import com.example.springdatajpa.entity.SearchTrigram;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Substring search over students through the trigram index against the plain {@code LIKE} scan.
+ * Not part of the regular build; run with
+ * {@code mvn test -Dtest=TrigramIndexBenchmarkTest -Dbenchmark=true [-Dbenchmark.students=1000000]}.
+ *
+ * <p>The students are written with plain SQL into a file-based H2 database and indexed by the
+ * startup backfill. For each search it reports the matches, the candidates the index returned
+ * ("scan" when the pattern cannot use it) and the best of five runs of each strategy; both must
+ * return the same ids.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Trigram Index Benchmark")
+class TrigramIndexBenchmarkTest {
+
+    private static final int STUDENTS = Integer.getInteger("benchmark.students", 1_000_000);
+    private static final int RUNS = 5;
+    private static final String[] FIRST_NAMES = {"James", "Mary", "Robert", "Patricia", "John", "Jennifer", "Michael",
+            "Linda", "David", "Elizabeth", "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas",
+            "Sarah", "Charles", "Karen", "Amara", "Chen", "Dmitri", "Fatima", "Giulia", "Hiroshi", "Ingrid", "Jamal",
+            "Kwame", "Lucía", "Mateo", "Nadia", "Oluwaseun", "Priya", "Quentin", "Rania", "Sven", "Thandiwe",
+            "Umar", "Valentina"};
+    private static final String[] LAST_NAMES = {"Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller",
+            "Davis", "Rodriguez", "Martinez", "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas",
+            "Taylor", "Moore", "Jackson", "Martin", "Lee", "Perez", "Thompson", "White", "Harris", "Sanchez", "Clark",
+            "Ramirez", "Lewis", "Robinson", "Walker", "Young", "Allen", "King", "Wright", "Scott", "Torres",
+            "Nguyen", "Hill", "Flores"};
+
+    @TempDir
+    static Path databaseDirectory;
+
+    @DynamicPropertySource
+    static void benchmarkProperties(DynamicPropertyRegistry registry) {
+        // On disk, since the trigram rows of a million students do not fit a default heap
+        registry.add("spring.datasource.url", () -> "jdbc:h2:file:" + databaseDirectory.resolve("benchmark"));
+        registry.add("spring.jpa.show-sql", () -> "false");
+    }
+
+    @Autowired
+    private TrigramIndex trigramIndex;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Trigram candidates versus LIKE scan")
+    void compareWithScan() {
+        long start = System.nanoTime();
+        insertStudents();
+        long inserted = System.nanoTime();
+        trigramIndex.backfill();
+        long indexed = System.nanoTime();
+        System.out.printf("%n%,d students inserted in %,d ms, indexed in %,d ms (%,d trigram rows)%n", STUDENTS,
+                (inserted - start) / 1_000_000, (indexed - inserted) / 1_000_000,
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tbl_search_trigram", Long.class));
+
+        System.out.printf("%-34s %10s %12s %10s %12s%n", "search", "matches", "candidates", "scan ms", "trigram ms");
+        compare("last name 'ramire'", null, "ramire", null);
+        compare("email '314159'", null, null, "314159");
+        compare("first name 'ngrid' + email '.77'", "ngrid", null, ".77");
+        compare("email 'oluwaseun.nguyen'", null, null, "oluwaseun.nguyen");
+        compare("email 'xyz' (no match)", null, null, "xyz");
+        compare("last name 'son' (too common)", null, "son", null);
+        compare("first name 'an' (too short)", "an", null, null);
+    }
+
+    private void compare(String label, String firstName, String lastName, String email) {
+        Map<SearchTrigram.Source, String> patterns = new EnumMap<>(SearchTrigram.Source.class);
+        patterns.put(SearchTrigram.Source.STUDENT_FIRST_NAME, firstName);
+        patterns.put(SearchTrigram.Source.STUDENT_LAST_NAME, lastName);
+        patterns.put(SearchTrigram.Source.STUDENT_EMAIL, email);
+        Supplier<List<Long>> scan = () -> studentRepository.searchStudentIds(firstName, lastName, email, null, null, null);
+        AtomicReference<Optional<Collection<Long>>> candidates = new AtomicReference<>();
+        Supplier<List<Long>> trigram = () -> {
+            candidates.set(trigramIndex.candidatesForAll(patterns));
+            return candidates.get()
+                    .map(ids -> ids.isEmpty() ? List.<Long>of()
+                            : studentRepository.searchStudentIdsAmong(ids, firstName, lastName, email, null, null, null))
+                    .orElseGet(scan);
+        };
+        List<Long> expected = scan.get();
+        assertEquals(expected, trigram.get(), label);
+        System.out.printf("%-34s %10d %12s %10.1f %12.1f%n", label, expected.size(),
+                candidates.get().map(ids -> String.valueOf(ids.size())).orElse("scan"), bestMillis(scan), bestMillis(trigram));
+    }
+
+    private static double bestMillis(Supplier<List<Long>> search) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            search.get();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1_000_000.0;
+    }
+
+    private void insertStudents() {
+        List<Object[]> batch = new ArrayList<>();
+        for (long id = 1_000_000_000L; id < 1_000_000_000L + STUDENTS; id++) {
+            String firstName = FIRST_NAMES[(int) (id % FIRST_NAMES.length)];
+            String lastName = LAST_NAMES[(int) (id / FIRST_NAMES.length % LAST_NAMES.length)];
+            batch.add(new Object[]{id, firstName, lastName,
+                    (firstName + "." + lastName + "." + (id - 1_000_000_000L)).toLowerCase() + "@example.edu"});
+            if (batch.size() == 10_000) {
+                insert(batch);
+            }
+        }
+        insert(batch);
+    }
+
+    private void insert(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("INSERT INTO tbl_student (student_id, first_name, last_name, email_address, "
+                + "is_active, student_status) VALUES (?, ?, ?, ?, TRUE, 'ACTIVE')", batch);
+        batch.clear();
+    }
+}
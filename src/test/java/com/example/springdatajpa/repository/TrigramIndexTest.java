@@ -0,0 +1,230 @@
+package com.example.springdatajpa.repository;
+
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.entity.Department;
+import com.example.springdatajpa.entity.SearchTrigram;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.event.EntityChangedEvent;
+import com.example.springdatajpa.service.CourseService;
+import com.example.springdatajpa.service.StudentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Trigram Index Tests")
+class TrigramIndexTest {
+
+    @Autowired
+    private TrigramIndex trigramIndex;
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private Student ana;
+    private Student hannah;
+    private Course course;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        courseRepository.deleteAll();
+        studentRepository.deleteAll();
+        departmentRepository.deleteAll();
+
+        ana = studentRepository.save(student("Ana", "Müller", "ana.mueller@example.com"));
+        hannah = studentRepository.save(student("Hannah", "Banana", "hannah.b@example.com"));
+        Department department = departmentRepository.save(Department.builder()
+                .departmentName("Trigram Department")
+                .departmentCode("TRI")
+                .departmentType(Department.DepartmentType.SCIENCE)
+                .build());
+        course = courseRepository.save(Course.builder()
+                .title("Information Retrieval")
+                .courseCode("IR401")
+                .description("Inverted files, n-gram indexes and ranking")
+                .creditHours(new BigDecimal("3.0"))
+                .courseLevel(Course.CourseLevel.ADVANCED)
+                .department(department)
+                .build());
+        trigramIndex.backfill();
+    }
+
+    @Test
+    @DisplayName("Trigrams are distinct, upper-cased and accent-free")
+    void trigramsAreFolded() {
+        assertEquals(TrigramIndex.trigrams("MULLER"), TrigramIndex.trigrams("Müller"));
+        assertEquals(2, TrigramIndex.trigrams("anan").size());
+        assertTrue(TrigramIndex.trigrams("an").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Candidates narrow to the entities holding every trigram of the pattern")
+    void candidatesHoldAllTrigrams() {
+        assertEquals(Optional.of(Set.of(hannah.getStudentId())), candidates(SearchTrigram.Source.STUDENT_LAST_NAME, "anan"));
+        assertEquals(Optional.of(Set.of(ana.getStudentId())), candidates(SearchTrigram.Source.STUDENT_LAST_NAME, "MULL"));
+        assertEquals(Optional.of(Set.of()), candidates(SearchTrigram.Source.STUDENT_FIRST_NAME, "xyz"));
+
+        // Too short for a trigram, or LIKE wildcards: the search scans
+        assertTrue(candidates(SearchTrigram.Source.STUDENT_FIRST_NAME, "an").isEmpty());
+        assertTrue(candidates(SearchTrigram.Source.STUDENT_EMAIL, "ana%example").isEmpty());
+        assertTrue(trigramIndex.candidatesForAny("IR4", SearchTrigram.Source.COURSE_TITLE,
+                SearchTrigram.Source.COURSE_CODE).orElseThrow().contains(course.getCourseId()));
+    }
+
+    @Test
+    @DisplayName("Searches through the index find what the LIKE scan finds")
+    void searchesMatchScan() {
+        double indexed = meterRegistry.get("search.trigram.lookups").tag("outcome", "indexed").counter().count();
+
+        assertEquals(List.of(hannah.getStudentId()), ids(studentService.searchStudents(null, "NANA", null, null, null, null)));
+        assertEquals(List.of(ana.getStudentId(), hannah.getStudentId()),
+                ids(studentService.searchStudents(null, null, "@example", null, null, null)));
+        assertEquals(List.of(ana.getStudentId()), ids(studentService.searchStudents("an", null, "mue", null, null, null)));
+        assertTrue(studentService.searchStudents("Hannah", "Müller", null, null, null, null).isEmpty());
+        assertEquals(List.of(course.getCourseId()),
+                courseService.searchCourses("gram").stream().map(Course::getCourseId).toList());
+
+        assertEquals(indexed + 5, meterRegistry.get("search.trigram.lookups").tag("outcome", "indexed").counter().count());
+        assertEquals(studentRepository.searchStudentIds(null, null, "ample", null, null, null),
+                ids(studentService.searchStudents(null, null, "ample", null, null, null)));
+    }
+
+    @Test
+    @DisplayName("Committed creates, updates and deletes replace the entity's trigrams; rollbacks leave them")
+    void writesMaintainTrigrams() {
+        // When
+        Student created = studentRepository.save(student("Zed", "Quixote", "zed.q@example.com"));
+        hannah.setLastName("Cherry");
+        studentRepository.save(hannah);
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            Student loaded = studentRepository.findById(ana.getStudentId()).orElseThrow();
+            loaded.setLastName("Rolledback");
+            studentRepository.saveAndFlush(loaded);
+            throw new IllegalStateException("roll back");
+        }));
+
+        // Then
+        assertEquals(Optional.of(Set.of(created.getStudentId())), candidates(SearchTrigram.Source.STUDENT_LAST_NAME, "quix"));
+        assertEquals(Optional.of(Set.of()), candidates(SearchTrigram.Source.STUDENT_LAST_NAME, "banana"));
+        assertEquals(Optional.of(Set.of(hannah.getStudentId())), candidates(SearchTrigram.Source.STUDENT_LAST_NAME, "err"));
+        assertEquals(Optional.of(Set.of()), candidates(SearchTrigram.Source.STUDENT_LAST_NAME, "rolledback"));
+        assertEquals(Optional.of(Set.of(ana.getStudentId())), candidates(SearchTrigram.Source.STUDENT_LAST_NAME, "muller"));
+
+        // When: the course is loaded without its lazy description, which keeps its trigrams
+        courseService.updateCourseTitle(course.getCourseId(), "Search Engines");
+        studentRepository.deleteById(created.getStudentId());
+
+        // Then
+        assertEquals(List.of(course.getCourseId()),
+                courseService.searchCourses("engine").stream().map(Course::getCourseId).toList());
+        assertEquals(List.of(course.getCourseId()),
+                courseService.searchCourses("inverted").stream().map(Course::getCourseId).toList());
+        assertEquals(0, count("SELECT COUNT(*) FROM tbl_search_trigram WHERE entity_id = ? AND source LIKE 'STUDENT%'",
+                created.getStudentId()));
+    }
+
+    @Test
+    @DisplayName("Updates only rewrite the trigrams of the properties they change")
+    void updatesRewriteChangedSourcesOnly() {
+        // Given: rows a rewrite of the student would put back
+        jdbcTemplate.update("DELETE FROM tbl_search_trigram WHERE entity_id = ?", ana.getStudentId());
+
+        // When: GPA and status change, and the event a bulk GPA update publishes
+        Student loaded = studentRepository.findById(ana.getStudentId()).orElseThrow();
+        loaded.setGpa(new BigDecimal("3.50"));
+        loaded.setStudentStatus(Student.StudentStatus.GRADUATED);
+        studentRepository.save(loaded);
+        eventPublisher.publishEvent(new EntityChangedEvent(Student.class, loaded, EntityChangedEvent.ChangeType.UPDATED));
+
+        // Then
+        assertEquals(0, count("SELECT COUNT(*) FROM tbl_search_trigram WHERE entity_id = ?", ana.getStudentId()));
+
+        // When
+        loaded = studentRepository.findById(ana.getStudentId()).orElseThrow();
+        loaded.setFirstName("Annika");
+        studentRepository.save(loaded);
+
+        // Then
+        assertEquals(TrigramIndex.trigrams("Annika").size(),
+                count("SELECT COUNT(*) FROM tbl_search_trigram WHERE entity_id = ?", ana.getStudentId()));
+        assertEquals(Optional.of(Set.of(ana.getStudentId())), candidates(SearchTrigram.Source.STUDENT_FIRST_NAME, "nik"));
+    }
+
+    @Test
+    @DisplayName("The backfill indexes rows written with plain SQL")
+    void backfillIndexesUnindexedRows() {
+        // Given
+        jdbcTemplate.update("DELETE FROM tbl_search_trigram WHERE entity_id = ?", ana.getStudentId());
+        assertEquals(Optional.of(Set.of()), candidates(SearchTrigram.Source.STUDENT_EMAIL, "mueller"));
+
+        // When
+        trigramIndex.backfill();
+
+        // Then
+        assertEquals(Optional.of(Set.of(ana.getStudentId())), candidates(SearchTrigram.Source.STUDENT_EMAIL, "mueller"));
+        assertEquals(TrigramIndex.trigrams("Ana").size(),
+                count("SELECT COUNT(*) FROM tbl_search_trigram WHERE entity_id = ? AND source = 'STUDENT_FIRST_NAME'",
+                        ana.getStudentId()));
+    }
+
+    private Optional<Set<Long>> candidates(SearchTrigram.Source source, String pattern) {
+        return trigramIndex.candidatesForAll(Map.of(source, pattern)).map(Set::copyOf);
+    }
+
+    private long count(String sql, Object... arguments) {
+        return jdbcTemplate.queryForObject(sql, Long.class, arguments);
+    }
+
+    private static List<Long> ids(Collection<Student> students) {
+        return students.stream().map(Student::getStudentId).toList();
+    }
+
+    private static Student student(String firstName, String lastName, String emailId) {
+        return Student.builder().firstName(firstName).lastName(lastName).emailId(emailId).build();
+    }
+}
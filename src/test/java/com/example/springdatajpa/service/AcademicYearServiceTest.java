@@ -0,0 +1,243 @@
+package com.example.springdatajpa.service;
+
+import com.example.springdatajpa.dto.AcademicYearStatistics;
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.entity.Department;
+import com.example.springdatajpa.entity.Enrollment;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.event.EntityChangedEvent;
+import com.example.springdatajpa.repository.ClosedAcademicYearRepository;
+import com.example.springdatajpa.repository.CourseRepository;
+import com.example.springdatajpa.repository.DepartmentRepository;
+import com.example.springdatajpa.repository.EnrollmentRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Academic Year Service Tests")
+class AcademicYearServiceTest {
+
+    @Autowired
+    private AcademicYearService academicYearService;
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private ClosedAcademicYearRepository closedAcademicYearRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Student ada;
+    private Student alan;
+    private Course course;
+    private Enrollment graded;
+
+    @BeforeEach
+    void setUp() {
+        closedAcademicYearRepository.deleteAll();
+        enrollmentRepository.deleteAll();
+        courseRepository.deleteAll();
+        studentRepository.deleteAll();
+        departmentRepository.deleteAll();
+
+        Department department = departmentRepository.save(Department.builder()
+                .departmentName("Archive Department")
+                .departmentCode("ARC")
+                .departmentType(Department.DepartmentType.SCIENCE)
+                .build());
+        course = courseRepository.save(Course.builder()
+                .title("Archive Course")
+                .courseCode("ARC101")
+                .creditHours(new BigDecimal("3.0"))
+                .courseLevel(Course.CourseLevel.BEGINNER)
+                .department(department)
+                .build());
+        Course other = courseRepository.save(Course.builder()
+                .title("Other Archive Course")
+                .courseCode("ARC102")
+                .creditHours(new BigDecimal("3.0"))
+                .courseLevel(Course.CourseLevel.BEGINNER)
+                .department(department)
+                .build());
+        ada = studentRepository.save(student("Ada", "Lovelace"));
+        alan = studentRepository.save(student("Alan", "Turing"));
+
+        graded = enroll(ada, course, "Fall 2023", 2023, Enrollment.EnrollmentStatus.COMPLETED, "A", "4.0");
+        enroll(ada, other, "Fall 2023", 2023, Enrollment.EnrollmentStatus.COMPLETED, "B", "3.0");
+        enroll(alan, course, "Fall 2023", 2023, Enrollment.EnrollmentStatus.FAILED, "F", "0.0");
+        enroll(alan, course, "Fall 2024", 2024, Enrollment.EnrollmentStatus.ACTIVE, null, null);
+    }
+
+    @Test
+    @DisplayName("A closed year is served from its snapshot while the live table changes")
+    void closedYearIsFrozen() {
+        // Given
+        AcademicYearStatistics closed = academicYearService.closeYear(2023);
+        assertEquals(2L, closed.courses().get(0).enrollmentCount());
+        assertEquals(50.0, closed.courses().get(0).passRate(), 0.001);
+
+        // When: changes the application cannot see, to both years, announced as a bulk update would be
+        jdbcTemplate.update("UPDATE tbl_enrollment SET grade_points = 1.0");
+        eventPublisher.publishEvent(EntityChangedEvent.bulk(Enrollment.class));
+
+        // Then
+        assertTrue(academicYearService.isClosed(2023));
+        assertEquals(closed.courses(), enrollmentService.getCourseStatistics(2023));
+        assertEquals(closed.studentPerformance(), enrollmentService.getTopStudentsByGrade(2023));
+        assertEquals(3.5, enrollmentService.getTopStudentsByGrade(2023).get(0).averageGrade(), 0.001);
+        assertEquals(List.of(new AcademicYearStatistics.StudentActivity("Ada", "Lovelace", 2L)),
+                enrollmentService.getTopEnrolledStudents(2023, 1));
+        assertFalse(academicYearService.isClosed(2024));
+        assertEquals(1.0, enrollmentService.getCourseStatistics(2024).get(0).averageGrade(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Enrollments of a closed year cannot change until it is re-opened")
+    void closedYearRejectsWrites() {
+        // Given
+        academicYearService.closeYear(2023);
+
+        // When / Then
+        assertThrows(IllegalStateException.class,
+                () -> enrollmentService.updateGrade(graded.getEnrollmentId(), "B", new BigDecimal("3.0")));
+        assertThrows(IllegalStateException.class,
+                () -> enrollmentService.enrollStudentInCourse(alan.getStudentId(), course.getCourseId(), "Spring 2023", 2023));
+        assertThrows(IllegalStateException.class, () -> enrollmentService.deleteEnrollment(graded.getEnrollmentId()));
+
+        // When
+        academicYearService.reopenYear(2023);
+        jdbcTemplate.update("UPDATE tbl_enrollment SET grade_points = 1.0");
+        eventPublisher.publishEvent(EntityChangedEvent.bulk(Enrollment.class));
+
+        // Then
+        assertFalse(academicYearService.isClosed(2023));
+        assertEquals(1.0, enrollmentService.getCourseStatistics(2023).get(0).averageGrade(), 0.001);
+        assertEquals("B", enrollmentService.updateGrade(graded.getEnrollmentId(), "B", new BigDecimal("3.0")).getGrade());
+        assertThrows(IllegalArgumentException.class, () -> academicYearService.reopenYear(2023));
+    }
+
+    @Test
+    @DisplayName("Writes to enrollments of a closed year are answered with 409 Conflict")
+    void closedYearWritesConflict() throws Exception {
+        // Given
+        academicYearService.closeYear(2023);
+
+        // When / Then
+        mockMvc.perform(put("/api/enrollments/{id}/grade", graded.getEnrollmentId())
+                        .param("grade", "B")
+                        .param("gradePoints", "3.0"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(delete("/api/enrollments/{id}", graded.getEnrollmentId()))
+                .andExpect(status().isConflict());
+        mockMvc.perform(post("/api/enrollments/enroll")
+                        .param("studentId", alan.getStudentId().toString())
+                        .param("courseId", course.getCourseId().toString())
+                        .param("semester", "Spring 2023")
+                        .param("academicYear", "2023"))
+                .andExpect(status().isConflict());
+        assertEquals("A", enrollmentRepository.findById(graded.getEnrollmentId()).orElseThrow().getGrade());
+    }
+
+    @Test
+    @DisplayName("A year with active enrollments, or one already closed, cannot be closed")
+    void closingRequiresFinishedYear() {
+        assertThrows(IllegalStateException.class, () -> academicYearService.closeYear(2024));
+        academicYearService.closeYear(2023);
+        assertThrows(IllegalStateException.class, () -> academicYearService.closeYear(2023));
+    }
+
+    @Test
+    @DisplayName("Closed years are served immutable with a long max-age, open years must be revalidated")
+    void statisticsEndpointsSetCacheControl() throws Exception {
+        mockMvc.perform(get("/api/academic-years/{year}/statistics/courses", 2023))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"));
+
+        mockMvc.perform(post("/api/academic-years/{year}/close", 2023))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.academicYear").value(2023));
+        mockMvc.perform(post("/api/academic-years/{year}/close", 2023))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(get("/api/academic-years/{year}/statistics/most-active-students", 2023).param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "max-age=31536000, public, immutable"))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].firstName").value("Ada"));
+        mockMvc.perform(get("/api/academic-years/{year}/statistics/student-performance", 2024))
+                .andExpect(header().string("Cache-Control", "no-cache"));
+
+        mockMvc.perform(post("/api/academic-years/{year}/reopen", 2023))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(post("/api/academic-years/{year}/reopen", 2023))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/academic-years/{year}/statistics/courses", 2023))
+                .andExpect(header().string("Cache-Control", "no-cache"));
+    }
+
+    private static Student student(String firstName, String lastName) {
+        return Student.builder()
+                .firstName(firstName)
+                .lastName(lastName)
+                .emailId(firstName.toLowerCase() + ".archive@example.com")
+                .build();
+    }
+
+    private Enrollment enroll(Student student, Course course, String semester, int year,
+                              Enrollment.EnrollmentStatus status, String grade, String gradePoints) {
+        return enrollmentRepository.save(Enrollment.builder()
+                .student(student)
+                .course(course)
+                .semester(semester)
+                .academicYear(year)
+                .enrollmentDate(LocalDate.of(year, 9, 1))
+                .enrollmentStatus(status)
+                .grade(grade)
+                .gradePoints(gradePoints != null ? new BigDecimal(gradePoints) : null)
+                .build());
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.springdatajpa.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Duration and recall of duplicate detection over synthetic students. Not part of the regular
+ * build; run with
+ * {@code mvn test -Dtest=DuplicateStudentMatcherBenchmarkTest -Dbenchmark=true [-Dbenchmark.students=1000000]}.
+ *
+ * <p>Names are drawn from small pools so that blocks are realistically crowded; one student in a
+ * hundred is registered a second time with a typo in the name, another email and, half the time,
+ * without a guardian. The pairs a full pairwise comparison would make are reported for scale.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Duplicate Student Matcher Benchmark")
+class DuplicateStudentMatcherBenchmarkTest {
+
+    private static final int STUDENTS = Integer.getInteger("benchmark.students", 1_000_000);
+    private static final String[] FIRST_NAMES = {"james", "mary", "robert", "patricia", "john", "jennifer", "michael",
+            "linda", "david", "elizabeth", "william", "barbara", "richard", "susan", "joseph", "jessica", "thomas",
+            "sarah", "charles", "karen", "daniel", "lisa", "matthew", "nancy", "anthony", "betty", "mark", "sandra"};
+    private static final String SYLLABLES = "ba be bi bo ka ke ko la le li lo ma me mi mo na ne ni ra re ri ro sa se so ta te to";
+
+    @Test
+    @DisplayName("Blocked parallel detection over synthetic students")
+    void detectDuplicates() {
+        Random random = new Random(42);
+        String[] syllables = SYLLABLES.split(" ");
+        List<DuplicateStudentMatcher.StudentRow> rows = new ArrayList<>(STUDENTS);
+        Set<List<Long>> planted = new HashSet<>();
+        long id = 0;
+        while (rows.size() < STUDENTS) {
+            String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String last = syllables[random.nextInt(syllables.length)] + syllables[random.nextInt(syllables.length)]
+                    + syllables[random.nextInt(syllables.length)] + "son";
+            LocalDate born = LocalDate.of(1995, 1, 1).plusDays(random.nextInt(3650));
+            String mobile = String.valueOf(2_000_000_000L + random.nextInt(1_000_000_000));
+            long original = ++id;
+            rows.add(DuplicateStudentMatcher.StudentRow.of(original, first, last, first + "." + last + original + "@example.com",
+                    born, mobile));
+            if (random.nextInt(100) == 0) {
+                long duplicate = ++id;
+                int typo = 1 + random.nextInt(last.length() - 1);
+                String misspelled = last.substring(0, typo) + last.substring(typo + 1);
+                rows.add(DuplicateStudentMatcher.StudentRow.of(duplicate, first, misspelled, first + duplicate + "@example.org",
+                        born, random.nextBoolean() ? mobile : null));
+                planted.add(List.of(original, duplicate));
+            }
+        }
+        DuplicateStudentMatcher matcher = new DuplicateStudentMatcher(0.85, 1000, Runtime.getRuntime().availableProcessors());
+
+        long start = System.nanoTime();
+        DuplicateStudentMatcher.Result result = matcher.match(rows, (a, b) -> false);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        long found = result.matches().stream()
+                .filter(match -> planted.contains(List.of(match.studentId(), match.otherStudentId())))
+                .count();
+        System.out.printf("%n%,d students: %,d blocks (%,d too large), %,d comparisons instead of %,d, %,d ms%n",
+                rows.size(), result.blocks(), result.oversizedBlocks(), result.comparisons(),
+                (long) rows.size() * (rows.size() - 1) / 2, millis);
+        System.out.printf("%,d candidates, %,d of %,d planted duplicates found (%.1f%%)%n", result.matches().size(),
+                found, planted.size(), 100.0 * found / planted.size());
+        assertTrue(found > planted.size() * 0.9);
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.springdatajpa.service;
+
+import com.example.springdatajpa.dto.DuplicateDetectionRun;
+import com.example.springdatajpa.dto.DuplicateStudentPair;
+import com.example.springdatajpa.entity.DuplicateCandidate;
+import com.example.springdatajpa.entity.Guardian;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.repository.DuplicateCandidateRepository;
+import com.example.springdatajpa.repository.EnrollmentRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Duplicate Student Service Tests")
+class DuplicateStudentServiceTest {
+
+    private static final LocalDate BIRTHDAY = LocalDate.of(2004, 5, 17);
+
+    @Autowired
+    private DuplicateStudentService duplicateStudentService;
+
+    @Autowired
+    private DuplicateCandidateRepository duplicateCandidateRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Student catherine;
+    private Student kathryn;
+    private Student steven;
+    private Student stephen;
+
+    @BeforeEach
+    void setUp() {
+        duplicateCandidateRepository.deleteAll();
+        enrollmentRepository.deleteAll();
+        studentRepository.deleteAll();
+
+        // The same person twice: misspelled name, other email, same birthday and guardian
+        catherine = student("Catherine", "Johnson", "catherine.johnson@example.com", BIRTHDAY, "+1 555-010-0420");
+        kathryn = student("Kathryn", "Jonson", "kathryn.jonson@example.com", BIRTHDAY, "(555) 010 0420");
+        // Her brother: same guardian, other name and birthday
+        student("Michael", "Johnson", "michael.johnson@example.com", LocalDate.of(2007, 1, 3), "+1 555-010-0420");
+        // The same person without a guardian on record
+        steven = student("Steven", "Smith", "steven.smith@example.com", BIRTHDAY, null);
+        stephen = student("Stephen", "Smith", "stephen.smith@example.org", BIRTHDAY, null);
+        // A namesake born on another day
+        student("Steven", "Smith", "s.smith@example.com", LocalDate.of(1999, 2, 2), null);
+    }
+
+    @Test
+    @DisplayName("A run reports pairs that agree on name and other evidence, and not relatives or namesakes")
+    void detectsDuplicates() {
+        // When
+        DuplicateDetectionRun run = duplicateStudentService.detect();
+
+        // Then
+        assertEquals(DuplicateDetectionRun.State.COMPLETED, run.state());
+        assertEquals(6, run.students());
+        assertEquals(2, run.candidates());
+        List<DuplicateStudentPair> report = report(DuplicateCandidate.Status.PENDING);
+        assertEquals(Set.of(Set.of(catherine.getStudentId(), kathryn.getStudentId()),
+                Set.of(steven.getStudentId(), stephen.getStudentId())), pairs(report));
+        DuplicateStudentPair johnsons = report.stream()
+                .filter(pair -> pair.student().studentId().equals(catherine.getStudentId())).findFirst().orElseThrow();
+        assertEquals("DATE_OF_BIRTH,GUARDIAN_MOBILE", johnsons.matchedOn());
+        assertEquals("Kathryn", johnsons.otherStudent().firstName());
+        assertTrue(johnsons.score() >= 0.85);
+    }
+
+    @Test
+    @DisplayName("Reviewed pairs are kept across runs and not reported again")
+    void reviewedPairsAreKept() {
+        // Given
+        duplicateStudentService.detect();
+        DuplicateStudentPair smiths = report(DuplicateCandidate.Status.PENDING).stream()
+                .filter(pair -> pair.student().studentId().equals(steven.getStudentId())).findFirst().orElseThrow();
+
+        // When
+        duplicateStudentService.review(smiths.candidateId(), DuplicateCandidate.Status.DISMISSED);
+        DuplicateDetectionRun rerun = duplicateStudentService.detect();
+
+        // Then
+        assertEquals(1, rerun.candidates());
+        assertEquals(Set.of(Set.of(catherine.getStudentId(), kathryn.getStudentId())),
+                pairs(report(DuplicateCandidate.Status.PENDING)));
+        assertEquals(List.of(smiths.candidateId()), report(DuplicateCandidate.Status.DISMISSED).stream()
+                .map(DuplicateStudentPair::candidateId).toList());
+        assertThrows(IllegalArgumentException.class,
+                () -> duplicateStudentService.review(smiths.candidateId(), DuplicateCandidate.Status.PENDING));
+    }
+
+    @Test
+    @DisplayName("Soundex and Jaro-Winkler give their reference values")
+    void matcherReferenceValues() {
+        assertEquals("R163", DuplicateStudentMatcher.soundex("robert"));
+        assertEquals("R163", DuplicateStudentMatcher.soundex("rupert"));
+        assertEquals("A261", DuplicateStudentMatcher.soundex("ashcraft"));
+        assertEquals("T522", DuplicateStudentMatcher.soundex("tymczak"));
+        assertEquals("P236", DuplicateStudentMatcher.soundex("pfister"));
+        assertEquals("L000", DuplicateStudentMatcher.soundex("lee"));
+        assertEquals(0.961, DuplicateStudentMatcher.jaroWinkler("martha", "marhta"), 0.001);
+        assertEquals(0.840, DuplicateStudentMatcher.jaroWinkler("dwayne", "duane"), 0.001);
+        assertEquals(0.813, DuplicateStudentMatcher.jaroWinkler("dixon", "dicksonx"), 0.001);
+        assertEquals("zoeoneil", DuplicateStudentMatcher.fold("Zoë O'Neil"));
+    }
+
+    @Test
+    @DisplayName("Blocking finds every pair a full pairwise comparison finds, over shared keys")
+    void blockingMatchesPairwiseComparison() {
+        // Given: few names, birthdays and mobiles, so many students share blocks
+        String[] firstNames = {"anna", "ana", "hannah", "john", "jon", "joan"};
+        String[] lastNames = {"smith", "smyth", "schmidt", "li", "lee"};
+        Random random = new Random(7);
+        List<DuplicateStudentMatcher.StudentRow> rows = new ArrayList<>();
+        for (long id = 1; id <= 400; id++) {
+            rows.add(DuplicateStudentMatcher.StudentRow.of(id, firstNames[random.nextInt(firstNames.length)],
+                    lastNames[random.nextInt(lastNames.length)], "s" + random.nextInt(50) + "@example.com",
+                    random.nextBoolean() ? null : LocalDate.of(2000, 1, 1 + random.nextInt(5)),
+                    random.nextBoolean() ? null : "555-01" + (10 + random.nextInt(10))));
+        }
+        DuplicateStudentMatcher matcher = new DuplicateStudentMatcher(0.8, 10_000, 4);
+
+        // When
+        DuplicateStudentMatcher.Result result = matcher.match(rows, (a, b) -> false);
+
+        // Then: each pair sharing a block key is compared exactly once
+        Set<List<Long>> expected = new HashSet<>();
+        long sharingPairs = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            for (int j = i + 1; j < rows.size(); j++) {
+                if (sharesKey(rows.get(i), rows.get(j))) {
+                    sharingPairs++;
+                    DuplicateStudentMatcher.Match match = DuplicateStudentMatcher.score(rows.get(i), rows.get(j));
+                    if (match.score() >= 0.8) {
+                        expected.add(List.of(match.studentId(), match.otherStudentId()));
+                    }
+                }
+            }
+        }
+        assertEquals(sharingPairs, result.comparisons());
+        assertEquals(expected, new HashSet<>(result.matches().stream()
+                .map(match -> List.of(match.studentId(), match.otherStudentId())).toList()));
+        assertEquals(expected.size(), result.matches().size());
+    }
+
+    @Test
+    @DisplayName("The report endpoint pages pending pairs and the review endpoint records decisions")
+    void reportEndpoints() throws Exception {
+        duplicateStudentService.detect();
+        Long candidateId = report(DuplicateCandidate.Status.PENDING).get(0).candidateId();
+
+        mockMvc.perform(get("/api/students/duplicates").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(jsonPath("$.content[0].status").value("PENDING"));
+        mockMvc.perform(put("/api/students/duplicates/{id}/review", candidateId).param("status", "CONFIRMED"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("CONFIRMED"));
+        mockMvc.perform(put("/api/students/duplicates/{id}/review", candidateId).param("status", "PENDING"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(put("/api/students/duplicates/{id}/review", -1L).param("status", "DISMISSED"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/students/duplicates/detection"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("COMPLETED"));
+    }
+
+    private List<DuplicateStudentPair> report(DuplicateCandidate.Status status) {
+        return duplicateStudentService.getReport(status, PageRequest.of(0, 100)).getContent();
+    }
+
+    private static Set<Set<Long>> pairs(List<DuplicateStudentPair> report) {
+        Set<Set<Long>> pairs = new HashSet<>();
+        report.forEach(pair -> pairs.add(Set.of(pair.student().studentId(), pair.otherStudent().studentId())));
+        return pairs;
+    }
+
+    private static boolean sharesKey(DuplicateStudentMatcher.StudentRow a, DuplicateStudentMatcher.StudentRow b) {
+        for (int key : DuplicateStudentMatcher.blockingKeys(a)) {
+            for (int other : DuplicateStudentMatcher.blockingKeys(b)) {
+                if (key == other) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private Student student(String firstName, String lastName, String email, LocalDate dateOfBirth, String mobile) {
+        return studentRepository.save(Student.builder()
+                .firstName(firstName)
+                .lastName(lastName)
+                .emailId(email)
+                .dateOfBirth(dateOfBirth)
+                .guardian(mobile == null ? null : Guardian.builder().name("Guardian " + lastName).mobile(mobile).build())
+                .build());
+    }
+}
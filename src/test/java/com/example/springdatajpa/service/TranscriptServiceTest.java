@@ -0,0 +1,156 @@
+package com.example.springdatajpa.service;
+
+import com.example.springdatajpa.dto.StudentTranscript;
+import com.example.springdatajpa.dto.TranscriptTerm;
+import com.example.springdatajpa.entity.Course;
+import com.example.springdatajpa.entity.Department;
+import com.example.springdatajpa.entity.Enrollment;
+import com.example.springdatajpa.entity.Student;
+import com.example.springdatajpa.repository.CourseRepository;
+import com.example.springdatajpa.repository.DepartmentRepository;
+import com.example.springdatajpa.repository.EnrollmentRepository;
+import com.example.springdatajpa.repository.StudentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Transcript Service Tests")
+class TranscriptServiceTest {
+
+    @Autowired
+    private TranscriptService transcriptService;
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Student student;
+    private Course fourCredits;
+    private Course twoCredits;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        courseRepository.deleteAll();
+        studentRepository.deleteAll();
+        departmentRepository.deleteAll();
+
+        Department department = departmentRepository.save(Department.builder()
+                .departmentName("Transcript Department")
+                .departmentCode("TRN")
+                .departmentType(Department.DepartmentType.SCIENCE)
+                .build());
+        fourCredits = courseRepository.save(course("TRN101", "4.0", department));
+        twoCredits = courseRepository.save(course("TRN102", "2.0", department));
+        student = studentRepository.save(Student.builder()
+                .firstName("Grace")
+                .lastName("Hopper")
+                .emailId("grace.transcript@example.com")
+                .build());
+    }
+
+    @Test
+    @DisplayName("Transcript groups courses by term with credit-weighted term and cumulative GPA")
+    void buildsTermsAndGpa() {
+        // Given
+        enroll(fourCredits, "Fall 2023", 2023, Enrollment.EnrollmentStatus.COMPLETED, "A", "4.0");
+        enroll(twoCredits, "Fall 2023", 2023, Enrollment.EnrollmentStatus.COMPLETED, "C", "2.0");
+        enroll(twoCredits, "Fall 2024", 2024, Enrollment.EnrollmentStatus.ACTIVE, null, null);
+
+        // When
+        StudentTranscript transcript = transcriptService.getTranscript(student.getStudentId());
+
+        // Then
+        assertEquals(2, transcript.terms().size());
+        TranscriptTerm closedTerm = transcript.terms().get(0);
+        assertEquals("Fall 2023", closedTerm.semester());
+        assertTrue(closedTerm.closed());
+        assertEquals(2, closedTerm.courses().size());
+        assertEquals("Transcript Department", closedTerm.courses().get(0).departmentName());
+        assertEquals(new BigDecimal("3.33"), closedTerm.termGpa());
+
+        TranscriptTerm openTerm = transcript.terms().get(1);
+        assertFalse(openTerm.closed());
+        assertNull(openTerm.termGpa());
+
+        assertEquals(0, new BigDecimal("6.0").compareTo(transcript.gradedCreditHours()));
+        assertEquals(new BigDecimal("3.33"), transcript.cumulativeGpa());
+    }
+
+    @Test
+    @DisplayName("Closed terms are served from the cache until an enrollment of the student changes")
+    void closedTermsAreCached() {
+        // Given
+        Enrollment graded = enroll(fourCredits, "Fall 2023", 2023, Enrollment.EnrollmentStatus.COMPLETED, "B", "3.0");
+        assertEquals(new BigDecimal("3.00"), transcriptService.getTranscript(student.getStudentId()).cumulativeGpa());
+
+        // When: a write that bypasses JPA is invisible while the closed term is cached
+        jdbcTemplate.update("UPDATE tbl_enrollment SET grade_points = 4.0 WHERE enrollment_id = ?", graded.getEnrollmentId());
+
+        // Then
+        assertEquals(new BigDecimal("3.00"), transcriptService.getTranscript(student.getStudentId()).cumulativeGpa());
+
+        // And a committed enrollment change evicts the student's cached terms
+        enrollmentService.updateGrade(graded.getEnrollmentId(), "A-", new BigDecimal("3.7"));
+        assertEquals(new BigDecimal("3.70"), transcriptService.getTranscript(student.getStudentId()).cumulativeGpa());
+    }
+
+    @Test
+    @DisplayName("Unknown student is rejected, student without enrollments gets an empty transcript")
+    void unknownAndEmptyStudents() {
+        assertThrows(IllegalArgumentException.class, () -> transcriptService.getTranscript(-1L));
+
+        StudentTranscript empty = transcriptService.getTranscript(student.getStudentId());
+        assertTrue(empty.terms().isEmpty());
+        assertNull(empty.cumulativeGpa());
+    }
+
+    private Enrollment enroll(Course course, String semester, int year, Enrollment.EnrollmentStatus status,
+                              String grade, String gradePoints) {
+        return enrollmentRepository.save(Enrollment.builder()
+                .student(student)
+                .course(course)
+                .semester(semester)
+                .academicYear(year)
+                .enrollmentDate(LocalDate.of(year, 9, 1))
+                .enrollmentStatus(status)
+                .grade(grade)
+                .gradePoints(gradePoints != null ? new BigDecimal(gradePoints) : null)
+                .build());
+    }
+
+    private static Course course(String code, String creditHours, Department department) {
+        return Course.builder()
+                .title("Course " + code)
+                .courseCode(code)
+                .creditHours(new BigDecimal(creditHours))
+                .courseLevel(Course.CourseLevel.BEGINNER)
+                .department(department)
+                .build();
+    }
+}